@@ -0,0 +1,113 @@
+package com.thughari.randomchat.build;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Build step: writes {@code .gz} and {@code .br} variants next to each script and
+ * stylesheet, for the {@code EncodedResourceResolver} in {@code WebConfig} to serve by
+ * Accept-Encoding. Runs as a single-file program during process-classes (see pom.xml):
+ * <pre>
+ * java src/build/java/com/thughari/randomchat/build/PrecompressAssets.java target/classes/static
+ * </pre>
+ * Brotli variants need the {@code brotli} command on the PATH; without it only gzip is
+ * written. A variant that would not be smaller than the original is not kept, and one
+ * newer than its original is left as it is. Discarded variants are remembered by an
+ * empty marker in a second directory (default {@code target/precompress-skipped}),
+ * outside the served assets, so they are not compressed again until the original changes.
+ */
+public class PrecompressAssets {
+
+	private static final List<String> EXTENSIONS = List.of(".js", ".css");
+
+	public static void main(String[] args) throws Exception {
+		Path root = Path.of(args.length > 0 ? args[0] : "target/classes/static");
+		Path skipped = Path.of(args.length > 1 ? args[1] : "target/precompress-skipped");
+		boolean brotli = hasBrotli();
+		if (!brotli) {
+			System.out.println("brotli not found on the PATH; writing gzip variants only");
+		}
+		List<Path> assets;
+		try (Stream<Path> files = Files.walk(root)) {
+			assets = files.filter(Files::isRegularFile)
+					.filter(file -> EXTENSIONS.stream().anyMatch(file.getFileName().toString()::endsWith))
+					.toList();
+		}
+		for (Path asset : assets) {
+			Path gzip = variant(asset, ".gz");
+			Path gzipMarker = skipped.resolve(root.relativize(gzip).toString());
+			if (isStale(gzip, asset) && isStale(gzipMarker, asset)) {
+				writeGzip(asset, gzip);
+				discardIfNotSmaller(gzip, asset, gzipMarker);
+			}
+			Path br = variant(asset, ".br");
+			Path brMarker = skipped.resolve(root.relativize(br).toString());
+			if (brotli && isStale(br, asset) && isStale(brMarker, asset)) {
+				if (!run("brotli", "--best", "--force", "--output=" + br, asset.toString())) {
+					throw new IOException("brotli failed on " + asset);
+				}
+				discardIfNotSmaller(br, asset, brMarker);
+			}
+		}
+		System.out.println("Precompressed " + assets.size() + " assets in " + root);
+	}
+
+	private static Path variant(Path asset, String extension) {
+		return asset.resolveSibling(asset.getFileName() + extension);
+	}
+
+	private static boolean isStale(Path variant, Path asset) throws IOException {
+		return !Files.exists(variant)
+				|| Files.getLastModifiedTime(variant).compareTo(Files.getLastModifiedTime(asset)) < 0;
+	}
+
+	private static void writeGzip(Path asset, Path gzip) throws IOException {
+		try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzip)) {
+			{
+				def.setLevel(Deflater.BEST_COMPRESSION);
+			}
+		}) {
+			Files.copy(asset, out);
+		}
+	}
+
+	private static void discardIfNotSmaller(Path variant, Path asset, Path marker) throws IOException {
+		if (Files.exists(variant) && Files.size(variant) >= Files.size(asset)) {
+			Files.delete(variant);
+			Files.createDirectories(marker.getParent());
+			Files.write(marker, new byte[0]);
+		} else {
+			Files.deleteIfExists(marker);
+		}
+	}
+
+	private static boolean hasBrotli() {
+		try {
+			return run("brotli", "--version");
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	private static boolean run(String... command) throws IOException {
+		Process process = new ProcessBuilder(command).redirectErrorStream(true)
+				.redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+		try {
+			if (!process.waitFor(60, TimeUnit.SECONDS)) {
+				process.destroyForcibly();
+				throw new IOException("Timed out: " + String.join(" ", command));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted: " + String.join(" ", command), e);
+		}
+		return process.exitValue() == 0;
+	}
+}
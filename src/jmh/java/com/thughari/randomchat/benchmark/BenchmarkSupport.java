@@ -0,0 +1,19 @@
+package com.thughari.randomchat.benchmark;
+
+import com.thughari.randomchat.handler.SignalingHandler;
+import com.thughari.randomchat.handler.SignalingHandlers;
+
+/**
+ * Builds {@link SignalingHandler}s whose background work runs inline on the
+ * benchmark thread, so mailbox drains and outbound writes are measured inside the
+ * benchmark method instead of on a background thread.
+ */
+final class BenchmarkSupport {
+
+	private BenchmarkSupport() {
+	}
+
+	static SignalingHandler newSignalingHandler() {
+		return SignalingHandlers.newSignalingHandler(new SignalingHandlers.DirectExecutorService());
+	}
+}
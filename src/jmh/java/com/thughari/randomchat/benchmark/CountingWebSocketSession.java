@@ -0,0 +1,29 @@
+package com.thughari.randomchat.benchmark;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.web.socket.WebSocketMessage;
+
+import com.thughari.randomchat.handler.StubWebSocketSession;
+
+/**
+ * Session stub that only counts what it is sent, so long benchmark runs do not
+ * accumulate messages.
+ */
+class CountingWebSocketSession extends StubWebSocketSession {
+
+	private final LongAdder sent = new LongAdder();
+
+	CountingWebSocketSession(String id) {
+		super(id);
+	}
+
+	@Override
+	public void sendMessage(WebSocketMessage<?> message) {
+		sent.increment();
+	}
+
+	long getSentCount() {
+		return sent.sum();
+	}
+}
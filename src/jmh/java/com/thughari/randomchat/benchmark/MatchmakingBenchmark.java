@@ -0,0 +1,92 @@
+package com.thughari.randomchat.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+
+import com.thughari.randomchat.handler.SignalingHandler;
+
+/**
+ * Pairing throughput under contention: joiners cycle through ready_for_peer and
+ * leave while leavers connect, queue and close, all against one handler.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MatchmakingBenchmark {
+
+	private static final TextMessage READY = new TextMessage("{\"type\":\"ready_for_peer\"}");
+	private static final TextMessage LEAVE = new TextMessage("{\"type\":\"leave\"}");
+
+	@State(Scope.Group)
+	public static class Server {
+
+		SignalingHandler handler;
+		final AtomicInteger sessionIds = new AtomicInteger();
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			handler = BenchmarkSupport.newSignalingHandler();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Joiner {
+
+		private static final int SESSIONS = 64;
+
+		final CountingWebSocketSession[] sessions = new CountingWebSocketSession[SESSIONS];
+		int next;
+
+		@Setup(Level.Trial)
+		public void setUp(Server server) {
+			for (int i = 0; i < SESSIONS; i++) {
+				sessions[i] = new CountingWebSocketSession("j" + server.sessionIds.incrementAndGet());
+				server.handler.afterConnectionEstablished(sessions[i]);
+			}
+		}
+
+		CountingWebSocketSession nextSession() {
+			CountingWebSocketSession session = sessions[next];
+			next = (next + 1) % SESSIONS;
+			return session;
+		}
+	}
+
+	@Benchmark
+	@Group("churn")
+	@GroupThreads(4)
+	public void readyThenLeave(Server server, Joiner joiner) throws Exception {
+		CountingWebSocketSession session = joiner.nextSession();
+		server.handler.handleMessage(session, READY);
+		server.handler.handleMessage(session, LEAVE);
+	}
+
+	@Benchmark
+	@Group("churn")
+	@GroupThreads(4)
+	public void connectReadyClose(Server server) throws Exception {
+		CountingWebSocketSession session = new CountingWebSocketSession("c" + server.sessionIds.incrementAndGet());
+		server.handler.afterConnectionEstablished(session);
+		server.handler.handleMessage(session, READY);
+		session.close(CloseStatus.GOING_AWAY);
+		server.handler.afterConnectionClosed(session, CloseStatus.GOING_AWAY);
+	}
+}
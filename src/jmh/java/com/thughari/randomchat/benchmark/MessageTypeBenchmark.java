@@ -0,0 +1,59 @@
+package com.thughari.randomchat.benchmark;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thughari.randomchat.handler.MessageTypeExtractor;
+import com.thughari.randomchat.handler.SignalingPayloads;
+
+/**
+ * Reading the type of a signaling message by peeking at its first field versus
+ * deserializing it into a map. Run with {@code -prof gc} for allocation per message.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class MessageTypeBenchmark {
+
+	private static final TypeReference<Map<String, Object>> MAP = new TypeReference<>() {
+	};
+
+	@Param({ "offer", "ice" })
+	public String message;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private String payload;
+
+	@Setup
+	public void setUp() {
+		payload = "offer".equals(message) ? SignalingPayloads.OFFER : SignalingPayloads.ICE;
+	}
+
+	@Benchmark
+	public String peek() throws IOException {
+		return MessageTypeExtractor.extractType(payload);
+	}
+
+	@Benchmark
+	public Object fullParse() throws IOException {
+		return objectMapper.readValue(payload, MAP).get("type");
+	}
+}
@@ -0,0 +1,77 @@
+package com.thughari.randomchat.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.socket.TextMessage;
+
+import com.thughari.randomchat.handler.SignalingHandler;
+import com.thughari.randomchat.handler.SignalingPayloads;
+
+/**
+ * Latency of one relayed frame through handleTextMessage, from inbound frame to the
+ * peer's session, for realistic SDP and ICE payloads. Run with {@code -prof gc} for
+ * allocation per frame.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class RelayBenchmark {
+
+	private static final TextMessage OFFER = new TextMessage(SignalingPayloads.OFFER);
+	private static final TextMessage ANSWER = new TextMessage(SignalingPayloads.ANSWER);
+	private static final TextMessage ICE = new TextMessage(SignalingPayloads.ICE);
+	private static final TextMessage MEDIA_STATUS = new TextMessage(SignalingPayloads.MEDIA_STATUS);
+
+	private SignalingHandler handler;
+	private CountingWebSocketSession caller;
+	private CountingWebSocketSession callee;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		handler = BenchmarkSupport.newSignalingHandler();
+		caller = new CountingWebSocketSession("caller");
+		callee = new CountingWebSocketSession("callee");
+		handler.afterConnectionEstablished(caller);
+		handler.afterConnectionEstablished(callee);
+		handler.handleMessage(caller, new TextMessage("{\"type\":\"ready_for_peer\"}"));
+		handler.handleMessage(callee, new TextMessage("{\"type\":\"ready_for_peer\"}"));
+	}
+
+	@Benchmark
+	public long offer() throws Exception {
+		handler.handleMessage(caller, OFFER);
+		return callee.getSentCount();
+	}
+
+	@Benchmark
+	public long answer() throws Exception {
+		handler.handleMessage(callee, ANSWER);
+		return caller.getSentCount();
+	}
+
+	@Benchmark
+	public long ice() throws Exception {
+		handler.handleMessage(caller, ICE);
+		return callee.getSentCount();
+	}
+
+	@Benchmark
+	public long mediaStatus() throws Exception {
+		handler.handleMessage(caller, MEDIA_STATUS);
+		return callee.getSentCount();
+	}
+}
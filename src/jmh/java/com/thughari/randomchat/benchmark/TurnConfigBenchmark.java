@@ -0,0 +1,83 @@
+package com.thughari.randomchat.benchmark;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.thughari.randomchat.component.TurnConfigMetrics;
+import com.thughari.randomchat.component.TwilioHttpClient;
+import com.thughari.randomchat.journal.EventJournal;
+import com.thughari.randomchat.service.IceServersSnapshot;
+import com.thughari.randomchat.service.SharedSecretIceServerProvider;
+import com.thughari.randomchat.service.TwilioIceServerProvider;
+import com.thughari.randomchat.service.TwilioTurnService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * The cached Twilio path of {@link TwilioTurnService#getTwilioIceServers()}, hit by every
+ * new visitor, and locally minted shared-secret credentials. Twilio is replaced by a
+ * canned Tokens API response.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(4)
+@State(Scope.Benchmark)
+public class TurnConfigBenchmark {
+
+	static final String TOKENS_RESPONSE = """
+			{"username":"u","password":"p","ttl":"86400","ice_servers":[
+			{"url":"stun:global.stun.twilio.com:3478","urls":"stun:global.stun.twilio.com:3478"},
+			{"url":"turn:global.turn.twilio.com:3478?transport=udp","username":"u","urls":"turn:global.turn.twilio.com:3478?transport=udp","credential":"c"},
+			{"url":"turn:global.turn.twilio.com:3478?transport=tcp","username":"u","urls":"turn:global.turn.twilio.com:3478?transport=tcp","credential":"c"},
+			{"url":"turn:global.turn.twilio.com:443?transport=tcp","username":"u","urls":"turn:global.turn.twilio.com:443?transport=tcp","credential":"c"}]}
+			""";
+
+	private TwilioTurnService turnService;
+	private SharedSecretIceServerProvider sharedSecretProvider;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		TurnConfigMetrics metrics = new TurnConfigMetrics(new SimpleMeterRegistry());
+		TwilioIceServerProvider twilio = new TwilioIceServerProvider(new TwilioHttpClient() {
+			@Override
+			public Mono<String> fetchTwilioTokens() {
+				return Mono.just(TOKENS_RESPONSE);
+			}
+		}, metrics, 0.8, 5_000, 300_000, 3_000);
+		turnService = new TwilioTurnService(List.of(twilio), metrics, new EventJournal(1024), List.of("twilio"));
+		turnService.getTwilioIceServers();
+		sharedSecretProvider = new SharedSecretIceServerProvider("benchmark-secret",
+				List.of("turn:turn.example.com:3478?transport=udp", "turn:turn.example.com:3478?transport=tcp"), 3600);
+	}
+
+	@Benchmark
+	public List<Map<String, String>> cachedIceServers() {
+		return turnService.getTwilioIceServers();
+	}
+
+	/**
+	 * Per-request HMAC credentials, including serializing them for the response.
+	 */
+	@Benchmark
+	public IceServersSnapshot sharedSecretCredentials() {
+		return sharedSecretProvider.getIceServers();
+	}
+}
@@ -0,0 +1,40 @@
+package com.thughari.randomchat.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Collects latency samples in microseconds and reports percentiles at the end of a run.
+ */
+class LatencyRecorder {
+
+	private final String name;
+	private long[] samples = new long[1024];
+	private int count;
+
+	LatencyRecorder(String name) {
+		this.name = name;
+	}
+
+	synchronized void record(long nanos) {
+		if (count == samples.length) {
+			samples = Arrays.copyOf(samples, count * 2);
+		}
+		samples[count++] = nanos / 1_000;
+	}
+
+	synchronized String summary() {
+		if (count == 0) {
+			return String.format("%-16s no samples", name);
+		}
+		long[] sorted = Arrays.copyOf(samples, count);
+		Arrays.sort(sorted);
+		return String.format("%-16s n=%-8d p50=%8.2f ms  p90=%8.2f ms  p99=%8.2f ms  p99.9=%8.2f ms  max=%8.2f ms",
+				name, count, percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99),
+				percentile(sorted, 99.9), sorted[count - 1] / 1000.0);
+	}
+
+	private static double percentile(long[] sorted, double percentile) {
+		int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1000.0;
+	}
+}
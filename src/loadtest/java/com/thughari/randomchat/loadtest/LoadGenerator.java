@@ -0,0 +1,92 @@
+package com.thughari.randomchat.loadtest;
+
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens N WebSocket connections to a running RandomChat instance and drives them
+ * through the pairing/"next" loop, then reports time-to-pair and relay latency
+ * percentiles, connection limits and errors.
+ *
+ * Usage (against an app started with ./mvnw spring-boot:run):
+ * <pre>
+ * ./mvnw -Ploadtest -DskipTests verify -Dloadtest.args="clients=2000 ramp-seconds=20 duration-seconds=60"
+ * </pre>
+ * Options: url, clients, ramp-seconds, duration-seconds, hold-ms, ice, connect-timeout-seconds.
+ */
+public class LoadGenerator {
+
+	public static void main(String[] args) throws Exception {
+		LoadTestSettings settings = LoadTestSettings.parse(args);
+		LoadTestStats stats = new LoadTestStats();
+
+		System.out.printf("Load test: %d clients -> %s, ramp %ds, run %ds, hold %d ms, %d ICE candidates per side%n",
+				settings.clients(), settings.url(), settings.ramp().toSeconds(), settings.duration().toSeconds(),
+				settings.holdMillis(), settings.iceCandidates());
+
+		ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+		ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+		HttpClient httpClient = HttpClient.newBuilder().executor(executor).build();
+
+		List<SimulatedClient> clients = new ArrayList<>(settings.clients());
+		List<CompletableFuture<Void>> connects = new ArrayList<>(settings.clients());
+		long rampNanosPerClient = settings.ramp().toNanos() / Math.max(1, settings.clients());
+		long start = System.nanoTime();
+
+		scheduler.scheduleAtFixedRate(() -> printProgress(stats, start), 5, 5, TimeUnit.SECONDS);
+
+		for (int i = 0; i < settings.clients(); i++) {
+			long due = start + i * rampNanosPerClient;
+			long wait = due - System.nanoTime();
+			if (wait > 0) {
+				TimeUnit.NANOSECONDS.sleep(wait);
+			}
+			SimulatedClient client = new SimulatedClient(i, settings, stats, scheduler);
+			clients.add(client);
+			connects.add(client.connect(httpClient));
+		}
+		CompletableFuture.allOf(connects.toArray(CompletableFuture[]::new)).join();
+
+		long remaining = start + settings.ramp().toNanos() + settings.duration().toNanos() - System.nanoTime();
+		if (remaining > 0) {
+			TimeUnit.NANOSECONDS.sleep(remaining);
+		}
+
+		clients.forEach(SimulatedClient::stop);
+		TimeUnit.SECONDS.sleep(2);
+		scheduler.shutdownNow();
+
+		printReport(stats, System.nanoTime() - start);
+		executor.shutdownNow();
+		System.exit(0);
+	}
+
+	private static void printProgress(LoadTestStats stats, long start) {
+		System.out.printf("[%4ds] open=%d pairs=%d sent=%d received=%d errors=%d%n",
+				TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start), stats.openConnections.get(),
+				stats.pairs.sum(), stats.framesSent.sum(), stats.framesReceived.sum(),
+				stats.connectFailures.sum() + stats.unexpectedCloses.sum() + stats.sendFailures.sum());
+	}
+
+	private static void printReport(LoadTestStats stats, long elapsedNanos) {
+		double seconds = elapsedNanos / 1e9;
+		System.out.println();
+		System.out.println("=== RandomChat load test report ===");
+		System.out.printf("elapsed            %.1f s%n", seconds);
+		System.out.printf("connections        attempted=%d failed=%d peak-open=%d%n",
+				stats.connectAttempts.sum(), stats.connectFailures.sum(), stats.peakOpenConnections.get());
+		System.out.printf("pairings           %d (%.1f/s, counted per side)%n", stats.pairs.sum(), stats.pairs.sum() / seconds);
+		System.out.printf("frames             sent=%d received=%d (%.0f/s received)%n",
+				stats.framesSent.sum(), stats.framesReceived.sum(), stats.framesReceived.sum() / seconds);
+		System.out.printf("errors             unexpected-closes=%d send-failures=%d protocol=%d partner-leaves=%d%n",
+				stats.unexpectedCloses.sum(), stats.sendFailures.sum(), stats.protocolErrors.sum(), stats.partnerLeaves.sum());
+		System.out.println(stats.timeToPair.summary());
+		System.out.println(stats.relayLatency.summary());
+	}
+}
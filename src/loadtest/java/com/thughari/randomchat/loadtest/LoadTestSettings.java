@@ -0,0 +1,31 @@
+package com.thughari.randomchat.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command-line options, given as {@code key=value} pairs.
+ */
+record LoadTestSettings(String url, int clients, Duration ramp, Duration duration, long holdMillis,
+		int iceCandidates, Duration connectTimeout) {
+
+	static LoadTestSettings parse(String[] args) {
+		Map<String, String> options = new HashMap<>();
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (separator < 0) {
+				throw new IllegalArgumentException("Expected key=value, got: " + arg);
+			}
+			options.put(arg.substring(0, separator).replaceFirst("^--", ""), arg.substring(separator + 1));
+		}
+		return new LoadTestSettings(
+				options.getOrDefault("url", "ws://localhost:8080/ws"),
+				Integer.parseInt(options.getOrDefault("clients", "1000")),
+				Duration.ofSeconds(Long.parseLong(options.getOrDefault("ramp-seconds", "10"))),
+				Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration-seconds", "60"))),
+				Long.parseLong(options.getOrDefault("hold-ms", "2000")),
+				Integer.parseInt(options.getOrDefault("ice", "8")),
+				Duration.ofSeconds(Long.parseLong(options.getOrDefault("connect-timeout-seconds", "10"))));
+	}
+}
@@ -0,0 +1,33 @@
+package com.thughari.randomchat.loadtest;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters shared by every simulated client.
+ */
+class LoadTestStats {
+
+	final LatencyRecorder timeToPair = new LatencyRecorder("time-to-pair");
+	final LatencyRecorder relayLatency = new LatencyRecorder("relay latency");
+
+	final LongAdder connectAttempts = new LongAdder();
+	final LongAdder connectFailures = new LongAdder();
+	final AtomicInteger openConnections = new AtomicInteger();
+	final AtomicInteger peakOpenConnections = new AtomicInteger();
+	final LongAdder unexpectedCloses = new LongAdder();
+	final LongAdder sendFailures = new LongAdder();
+	final LongAdder pairs = new LongAdder();
+	final LongAdder framesSent = new LongAdder();
+	final LongAdder framesReceived = new LongAdder();
+	final LongAdder partnerLeaves = new LongAdder();
+	final LongAdder protocolErrors = new LongAdder();
+
+	void connectionOpened() {
+		peakOpenConnections.accumulateAndGet(openConnections.incrementAndGet(), Math::max);
+	}
+
+	void connectionClosed() {
+		openConnections.decrementAndGet();
+	}
+}
@@ -0,0 +1,219 @@
+package com.thughari.randomchat.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the servlet and reactive signaling runtimes head to head. For each runtime it
+ * starts the plain jar with a fixed heap and measures:
+ * <ul>
+ * <li>retained heap per idle connection, from the live heap with and
+ * without {@code idle} open connections, reported as connections per GB of heap</li>
+ * <li>relay latency, from {@code clients} simulated users pairing, exchanging offer,
+ * answer and ICE, and skipping to new partners for {@code duration-seconds}</li>
+ * </ul>
+ * Usage, after {@code ./mvnw -DskipTests package}:
+ * <pre>
+ * ./mvnw -Ploadtest -DskipTests verify -Dloadtest.main=com.thughari.randomchat.loadtest.RuntimeComparison -Dloadtest.args="idle=5000 clients=500"
+ * </pre>
+ * Options: runtimes, idle, clients, duration-seconds, hold-ms, ice, heap, port, jar,
+ * timeout-seconds. Each run's output goes to target/runtime-RUNTIME.log.
+ */
+public class RuntimeComparison {
+
+	// Last line of a class histogram: Total <instances> <bytes>
+	private static final Pattern HISTOGRAM_TOTAL = Pattern.compile("Total\\s+\\d+\\s+(\\d+)");
+	private static final long GIB = 1L << 30;
+
+	private record Result(long bytesPerConnection, String relayLatency, long relayFrames, long errors) {
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (separator < 0) {
+				throw new IllegalArgumentException("Expected key=value, got: " + arg);
+			}
+			options.put(arg.substring(0, separator).replaceFirst("^--", ""), arg.substring(separator + 1));
+		}
+		List<String> runtimes = Arrays.asList(options.getOrDefault("runtimes", "servlet,reactive").split(","));
+		int idle = Integer.parseInt(options.getOrDefault("idle", "5000"));
+		int clients = Integer.parseInt(options.getOrDefault("clients", "500"));
+		Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration-seconds", "30")));
+		long holdMillis = Long.parseLong(options.getOrDefault("hold-ms", "1000"));
+		int iceCandidates = Integer.parseInt(options.getOrDefault("ice", "8"));
+		String heap = options.getOrDefault("heap", "1g");
+		int port = Integer.parseInt(options.getOrDefault("port", "18080"));
+		String jar = options.getOrDefault("jar", "randomchat-0.0.1-SNAPSHOT.jar");
+		Duration timeout = Duration.ofSeconds(Long.parseLong(options.getOrDefault("timeout-seconds", "120")));
+
+		ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+		HttpClient httpClient = HttpClient.newBuilder().executor(executor).build();
+		Map<String, Result> results = new LinkedHashMap<>();
+		for (String runtime : runtimes) {
+			// The reactive runtime serves /ws on a port of its own
+			int wsPort = "reactive".equals(runtime) ? port + 1 : port;
+			URI url = URI.create("ws://localhost:" + wsPort + "/ws");
+			Path log = Path.of("target", "runtime-" + runtime + ".log");
+			Files.createDirectories(log.getParent());
+			Process process = new ProcessBuilder(command(runtime, jar, heap, port, idle + clients))
+					.redirectErrorStream(true).redirectOutput(log.toFile()).start();
+			try {
+				awaitHandshake(process, httpClient, url, timeout, log);
+				System.out.printf("%s: measuring heap with %d idle connections%n", runtime, idle);
+				long bytesPerConnection = heapPerConnection(process.pid(), httpClient, url, idle);
+				System.out.printf("%s: relaying for %d clients over %d s%n", runtime, clients, duration.toSeconds());
+				LoadTestStats stats = relay(httpClient, url, clients, duration, holdMillis, iceCandidates);
+				results.put(runtime, new Result(bytesPerConnection, stats.relayLatency.summary(),
+						stats.framesReceived.sum(), stats.connectFailures.sum() + stats.unexpectedCloses.sum()));
+			} finally {
+				process.destroy();
+				if (!process.waitFor(60, TimeUnit.SECONDS)) {
+					process.destroyForcibly().waitFor();
+				}
+			}
+		}
+
+		System.out.println();
+		System.out.printf("=== Signaling runtimes, -Xmx%s, %d idle connections, %d relaying clients ===%n", heap, idle,
+				clients);
+		for (Map.Entry<String, Result> entry : results.entrySet()) {
+			Result result = entry.getValue();
+			System.out.printf("%-9s heap/connection %6d B  connections/GB %,10d  frames %,d  errors %d%n", entry.getKey(),
+					result.bytesPerConnection(), GIB / Math.max(1, result.bytesPerConnection()), result.relayFrames(),
+					result.errors());
+			System.out.printf("%-9s %s%n", "", result.relayLatency());
+		}
+		executor.shutdownNow();
+		System.exit(0);
+	}
+
+	private static List<String> command(String runtime, String jar, String heap, int port, int maxConnections) {
+		String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+		return List.of(java, "-Xms" + heap, "-Xmx" + heap, "-jar", "target/" + jar,
+				"--server.port=" + port,
+				"--app.signaling.runtime=" + runtime,
+				"--app.signaling.reactive.port=" + (port + 1),
+				// The run opens connections far faster than real users arrive
+				"--app.admission.max-connections=" + (maxConnections + 100),
+				"--app.admission.handshake.rate-per-second=100000",
+				"--app.admission.handshake.burst=100000",
+				"--app.admission.messages.pairing.rate-per-second=1000",
+				"--app.admission.messages.pairing.burst=1000",
+				"--app.admission.messages.ice.rate-per-second=100000",
+				"--app.admission.messages.ice.burst=100000");
+	}
+
+	private static void awaitHandshake(Process process, HttpClient httpClient, URI url, Duration timeout, Path log)
+			throws Exception {
+		long deadline = System.nanoTime() + timeout.toNanos();
+		while (System.nanoTime() < deadline) {
+			if (!process.isAlive()) {
+				throw new IllegalStateException("App exited with " + process.exitValue() + "; see " + log);
+			}
+			try {
+				WebSocket webSocket = httpClient.newWebSocketBuilder().buildAsync(url, new WebSocket.Listener() {
+				}).join();
+				webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "").join();
+				return;
+			} catch (RuntimeException e) {
+				// Not listening yet
+				TimeUnit.MILLISECONDS.sleep(100);
+			}
+		}
+		throw new IllegalStateException("No handshake accepted within " + timeout + "; see " + log);
+	}
+
+	/**
+	 * Live heap with the connections open, less the same without them.
+	 */
+	private static long heapPerConnection(long pid, HttpClient httpClient, URI url, int connections) throws Exception {
+		// Lets the handshake probe's session close and the JIT settle before the baseline
+		TimeUnit.SECONDS.sleep(2);
+		long before = liveHeapBytes(pid);
+		List<CompletableFuture<WebSocket>> opening = new ArrayList<>(connections);
+		for (int i = 0; i < connections; i++) {
+			opening.add(httpClient.newWebSocketBuilder().buildAsync(url, new WebSocket.Listener() {
+			}));
+			if (i % 100 == 99) {
+				// Keeps the accept backlog from overflowing
+				CompletableFuture.allOf(opening.subList(i - 99, i + 1).toArray(CompletableFuture[]::new)).join();
+			}
+		}
+		List<WebSocket> open = new ArrayList<>(connections);
+		for (CompletableFuture<WebSocket> future : opening) {
+			open.add(future.join());
+		}
+		long after = liveHeapBytes(pid);
+		for (WebSocket webSocket : open) {
+			webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "");
+		}
+		TimeUnit.SECONDS.sleep(2);
+		return (after - before) / connections;
+	}
+
+	/**
+	 * @return Bytes reachable on the heap; the histogram is taken after a full GC, whichever
+	 *         collector the app runs with.
+	 */
+	private static long liveHeapBytes(long pid) throws Exception {
+		long live = Long.MAX_VALUE;
+		for (int i = 0; i < 3; i++) {
+			Matcher matcher = HISTOGRAM_TOTAL.matcher(jcmd(pid, "GC.class_histogram"));
+			if (!matcher.find()) {
+				throw new IllegalStateException("Unexpected GC.class_histogram output");
+			}
+			live = Math.min(live, Long.parseLong(matcher.group(1)));
+		}
+		return live;
+	}
+
+	private static String jcmd(long pid, String command) throws Exception {
+		String jcmd = Path.of(System.getProperty("java.home"), "bin", "jcmd").toString();
+		Process process = new ProcessBuilder(jcmd, Long.toString(pid), command).redirectErrorStream(true).start();
+		String output = new String(process.getInputStream().readAllBytes());
+		if (process.waitFor() != 0) {
+			throw new IllegalStateException("jcmd " + command + " failed: " + output);
+		}
+		return output;
+	}
+
+	private static LoadTestStats relay(HttpClient httpClient, URI url, int clients, Duration duration, long holdMillis,
+			int iceCandidates) throws Exception {
+		LoadTestSettings settings = new LoadTestSettings(url.toString(), clients, Duration.ZERO, duration, holdMillis,
+				iceCandidates, Duration.ofSeconds(10));
+		LoadTestStats stats = new LoadTestStats();
+		ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+		List<SimulatedClient> simulated = new ArrayList<>(clients);
+		List<CompletableFuture<Void>> connects = new ArrayList<>(clients);
+		for (int i = 0; i < clients; i++) {
+			SimulatedClient client = new SimulatedClient(i, settings, stats, scheduler);
+			simulated.add(client);
+			connects.add(client.connect(httpClient));
+		}
+		CompletableFuture.allOf(connects.toArray(CompletableFuture[]::new)).join();
+		TimeUnit.NANOSECONDS.sleep(duration.toNanos());
+		simulated.forEach(SimulatedClient::stop);
+		TimeUnit.SECONDS.sleep(2);
+		scheduler.shutdownNow();
+		return stats;
+	}
+}
@@ -0,0 +1,198 @@
+package com.thughari.randomchat.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * One synthetic chat user driving the same protocol as script.js: ready_for_peer,
+ * offer/answer and trickle ICE once paired, then "next" to a new partner after holding
+ * the call for a while.
+ */
+class SimulatedClient implements WebSocket.Listener {
+
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final int index;
+	private final LoadTestSettings settings;
+	private final LoadTestStats stats;
+	private final ScheduledExecutorService scheduler;
+	private final StringBuilder partial = new StringBuilder();
+
+	private WebSocket webSocket;
+	private CompletableFuture<?> sendChain = CompletableFuture.completedFuture(null);
+	private volatile long readySentAt;
+	private volatile boolean stopping;
+
+	SimulatedClient(int index, LoadTestSettings settings, LoadTestStats stats, ScheduledExecutorService scheduler) {
+		this.index = index;
+		this.settings = settings;
+		this.stats = stats;
+		this.scheduler = scheduler;
+	}
+
+	CompletableFuture<Void> connect(HttpClient httpClient) {
+		stats.connectAttempts.increment();
+		return httpClient.newWebSocketBuilder()
+				.connectTimeout(settings.connectTimeout())
+				.buildAsync(URI.create(settings.url()), this)
+				.handle((ws, error) -> {
+					if (error != null) {
+						stats.connectFailures.increment();
+					}
+					return null;
+				});
+	}
+
+	void stop() {
+		stopping = true;
+		WebSocket ws = webSocket;
+		if (ws != null && !ws.isOutputClosed()) {
+			send("{\"type\":\"leave\"}");
+			synchronized (this) {
+				sendChain = sendChain.thenCompose(v -> ws.sendClose(WebSocket.NORMAL_CLOSURE, "load test finished"));
+			}
+		}
+	}
+
+	@Override
+	public void onOpen(WebSocket webSocket) {
+		this.webSocket = webSocket;
+		stats.connectionOpened();
+		queueForPartner();
+		webSocket.request(1);
+	}
+
+	@Override
+	public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+		partial.append(data);
+		if (last) {
+			String message = partial.toString();
+			partial.setLength(0);
+			stats.framesReceived.increment();
+			try {
+				handle(objectMapper.readTree(message));
+			} catch (Exception e) {
+				stats.protocolErrors.increment();
+			}
+		}
+		webSocket.request(1);
+		return null;
+	}
+
+	@Override
+	public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+		stats.connectionClosed();
+		if (!stopping) {
+			stats.unexpectedCloses.increment();
+		}
+		return null;
+	}
+
+	@Override
+	public void onError(WebSocket webSocket, Throwable error) {
+		stats.connectionClosed();
+		if (!stopping) {
+			stats.unexpectedCloses.increment();
+		}
+	}
+
+	private void handle(JsonNode message) {
+		long now = System.nanoTime();
+		switch (message.path("type").asText()) {
+		case "initiateOffer" -> {
+			paired(now);
+			send("{\"type\":\"offer\",\"offer\":{\"type\":\"offer\",\"sdp\":\"" + SyntheticSdp.OFFER + "\"},\"ts\":" + System.nanoTime() + "}");
+			sendIceCandidates();
+		}
+		case "waitForOffer" -> paired(now);
+		case "offer" -> {
+			recordRelay(message.path("ts"), now);
+			send("{\"type\":\"answer\",\"answer\":{\"type\":\"answer\",\"sdp\":\"" + SyntheticSdp.ANSWER + "\"},\"ts\":" + System.nanoTime() + "}");
+			sendIceCandidates();
+		}
+		case "answer" -> {
+			recordRelay(message.path("ts"), now);
+			scheduler.schedule(this::next, settings.holdMillis(), TimeUnit.MILLISECONDS);
+		}
+		case "ice" -> recordRelay(message.path("candidate").path("ts"), now);
+		case "ice_batch" -> {
+			for (JsonNode candidate : message.path("candidates")) {
+				recordRelay(candidate.path("ts"), now);
+			}
+		}
+		case "leave" -> {
+			stats.partnerLeaves.increment();
+			queueForPartner();
+		}
+		case "media_status" -> {
+		}
+		case "reconnect" -> {
+			// The server is draining; the load test keeps its connections until it ends
+		}
+		case "session" -> {
+			// Resume token; simulated clients never resume
+		}
+		default -> stats.protocolErrors.increment();
+		}
+	}
+
+	private void paired(long now) {
+		stats.pairs.increment();
+		stats.timeToPair.record(now - readySentAt);
+	}
+
+	private void next() {
+		if (stopping) {
+			return;
+		}
+		// The server re-queues us; no ready_for_peer needed
+		readySentAt = System.nanoTime();
+		send("{\"type\":\"next\"}");
+	}
+
+	private void queueForPartner() {
+		if (stopping) {
+			return;
+		}
+		readySentAt = System.nanoTime();
+		send("{\"type\":\"ready_for_peer\"}");
+	}
+
+	private void sendIceCandidates() {
+		for (int i = 0; i < settings.iceCandidates(); i++) {
+			send("{\"type\":\"ice\",\"candidate\":{\"candidate\":\"candidate:" + index + i
+					+ " 1 udp 2122260223 10.0." + (index % 250) + "." + i + " " + (50000 + i)
+					+ " typ host generation 0 ufrag lt" + index + "\",\"sdpMid\":\"0\",\"sdpMLineIndex\":0,\"ts\":"
+					+ System.nanoTime() + "}}");
+		}
+	}
+
+	private void recordRelay(JsonNode sentAt, long receivedAt) {
+		if (sentAt.isNumber()) {
+			stats.relayLatency.record(receivedAt - sentAt.asLong());
+		}
+	}
+
+	private synchronized void send(String text) {
+		WebSocket ws = webSocket;
+		if (ws == null || ws.isOutputClosed()) {
+			return;
+		}
+		stats.framesSent.increment();
+		// java.net.http.WebSocket allows only one outstanding send, so chain them
+		sendChain = sendChain
+				.thenCompose(v -> ws.sendText(text, true))
+				.exceptionally(error -> {
+					stats.sendFailures.increment();
+					return null;
+				});
+	}
+}
@@ -0,0 +1,120 @@
+package com.thughari.randomchat.loadtest;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures cold starts: launches the app in each mode, records the time from launching the
+ * process to the first accepted {@code /ws} handshake, stops it, and repeats.
+ *
+ * Modes, each needing its build first:
+ * <ul>
+ * <li>{@code jar} – the plain jar ({@code ./mvnw -DskipTests package})</li>
+ * <li>{@code cds} – the AOT-processed jar with its CDS archive ({@code ./mvnw -Pcds -DskipTests package})</li>
+ * <li>{@code native} – the native executable ({@code ./mvnw -Pnative -DskipTests native:compile})</li>
+ * </ul>
+ * Usage:
+ * <pre>
+ * ./mvnw -Ploadtest -DskipTests verify -Dloadtest.main=com.thughari.randomchat.loadtest.StartupTimer -Dloadtest.args="modes=jar,cds runs=5"
+ * </pre>
+ * Options: modes, runs, port, jar, timeout-seconds. Each run's output goes to
+ * target/startup-MODE.log.
+ */
+public class StartupTimer {
+
+	private static final Duration POLL_INTERVAL = Duration.ofMillis(10);
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (separator < 0) {
+				throw new IllegalArgumentException("Expected key=value, got: " + arg);
+			}
+			options.put(arg.substring(0, separator).replaceFirst("^--", ""), arg.substring(separator + 1));
+		}
+		List<String> modes = Arrays.asList(options.getOrDefault("modes", "jar,cds").split(","));
+		int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+		int port = Integer.parseInt(options.getOrDefault("port", "18080"));
+		String jar = options.getOrDefault("jar", "randomchat-0.0.1-SNAPSHOT.jar");
+		Duration timeout = Duration.ofSeconds(Long.parseLong(options.getOrDefault("timeout-seconds", "60")));
+
+		HttpClient httpClient = HttpClient.newHttpClient();
+		URI url = URI.create("ws://localhost:" + port + "/ws");
+		Map<String, long[]> results = new HashMap<>();
+		for (String mode : modes) {
+			List<String> command = command(mode, jar, port);
+			long[] millis = new long[runs];
+			for (int run = 0; run < runs; run++) {
+				millis[run] = timeToFirstHandshake(command, httpClient, url, timeout, Path.of("target", "startup-" + mode + ".log"));
+				System.out.printf("%-6s run %d: %d ms%n", mode, run + 1, millis[run]);
+			}
+			results.put(mode, millis);
+		}
+
+		System.out.println();
+		System.out.println("=== Time to first accepted /ws handshake ===");
+		for (String mode : modes) {
+			long[] millis = results.get(mode).clone();
+			Arrays.sort(millis);
+			System.out.printf("%-6s median %5d ms  min %5d ms  max %5d ms%n", mode, millis[millis.length / 2], millis[0],
+					millis[millis.length - 1]);
+		}
+	}
+
+	private static List<String> command(String mode, String jar, int port) {
+		String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+		List<String> command = new ArrayList<>();
+		switch (mode) {
+		case "jar" -> command.addAll(List.of(java, "-jar", "target/" + jar));
+		case "cds" -> command.addAll(List.of(java, "-XX:SharedArchiveFile=target/cds/application.jsa",
+				"-Dspring.aot.enabled=true", "-jar", "target/cds/" + jar));
+		case "native" -> command.add("target/randomchat" + (File.separatorChar == '\\' ? ".exe" : ""));
+		default -> throw new IllegalArgumentException("Unknown mode: " + mode);
+		}
+		command.add("--server.port=" + port);
+		return command;
+	}
+
+	private static long timeToFirstHandshake(List<String> command, HttpClient httpClient, URI url, Duration timeout,
+			Path log) throws Exception {
+		Files.createDirectories(log.getParent());
+		long start = System.nanoTime();
+		Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+		try {
+			long deadline = start + timeout.toNanos();
+			while (System.nanoTime() < deadline) {
+				if (!process.isAlive()) {
+					throw new IllegalStateException("App exited with " + process.exitValue() + "; see " + log);
+				}
+				try {
+					WebSocket webSocket = httpClient.newWebSocketBuilder().buildAsync(url, new WebSocket.Listener() {
+					}).join();
+					long elapsed = System.nanoTime() - start;
+					webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "").join();
+					return TimeUnit.NANOSECONDS.toMillis(elapsed);
+				} catch (RuntimeException e) {
+					// Not listening yet
+					TimeUnit.NANOSECONDS.sleep(POLL_INTERVAL.toNanos());
+				}
+			}
+			throw new IllegalStateException("No handshake accepted within " + timeout + "; see " + log);
+		} finally {
+			process.destroy();
+			if (!process.waitFor(30, TimeUnit.SECONDS)) {
+				process.destroyForcibly().waitFor();
+			}
+		}
+	}
+}
@@ -0,0 +1,28 @@
+package com.thughari.randomchat.loadtest;
+
+/**
+ * SDP bodies of realistic size (about 2 KB), already JSON-escaped.
+ */
+final class SyntheticSdp {
+
+	static final String OFFER = build("actpass");
+	static final String ANSWER = build("active");
+
+	private SyntheticSdp() {
+	}
+
+	private static String build(String setup) {
+		StringBuilder sdp = new StringBuilder("v=0\\r\\no=- 4611731400430051336 2 IN IP4 127.0.0.1\\r\\ns=-\\r\\nt=0 0\\r\\n")
+				.append("a=group:BUNDLE 0 1\\r\\na=msid-semantic: WMS lt\\r\\n");
+		for (String media : new String[] { "audio 9 UDP/TLS/RTP/SAVPF 111 63 9 0 8", "video 9 UDP/TLS/RTP/SAVPF 96 97 102 103" }) {
+			sdp.append("m=").append(media).append("\\r\\nc=IN IP4 0.0.0.0\\r\\na=rtcp:9 IN IP4 0.0.0.0\\r\\n")
+					.append("a=ice-ufrag:Xk7p\\r\\na=ice-pwd:Q2pXc3l0b3BhZ2VzZWNyZXRwdw\\r\\na=ice-options:trickle\\r\\n")
+					.append("a=fingerprint:sha-256 7B:8B:F0:65:5F:78:E2:51:3B:AC:6F:F3:3F:46:1B:35:DC:B8:5F:64:1A:24:C2:43:F0:A1:58:D0:A1:2C:19:08\\r\\n")
+					.append("a=setup:").append(setup).append("\\r\\na=sendrecv\\r\\na=rtcp-mux\\r\\n");
+			for (int pt = 0; pt < 8; pt++) {
+				sdp.append("a=rtpmap:").append(96 + pt).append(" VP8/90000\\r\\na=rtcp-fb:").append(96 + pt).append(" nack pli\\r\\n");
+			}
+		}
+		return sdp.toString();
+	}
+}
@@ -2,10 +2,14 @@ package com.thughari.randomchat;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.scheduling.annotation.EnableAsync;
 
+import com.thughari.randomchat.config.NativeHints;
+
 @SpringBootApplication
 @EnableAsync
+@ImportRuntimeHints(NativeHints.class)
 public class RandomChatApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,55 @@
+package com.thughari.randomchat.cluster;
+
+/**
+ * SPI for running several signaling nodes behind one load balancer.
+ *
+ * A node pairs and relays locally whenever it can; the broker is only consulted
+ * for the cluster-wide waiting pool when the local pool is empty, and for frames
+ * whose peer lives on another node. Session ids are node-local, so remote users
+ * are always addressed with a {@link PeerAddress}.
+ */
+public interface ClusterBroker {
+
+	String getNodeId();
+
+	/**
+	 * Joins the cluster; events for this node's users are delivered to the listener.
+	 */
+	void register(ClusterListener listener);
+
+	/**
+	 * Leaves the cluster and withdraws every waiting user this node advertised.
+	 */
+	void unregister();
+
+	/**
+	 * Advertises a local user, already in the local waiting pool, to the other nodes.
+	 */
+	void publishWaiting(String userId);
+
+	/**
+	 * Removes a previously advertised local user from the cluster-wide waiting pool.
+	 */
+	void withdrawWaiting(String userId);
+
+	/**
+	 * Atomically takes the longest-waiting user advertised by another node and pairs it
+	 * with the local requester. The owning node confirms through
+	 * {@link ClusterListener#onClaimed(String, PeerAddress)}.
+	 *
+	 * @return The remote partner, or {@code null} if nobody on another node is waiting.
+	 */
+	PeerAddress claimWaiting(String requesterId);
+
+	/**
+	 * Delivers a signaling frame from a local user to their remote peer.
+	 *
+	 * @return {@code false} if the peer's node is no longer part of the cluster.
+	 */
+	boolean forward(String fromUserId, PeerAddress to, String messageType, String payload);
+
+	/**
+	 * Tells a remote peer that the local user left or disconnected.
+	 */
+	void notifyPeerLeft(String fromUserId, PeerAddress to);
+}
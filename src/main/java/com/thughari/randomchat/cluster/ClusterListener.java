@@ -0,0 +1,29 @@
+package com.thughari.randomchat.cluster;
+
+/**
+ * Callbacks a node registers with its {@link ClusterBroker} to receive cross-node
+ * pairing and relay events. Implementations must not block; they are invoked on
+ * the broker's delivery thread.
+ */
+public interface ClusterListener {
+
+	/**
+	 * A user on another node claimed one of this node's advertised waiting users.
+	 *
+	 * @param localUserId The advertised waiting user on this node.
+	 * @param claimedBy   The remote user that wants to pair with them.
+	 * @return {@code true} if the local user was still waiting and is now paired with
+	 *         {@code claimedBy}; {@code false} to make the broker try the next candidate.
+	 */
+	boolean onClaimed(String localUserId, PeerAddress claimedBy);
+
+	/**
+	 * A signaling frame from a remote peer for a user on this node.
+	 */
+	void onFrame(String localUserId, PeerAddress from, String messageType, String payload);
+
+	/**
+	 * The remote peer of a user on this node left or disconnected.
+	 */
+	void onPeerLeft(String localUserId, PeerAddress peer);
+}
@@ -0,0 +1,126 @@
+package com.thughari.randomchat.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loopback {@link ClusterBroker} shared by every node in the same JVM that uses the
+ * same cluster name. Lets several application contexts act as a cluster in tests
+ * and local runs without any external infrastructure.
+ */
+public class InMemoryClusterBroker implements ClusterBroker {
+
+	private static final Logger logger = LoggerFactory.getLogger(InMemoryClusterBroker.class);
+
+	private static final Map<String, Hub> HUBS = new ConcurrentHashMap<>();
+
+	private static final class Hub {
+		private final Map<String, ClusterListener> nodes = new ConcurrentHashMap<>();
+		private final LinkedHashSet<PeerAddress> waitingUsers = new LinkedHashSet<>();
+	}
+
+	private final Hub hub;
+	private final String nodeId;
+	private final AtomicLong forwardedFrames = new AtomicLong();
+
+	public InMemoryClusterBroker(String clusterName, String nodeId) {
+		this.hub = HUBS.computeIfAbsent(clusterName, name -> new Hub());
+		this.nodeId = nodeId;
+	}
+
+	@Override
+	public String getNodeId() {
+		return nodeId;
+	}
+
+	@Override
+	public void register(ClusterListener listener) {
+		if (hub.nodes.putIfAbsent(nodeId, listener) != null) {
+			throw new IllegalStateException("Node " + nodeId + " is already registered");
+		}
+		logger.info("Node {} joined in-memory cluster ({} nodes).", nodeId, hub.nodes.size());
+	}
+
+	@Override
+	public void unregister() {
+		hub.nodes.remove(nodeId);
+		synchronized (hub.waitingUsers) {
+			hub.waitingUsers.removeIf(address -> address.nodeId().equals(nodeId));
+		}
+	}
+
+	@Override
+	public void publishWaiting(String userId) {
+		synchronized (hub.waitingUsers) {
+			hub.waitingUsers.add(new PeerAddress(nodeId, userId));
+		}
+	}
+
+	@Override
+	public void withdrawWaiting(String userId) {
+		synchronized (hub.waitingUsers) {
+			hub.waitingUsers.remove(new PeerAddress(nodeId, userId));
+		}
+	}
+
+	@Override
+	public PeerAddress claimWaiting(String requesterId) {
+		PeerAddress requester = new PeerAddress(nodeId, requesterId);
+		while (true) {
+			PeerAddress candidate = takeRemoteWaitingUser();
+			if (candidate == null) {
+				return null;
+			}
+			ClusterListener owner = hub.nodes.get(candidate.nodeId());
+			if (owner != null && owner.onClaimed(candidate.userId(), requester)) {
+				return candidate;
+			}
+		}
+	}
+
+	private PeerAddress takeRemoteWaitingUser() {
+		synchronized (hub.waitingUsers) {
+			Iterator<PeerAddress> it = hub.waitingUsers.iterator();
+			while (it.hasNext()) {
+				PeerAddress address = it.next();
+				if (!address.nodeId().equals(nodeId)) {
+					it.remove();
+					return address;
+				}
+			}
+			return null;
+		}
+	}
+
+	@Override
+	public boolean forward(String fromUserId, PeerAddress to, String messageType, String payload) {
+		ClusterListener target = hub.nodes.get(to.nodeId());
+		if (target == null) {
+			return false;
+		}
+		forwardedFrames.incrementAndGet();
+		target.onFrame(to.userId(), new PeerAddress(nodeId, fromUserId), messageType, payload);
+		return true;
+	}
+
+	@Override
+	public void notifyPeerLeft(String fromUserId, PeerAddress to) {
+		ClusterListener target = hub.nodes.get(to.nodeId());
+		if (target != null) {
+			target.onPeerLeft(to.userId(), new PeerAddress(nodeId, fromUserId));
+		}
+	}
+
+	/**
+	 * @return The number of frames this node sent through the broker.
+	 */
+	public long getForwardedFrames() {
+		return forwardedFrames.get();
+	}
+}
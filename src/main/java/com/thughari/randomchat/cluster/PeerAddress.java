@@ -0,0 +1,8 @@
+package com.thughari.randomchat.cluster;
+
+/**
+ * Cluster-wide address of a signaling user: the node holding the WebSocket and the
+ * session id on that node.
+ */
+public record PeerAddress(String nodeId, String userId) {
+}
@@ -0,0 +1,103 @@
+package com.thughari.randomchat.component;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Stops calling a downstream service that keeps failing, so callers get their fallback
+ * straight away instead of each waiting out a timeout.
+ *
+ * After {@code failureThreshold} consecutive failures the breaker opens and refuses
+ * calls for {@code openMillis}. Then one trial call is let through: success closes the
+ * breaker, failure opens it for another period.
+ */
+public class CircuitBreaker {
+
+	private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final String name;
+	private final int failureThreshold;
+	private final long openNanos;
+	private final LongSupplier nanoTime;
+
+	private State state = State.CLOSED;
+	private int consecutiveFailures;
+	private long openedAtNanos;
+
+	public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+		this(name, failureThreshold, openMillis, System::nanoTime);
+	}
+
+	CircuitBreaker(String name, int failureThreshold, long openMillis, LongSupplier nanoTime) {
+		if (failureThreshold < 1) {
+			throw new IllegalArgumentException("Failure threshold must be at least 1");
+		}
+		this.name = name;
+		this.failureThreshold = failureThreshold;
+		this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+		this.nanoTime = nanoTime;
+	}
+
+	/**
+	 * Runs the call if the breaker lets it through, and records its outcome. A cancelled
+	 * call counts as a failure, so an abandoned trial cannot leave the breaker half open.
+	 *
+	 * @param rejection The error to fail with while the breaker is open.
+	 */
+	public <T> Mono<T> protect(Mono<T> call, Supplier<? extends Throwable> rejection) {
+		return Mono.defer(() -> {
+			if (!tryAcquire()) {
+				return Mono.error(rejection.get());
+			}
+			return call
+					.doOnSuccess(result -> onSuccess())
+					.doOnError(e -> onFailure())
+					.doOnCancel(this::onFailure);
+		});
+	}
+
+	public synchronized State getState() {
+		return state;
+	}
+
+	synchronized boolean tryAcquire() {
+		return switch (state) {
+		case CLOSED -> true;
+		case OPEN -> {
+			if (nanoTime.getAsLong() - openedAtNanos < openNanos) {
+				yield false;
+			}
+			state = State.HALF_OPEN;
+			yield true;
+		}
+		// The trial call is still running
+		case HALF_OPEN -> false;
+		};
+	}
+
+	synchronized void onSuccess() {
+		if (state != State.CLOSED) {
+			logger.info("Circuit {} closed.", name);
+		}
+		state = State.CLOSED;
+		consecutiveFailures = 0;
+	}
+
+	synchronized void onFailure() {
+		consecutiveFailures++;
+		if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+			logger.warn("Circuit {} opened after {} consecutive failures.", name, consecutiveFailures);
+			state = State.OPEN;
+			openedAtNanos = nanoTime.getAsLong();
+		}
+	}
+}
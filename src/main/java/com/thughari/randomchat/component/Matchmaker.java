@@ -0,0 +1,217 @@
+package com.thughari.randomchat.component;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Waiting pool and pair links for random matchmaking.
+ *
+ * The waiting pool is an insertion-ordered set, so it behaves as a FIFO while
+ * membership checks and cancellation stay O(1). Every mutation of the pool happens
+ * under one lock, which makes "take the longest waiting user and pair with them" a
+ * single atomic step. Pairs are stored as direct references on the
+ * {@link Participant}s, and unpairing is a lock-free swap on those references.
+ *
+ * Users are preferably not matched again with one of their last few partners. Those are
+ * passed over in the pool, but the longest-waiting one is still taken if nobody else is
+ * waiting, so users who only have each other are never starved. The one exception is
+ * the partner a user just skipped with {@link #next}, who is never offered straight back.
+ */
+@Component
+public class Matchmaker {
+
+	/**
+	 * Outcome of {@link #next}.
+	 *
+	 * @param formerPeer        The partner the user skipped, or {@code null} if not paired.
+	 * @param partner           The user's new partner, or {@code null} if now waiting.
+	 * @param formerPeerPartner The former partner's new partner, or {@code null} if they
+	 *                          are now waiting or were unavailable.
+	 */
+	public record Rematch(Participant formerPeer, Participant partner, Participant formerPeerPartner) {
+	}
+
+	private final Object lock = new Object();
+	private final LinkedHashSet<Participant> waitingUsers = new LinkedHashSet<>();
+	private final AtomicInteger pairedCount = new AtomicInteger();
+
+	/**
+	 * Pairs the user with the longest-waiting available user who is not a recent partner,
+	 * falling back to the longest-waiting recent partner, or adds them to the waiting pool
+	 * if there is nobody to pair with.
+	 *
+	 * @param user        The user asking for a partner.
+	 * @param isAvailable Checked for each waiting user before pairing; users that fail
+	 *                    the check are dropped from the pool.
+	 * @return The partner, or {@code null} if the user is (still) waiting or already paired.
+	 */
+	public Participant pairOrEnqueue(Participant user, Predicate<Participant> isAvailable) {
+		synchronized (lock) {
+			return pairOrEnqueueLocked(user, isAvailable, null);
+		}
+	}
+
+	/**
+	 * Skips to a new partner in one step: breaks the user's pairing, pairs the user or
+	 * queues them, then re-queues the former partner the same way. Nothing can interleave,
+	 * and neither of the two can be matched straight back with the other.
+	 *
+	 * @param isAvailable As for {@link #pairOrEnqueue}; the former partner is only
+	 *                    re-queued if it passes as well.
+	 */
+	public Rematch next(Participant user, Predicate<Participant> isAvailable) {
+		synchronized (lock) {
+			Participant formerPeer = unpair(user);
+			Participant partner = pairOrEnqueueLocked(user, isAvailable, null);
+			Participant formerPeerPartner = null;
+			if (formerPeer != null && isAvailable.test(formerPeer)) {
+				formerPeerPartner = pairOrEnqueueLocked(formerPeer, isAvailable, user);
+			}
+			return new Rematch(formerPeer, partner, formerPeerPartner);
+		}
+	}
+
+	/**
+	 * @param excluded A waiting user never to pair with, or {@code null}.
+	 */
+	private Participant pairOrEnqueueLocked(Participant user, Predicate<Participant> isAvailable,
+			Participant excluded) {
+		if (user.getPeer() != null || user.waiting) {
+			return null;
+		}
+
+		Participant recentPartner = null;
+		Iterator<Participant> it = waitingUsers.iterator();
+		while (it.hasNext()) {
+			Participant waitingUser = it.next();
+			if (waitingUser == excluded) {
+				continue;
+			}
+			if (!isAvailable.test(waitingUser)) {
+				it.remove();
+				waitingUser.waiting = false;
+				continue;
+			}
+			if (user.pairedRecentlyWith(waitingUser) || waitingUser.pairedRecentlyWith(user)) {
+				if (recentPartner == null) {
+					recentPartner = waitingUser;
+				}
+				continue;
+			}
+			return pairLocked(user, waitingUser);
+		}
+		if (recentPartner != null) {
+			return pairLocked(user, recentPartner);
+		}
+
+		user.waiting = true;
+		waitingUsers.add(user);
+		return null;
+	}
+
+	private Participant pairLocked(Participant user, Participant waitingUser) {
+		waitingUsers.remove(waitingUser);
+		waitingUser.waiting = false;
+		waitingUser.setPeer(user);
+		user.setPeer(waitingUser);
+		waitingUser.rememberPartner(user);
+		user.rememberPartner(waitingUser);
+		pairedCount.addAndGet(2);
+		return waitingUser;
+	}
+
+	/**
+	 * Breaks the user's current pairing, if any.
+	 *
+	 * @return The former partner, or {@code null} if the user was not paired.
+	 */
+	public Participant unpair(Participant user) {
+		Participant peer = user.clearPeer();
+		if (peer == null) {
+			return null;
+		}
+		pairedCount.decrementAndGet();
+		if (peer.clearPeerIf(user)) {
+			pairedCount.decrementAndGet();
+		}
+		return peer;
+	}
+
+	/**
+	 * Moves the user's pairing over to a replacement, e.g. the new connection of a user
+	 * who reconnected. The partner's link is swapped in place, so the partner sees no
+	 * gap. The replacement takes over the user's place in recent-partner avoidance.
+	 *
+	 * @return The partner now paired with the replacement, or {@code null} if the user
+	 *         was no longer paired.
+	 */
+	public Participant rebind(Participant user, Participant replacement) {
+		Participant peer = user.clearPeer();
+		if (peer == null) {
+			return null;
+		}
+		// Link the replacement first, so an unpair racing with the swap sees a full pair
+		replacement.setPeer(peer);
+		if (!peer.replacePeer(user, replacement)) {
+			// The partner left meanwhile; its unpair could not clear the user's side
+			replacement.clearPeerIf(peer);
+			pairedCount.decrementAndGet();
+			return null;
+		}
+		synchronized (lock) {
+			replacement.takeRecentPartners(user);
+		}
+		return peer;
+	}
+
+	/**
+	 * Removes the user from the waiting pool and breaks their pairing. Called when a
+	 * connection closes so stale users are never handed out as partners.
+	 *
+	 * @return The former partner, or {@code null} if the user was not paired.
+	 */
+	public Participant remove(Participant user) {
+		takeWaiting(user);
+		return unpair(user);
+	}
+
+	/**
+	 * Takes the user out of the waiting pool so they can be paired elsewhere, e.g. with
+	 * a user on another cluster node.
+	 *
+	 * @return {@code true} if the user was waiting; {@code false} if they were already
+	 *         paired or gone.
+	 */
+	public boolean takeWaiting(Participant user) {
+		synchronized (lock) {
+			if (!user.waiting) {
+				return false;
+			}
+			user.waiting = false;
+			return waitingUsers.remove(user);
+		}
+	}
+
+	public boolean isWaiting(Participant user) {
+		synchronized (lock) {
+			return user.waiting;
+		}
+	}
+
+	public int getWaitingCount() {
+		synchronized (lock) {
+			return waitingUsers.size();
+		}
+	}
+
+	/**
+	 * @return The number of users with a partner on this node.
+	 */
+	public int getPairedCount() {
+		return pairedCount.get();
+	}
+}
@@ -0,0 +1,103 @@
+package com.thughari.randomchat.component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * One connected user as seen by the {@link Matchmaker}: an id plus a direct reference
+ * to the current partner, so finding the partner of a user is a field read.
+ * Transports extend it with their own per-connection state.
+ */
+public class Participant {
+
+	/** How many past partners a user is kept from being matched with again. */
+	static final int RECENT_PARTNERS = 4;
+
+	private static final VarHandle PEER;
+
+	static {
+		try {
+			PEER = MethodHandles.lookup().findVarHandle(Participant.class, "peer", Participant.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private final String id;
+
+	private volatile Participant peer;
+
+	// Guarded by the Matchmaker lock
+	boolean waiting;
+	// Ring of the id hashes of the last RECENT_PARTNERS partners, allocated on first pairing.
+	// A hash collision only means one extra user is skipped, never a wrong pairing.
+	private int[] recentPartners;
+	private int pairings;
+
+	public Participant(String id) {
+		this.id = id;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * @return The current partner on this node, or {@code null} if not paired.
+	 */
+	public Participant getPeer() {
+		return peer;
+	}
+
+	void setPeer(Participant newPeer) {
+		peer = newPeer;
+	}
+
+	/**
+	 * Remembers the partner so the {@link Matchmaker} avoids pairing the two again soon.
+	 * Called under the Matchmaker lock.
+	 */
+	void rememberPartner(Participant partner) {
+		if (recentPartners == null) {
+			recentPartners = new int[RECENT_PARTNERS];
+		}
+		recentPartners[pairings++ & (RECENT_PARTNERS - 1)] = partner.id.hashCode();
+	}
+
+	/**
+	 * @return Whether the other user is one of the last {@link #RECENT_PARTNERS} partners.
+	 *         Called under the Matchmaker lock.
+	 */
+	boolean pairedRecentlyWith(Participant other) {
+		if (recentPartners == null) {
+			return false;
+		}
+		int hash = other.id.hashCode();
+		for (int i = Math.min(pairings, RECENT_PARTNERS) - 1; i >= 0; i--) {
+			if (recentPartners[i] == hash) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Adopts another participant's recent partners. Called under the Matchmaker lock.
+	 */
+	void takeRecentPartners(Participant previous) {
+		recentPartners = previous.recentPartners;
+		pairings = previous.pairings;
+	}
+
+	Participant clearPeer() {
+		return (Participant) PEER.getAndSet(this, (Participant) null);
+	}
+
+	boolean clearPeerIf(Participant expected) {
+		return PEER.compareAndSet(this, expected, (Participant) null);
+	}
+
+	boolean replacePeer(Participant expected, Participant replacement) {
+		return PEER.compareAndSet(this, expected, replacement);
+	}
+}
@@ -0,0 +1,267 @@
+package com.thughari.randomchat.component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer meters for matchmaking and the signaling relay.
+ *
+ * Every meter is registered up front and held in a field, so recording on the relay
+ * path is a map lookup plus an adder increment, with no registry lookups or tag
+ * allocation per frame.
+ */
+@Component
+public class SignalingMetrics {
+
+	private final AtomicLong outboundQueuedMessages = new AtomicLong();
+	private final AtomicLong outboundQueuedBytes = new AtomicLong();
+	private final Counter outboundDroppedIce;
+	private final Counter outboundOverflowCloses;
+	private final Counter iceBatches;
+	private final Counter iceBatchedCandidates;
+	private final Counter outboundSendFailures;
+	private final Counter localPairs;
+	private final Counter remotePairs;
+	private final Timer pairLatency;
+	private final Counter pairingTimeouts;
+	private final Counter partnerSkips;
+	private final Counter livenessParked;
+	private final Counter livenessCloses;
+	private final Map<String, Counter> admissionRejections;
+	private final Map<String, Counter> throttledMessages;
+	private final Counter throttleCloses;
+	private final Map<String, Counter> resumptions;
+	private final Map<String, RelayMeters> relayMeters;
+	private final MeterRegistry registry;
+
+	private record RelayMeters(Counter frames, Counter bytes) {
+	}
+
+	public SignalingMetrics(MeterRegistry registry) {
+		this.registry = registry;
+		Gauge.builder("signaling.outbound.queued.messages", outboundQueuedMessages, AtomicLong::get)
+				.description("Frames waiting in per-session outbound buffers")
+				.register(registry);
+		Gauge.builder("signaling.outbound.queued.bytes", outboundQueuedBytes, AtomicLong::get)
+				.description("Payload bytes waiting in per-session outbound buffers")
+				.baseUnit("bytes")
+				.register(registry);
+		outboundDroppedIce = Counter.builder("signaling.outbound.dropped")
+				.description("Frames dropped from a full outbound buffer")
+				.tag("type", "ice")
+				.register(registry);
+		outboundOverflowCloses = Counter.builder("signaling.outbound.overflow.closes")
+				.description("Sessions closed because their outbound buffer overflowed")
+				.register(registry);
+		iceBatches = Counter.builder("signaling.ice.batches")
+				.description("ice_batch frames sent")
+				.register(registry);
+		iceBatchedCandidates = Counter.builder("signaling.ice.batched.candidates")
+				.description("ICE candidates relayed inside ice_batch frames")
+				.register(registry);
+		outboundSendFailures = Counter.builder("signaling.outbound.send.failures")
+				.description("Frames the WebSocket session failed to write")
+				.register(registry);
+		localPairs = Counter.builder("signaling.pairs")
+				.description("Pairings formed")
+				.tag("scope", "local")
+				.register(registry);
+		remotePairs = Counter.builder("signaling.pairs")
+				.description("Pairings formed")
+				.tag("scope", "cluster")
+				.register(registry);
+		pairLatency = Timer.builder("signaling.pair.latency")
+				.description("Time from ready_for_peer to being paired")
+				.publishPercentileHistogram()
+				.minimumExpectedValue(Duration.ofMillis(1))
+				.maximumExpectedValue(Duration.ofMinutes(5))
+				.register(registry);
+		pairingTimeouts = Counter.builder("signaling.pairing.timeouts")
+				.description("Pairings broken because offer and answer were not exchanged in time")
+				.register(registry);
+		partnerSkips = Counter.builder("signaling.pairing.skips")
+				.description("Pairings ended with \"next\", re-queueing both users")
+				.register(registry);
+		livenessParked = Counter.builder("signaling.liveness.parked")
+				.description("Waiting users taken out of the pool after a missed pong")
+				.register(registry);
+		livenessCloses = Counter.builder("signaling.liveness.closes")
+				.description("Sessions closed after missing too many pongs")
+				.register(registry);
+		admissionRejections = Map.of(
+				"draining", admissionRejections(registry, "draining"),
+				"connection_limit", admissionRejections(registry, "connection_limit"),
+				"handshake_rate", admissionRejections(registry, "handshake_rate"),
+				"overloaded", admissionRejections(registry, "overloaded"));
+		throttledMessages = Map.of(
+				"pairing", throttledMessages(registry, "pairing"),
+				"description", throttledMessages(registry, "description"),
+				"ice", throttledMessages(registry, "ice"),
+				"media_status", throttledMessages(registry, "media_status"));
+		throttleCloses = Counter.builder("signaling.messages.throttle.closes")
+				.description("Sessions closed for exceeding their message rate limits too often")
+				.register(registry);
+		resumptions = Map.of(
+				"parked", resumptions(registry, "parked"),
+				"resumed", resumptions(registry, "resumed"),
+				"expired", resumptions(registry, "expired"),
+				"failed", resumptions(registry, "failed"));
+		relayMeters = Map.of(
+				"offer", relayMeters(registry, "offer"),
+				"answer", relayMeters(registry, "answer"),
+				"ice", relayMeters(registry, "ice"),
+				"media_status", relayMeters(registry, "media_status"));
+	}
+
+	private static RelayMeters relayMeters(MeterRegistry registry, String type) {
+		return new RelayMeters(
+				Counter.builder("signaling.relay.frames")
+						.description("Frames relayed between peers")
+						.tag("type", type)
+						.register(registry),
+				Counter.builder("signaling.relay.bytes")
+						.description("Payload bytes relayed between peers")
+						.tag("type", type)
+						.baseUnit("bytes")
+						.register(registry));
+	}
+
+	private static Counter admissionRejections(MeterRegistry registry, String reason) {
+		return Counter.builder("signaling.admission.rejections")
+				.description("WebSocket handshakes refused by admission control")
+				.tag("reason", reason)
+				.register(registry);
+	}
+
+	private static Counter throttledMessages(MeterRegistry registry, String messageClass) {
+		return Counter.builder("signaling.messages.throttled")
+				.description("Inbound frames dropped by per-session rate limits")
+				.tag("class", messageClass)
+				.register(registry);
+	}
+
+	private static Counter resumptions(MeterRegistry registry, String outcome) {
+		return Counter.builder("signaling.resume")
+				.description("Dropped connections held for resumption, by outcome")
+				.tag("outcome", outcome)
+				.register(registry);
+	}
+
+	/**
+	 * Registers a gauge sampled from the given supplier whenever the registry is scraped.
+	 */
+	public void gauge(String name, String description, Supplier<Number> value) {
+		Gauge.builder(name, value).description(description).register(registry);
+	}
+
+	public void outboundQueued(int bytes) {
+		outboundQueuedMessages.incrementAndGet();
+		outboundQueuedBytes.addAndGet(bytes);
+	}
+
+	public void outboundDequeued(int bytes) {
+		outboundQueuedMessages.decrementAndGet();
+		outboundQueuedBytes.addAndGet(-bytes);
+	}
+
+	public void outboundIceDropped() {
+		outboundDroppedIce.increment();
+	}
+
+	public void outboundOverflowClosed() {
+		outboundOverflowCloses.increment();
+	}
+
+	public void iceBatchSent(int candidates) {
+		iceBatches.increment();
+		iceBatchedCandidates.increment(candidates);
+	}
+
+	public void outboundSendFailed() {
+		outboundSendFailures.increment();
+	}
+
+	public void paired(boolean acrossCluster) {
+		(acrossCluster ? remotePairs : localPairs).increment();
+	}
+
+	/**
+	 * @param waitedNanos Time one user spent between ready_for_peer and being paired.
+	 */
+	public void waitedForPair(long waitedNanos) {
+		pairLatency.record(waitedNanos, TimeUnit.NANOSECONDS);
+	}
+
+	public void pairingTimedOut() {
+		pairingTimeouts.increment();
+	}
+
+	public void partnerSkipped() {
+		partnerSkips.increment();
+	}
+
+	public void livenessParked() {
+		livenessParked.increment();
+	}
+
+	public void livenessClosed() {
+		livenessCloses.increment();
+	}
+
+	public void admissionRejected(String reason) {
+		Counter counter = admissionRejections.get(reason);
+		if (counter != null) {
+			counter.increment();
+		}
+	}
+
+	public void messageThrottled(String messageClass) {
+		Counter counter = throttledMessages.get(messageClass);
+		if (counter != null) {
+			counter.increment();
+		}
+	}
+
+	public void throttleClosed() {
+		throttleCloses.increment();
+	}
+
+	/**
+	 * @param outcome One of parked, resumed, expired or failed.
+	 */
+	public void resumption(String outcome) {
+		Counter counter = resumptions.get(outcome);
+		if (counter != null) {
+			counter.increment();
+		}
+	}
+
+	/**
+	 * @param length Payload length in chars; signaling JSON is ASCII, so this equals the
+	 *               byte count without encoding the payload a second time.
+	 */
+	public void relayed(String messageType, int length) {
+		RelayMeters meters = relayMeters.get(messageType);
+		if (meters != null) {
+			meters.frames().increment();
+			meters.bytes().increment(length);
+		}
+	}
+
+	public long getOutboundQueuedMessages() {
+		return outboundQueuedMessages.get();
+	}
+
+	public long getOutboundQueuedBytes() {
+		return outboundQueuedBytes.get();
+	}
+}
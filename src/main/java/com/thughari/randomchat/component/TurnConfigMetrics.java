@@ -0,0 +1,72 @@
+package com.thughari.randomchat.component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for the TURN config endpoint and the Twilio Tokens API behind it.
+ */
+@Component
+public class TurnConfigMetrics {
+
+	private final Timer twilioFetchSuccess;
+	private final Timer twilioFetchError;
+	private final Counter cacheHits;
+	private final Counter cacheMisses;
+	private final Counter stunFallbacks;
+	private final Counter twilioCircuitRejections;
+
+	public TurnConfigMetrics(MeterRegistry registry) {
+		twilioFetchSuccess = twilioFetchTimer(registry, "success");
+		twilioFetchError = twilioFetchTimer(registry, "error");
+		cacheHits = Counter.builder("turn.config.cache")
+				.description("ICE server lookups by cache result")
+				.tag("result", "hit")
+				.register(registry);
+		cacheMisses = Counter.builder("turn.config.cache")
+				.description("ICE server lookups by cache result")
+				.tag("result", "miss")
+				.register(registry);
+		stunFallbacks = Counter.builder("turn.config.stun.fallbacks")
+				.description("Times the TURN config fell back to the public STUN server only")
+				.register(registry);
+		twilioCircuitRejections = Counter.builder("twilio.circuit.rejections")
+				.description("Twilio Tokens API calls refused while the circuit breaker was open")
+				.register(registry);
+	}
+
+	private static Timer twilioFetchTimer(MeterRegistry registry, String outcome) {
+		return Timer.builder("twilio.fetch.latency")
+				.description("Twilio Tokens API round trips")
+				.tag("outcome", outcome)
+				.publishPercentileHistogram()
+				.minimumExpectedValue(Duration.ofMillis(10))
+				.maximumExpectedValue(Duration.ofSeconds(30))
+				.register(registry);
+	}
+
+	public void twilioFetched(boolean success, long elapsedNanos) {
+		(success ? twilioFetchSuccess : twilioFetchError).record(elapsedNanos, TimeUnit.NANOSECONDS);
+	}
+
+	public void cacheHit() {
+		cacheHits.increment();
+	}
+
+	public void cacheMiss() {
+		cacheMisses.increment();
+	}
+
+	public void stunFallback() {
+		stunFallbacks.increment();
+	}
+
+	public void twilioCircuitRejected() {
+		twilioCircuitRejections.increment();
+	}
+}
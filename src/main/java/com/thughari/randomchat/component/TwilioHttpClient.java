@@ -1,24 +1,34 @@
 package com.thughari.randomchat.component;
 
+import io.netty.handler.timeout.ReadTimeoutException;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 
 import com.thughari.randomchat.exceptions.TwilioClientException;
 
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.HttpServerErrorException;
-import org.springframework.web.client.ResourceAccessException;
+import reactor.core.publisher.Mono;
 
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Base64;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * Calls Twilio's Tokens API over the shared pooled client (see
+ * {@link com.thughari.randomchat.config.HttpClientConfig}). Each call is bounded by
+ * {@code app.twilio.timeout-ms}, and a {@link CircuitBreaker} stops calling Twilio after
+ * consecutive failures, so callers fall back at once instead of waiting out timeouts.
+ */
 @Component
 public class TwilioHttpClient {
 
@@ -30,54 +40,90 @@ public class TwilioHttpClient {
 	@Value("${twilio.auth.token}")
 	private String twilioAuthToken;
 
-	private final RestTemplate restTemplate;
+	@Value("${app.twilio.base-url}")
+	private String twilioBaseUrl;
 
-	public TwilioHttpClient() {
-		this.restTemplate = new RestTemplate();
+	// Upper bound for one Tokens API round trip, so a hung request cannot stall refreshes
+	@Value("${app.twilio.timeout-ms}")
+	private long fetchTimeoutMillis;
+
+	@Value("${app.twilio.circuit-breaker.failure-threshold}")
+	private int circuitFailureThreshold;
+
+	@Value("${app.twilio.circuit-breaker.open-ms}")
+	private long circuitOpenMillis;
+
+	@Autowired
+	private TurnConfigMetrics turnConfigMetrics;
+
+	@Autowired
+	private WebClient outboundWebClient;
+
+	// Fixed for the life of the process, so built once rather than per call
+	private URI tokensUri;
+	private String authorization;
+	private Duration fetchTimeout;
+	private CircuitBreaker circuitBreaker;
+
+	@PostConstruct
+	public void prepareRequests() {
+		tokensUri = URI.create(twilioBaseUrl + "/2010-04-01/Accounts/" + twilioAccountSid + "/Tokens.json");
+		String credentials = twilioAccountSid + ":" + twilioAuthToken;
+		authorization = "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+		fetchTimeout = Duration.ofMillis(fetchTimeoutMillis);
+		circuitBreaker = new CircuitBreaker("twilio", circuitFailureThreshold, circuitOpenMillis);
 	}
 
 	/**
-	 * Makes an HTTP POST request to Twilio's Tokens API to fetch ICE servers.
+	 * Makes a non-blocking HTTP POST request to Twilio's Tokens API to fetch ICE servers.
 	 *
-	 * @return The raw JSON response body from Twilio.
-	 * @throws TwilioClientException if the API call fails or returns a non-successful status.
+	 * @return The raw JSON response body from Twilio. Fails with a {@link TwilioClientException}
+	 *         if the API call fails, times out or returns a non-successful status, or without
+	 *         calling Twilio while the circuit breaker is open.
 	 */
-	public String fetchTwilioTokensApiResponse() throws TwilioClientException {
-		HttpHeaders headers = new HttpHeaders();
-		headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-		String auth = twilioAccountSid + ":" + twilioAuthToken;
-		String encodedAuth = Base64.getEncoder().encodeToString(auth.getBytes());
-		headers.add("Authorization", "Basic " + encodedAuth);
-
-		HttpEntity<String> requestEntity = new HttpEntity<>(headers);
-
-		String twilioApiUrl = String.format("https://api.twilio.com/2010-04-01/Accounts/%s/Tokens.json", twilioAccountSid);
-
-		try {
-			logger.debug("Making Twilio Tokens API call to: {}", twilioApiUrl);
-			ResponseEntity<String> response = restTemplate.exchange(
-					twilioApiUrl,
-					HttpMethod.POST,
-					requestEntity,
-					String.class
-					);
-
-			if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-				logger.debug("Successfully received response from Twilio API.");
-				return response.getBody();
-			} else {
-				logger.error("Twilio API call failed with status: {} and body: {}", response.getStatusCode(), response.getBody());
-				throw new TwilioClientException("Twilio API returned non-2xx status: " + response.getStatusCode());
-			}
-		} catch (HttpClientErrorException | HttpServerErrorException e) {
-			logger.error("Twilio API client/server error: {} - {}", e.getStatusCode(), e.getResponseBodyAsString(), e);
-			throw new TwilioClientException("Twilio API returned an HTTP error: " + e.getStatusCode(), e);
-		} catch (ResourceAccessException e) {
-			logger.error("Network or connection error connecting to Twilio API: {}", e.getMessage(), e);
-			throw new TwilioClientException("Network error connecting to Twilio API", e);
-		} catch (Exception e) {
-			logger.error("An unexpected error occurred during Twilio API call: {}", e.getMessage(), e);
-			throw new TwilioClientException("Unexpected error during Twilio API call", e);
+	public Mono<String> fetchTwilioTokens() {
+		Mono<String> call = Mono.defer(() -> {
+			long start = System.nanoTime();
+			logger.debug("Making Twilio Tokens API call to: {}", tokensUri);
+			return outboundWebClient.post()
+					.uri(tokensUri)
+					.contentType(MediaType.APPLICATION_FORM_URLENCODED)
+					.header(HttpHeaders.AUTHORIZATION, authorization)
+					.retrieve()
+					.bodyToMono(String.class)
+					.switchIfEmpty(Mono.error(() -> new TwilioClientException("Twilio API returned an empty body")))
+					.timeout(fetchTimeout)
+					.onErrorMap(e -> !(e instanceof TwilioClientException), this::toTwilioClientException)
+					.doOnSuccess(body -> {
+						logger.debug("Successfully received response from Twilio API.");
+						turnConfigMetrics.twilioFetched(true, System.nanoTime() - start);
+					})
+					.doOnError(e -> turnConfigMetrics.twilioFetched(false, System.nanoTime() - start));
+		});
+		return circuitBreaker.protect(call, () -> {
+			turnConfigMetrics.twilioCircuitRejected();
+			return new TwilioClientException("Twilio API circuit is open; not calling it");
+		});
+	}
+
+	public CircuitBreaker.State getCircuitState() {
+		return circuitBreaker.getState();
+	}
+
+	private TwilioClientException toTwilioClientException(Throwable e) {
+		if (e instanceof WebClientResponseException responseException) {
+			logger.error("Twilio API client/server error: {} - {}", responseException.getStatusCode(), responseException.getResponseBodyAsString());
+			return new TwilioClientException("Twilio API returned an HTTP error: " + responseException.getStatusCode(), e);
+		}
+		if (e instanceof TimeoutException || e.getCause() instanceof ReadTimeoutException) {
+			logger.error("Twilio API call timed out: {}", e.getMessage());
+			return new TwilioClientException("Twilio API call timed out", e);
+		}
+		if (e instanceof WebClientRequestException) {
+			logger.error("Network or connection error connecting to Twilio API: {}", e.getMessage());
+			return new TwilioClientException("Network error connecting to Twilio API", e);
 		}
+		logger.error("An unexpected error occurred during Twilio API call: {}", e.getMessage(), e);
+		return new TwilioClientException("Unexpected error during Twilio API call", e);
 	}
-}
\ No newline at end of file
+}
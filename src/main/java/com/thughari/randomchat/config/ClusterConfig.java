@@ -0,0 +1,21 @@
+package com.thughari.randomchat.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.thughari.randomchat.cluster.ClusterBroker;
+import com.thughari.randomchat.cluster.InMemoryClusterBroker;
+
+@Configuration
+public class ClusterConfig {
+
+	// Without a broker bean every node is standalone and pairs only its own users
+	@Bean
+	@ConditionalOnProperty(name = "app.cluster.broker", havingValue = "in-memory")
+	public ClusterBroker inMemoryClusterBroker(@Value("${app.cluster.name}") String clusterName,
+			@Value("${app.cluster.node-id}") String nodeId) {
+		return new InMemoryClusterBroker(clusterName, nodeId);
+	}
+}
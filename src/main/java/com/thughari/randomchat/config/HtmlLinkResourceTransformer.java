@@ -0,0 +1,54 @@
+package com.thughari.randomchat.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.Resource;
+import org.springframework.web.servlet.resource.ResourceTransformerChain;
+import org.springframework.web.servlet.resource.ResourceTransformerSupport;
+import org.springframework.web.servlet.resource.TransformedResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rewrites the {@code src} and {@code href} links of an HTML page to the URLs the resolver
+ * chain gives them, i.e. content-hashed URLs for versioned assets. The HTML counterpart of
+ * {@link org.springframework.web.servlet.resource.CssLinkResourceTransformer}.
+ *
+ * Only relative links without a query or fragment are considered; absolute URLs and links
+ * the chain cannot resolve are left as they are.
+ */
+public class HtmlLinkResourceTransformer extends ResourceTransformerSupport {
+
+	private static final Pattern LINK = Pattern.compile("\\b(?:src|href)=\"([^\"/#?:][^\"#?:]*)\"");
+
+	@Override
+	public Resource transform(HttpServletRequest request, Resource resource, ResourceTransformerChain transformerChain)
+			throws IOException {
+		resource = transformerChain.transform(request, resource);
+		String filename = resource.getFilename();
+		if (filename == null || !filename.endsWith(".html")) {
+			return resource;
+		}
+
+		String content = resource.getContentAsString(StandardCharsets.UTF_8);
+		Matcher matcher = LINK.matcher(content);
+		StringBuilder rewritten = new StringBuilder(content.length());
+		boolean changed = false;
+		while (matcher.find()) {
+			String link = matcher.group(1);
+			String resolved = resolveUrlPath(link, request, resource, transformerChain);
+			if (resolved != null && !resolved.equals(link)) {
+				changed = true;
+				String attribute = matcher.group();
+				matcher.appendReplacement(rewritten, Matcher.quoteReplacement(attribute.replace(link, resolved)));
+			}
+		}
+		if (!changed) {
+			return resource;
+		}
+		matcher.appendTail(rewritten);
+		return new TransformedResource(resource, rewritten.toString().getBytes(StandardCharsets.UTF_8));
+	}
+}
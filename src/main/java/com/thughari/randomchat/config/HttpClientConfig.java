@@ -0,0 +1,48 @@
+package com.thughari.randomchat.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.Http2SslContextSpec;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.tcp.SslProvider;
+
+import java.time.Duration;
+
+/**
+ * The one HTTP client for outbound calls (Twilio, the keep-alive ping). Connections are
+ * pooled and kept alive between calls, HTTPS servers that offer HTTP/2 get it, and
+ * every phase of a call has a bound: acquiring a pooled connection, connecting, and
+ * waiting for each read of the response.
+ */
+@Configuration
+public class HttpClientConfig {
+
+	@Bean
+	public WebClient outboundWebClient(@Value("${app.http.connect-timeout-ms}") int connectTimeoutMillis,
+			@Value("${app.http.response-timeout-ms}") long responseTimeoutMillis,
+			@Value("${app.http.pool.max-connections}") int maxConnections,
+			@Value("${app.http.pool.max-idle-ms}") long maxIdleMillis) {
+		ConnectionProvider pool = ConnectionProvider.builder("outbound")
+				.maxConnections(maxConnections)
+				.pendingAcquireTimeout(Duration.ofMillis(connectTimeoutMillis))
+				// Servers drop idle keep-alive connections; retire ours before they do
+				.maxIdleTime(Duration.ofMillis(maxIdleMillis))
+				.evictInBackground(Duration.ofMillis(maxIdleMillis))
+				.build();
+		HttpClient httpClient = HttpClient.create(pool)
+				.protocol(HttpProtocol.H2, HttpProtocol.HTTP11)
+				// Offers h2 through ALPN on https; plain http stays HTTP/1.1
+				.secure(spec -> spec.sslContext((SslProvider.GenericSslContextSpec<?>) Http2SslContextSpec.forClient()))
+				.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMillis)
+				.responseTimeout(Duration.ofMillis(responseTimeoutMillis));
+		return WebClient.builder()
+				.clientConnector(new ReactorClientHttpConnector(httpClient))
+				.build();
+	}
+}
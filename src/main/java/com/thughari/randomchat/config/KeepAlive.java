@@ -2,12 +2,12 @@ package com.thughari.randomchat.config;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
 
 @Configuration
 @EnableScheduling
@@ -18,16 +18,17 @@ public class KeepAlive {
 	@Value("${app.keepalive.url}")
 	private String pingUrl;
 
-	private final RestTemplate restTemplate = new RestTemplate();
+	// Pooled and timeout-bounded; the ping never blocks the scheduler thread
+	@Autowired
+	private WebClient outboundWebClient;
 
 	@Scheduled(fixedRate = 300_000)
-	@Async("virtualThreadTaskExecutor")
 	public void keepAliveLog() {
-		try {
-			String response = restTemplate.getForObject(pingUrl, String.class);
-			logger.info("KeepAlive self-ping successful: {}", response);
-		} catch (Exception e) {
-			logger.error("KeepAlive self-ping failed", e);
-		}
+		outboundWebClient.get()
+				.uri(pingUrl)
+				.retrieve()
+				.bodyToMono(String.class)
+				.subscribe(response -> logger.info("KeepAlive self-ping successful: {}", response),
+						e -> logger.error("KeepAlive self-ping failed: {}", e.getMessage()));
 	}
 }
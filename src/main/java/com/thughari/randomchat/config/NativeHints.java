@@ -0,0 +1,37 @@
+package com.thughari.randomchat.config;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import com.thughari.randomchat.handler.DrainStatus;
+
+import java.util.List;
+
+/**
+ * Reflection hints for a native image that AOT processing cannot infer from the bean
+ * definitions.
+ *
+ * Signaling frames and Twilio responses are read as Jackson trees, and ICE servers are
+ * written from maps, so none of that binds to our classes. What does bind reflectively is
+ * the drain status that Jackson writes for the actuator. The HMACs behind resume tokens
+ * (SHA-256) and shared-secret TURN credentials (SHA-1) are looked up by name, so their
+ * JCA implementations are registered too.
+ */
+public class NativeHints implements RuntimeHintsRegistrar {
+
+	static final List<String> MACS = List.of("com.sun.crypto.provider.HmacCore$HmacSHA256",
+			"com.sun.crypto.provider.HmacCore$HmacSHA1");
+
+	private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+	@Override
+	public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+		bindingRegistrar.registerReflectionHints(hints.reflection(), DrainStatus.class);
+		for (String mac : MACS) {
+			hints.reflection().registerType(TypeReference.of(mac), MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package com.thughari.randomchat.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.server.support.HandshakeWebSocketService;
+import org.springframework.web.reactive.socket.server.upgrade.ReactorNettyRequestUpgradeStrategy;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+
+import com.thughari.randomchat.handler.AdmissionController;
+import com.thughari.randomchat.handler.ReactiveSignalingHandler;
+import com.thughari.randomchat.handler.SignalingHandler;
+
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Serves {@code /ws} from a Reactor Netty server of its own, on
+ * {@code app.signaling.reactive.port}, when {@code app.signaling.runtime=reactive}. Pages,
+ * the REST endpoints and actuator stay on the servlet server; a proxy in front routes
+ * {@code /ws} here. Handshakes go through the same {@link AdmissionController} as on the
+ * servlet runtime.
+ *
+ * Stops after {@link SignalingDrainLifecycle}, like the embedded web server, so sessions
+ * being drained keep their connections until the drain is done.
+ */
+@Component
+@ConditionalOnProperty(name = "app.signaling.runtime", havingValue = "reactive")
+public class ReactiveSignalingServer implements SmartLifecycle {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReactiveSignalingServer.class);
+
+	private final ReactiveSignalingHandler handler;
+	private final AdmissionController admissionController;
+	private final HandshakeWebSocketService webSocketService = new HandshakeWebSocketService(new ReactorNettyRequestUpgradeStrategy());
+	private final String address;
+	private final int port;
+	private volatile DisposableServer server;
+
+	public ReactiveSignalingServer(SignalingHandler signalingHandler, AdmissionController admissionController,
+			@Value("${server.address:0.0.0.0}") String address,
+			@Value("${app.signaling.reactive.port}") int port,
+			@Value("${app.signaling.reactive.send-window}") int sendWindow) {
+		this.handler = new ReactiveSignalingHandler(signalingHandler, sendWindow);
+		webSocketService.setSessionAttributePredicate(name -> ReactiveSignalingHandler.LOCAL_ADDRESS_ATTRIBUTE.equals(name)
+				|| AdmissionController.Reservation.ATTRIBUTE.equals(name));
+		this.admissionController = admissionController;
+		this.address = address;
+		this.port = port;
+	}
+
+	@Override
+	public void start() {
+		ReactorHttpHandlerAdapter adapter = new ReactorHttpHandlerAdapter(WebHttpHandlerBuilder.webHandler(this::handle).build());
+		server = HttpServer.create().host(address).port(port).handle(adapter).bindNow();
+		logger.info("Reactive signaling runtime serving /ws on port {}", server.port());
+	}
+
+	private Mono<Void> handle(ServerWebExchange exchange) {
+		ServerHttpResponse response = exchange.getResponse();
+		if (!"/ws".equals(exchange.getRequest().getPath().value())) {
+			response.setStatusCode(HttpStatus.NOT_FOUND);
+			return response.setComplete();
+		}
+		response.getHeaders().setCacheControl("no-cache, no-store, must-revalidate");
+
+		AdmissionController.Decision decision = admissionController.admitHandshake();
+		if (!decision.isAdmitted()) {
+			response.setStatusCode(decision.rejection().getStatus());
+			response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(decision.retryAfterSeconds()));
+			return response.setComplete();
+		}
+		InetSocketAddress localAddress = exchange.getRequest().getLocalAddress();
+		if (localAddress != null) {
+			exchange.getAttributes().put(ReactiveSignalingHandler.LOCAL_ADDRESS_ATTRIBUTE, localAddress);
+		}
+		// Released by the handler once the session is established; the backstop covers failed upgrades
+		AdmissionController.Reservation reservation = decision.reservation();
+		exchange.getAttributes().put(AdmissionController.Reservation.ATTRIBUTE, reservation);
+		return webSocketService.handleRequest(exchange, handler).doFinally(signal -> reservation.release());
+	}
+
+	@Override
+	public void stop() {
+		DisposableServer running = server;
+		if (running != null) {
+			server = null;
+			running.disposeNow();
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return server != null;
+	}
+
+	@Override
+	public int getPhase() {
+		return SmartLifecycle.DEFAULT_PHASE - 1024;
+	}
+
+	/**
+	 * @return The port bound, which differs from the configured one if that was 0.
+	 */
+	public int getPort() {
+		DisposableServer running = server;
+		return running != null ? running.port() : -1;
+	}
+}
@@ -0,0 +1,52 @@
+package com.thughari.randomchat.config;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.thughari.randomchat.handler.SignalingHandler;
+
+/**
+ * Drains signaling when the application context stops, e.g. on SIGTERM during a rolling
+ * deploy. Runs in the highest phase, so the web server keeps serving the sessions being
+ * drained until the drain is done; spring.lifecycle.timeout-per-shutdown-phase bounds
+ * the wait.
+ */
+@Component
+public class SignalingDrainLifecycle implements SmartLifecycle {
+
+	private final SignalingHandler signalingHandler;
+	private volatile boolean running;
+
+	public SignalingDrainLifecycle(SignalingHandler signalingHandler) {
+		this.signalingHandler = signalingHandler;
+	}
+
+	@Override
+	public void start() {
+		running = true;
+	}
+
+	@Override
+	public void stop(Runnable callback) {
+		running = false;
+		signalingHandler.startDrain();
+		signalingHandler.whenDrained().whenComplete((result, error) -> callback.run());
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		signalingHandler.startDrain();
+		signalingHandler.whenDrained().toCompletableFuture().join();
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	@Override
+	public int getPhase() {
+		return SmartLifecycle.DEFAULT_PHASE;
+	}
+}
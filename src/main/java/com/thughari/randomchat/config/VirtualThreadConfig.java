@@ -2,6 +2,7 @@ package com.thughari.randomchat.config;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -13,4 +14,11 @@ public class VirtualThreadConfig {
     public ExecutorService virtualThreadTaskExecutor() {
         return Executors.newVirtualThreadPerTaskExecutor();
     }
+
+    // Short signaling timers (e.g. ICE batch windows); tasks must only hand work off, never block
+    @Bean("signalingScheduler")
+    public ScheduledExecutorService signalingScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("signaling-scheduler").daemon().factory());
+    }
 }
\ No newline at end of file
@@ -1,39 +1,72 @@
 package com.thughari.randomchat.config;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
 
 import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
+/**
+ * Static assets. Scripts, stylesheets and images are served under content-hashed URLs
+ * ({@code script-<md5>.js}), which the HTML pages are rewritten to use, so each deploy
+ * changes exactly the URLs whose content changed. Those URLs are cached for good; the
+ * pages and unhashed URLs are revalidated. Scripts and stylesheets are served from the
+ * gzip or brotli variant the build wrote next to them, picked by Accept-Encoding.
+ */
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+	private static final String[] ASSET_PATHS = { "/*.js", "/*.css", "/assets/**" };
+
+	// The content version the VersionResourceResolver puts before the extension
+	private static final Pattern HASHED_PATH = Pattern.compile("-[0-9a-f]{32}\\.[a-z0-9]+$");
+
+	private static final String IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable()
+			.getHeaderValue();
+	private static final String REVALIDATE = CacheControl.noCache().getHeaderValue();
+
 	@Override
 	public void addResourceHandlers(ResourceHandlerRegistry registry) {
-		// Cache static assets for 1 year
-		registry.addResourceHandler("/assets/**")
-		.addResourceLocations("classpath:/static/assets/")
-		.setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS)
-				.mustRevalidate());
-
-		// Cache CSS files
-		registry.addResourceHandler("/*.css")
+		// The encoded variants must be looked up before versions are, so that a version is
+		// always the hash of the original content
+		registry.addResourceHandler("/*.js", "/*.css")
 		.addResourceLocations("classpath:/static/")
-		.setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS)
-				.mustRevalidate());
+		.resourceChain(true)
+		.addResolver(new EncodedResourceResolver())
+		.addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
 
-		// Cache JavaScript files
-		registry.addResourceHandler("/*.js")
-		.addResourceLocations("classpath:/static/")
-		.setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS)
-				.mustRevalidate());
+		registry.addResourceHandler("/assets/**")
+		.addResourceLocations("classpath:/static/assets/")
+		.resourceChain(true)
+		.addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
 
-		// Don't cache HTML files
+		// Pages are never versioned themselves, only the assets they link to
 		registry.addResourceHandler("/*.html")
 		.addResourceLocations("classpath:/static/")
-		.setCacheControl(CacheControl.noCache()
-				.mustRevalidate());
+		.setCacheControl(CacheControl.noCache())
+		.resourceChain(true)
+		.addResolver(new VersionResourceResolver().addContentVersionStrategy(ASSET_PATHS))
+		.addTransformer(new HtmlLinkResourceTransformer());
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new HandlerInterceptor() {
+			@Override
+			public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+				boolean hashed = HASHED_PATH.matcher(request.getRequestURI()).find();
+				response.setHeader(HttpHeaders.CACHE_CONTROL, hashed ? IMMUTABLE : REVALIDATE);
+				return true;
+			}
+		}).addPathPatterns(ASSET_PATHS);
 	}
-}
\ No newline at end of file
+}
@@ -1,26 +1,37 @@
 package com.thughari.randomchat.config;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
 import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
 
+import com.thughari.randomchat.handler.AdmissionController;
 import com.thughari.randomchat.handler.SignalingHandler;
 
 import java.util.Map;
 
 @Configuration
 @EnableWebSocket
+// With app.signaling.runtime=reactive, ReactiveSignalingServer serves /ws instead
+@ConditionalOnProperty(name = "app.signaling.runtime", havingValue = "servlet", matchIfMissing = true)
 public class WebSocketConfig implements WebSocketConfigurer {
 
 	@Autowired
 	private SignalingHandler signalingHandler;
 
+	@Autowired
+	private AdmissionController admissionController;
+
 	@Override
 	public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
 		registry.addHandler(signalingHandler, "/ws")
@@ -33,14 +44,33 @@ public class WebSocketConfig implements WebSocketConfigurer {
 					Map<String, Object> attributes) {
 				ServerHttpResponse res = response;
 				res.getHeaders().setCacheControl("no-cache, no-store, must-revalidate");
+
+				AdmissionController.Decision decision = admissionController.admitHandshake();
+				if (!decision.isAdmitted()) {
+					res.setStatusCode(decision.rejection().getStatus());
+					res.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(decision.retryAfterSeconds()));
+					return false;
+				}
+				// Released by the handler once the session is established, or below if the upgrade fails
+				attributes.put(AdmissionController.Reservation.ATTRIBUTE, decision.reservation());
+				if (request instanceof ServletServerHttpRequest servletRequest) {
+					servletRequest.getServletRequest().setAttribute(AdmissionController.Reservation.ATTRIBUTE, decision.reservation());
+				}
 				return true;
 			}
 
 			@Override
 			public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
 					WebSocketHandler wsHandler, Exception exception) {
-				// TODO Auto-generated method stub
-
+				if (!(request instanceof ServletServerHttpRequest servletRequest)
+						|| !(servletRequest.getServletRequest().getAttribute(AdmissionController.Reservation.ATTRIBUTE) instanceof AdmissionController.Reservation reservation)) {
+					return;
+				}
+				boolean upgraded = exception == null && response instanceof ServletServerHttpResponse servletResponse
+						&& servletResponse.getServletResponse().getStatus() == HttpStatus.SWITCHING_PROTOCOLS.value();
+				if (!upgraded) {
+					reservation.release();
+				}
 			}
 		});
 	}
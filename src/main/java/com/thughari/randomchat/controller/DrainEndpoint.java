@@ -0,0 +1,35 @@
+package com.thughari.randomchat.controller;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import com.thughari.randomchat.handler.DrainStatus;
+import com.thughari.randomchat.handler.SignalingHandler;
+
+/**
+ * {@code /actuator/drain}: GET reports drain progress, POST starts a drain without
+ * stopping the application, e.g. before taking a node out of a load balancer.
+ */
+@Component
+@Endpoint(id = "drain")
+public class DrainEndpoint {
+
+	private final SignalingHandler signalingHandler;
+
+	public DrainEndpoint(SignalingHandler signalingHandler) {
+		this.signalingHandler = signalingHandler;
+	}
+
+	@ReadOperation
+	public DrainStatus status() {
+		return signalingHandler.getDrainStatus();
+	}
+
+	@WriteOperation
+	public DrainStatus start() {
+		signalingHandler.startDrain();
+		return signalingHandler.getDrainStatus();
+	}
+}
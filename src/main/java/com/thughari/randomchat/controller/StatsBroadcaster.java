@@ -0,0 +1,207 @@
+package com.thughari.randomchat.controller;
+
+import com.thughari.randomchat.component.Matchmaker;
+import com.thughari.randomchat.handler.SignalingHandler;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Pushes live user counts to landing pages over Server-Sent Events.
+ *
+ * The counts are sampled once per interval and published only when they change. Each
+ * snapshot is encoded into an event once, and the same bytes are written to every
+ * subscriber, so the cost of a snapshot does not grow with the audience. Writes run off
+ * the sampling thread; a subscriber that cannot keep up is sent the latest snapshot
+ * once its previous write finishes, never a backlog. Idle streams get a comment line
+ * every heartbeat interval so proxies keep them open and dead ones are noticed.
+ */
+@Component
+public class StatsBroadcaster {
+
+	private static final Logger logger = LoggerFactory.getLogger(StatsBroadcaster.class);
+
+	private static final Set<DataWithMediaType> HEARTBEAT = encode(":\n\n");
+
+	public record Snapshot(int online, int waiting, int pairs) {
+
+		String toJson() {
+			return "{\"online\":" + online + ",\"waiting\":" + waiting + ",\"pairs\":" + pairs + "}";
+		}
+	}
+
+	public record Settings(long intervalMillis, long heartbeatMillis, long subscriberTimeoutMillis, int maxSubscribers) {
+	}
+
+	/**
+	 * One open stream. {@code pending} holds the newest event not yet written; a write
+	 * task is running whenever it is set.
+	 */
+	private final class Subscriber {
+
+		final SseEmitter emitter;
+		final AtomicReference<Set<DataWithMediaType>> pending = new AtomicReference<>();
+
+		Subscriber(SseEmitter emitter) {
+			this.emitter = emitter;
+		}
+
+		void offer(Set<DataWithMediaType> event) {
+			if (pending.getAndSet(event) == null) {
+				try {
+					executor.execute(this::drain);
+				} catch (RejectedExecutionException e) {
+					remove(this);
+				}
+			}
+		}
+
+		private void drain() {
+			Set<DataWithMediaType> event = pending.get();
+			while (event != null) {
+				try {
+					emitter.send(event);
+				} catch (IOException | IllegalStateException e) {
+					// Gone, or completed meanwhile
+					remove(this);
+					return;
+				}
+				if (pending.compareAndSet(event, null)) {
+					return;
+				}
+				event = pending.get();
+			}
+		}
+	}
+
+	private final Supplier<Snapshot> sampler;
+	private final ExecutorService executor;
+	private final Settings settings;
+	private final LongSupplier nanoTime;
+	private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+	// Only touched by the sampling task
+	private Snapshot lastSnapshot;
+	private long lastPublishedNanos;
+	// The newest snapshot's event, sent to new subscribers straight away
+	private volatile Set<DataWithMediaType> currentEvent;
+
+	private ScheduledExecutorService scheduler;
+
+	@Autowired
+	public StatsBroadcaster(SignalingHandler signalingHandler, Matchmaker matchmaker,
+			@Qualifier("virtualThreadTaskExecutor") ExecutorService executor,
+			@Qualifier("signalingScheduler") ScheduledExecutorService scheduler,
+			@Value("${app.stats.stream.interval-ms}") long intervalMillis,
+			@Value("${app.stats.stream.heartbeat-ms}") long heartbeatMillis,
+			@Value("${app.stats.stream.subscriber-timeout-ms}") long subscriberTimeoutMillis,
+			@Value("${app.stats.stream.max-subscribers}") int maxSubscribers) {
+		this(() -> new Snapshot(signalingHandler.getActiveConnections(), matchmaker.getWaitingCount(),
+				signalingHandler.getActivePairs()), executor,
+				new Settings(intervalMillis, heartbeatMillis, subscriberTimeoutMillis, maxSubscribers), System::nanoTime);
+		this.scheduler = scheduler;
+	}
+
+	StatsBroadcaster(Supplier<Snapshot> sampler, ExecutorService executor, Settings settings, LongSupplier nanoTime) {
+		this.sampler = sampler;
+		this.executor = executor;
+		this.settings = settings;
+		this.nanoTime = nanoTime;
+	}
+
+	@PostConstruct
+	public void startSampling() {
+		publish();
+		scheduler.scheduleAtFixedRate(this::publish, settings.intervalMillis(), settings.intervalMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Opens a stream that starts with the current snapshot.
+	 *
+	 * @return {@code null} if the subscriber limit is reached.
+	 */
+	public SseEmitter subscribe() {
+		if (subscribers.size() >= settings.maxSubscribers()) {
+			return null;
+		}
+		return subscribe(new SseEmitter(settings.subscriberTimeoutMillis()));
+	}
+
+	SseEmitter subscribe(SseEmitter emitter) {
+		Subscriber subscriber = new Subscriber(emitter);
+		emitter.onCompletion(() -> remove(subscriber));
+		emitter.onTimeout(() -> remove(subscriber));
+		emitter.onError(e -> remove(subscriber));
+		subscribers.add(subscriber);
+		Set<DataWithMediaType> event = currentEvent;
+		if (event != null) {
+			subscriber.offer(event);
+		}
+		return emitter;
+	}
+
+	public int getSubscriberCount() {
+		return subscribers.size();
+	}
+
+	/**
+	 * Samples the counts and sends them to every subscriber if they changed, or a
+	 * heartbeat if nothing was sent for a heartbeat interval.
+	 */
+	void publish() {
+		try {
+			long now = nanoTime.getAsLong();
+			Snapshot snapshot = sampler.get();
+			Set<DataWithMediaType> event;
+			if (!snapshot.equals(lastSnapshot)) {
+				lastSnapshot = snapshot;
+				event = encode("event: stats\ndata: " + snapshot.toJson() + "\n\n");
+				currentEvent = event;
+			} else if (now - lastPublishedNanos >= TimeUnit.MILLISECONDS.toNanos(settings.heartbeatMillis())) {
+				event = HEARTBEAT;
+			} else {
+				return;
+			}
+			lastPublishedNanos = now;
+			for (Subscriber subscriber : subscribers) {
+				subscriber.offer(event);
+			}
+		} catch (RuntimeException e) {
+			// An exception would cancel the periodic task
+			logger.error("Error publishing stats", e);
+		}
+	}
+
+	private void remove(Subscriber subscriber) {
+		if (subscribers.remove(subscriber)) {
+			subscriber.emitter.complete();
+		}
+	}
+
+	/**
+	 * Pre-encodes a complete SSE event; the emitter writes the bytes as they are.
+	 */
+	private static Set<DataWithMediaType> encode(String event) {
+		return Set.of(new DataWithMediaType(event.getBytes(StandardCharsets.UTF_8), MediaType.TEXT_EVENT_STREAM));
+	}
+}
@@ -1,9 +1,13 @@
 package com.thughari.randomchat.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.thughari.randomchat.handler.SignalingHandler;
 
@@ -16,10 +20,26 @@ public class StatsController {
 	@Autowired
 	private SignalingHandler signalingHandler;
 
+	@Autowired
+	private StatsBroadcaster statsBroadcaster;
+
 	@GetMapping("/api/active-users")
 	@Async("virtualThreadTaskExecutor")
 	public CompletableFuture<Map<String, Integer>> getActiveUsers() {
 		int activeUsers = signalingHandler.getActiveConnections();
 		return CompletableFuture.completedFuture(Map.of("count", activeUsers));
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Live counts as Server-Sent Events: a {@code stats} event with online, waiting and
+	 * pairs whenever they change. EventSource reconnects by itself if the stream ends.
+	 */
+	@GetMapping(path = "/api/stats/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public ResponseEntity<SseEmitter> streamStats() {
+		SseEmitter emitter = statsBroadcaster.subscribe();
+		if (emitter == null) {
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "30").build();
+		}
+		return ResponseEntity.ok().header("X-Accel-Buffering", "no").body(emitter);
+	}
+}
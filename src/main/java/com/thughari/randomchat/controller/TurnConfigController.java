@@ -1,13 +1,17 @@
 package com.thughari.randomchat.controller;
 
+import com.thughari.randomchat.service.IceServersSnapshot;
 import com.thughari.randomchat.service.TwilioTurnService;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 public class TurnConfigController {
@@ -19,10 +23,44 @@ public class TurnConfigController {
         this.twilioTurnService = twilioTurnService;
     }
 
+    /**
+     * Writes the pre-serialized ICE config. Browsers may reuse it until the TURN
+     * credentials expire, and revalidate with If-None-Match afterwards.
+     */
     @GetMapping("/api/turn-config")
-    @Async("virtualThreadTaskExecutor")
-    public CompletableFuture<List<Map<String, String>>> getTurnConfig() {
-        List<Map<String, String>> iceServers = twilioTurnService.getTwilioIceServers();
-        return CompletableFuture.completedFuture(iceServers);
+    public ResponseEntity<byte[]> getTurnConfig(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        IceServersSnapshot snapshot = twilioTurnService.getIceServersSnapshot();
+        CacheControl cacheControl = CacheControl
+                .maxAge(snapshot.remainingLifetimeSeconds(System.currentTimeMillis()), TimeUnit.SECONDS)
+                .cachePrivate();
+
+        if (matches(ifNoneMatch, snapshot.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(snapshot.etag())
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(snapshot.etag())
+                .cacheControl(cacheControl)
+                .body(snapshot.json());
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag) || tag.equals("*")) {
+                return true;
+            }
+        }
+        return false;
     }
-}
\ No newline at end of file
+}
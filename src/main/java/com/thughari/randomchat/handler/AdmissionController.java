@@ -0,0 +1,232 @@
+package com.thughari.randomchat.handler;
+
+import com.thughari.randomchat.component.SignalingMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides at the WebSocket handshake whether a new connection is admitted.
+ *
+ * New connections are refused while the node drains for a shutdown, while it is at its
+ * connection cap, while handshakes
+ * arrive faster than the configured rate, or while the signaling backlog says the node
+ * is overloaded. Refusals carry a Retry-After hint; the overload hint is jittered so a
+ * reconnect storm does not come back as one wave. Sessions that are already connected
+ * are never affected; their inbound frames are limited by {@link MessageRateLimiter}.
+ *
+ * An admitted handshake holds a {@link Reservation} against the connection cap until its
+ * session is established, so concurrent handshakes cannot all get in on the same count.
+ */
+@Component
+public class AdmissionController {
+
+	private static final Logger logger = LoggerFactory.getLogger(AdmissionController.class);
+
+	public enum Rejection {
+		DRAINING(HttpStatus.SERVICE_UNAVAILABLE),
+		CONNECTION_LIMIT(HttpStatus.SERVICE_UNAVAILABLE),
+		HANDSHAKE_RATE(HttpStatus.TOO_MANY_REQUESTS),
+		OVERLOADED(HttpStatus.SERVICE_UNAVAILABLE);
+
+		private final HttpStatus status;
+		private final String tag;
+
+		Rejection(HttpStatus status) {
+			this.status = status;
+			this.tag = name().toLowerCase(Locale.ROOT);
+		}
+
+		public HttpStatus getStatus() {
+			return status;
+		}
+	}
+
+	/**
+	 * @param rejection         {@code null} if the handshake is admitted.
+	 * @param retryAfterSeconds Hint for the client when rejected.
+	 * @param reservation       The connection slot taken, or {@code null} if rejected.
+	 */
+	public record Decision(Rejection rejection, long retryAfterSeconds, Reservation reservation) {
+
+		public boolean isAdmitted() {
+			return rejection == null;
+		}
+	}
+
+	/**
+	 * A connection slot taken by an admitted handshake. Released once the session is
+	 * established, when it counts as an active connection instead, or when the upgrade
+	 * fails. Releasing more than once has no effect.
+	 */
+	public static final class Reservation {
+
+		/** Handshake attribute carrying the reservation to the established session. */
+		public static final String ATTRIBUTE = Reservation.class.getName();
+
+		private final AtomicInteger pendingHandshakes;
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		private Reservation(AtomicInteger pendingHandshakes) {
+			this.pendingHandshakes = pendingHandshakes;
+		}
+
+		public void release() {
+			if (released.compareAndSet(false, true)) {
+				pendingHandshakes.decrementAndGet();
+			}
+		}
+	}
+
+	public record Settings(int maxConnections, double handshakesPerSecond, int handshakeBurst,
+			int maxInboundBacklog, long maxOutboundBacklog, long overloadRetryAfterSeconds) {
+	}
+
+	private final BooleanSupplier draining;
+	private final IntSupplier activeConnections;
+	private final IntSupplier inboundBacklog;
+	private final LongSupplier outboundBacklog;
+	private final SignalingMetrics metrics;
+	private final Settings settings;
+	private final LongSupplier nanoTime;
+	private final long handshakeIntervalNanos;
+	private final long handshakeBurstToleranceNanos;
+
+	// GCRA state for the handshake rate: when the next handshake is due at the steady rate
+	private final AtomicLong handshakeArrival;
+	// Admitted handshakes whose session is not established yet
+	private final AtomicInteger pendingHandshakes = new AtomicInteger();
+	private volatile boolean overloaded;
+
+	private ScheduledExecutorService scheduler;
+	private long overloadCheckMillis;
+
+	@Autowired
+	public AdmissionController(SignalingHandler signalingHandler, SignalingMetrics metrics,
+			@Qualifier("signalingScheduler") ScheduledExecutorService scheduler,
+			@Value("${app.admission.max-connections}") int maxConnections,
+			@Value("${app.admission.handshake.rate-per-second}") double handshakesPerSecond,
+			@Value("${app.admission.handshake.burst}") int handshakeBurst,
+			@Value("${app.admission.overload.max-inbound-backlog}") int maxInboundBacklog,
+			@Value("${app.admission.overload.max-outbound-backlog}") long maxOutboundBacklog,
+			@Value("${app.admission.overload.retry-after-seconds}") long overloadRetryAfterSeconds,
+			@Value("${app.admission.overload.check-interval-ms}") long overloadCheckMillis) {
+		this(signalingHandler::isDraining, signalingHandler::getActiveConnections, signalingHandler::getInboundBacklog,
+				metrics::getOutboundQueuedMessages, metrics,
+				new Settings(maxConnections, handshakesPerSecond, handshakeBurst, maxInboundBacklog,
+						maxOutboundBacklog, overloadRetryAfterSeconds),
+				System::nanoTime);
+		this.scheduler = scheduler;
+		this.overloadCheckMillis = overloadCheckMillis;
+	}
+
+	AdmissionController(BooleanSupplier draining, IntSupplier activeConnections, IntSupplier inboundBacklog,
+			LongSupplier outboundBacklog, SignalingMetrics metrics, Settings settings, LongSupplier nanoTime) {
+		if (settings.handshakesPerSecond() <= 0 || settings.handshakeBurst() < 1) {
+			throw new IllegalArgumentException("Handshake rate and burst must be positive");
+		}
+		this.draining = draining;
+		this.activeConnections = activeConnections;
+		this.inboundBacklog = inboundBacklog;
+		this.outboundBacklog = outboundBacklog;
+		this.metrics = metrics;
+		this.settings = settings;
+		this.nanoTime = nanoTime;
+		this.handshakeIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / settings.handshakesPerSecond());
+		this.handshakeBurstToleranceNanos = handshakeIntervalNanos * (settings.handshakeBurst() - 1);
+		this.handshakeArrival = new AtomicLong(nanoTime.getAsLong());
+	}
+
+	@PostConstruct
+	public void startOverloadChecks() {
+		metrics.gauge("signaling.admission.overloaded", "1 while new handshakes are refused for overload",
+				() -> overloaded ? 1 : 0);
+		scheduler.scheduleAtFixedRate(this::checkOverload, overloadCheckMillis, overloadCheckMillis,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Admits or refuses one handshake. An admitted handshake uses up rate budget even if
+	 * the upgrade later fails; its {@link Decision#reservation()} must be released.
+	 */
+	public Decision admitHandshake() {
+		if (draining.getAsBoolean()) {
+			return reject(Rejection.DRAINING, jitteredRetryAfter());
+		}
+		if (overloaded) {
+			return reject(Rejection.OVERLOADED, jitteredRetryAfter());
+		}
+		// Reserve first, then check: every concurrent handshake sees the others' reservations
+		if (activeConnections.getAsInt() + pendingHandshakes.incrementAndGet() > settings.maxConnections()) {
+			pendingHandshakes.decrementAndGet();
+			return reject(Rejection.CONNECTION_LIMIT, settings.overloadRetryAfterSeconds());
+		}
+
+		long now = nanoTime.getAsLong();
+		while (true) {
+			long previous = handshakeArrival.get();
+			long arrival = previous - now > 0 ? previous : now;
+			long ahead = arrival - now;
+			if (ahead > handshakeBurstToleranceNanos) {
+				pendingHandshakes.decrementAndGet();
+				long waitNanos = ahead - handshakeBurstToleranceNanos;
+				return reject(Rejection.HANDSHAKE_RATE, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999)));
+			}
+			if (handshakeArrival.compareAndSet(previous, arrival + handshakeIntervalNanos)) {
+				return new Decision(null, 0, new Reservation(pendingHandshakes));
+			}
+		}
+	}
+
+	/**
+	 * Samples the inbound mailbox and outbound buffer backlogs. Overload clears only once
+	 * both are back under half their limit, so the flag does not flap at the threshold.
+	 */
+	void checkOverload() {
+		int inbound = inboundBacklog.getAsInt();
+		long outbound = outboundBacklog.getAsLong();
+		boolean wasOverloaded = overloaded;
+		if (!wasOverloaded && (inbound > settings.maxInboundBacklog() || outbound > settings.maxOutboundBacklog())) {
+			overloaded = true;
+			logger.warn("Signaling overloaded ({} inbound, {} outbound frames queued); refusing new connections.",
+					inbound, outbound);
+		} else if (wasOverloaded && inbound <= settings.maxInboundBacklog() / 2
+				&& outbound <= settings.maxOutboundBacklog() / 2) {
+			overloaded = false;
+			logger.info("Signaling backlog drained; admitting new connections again.");
+		}
+	}
+
+	public boolean isOverloaded() {
+		return overloaded;
+	}
+
+	/**
+	 * Spreads retries over one to two times the configured hint.
+	 */
+	private long jitteredRetryAfter() {
+		return settings.overloadRetryAfterSeconds()
+				+ ThreadLocalRandom.current().nextLong(settings.overloadRetryAfterSeconds() + 1);
+	}
+
+	private Decision reject(Rejection rejection, long retryAfterSeconds) {
+		metrics.admissionRejected(rejection.tag);
+		return new Decision(rejection, retryAfterSeconds, null);
+	}
+}
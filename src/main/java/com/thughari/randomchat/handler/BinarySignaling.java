@@ -0,0 +1,331 @@
+package com.thughari.randomchat.handler;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Codec for the {@code randomchat.v2.bin} WebSocket subprotocol and the bridge between
+ * it and the JSON text protocol.
+ *
+ * A frame is one type byte followed by that type's fields, with no field names:
+ * <pre>
+ * string    := varint(utf8 length + 1) utf8 bytes   (varint 0 = absent)
+ * sdp       := varint(line count) { u8 dictionary index, string rest of line }
+ * candidate := string candidate, string sdpMid, varint(sdpMLineIndex + 1 | 0), string usernameFragment
+ *
+ *  1 ready_for_peer      2 leave: string reason      3 initiateOffer      4 waitForOffer
+ *  5 next                6 reconnect: varint delayMs  7 session: string token
+ *  8 resume: string token 9 resumed
+ * 16 offer: sdp         17 answer: sdp              18 ice: candidate
+ * 19 ice_batch: varint count, candidate...          20 media_status: string kind, u8 enabled
+ * </pre>
+ * SDP lines are split on CRLF and compressed with {@link SdpDictionary}. Relays between
+ * two binary users forward frames untouched; only mixed pairs go through this bridge.
+ */
+public final class BinarySignaling {
+
+	public static final String SUBPROTOCOL = "randomchat.v2.bin";
+
+	static final byte READY_FOR_PEER = 1;
+	static final byte LEAVE = 2;
+	static final byte INITIATE_OFFER = 3;
+	static final byte WAIT_FOR_OFFER = 4;
+	static final byte NEXT = 5;
+	static final byte RECONNECT = 6;
+	static final byte SESSION = 7;
+	static final byte RESUME = 8;
+	static final byte RESUMED = 9;
+	static final byte OFFER = 16;
+	static final byte ANSWER = 17;
+	static final byte ICE = 18;
+	static final byte ICE_BATCH = 19;
+	static final byte MEDIA_STATUS = 20;
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+	private static final JsonFactory JSON_FACTORY = OBJECT_MAPPER.getFactory();
+	private static final String CRLF = "\r\n";
+
+	private BinarySignaling() {
+	}
+
+	/**
+	 * @return The JSON {@code type} name of the frame, or {@code null} if it is empty or
+	 *         of an unknown type.
+	 */
+	public static String typeOf(byte[] frame) {
+		if (frame.length == 0) {
+			return null;
+		}
+		return switch (frame[0]) {
+		case READY_FOR_PEER -> "ready_for_peer";
+		case LEAVE -> "leave";
+		case INITIATE_OFFER -> "initiateOffer";
+		case WAIT_FOR_OFFER -> "waitForOffer";
+		case NEXT -> "next";
+		case RECONNECT -> "reconnect";
+		case SESSION -> "session";
+		case RESUME -> "resume";
+		case RESUMED -> "resumed";
+		case OFFER -> "offer";
+		case ANSWER -> "answer";
+		case ICE -> "ice";
+		case ICE_BATCH -> "ice_batch";
+		case MEDIA_STATUS -> "media_status";
+		default -> null;
+		};
+	}
+
+	/**
+	 * Encodes a JSON signaling message as a binary frame.
+	 *
+	 * @throws IOException if the payload is not valid JSON or its type has no binary form.
+	 */
+	public static byte[] fromJson(String json) throws IOException {
+		JsonNode message = OBJECT_MAPPER.readTree(json);
+		if (message == null || !message.isObject()) {
+			throw new IOException("Signaling message is not a JSON object");
+		}
+		String type = message.path("type").asText();
+		ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+		switch (type) {
+		case "ready_for_peer" -> out.write(READY_FOR_PEER);
+		case "initiateOffer" -> out.write(INITIATE_OFFER);
+		case "waitForOffer" -> out.write(WAIT_FOR_OFFER);
+		case "next" -> out.write(NEXT);
+		case "resumed" -> out.write(RESUMED);
+		case "session", "resume" -> {
+			out.write("session".equals(type) ? SESSION : RESUME);
+			writeString(out, textOrNull(message.get("token")));
+		}
+		case "reconnect" -> {
+			out.write(RECONNECT);
+			writeVarint(out, message.path("delayMs").asInt());
+		}
+		case "leave" -> {
+			out.write(LEAVE);
+			writeString(out, textOrNull(message.get("reason")));
+		}
+		case "offer", "answer" -> {
+			out.write("offer".equals(type) ? OFFER : ANSWER);
+			writeSdp(out, message.path(type).path("sdp").asText(""));
+		}
+		case "ice" -> {
+			out.write(ICE);
+			writeCandidate(out, message.path("candidate"));
+		}
+		case "ice_batch" -> {
+			out.write(ICE_BATCH);
+			JsonNode candidates = message.path("candidates");
+			writeVarint(out, candidates.size());
+			for (JsonNode candidate : candidates) {
+				writeCandidate(out, candidate);
+			}
+		}
+		case "media_status" -> {
+			out.write(MEDIA_STATUS);
+			writeString(out, textOrNull(message.get("kind")));
+			out.write(message.path("enabled").asBoolean() ? 1 : 0);
+		}
+		default -> throw new IOException("No binary form for message type '" + type + "'");
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Decodes a binary frame into the JSON message a text client would have sent.
+	 *
+	 * @throws IOException if the frame is truncated or of an unknown type.
+	 */
+	public static String toJson(byte[] frame) throws IOException {
+		String type = typeOf(frame);
+		if (type == null) {
+			throw new IOException("Unknown binary signaling frame");
+		}
+		Reader in = new Reader(frame);
+		StringWriter json = new StringWriter(frame.length * 2 + 32);
+		try (JsonGenerator generator = JSON_FACTORY.createGenerator(json)) {
+			generator.writeStartObject();
+			generator.writeStringField("type", type);
+			switch (frame[0]) {
+			case LEAVE -> writeNullableField(generator, "reason", in.readString());
+			case RECONNECT -> generator.writeNumberField("delayMs", in.readVarint());
+			case SESSION, RESUME -> writeNullableField(generator, "token", in.readString());
+			case OFFER, ANSWER -> {
+				generator.writeObjectFieldStart(type);
+				generator.writeStringField("type", type);
+				generator.writeStringField("sdp", in.readSdp());
+				generator.writeEndObject();
+			}
+			case ICE -> {
+				generator.writeFieldName("candidate");
+				in.readCandidate(generator);
+			}
+			case ICE_BATCH -> {
+				int count = in.readVarint();
+				generator.writeArrayFieldStart("candidates");
+				for (int i = 0; i < count; i++) {
+					in.readCandidate(generator);
+				}
+				generator.writeEndArray();
+			}
+			case MEDIA_STATUS -> {
+				writeNullableField(generator, "kind", in.readString());
+				generator.writeBooleanField("enabled", in.readByte() != 0);
+			}
+			default -> {
+				// ready_for_peer, initiateOffer, waitForOffer, next and resumed carry no fields
+			}
+			}
+			generator.writeEndObject();
+		}
+		return json.toString();
+	}
+
+	/**
+	 * @param iceFrame A binary {@code ice} frame.
+	 * @return The JSON text of its candidate object, as {@link IceBatcher} expects it.
+	 */
+	public static String candidateJson(byte[] iceFrame) throws IOException {
+		if (iceFrame.length == 0 || iceFrame[0] != ICE) {
+			throw new IOException("Not a binary ice frame");
+		}
+		Reader in = new Reader(iceFrame);
+		StringWriter json = new StringWriter(iceFrame.length + 64);
+		try (JsonGenerator generator = JSON_FACTORY.createGenerator(json)) {
+			in.readCandidate(generator);
+		}
+		return json.toString();
+	}
+
+	private static String textOrNull(JsonNode node) {
+		return node == null || node.isNull() ? null : node.asText();
+	}
+
+	private static void writeCandidate(ByteArrayOutputStream out, JsonNode candidate) {
+		writeString(out, textOrNull(candidate.get("candidate")));
+		writeString(out, textOrNull(candidate.get("sdpMid")));
+		JsonNode lineIndex = candidate.get("sdpMLineIndex");
+		writeVarint(out, lineIndex == null || lineIndex.isNull() ? 0 : lineIndex.asInt() + 1);
+		writeString(out, textOrNull(candidate.get("usernameFragment")));
+	}
+
+	private static void writeSdp(ByteArrayOutputStream out, String sdp) {
+		String[] lines = sdp.split(CRLF, -1);
+		writeVarint(out, lines.length);
+		for (String line : lines) {
+			int index = SdpDictionary.indexOf(line);
+			out.write(index);
+			writeString(out, line.substring(SdpDictionary.entry(index).length()));
+		}
+	}
+
+	private static void writeString(ByteArrayOutputStream out, String value) {
+		if (value == null) {
+			writeVarint(out, 0);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeVarint(out, bytes.length + 1);
+		out.write(bytes, 0, bytes.length);
+	}
+
+	private static void writeVarint(ByteArrayOutputStream out, int value) {
+		while ((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	private static void writeNullableField(JsonGenerator generator, String name, String value) throws IOException {
+		if (value == null) {
+			generator.writeNullField(name);
+		} else {
+			generator.writeStringField(name, value);
+		}
+	}
+
+	private static final class Reader {
+
+		private final byte[] frame;
+		// Position 0 is the type byte
+		private int position = 1;
+
+		Reader(byte[] frame) {
+			this.frame = frame;
+		}
+
+		int readByte() throws IOException {
+			if (position >= frame.length) {
+				throw new IOException("Truncated binary signaling frame");
+			}
+			return frame[position++] & 0xFF;
+		}
+
+		int readVarint() throws IOException {
+			int value = 0;
+			for (int shift = 0; shift < 32; shift += 7) {
+				int b = readByte();
+				value |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw new IOException("Malformed varint in binary signaling frame");
+		}
+
+		String readString() throws IOException {
+			int length = readVarint() - 1;
+			if (length < 0) {
+				return null;
+			}
+			if (length > frame.length - position) {
+				throw new IOException("Truncated binary signaling frame");
+			}
+			String value = new String(frame, position, length, StandardCharsets.UTF_8);
+			position += length;
+			return value;
+		}
+
+		String readSdp() throws IOException {
+			int lines = readVarint();
+			StringBuilder sdp = new StringBuilder(frame.length * 2);
+			for (int i = 0; i < lines; i++) {
+				if (i > 0) {
+					sdp.append(CRLF);
+				}
+				try {
+					sdp.append(SdpDictionary.entry(readByte()));
+				} catch (IllegalArgumentException e) {
+					throw new IOException(e.getMessage(), e);
+				}
+				String rest = readString();
+				if (rest != null) {
+					sdp.append(rest);
+				}
+			}
+			return sdp.toString();
+		}
+
+		void readCandidate(JsonGenerator generator) throws IOException {
+			generator.writeStartObject();
+			writeNullableField(generator, "candidate", readString());
+			writeNullableField(generator, "sdpMid", readString());
+			int lineIndex = readVarint();
+			if (lineIndex == 0) {
+				generator.writeNullField("sdpMLineIndex");
+			} else {
+				generator.writeNumberField("sdpMLineIndex", lineIndex - 1);
+			}
+			writeNullableField(generator, "usernameFragment", readString());
+			generator.writeEndObject();
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package com.thughari.randomchat.handler;
+
+/**
+ * Progress of a signaling drain, as reported by the drain endpoint.
+ *
+ * @param draining       Whether a drain has been started.
+ * @param drained        Whether every session has been closed.
+ * @param elapsedMillis  Time since the drain started; 0 if not draining.
+ * @param connections    Sessions still open on this node.
+ * @param waitingUsers   Users still in the waiting pool.
+ * @param activePairs    Pairs still connected through this node.
+ * @param reconnectsSent Sessions told to reconnect so far.
+ */
+public record DrainStatus(boolean draining, boolean drained, long elapsedMillis, int connections, int waitingUsers,
+		int activePairs, int reconnectsSent) {
+}
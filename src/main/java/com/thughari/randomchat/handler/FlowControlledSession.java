@@ -0,0 +1,21 @@
+package com.thughari.randomchat.handler;
+
+/**
+ * A session whose transport asks for frames instead of blocking whoever sends them.
+ *
+ * An {@link OutboundBuffer} for such a session only sends while there is demand, and
+ * parks its writer otherwise until the demand listener restarts it, so frames the
+ * transport is not ready for wait in the buffer, under its limits.
+ */
+interface FlowControlledSession {
+
+	/**
+	 * @return Whether the transport is ready to take another frame.
+	 */
+	boolean hasDemand();
+
+	/**
+	 * @param listener Called whenever the transport asks for more frames.
+	 */
+	void onDemand(Runnable listener);
+}
@@ -0,0 +1,101 @@
+package com.thughari.randomchat.handler;
+
+import com.thughari.randomchat.component.SignalingMetrics;
+import com.thughari.randomchat.handler.OutboundBuffer.FrameKind;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces trickle ICE candidates bound for one session into {@code ice_batch} frames.
+ *
+ * The first buffered candidate arms a flush timer for {@code windowMillis}, so no
+ * candidate waits longer than the window; reaching {@code maxCandidates} flushes
+ * immediately. Any other frame for the session must call {@link #flush()} first so
+ * candidates are never reordered around an offer or answer.
+ */
+public class IceBatcher {
+
+	private static final Logger logger = LoggerFactory.getLogger(IceBatcher.class);
+
+	public record Settings(long windowMillis, int maxCandidates) {
+	}
+
+	private final OutboundBuffer outboundBuffer;
+	private final ScheduledExecutorService scheduler;
+	private final Settings settings;
+	private final SignalingMetrics metrics;
+
+	private final List<String> candidates = new ArrayList<>();
+	private ScheduledFuture<?> pendingFlush;
+
+	public IceBatcher(OutboundBuffer outboundBuffer, ScheduledExecutorService scheduler, Settings settings,
+			SignalingMetrics metrics) {
+		this.outboundBuffer = outboundBuffer;
+		this.scheduler = scheduler;
+		this.settings = settings;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * @param candidateJson The raw JSON of the {@code candidate} field of an {@code ice} frame.
+	 */
+	public synchronized void add(String candidateJson) {
+		candidates.add(candidateJson);
+		if (candidates.size() >= settings.maxCandidates()) {
+			flush();
+		} else if (pendingFlush == null) {
+			try {
+				pendingFlush = scheduler.schedule(this::flush, settings.windowMillis(), TimeUnit.MILLISECONDS);
+			} catch (RejectedExecutionException e) {
+				logger.warn("ICE batch timer rejected, flushing immediately.");
+				flush();
+			}
+		}
+	}
+
+	/**
+	 * Sends any buffered candidates as one {@code ice_batch} frame.
+	 */
+	public synchronized void flush() {
+		if (pendingFlush != null) {
+			pendingFlush.cancel(false);
+			pendingFlush = null;
+		}
+		if (candidates.isEmpty()) {
+			return;
+		}
+
+		StringBuilder frame = new StringBuilder(64 + candidates.size() * 256);
+		frame.append("{\"type\":\"ice_batch\",\"candidates\":[");
+		for (int i = 0; i < candidates.size(); i++) {
+			if (i > 0) {
+				frame.append(',');
+			}
+			frame.append(candidates.get(i));
+		}
+		frame.append("]}");
+
+		metrics.iceBatchSent(candidates.size());
+		candidates.clear();
+		outboundBuffer.enqueue(new TextMessage(frame.toString()), FrameKind.ICE);
+	}
+
+	/**
+	 * Drops buffered candidates and cancels the timer. Called once the session has closed.
+	 */
+	public synchronized void discard() {
+		if (pendingFlush != null) {
+			pendingFlush.cancel(false);
+			pendingFlush = null;
+		}
+		candidates.clear();
+	}
+}
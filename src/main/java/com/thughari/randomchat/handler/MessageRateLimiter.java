@@ -0,0 +1,114 @@
+package com.thughari.randomchat.handler;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-session rate limits on inbound signaling frames, one token bucket per message class.
+ *
+ * Each bucket is kept as a single "theoretical arrival time" (the GCRA form of a token
+ * bucket), so a session needs one {@code long} per class and no timer. The limits are
+ * shared; the per-session state lives in {@link SessionState} and is only allocated
+ * once the session sends its first frame, so idle connections pay nothing for it.
+ * Frames are checked as they arrive, before they are queued on the session's mailbox.
+ * The container delivers a session's frames one at a time, so no synchronization is needed.
+ */
+@Component
+public class MessageRateLimiter {
+
+	public enum MessageClass {
+		/** ready_for_peer, next, leave and resume: the expensive path through the matchmaker. */
+		PAIRING,
+		/** offer and answer. */
+		DESCRIPTION,
+		ICE,
+		MEDIA_STATUS;
+
+		private final String tag = name().toLowerCase(Locale.ROOT);
+
+		public String getTag() {
+			return tag;
+		}
+
+		/**
+		 * @return The class of a client message type, or {@code null} if it is not limited.
+		 */
+		public static MessageClass of(String messageType) {
+			return switch (messageType) {
+			case "ready_for_peer", "next", "leave", "resume" -> PAIRING;
+			case "offer", "answer" -> DESCRIPTION;
+			case "ice" -> ICE;
+			case "media_status" -> MEDIA_STATUS;
+			default -> null;
+			};
+		}
+	}
+
+	/**
+	 * @param intervalNanos       Time to earn one token.
+	 * @param burstToleranceNanos How far ahead of the steady rate a session may get.
+	 */
+	private record Limit(long intervalNanos, long burstToleranceNanos) {
+
+		static Limit of(double ratePerSecond, int burst) {
+			if (ratePerSecond <= 0 || burst < 1) {
+				throw new IllegalArgumentException("Message rate and burst must be positive");
+			}
+			long interval = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+			return new Limit(interval, interval * (burst - 1));
+		}
+	}
+
+	private final Limit[] limits = new Limit[MessageClass.values().length];
+	private final int maxThrottled;
+
+	public MessageRateLimiter(
+			@Value("${app.admission.messages.pairing.rate-per-second}") double pairingRate,
+			@Value("${app.admission.messages.pairing.burst}") int pairingBurst,
+			@Value("${app.admission.messages.description.rate-per-second}") double descriptionRate,
+			@Value("${app.admission.messages.description.burst}") int descriptionBurst,
+			@Value("${app.admission.messages.ice.rate-per-second}") double iceRate,
+			@Value("${app.admission.messages.ice.burst}") int iceBurst,
+			@Value("${app.admission.messages.media-status.rate-per-second}") double mediaStatusRate,
+			@Value("${app.admission.messages.media-status.burst}") int mediaStatusBurst,
+			@Value("${app.admission.messages.max-throttled}") int maxThrottled) {
+		limits[MessageClass.PAIRING.ordinal()] = Limit.of(pairingRate, pairingBurst);
+		limits[MessageClass.DESCRIPTION.ordinal()] = Limit.of(descriptionRate, descriptionBurst);
+		limits[MessageClass.ICE.ordinal()] = Limit.of(iceRate, iceBurst);
+		limits[MessageClass.MEDIA_STATUS.ordinal()] = Limit.of(mediaStatusRate, mediaStatusBurst);
+		this.maxThrottled = maxThrottled;
+	}
+
+	/**
+	 * Takes a token for one frame of the given class.
+	 *
+	 * @return {@code false} if the session is over its limit and the frame should be dropped.
+	 */
+	boolean tryAcquire(SessionState state, MessageClass messageClass, long nowNanos) {
+		long[] arrivalTimes = state.messageArrivalTimes;
+		if (arrivalTimes == null) {
+			arrivalTimes = new long[limits.length];
+			state.messageArrivalTimes = arrivalTimes;
+		}
+		int slot = messageClass.ordinal();
+		Limit limit = limits[slot];
+		// 0 means nothing of this class was sent yet; nanoTime values are compared by difference
+		long previous = arrivalTimes[slot];
+		long arrival = previous != 0 && previous - nowNanos > 0 ? previous : nowNanos;
+		if (arrival - nowNanos > limit.burstToleranceNanos()) {
+			return false;
+		}
+		arrivalTimes[slot] = arrival + limit.intervalNanos();
+		return true;
+	}
+
+	/**
+	 * @return How many dropped frames a session may accumulate before it is closed.
+	 */
+	int getMaxThrottled() {
+		return maxThrottled;
+	}
+}
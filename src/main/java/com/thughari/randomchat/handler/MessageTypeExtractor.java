@@ -0,0 +1,88 @@
+package com.thughari.randomchat.handler;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Reads the top-level {@code "type"} field of a signaling message without building
+ * a tree or map of the rest of the payload.
+ *
+ * Relayed messages (offer, answer, ice, media_status) are forwarded verbatim, so the
+ * server only needs their type. The parser stops as soon as the field is found;
+ * clients put it first, which means multi-KB SDP bodies are never tokenized.
+ */
+public final class MessageTypeExtractor {
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+	private static final String TYPE_FIELD = "type";
+
+	private MessageTypeExtractor() {
+	}
+
+	/**
+	 * @param payload The raw JSON text of a signaling message.
+	 * @return The value of the top-level {@code type} field, or {@code null} if it is
+	 *         missing or not a string.
+	 * @throws IOException if the payload is not a JSON object.
+	 */
+	public static String extractType(String payload) throws IOException {
+		return extractTextField(payload, TYPE_FIELD);
+	}
+
+	/**
+	 * @param payload The raw JSON text of a signaling message.
+	 * @param field   The top-level field to read.
+	 * @return The field's string value, or {@code null} if it is missing or not a string.
+	 * @throws IOException if the payload is not a JSON object.
+	 */
+	public static String extractTextField(String payload, String field) throws IOException {
+		try (JsonParser parser = JSON_FACTORY.createParser(payload)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new IOException("Signaling message is not a JSON object");
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				if (field.equals(parser.currentName())) {
+					return parser.nextTextValue();
+				}
+				parser.nextToken();
+				parser.skipChildren();
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the raw JSON text of a top-level object or array field, exactly as it
+	 * appears in the payload, without parsing its contents into Java objects.
+	 *
+	 * @param payload The raw JSON text of a signaling message.
+	 * @param field   The top-level field to lift out.
+	 * @return The field's JSON text, or {@code null} if it is missing or not an object/array.
+	 * @throws IOException if the payload is not a JSON object.
+	 */
+	public static String extractRawField(String payload, String field) throws IOException {
+		try (JsonParser parser = JSON_FACTORY.createParser(payload)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new IOException("Signaling message is not a JSON object");
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				boolean matches = field.equals(parser.currentName());
+				JsonToken value = parser.nextToken();
+				if (matches) {
+					if (value != JsonToken.START_OBJECT && value != JsonToken.START_ARRAY) {
+						return null;
+					}
+					int start = (int) parser.currentTokenLocation().getCharOffset();
+					parser.skipChildren();
+					int end = (int) parser.currentLocation().getCharOffset();
+					return payload.substring(start, end);
+				}
+				parser.skipChildren();
+			}
+			return null;
+		}
+	}
+}
@@ -0,0 +1,254 @@
+package com.thughari.randomchat.handler;
+
+import com.thughari.randomchat.component.SignalingMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Bounded outbound queue for a single WebSocket session with one writer.
+ *
+ * Frames are written by at most one executor thread at a time, so a slow peer
+ * costs one parked thread and a bounded amount of memory instead of one thread
+ * per pending frame. When the queue is full the {@link OverflowPolicy} decides
+ * between dropping ICE candidates and closing the session with {@link #SLOW_CONSUMER}.
+ * For a {@link FlowControlledSession} the writer sends only while the transport asks for
+ * frames, so the queue fills up the same way as behind a blocking send.
+ */
+public class OutboundBuffer {
+
+	private static final Logger logger = LoggerFactory.getLogger(OutboundBuffer.class);
+
+	public static final CloseStatus SLOW_CONSUMER = new CloseStatus(4008, "Slow consumer: outbound buffer full");
+
+	public enum FrameKind {
+		/** Server-generated control frames, pings and media_status. */
+		CONTROL,
+		/** SDP offers and answers. */
+		DESCRIPTION,
+		/** Trickle ICE candidates. */
+		ICE
+	}
+
+	public enum OverflowPolicy {
+		/**
+		 * Drop queued ICE candidates that a newer offer/answer superseded, oldest first, to
+		 * make room. Candidates still current are never dropped: if none are superseded
+		 * the session is closed, as with {@link #CLOSE}.
+		 */
+		DROP_ICE,
+		/** Close the session as soon as the buffer is full. */
+		CLOSE
+	}
+
+	public record Limits(int maxMessages, int maxBytes, OverflowPolicy overflowPolicy) {
+	}
+
+	private record Frame(WebSocketMessage<?> message, FrameKind kind, int size) {
+	}
+
+	private final WebSocketSession session;
+	// Null unless the session's transport signals demand
+	private final FlowControlledSession flowControl;
+	private final Executor executor;
+	private final Limits limits;
+	private final SignalingMetrics metrics;
+
+	// Most sessions are idle or hold a frame or two; the deque grows on demand
+	private final ArrayDeque<Frame> frames = new ArrayDeque<>(4);
+	private int queuedBytes;
+	private boolean writing;
+	private boolean closed;
+
+	public OutboundBuffer(WebSocketSession session, Executor executor, Limits limits, SignalingMetrics metrics) {
+		this.session = session;
+		this.executor = executor;
+		this.limits = limits;
+		this.metrics = metrics;
+		this.flowControl = session instanceof FlowControlledSession flowControlled ? flowControlled : null;
+		if (flowControl != null) {
+			flowControl.onDemand(this::resumeWriter);
+		}
+	}
+
+	/**
+	 * Queues a frame for the session and starts the writer if it is idle.
+	 *
+	 * @return {@code false} if the buffer is closed or overflowed and the frame was not queued.
+	 */
+	public boolean enqueue(WebSocketMessage<?> message, FrameKind kind) {
+		int size = message.getPayloadLength();
+		boolean overflowed = false;
+		boolean startWriter = false;
+		synchronized (this) {
+			if (closed) {
+				return false;
+			}
+			if (!makeRoom(size, kind)) {
+				closed = true;
+				overflowed = true;
+				discardQueuedFrames();
+			} else {
+				frames.addLast(new Frame(message, kind, size));
+				queuedBytes += size;
+				metrics.outboundQueued(size);
+				startWriter = !writing;
+				writing = true;
+			}
+		}
+
+		if (overflowed) {
+			closeSlowConsumer();
+			return false;
+		}
+		if (startWriter) {
+			startWriter();
+		}
+		return true;
+	}
+
+	/**
+	 * Drops everything still queued and rejects further frames. Called once the session has closed.
+	 */
+	public void close() {
+		synchronized (this) {
+			closed = true;
+			discardQueuedFrames();
+		}
+	}
+
+	public synchronized int size() {
+		return frames.size();
+	}
+
+	public synchronized int getQueuedBytes() {
+		return queuedBytes;
+	}
+
+	private boolean makeRoom(int size, FrameKind kind) {
+		while (frames.size() >= limits.maxMessages() || queuedBytes + size > limits.maxBytes()) {
+			if (frames.isEmpty() || limits.overflowPolicy() != OverflowPolicy.DROP_ICE
+					|| !dropSupersededIceFrame(kind == FrameKind.DESCRIPTION)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Drops the oldest ICE frame queued ahead of a newer description: the queued one, or
+	 * the incoming frame if {@code descriptionIncoming}.
+	 */
+	private boolean dropSupersededIceFrame(boolean descriptionIncoming) {
+		int supersededBefore = descriptionIncoming ? frames.size() : lastDescriptionIndex();
+		int index = 0;
+		for (Iterator<Frame> it = frames.iterator(); it.hasNext() && index < supersededBefore; index++) {
+			Frame frame = it.next();
+			if (frame.kind() == FrameKind.ICE) {
+				it.remove();
+				queuedBytes -= frame.size();
+				metrics.outboundDequeued(frame.size());
+				metrics.outboundIceDropped();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return The position of the newest queued description, or -1 if none is queued.
+	 */
+	private int lastDescriptionIndex() {
+		int index = frames.size() - 1;
+		for (Iterator<Frame> it = frames.descendingIterator(); it.hasNext(); index--) {
+			if (it.next().kind() == FrameKind.DESCRIPTION) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	private void discardQueuedFrames() {
+		for (Frame frame : frames) {
+			metrics.outboundDequeued(frame.size());
+		}
+		frames.clear();
+		queuedBytes = 0;
+	}
+
+	private void startWriter() {
+		try {
+			executor.execute(this::drain);
+		} catch (RejectedExecutionException e) {
+			logger.warn("Writer rejected for session {}, executor is shutting down.", session.getId());
+			synchronized (this) {
+				writing = false;
+				discardQueuedFrames();
+			}
+		}
+	}
+
+	private void resumeWriter() {
+		synchronized (this) {
+			if (writing || closed || frames.isEmpty()) {
+				return;
+			}
+			writing = true;
+		}
+		startWriter();
+	}
+
+	private void drain() {
+		while (true) {
+			Frame frame;
+			synchronized (this) {
+				if (flowControl != null && !flowControl.hasDemand()) {
+					// Demand is signalled after it is counted, so resumeWriter sees writing = false
+					writing = false;
+					return;
+				}
+				frame = frames.pollFirst();
+				if (frame == null) {
+					writing = false;
+					return;
+				}
+				queuedBytes -= frame.size();
+				metrics.outboundDequeued(frame.size());
+			}
+
+			try {
+				session.sendMessage(frame.message());
+			} catch (IOException e) {
+				metrics.outboundSendFailed();
+				logger.error("IOException sending message to session {}: {}", session.getId(), e.getMessage());
+			} catch (IllegalStateException e) {
+				metrics.outboundSendFailed();
+				logger.warn("IllegalStateException sending to session {}. It might be closing.", session.getId());
+			}
+		}
+	}
+
+	private void closeSlowConsumer() {
+		metrics.outboundOverflowClosed();
+		logger.warn("Outbound buffer for session {} overflowed, closing it.", session.getId());
+		try {
+			executor.execute(() -> {
+				try {
+					session.close(SLOW_CONSUMER);
+				} catch (IOException e) {
+					logger.warn("Error closing slow session {}: {}", session.getId(), e.getMessage());
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			logger.warn("Close rejected for session {}, executor is shutting down.", session.getId());
+		}
+	}
+}
@@ -0,0 +1,203 @@
+package com.thughari.randomchat.handler;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.PongMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+/**
+ * Presents a WebFlux session on Reactor Netty as a {@link WebSocketSession}, so that
+ * {@link SignalingHandler} serves it exactly like a servlet container session.
+ *
+ * Outbound frames are emitted only as the Netty connection asks for them, at most
+ * {@code sendWindow} at a time. The session is a {@link FlowControlledSession}: its
+ * {@link OutboundBuffer} writer stops while there is no demand and is restarted when the
+ * connection asks for more, so a slow client backs up into its outbound buffer and the
+ * overflow policy applies, as with a blocking servlet send, without blocking a thread.
+ */
+final class ReactiveSessionAdapter implements WebSocketSession, FlowControlledSession {
+
+	private final org.springframework.web.reactive.socket.WebSocketSession session;
+	private final Flux<org.springframework.web.reactive.socket.WebSocketMessage> outbound;
+	private volatile FluxSink<org.springframework.web.reactive.socket.WebSocketMessage> sink;
+	private volatile Runnable demandListener = () -> {
+	};
+	private volatile Principal principal;
+	// Frame sizes are enforced by the Netty server; the limits are only recorded
+	private volatile int textMessageSizeLimit = ReactiveSignalingHandler.MAX_FRAME_BYTES;
+	private volatile int binaryMessageSizeLimit = ReactiveSignalingHandler.MAX_FRAME_BYTES;
+	private volatile boolean closed;
+	// Set when this side closes the session, reported if the client sends no close status
+	private volatile CloseStatus localCloseStatus;
+
+	ReactiveSessionAdapter(org.springframework.web.reactive.socket.WebSocketSession session, int sendWindow) {
+		this.session = session;
+		this.outbound = Flux.<org.springframework.web.reactive.socket.WebSocketMessage>create(emitter -> {
+			sink = emitter;
+			emitter.onRequest(n -> demandListener.run());
+		}).limitRate(sendWindow);
+		// Resolved by the handshake already, so this completes at once
+		session.getHandshakeInfo().getPrincipal().subscribe(resolved -> principal = resolved);
+	}
+
+	/**
+	 * The frames to write to the connection, requested {@code sendWindow} at a time.
+	 */
+	Flux<org.springframework.web.reactive.socket.WebSocketMessage> outbound() {
+		return outbound;
+	}
+
+	@Override
+	public boolean hasDemand() {
+		FluxSink<?> current = sink;
+		return current != null && current.requestedFromDownstream() > 0;
+	}
+
+	@Override
+	public void onDemand(Runnable listener) {
+		demandListener = listener;
+	}
+
+	/**
+	 * Called once the connection is gone.
+	 *
+	 * @return The status to report: the client's, else the one this side closed with.
+	 */
+	CloseStatus closed(int code, String reason) {
+		closed = true;
+		CloseStatus local = localCloseStatus;
+		if (code == CloseStatus.NO_CLOSE_FRAME.getCode() && local != null) {
+			return local;
+		}
+		return new CloseStatus(code, reason);
+	}
+
+	@Override
+	public void sendMessage(WebSocketMessage<?> message) throws IOException {
+		if (closed) {
+			throw new IllegalStateException("Session " + getId() + " is closed");
+		}
+		FluxSink<org.springframework.web.reactive.socket.WebSocketMessage> current = sink;
+		if (current == null) {
+			throw new IOException("Session " + getId() + " is not connected yet");
+		}
+		if (current.isCancelled()) {
+			// The connection went away before the close was reported
+			throw new IllegalStateException("Session " + getId() + " is closing");
+		}
+		current.next(toReactive(message));
+	}
+
+	private org.springframework.web.reactive.socket.WebSocketMessage toReactive(WebSocketMessage<?> message) {
+		if (message instanceof TextMessage text) {
+			return session.textMessage(text.getPayload());
+		}
+		if (message instanceof BinaryMessage binary) {
+			return session.binaryMessage(factory -> factory.wrap(binary.getPayload()));
+		}
+		if (message instanceof PingMessage ping) {
+			return session.pingMessage(factory -> factory.wrap(ping.getPayload()));
+		}
+		if (message instanceof PongMessage pong) {
+			return session.pongMessage(factory -> factory.wrap(pong.getPayload()));
+		}
+		throw new IllegalArgumentException("Unsupported message type " + message.getClass().getName());
+	}
+
+	@Override
+	public String getId() {
+		return session.getId();
+	}
+
+	@Override
+	public URI getUri() {
+		return session.getHandshakeInfo().getUri();
+	}
+
+	@Override
+	public HttpHeaders getHandshakeHeaders() {
+		return session.getHandshakeInfo().getHeaders();
+	}
+
+	@Override
+	public Map<String, Object> getAttributes() {
+		return session.getAttributes();
+	}
+
+	@Override
+	public Principal getPrincipal() {
+		return principal;
+	}
+
+	@Override
+	public InetSocketAddress getLocalAddress() {
+		return (InetSocketAddress) session.getHandshakeInfo().getAttributes().get(ReactiveSignalingHandler.LOCAL_ADDRESS_ATTRIBUTE);
+	}
+
+	@Override
+	public InetSocketAddress getRemoteAddress() {
+		return session.getHandshakeInfo().getRemoteAddress();
+	}
+
+	@Override
+	public String getAcceptedProtocol() {
+		return session.getHandshakeInfo().getSubProtocol();
+	}
+
+	@Override
+	public void setTextMessageSizeLimit(int messageSizeLimit) {
+		textMessageSizeLimit = messageSizeLimit;
+	}
+
+	@Override
+	public int getTextMessageSizeLimit() {
+		return textMessageSizeLimit;
+	}
+
+	@Override
+	public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+		binaryMessageSizeLimit = messageSizeLimit;
+	}
+
+	@Override
+	public int getBinaryMessageSizeLimit() {
+		return binaryMessageSizeLimit;
+	}
+
+	@Override
+	public List<WebSocketExtension> getExtensions() {
+		return List.of();
+	}
+
+	@Override
+	public boolean isOpen() {
+		return !closed && session.isOpen();
+	}
+
+	@Override
+	public void close() {
+		close(CloseStatus.NORMAL);
+	}
+
+	@Override
+	public void close(CloseStatus status) {
+		localCloseStatus = status;
+		session.close(new org.springframework.web.reactive.socket.CloseStatus(status.getCode(), status.getReason()))
+				.subscribe();
+	}
+}
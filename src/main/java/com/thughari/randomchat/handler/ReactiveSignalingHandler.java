@@ -0,0 +1,90 @@
+package com.thughari.randomchat.handler;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.PongMessage;
+import org.springframework.web.socket.TextMessage;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Serves {@code /ws} on Reactor Netty when {@code app.signaling.runtime=reactive}.
+ *
+ * It holds no signaling logic of its own: each WebFlux session is wrapped in a
+ * {@link ReactiveSessionAdapter} and handed to {@link SignalingHandler}, so pairing,
+ * relaying, liveness, drains and resumption behave the same on both runtimes. Inbound
+ * frames are copied off the Netty buffers and queued on the session's mailbox without
+ * blocking the event loop; outbound frames flow back through the adapter's sink.
+ */
+public class ReactiveSignalingHandler implements WebSocketHandler {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReactiveSignalingHandler.class);
+
+	/** Largest frame accepted, as for Reactor Netty's default WebSocket server spec. */
+	static final int MAX_FRAME_BYTES = 65536;
+
+	/**
+	 * Handshake attribute for the local address the connection was accepted on, which
+	 * WebFlux does not pass on by itself.
+	 */
+	public static final String LOCAL_ADDRESS_ATTRIBUTE = ReactiveSignalingHandler.class.getName() + ".localAddress";
+
+	private final SignalingHandler signalingHandler;
+	private final int sendWindow;
+
+	public ReactiveSignalingHandler(SignalingHandler signalingHandler, int sendWindow) {
+		this.signalingHandler = signalingHandler;
+		this.sendWindow = sendWindow;
+	}
+
+	@Override
+	public List<String> getSubProtocols() {
+		return signalingHandler.getSubProtocols();
+	}
+
+	@Override
+	public Mono<Void> handle(WebSocketSession session) {
+		ReactiveSessionAdapter adapter = new ReactiveSessionAdapter(session, sendWindow);
+		signalingHandler.afterConnectionEstablished(adapter);
+		// Registered only now, so a connection lost meanwhile is still closed after it was established
+		session.closeStatus()
+				.defaultIfEmpty(CloseStatus.NO_CLOSE_FRAME)
+				.subscribe(status -> signalingHandler.afterConnectionClosed(adapter,
+						adapter.closed(status.getCode(), status.getReason())));
+
+		Mono<Void> input = session.receive().doOnNext(message -> dispatch(adapter, message)).then();
+		Mono<Void> output = session.send(adapter.outbound());
+		// Either side ending ends the session; the other is cancelled
+		return Mono.firstWithSignal(input, output);
+	}
+
+	private void dispatch(ReactiveSessionAdapter adapter, WebSocketMessage message) {
+		try {
+			switch (message.getType()) {
+			case TEXT -> signalingHandler.handleMessage(adapter, new TextMessage(message.getPayloadAsText()));
+			case BINARY -> signalingHandler.handleMessage(adapter, new BinaryMessage(copyOf(message.getPayload())));
+			case PONG -> signalingHandler.handleMessage(adapter, new PongMessage(ByteBuffer.wrap(copyOf(message.getPayload()))));
+			case PING -> {
+				// Reactor Netty answers pings itself
+			}
+			}
+		} catch (Exception e) {
+			logger.error("Error handling frame from session {}", adapter.getId(), e);
+		}
+	}
+
+	private static byte[] copyOf(DataBuffer payload) {
+		byte[] bytes = new byte[payload.readableByteCount()];
+		payload.read(bytes);
+		return bytes;
+	}
+}
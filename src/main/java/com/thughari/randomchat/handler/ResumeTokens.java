@@ -0,0 +1,72 @@
+package com.thughari.randomchat.handler;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Issues and checks session resumption tokens. A token is the session id followed by a
+ * MAC of it under a key generated when the node starts, so nothing is stored per token,
+ * and a token from another node or from before a restart is rejected.
+ */
+final class ResumeTokens {
+
+	private static final String ALGORITHM = "HmacSHA256";
+	private static final int KEY_BYTES = 32;
+	// 128 bits of the MAC are plenty for a token that lives a few seconds
+	private static final int MAC_BYTES = 16;
+	private static final char SEPARATOR = '.';
+
+	private final Mac prototype;
+
+	ResumeTokens() {
+		byte[] key = new byte[KEY_BYTES];
+		new SecureRandom().nextBytes(key);
+		try {
+			prototype = Mac.getInstance(ALGORITHM);
+			prototype.init(new SecretKeySpec(key, ALGORITHM));
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(ALGORITHM + " is not available", e);
+		}
+	}
+
+	String issue(String sessionId) {
+		return sessionId + SEPARATOR + Base64.getUrlEncoder().withoutPadding().encodeToString(mac(sessionId));
+	}
+
+	/**
+	 * @return The id of the session the token was issued to, or {@code null} if the token
+	 *         is malformed or was not issued by this node.
+	 */
+	String verify(String token) {
+		int separator = token.lastIndexOf(SEPARATOR);
+		if (separator <= 0) {
+			return null;
+		}
+		String sessionId = token.substring(0, separator);
+		byte[] presented;
+		try {
+			presented = Base64.getUrlDecoder().decode(token.substring(separator + 1));
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+		return MessageDigest.isEqual(presented, mac(sessionId)) ? sessionId : null;
+	}
+
+	private byte[] mac(String sessionId) {
+		Mac mac;
+		try {
+			// A Mac is not thread-safe; a clone skips the provider lookup and key setup
+			mac = (Mac) prototype.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException(ALGORITHM + " cannot be cloned", e);
+		}
+		return Arrays.copyOf(mac.doFinal(sessionId.getBytes(StandardCharsets.UTF_8)), MAC_BYTES);
+	}
+}
@@ -0,0 +1,131 @@
+package com.thughari.randomchat.handler;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Static dictionary of SDP line prefixes for the {@code randomchat.v2.bin} subprotocol.
+ *
+ * Each SDP line is sent as a one-byte index of the longest matching entry followed by
+ * the rest of the line, so lines browsers emit verbatim in every offer (codec maps,
+ * header extensions, transport setup) shrink to two bytes. Index 0 means no entry
+ * matched. The list is part of the wire format: entries may only be appended, and
+ * {@code binary-signaling.js} must carry the same list in the same order.
+ */
+final class SdpDictionary {
+
+	static final List<String> ENTRIES = List.of(
+			"v=0",
+			"o=- ",
+			"o=mozilla...THIS_IS_SDPARTA-",
+			"s=-",
+			"t=0 0",
+			"a=group:BUNDLE ",
+			"a=extmap-allow-mixed",
+			"a=msid-semantic: WMS",
+			"a=msid-semantic:WMS ",
+			"m=audio 9 UDP/TLS/RTP/SAVPF ",
+			"m=video 9 UDP/TLS/RTP/SAVPF ",
+			"m=application 9 UDP/DTLS/SCTP webrtc-datachannel",
+			"c=IN IP4 0.0.0.0",
+			"a=rtcp:9 IN IP4 0.0.0.0",
+			"a=ice-ufrag:",
+			"a=ice-pwd:",
+			"a=ice-options:trickle",
+			"a=fingerprint:sha-256 ",
+			"a=setup:actpass",
+			"a=setup:active",
+			"a=setup:passive",
+			"a=mid:",
+			"a=extmap:",
+			"a=sendrecv",
+			"a=sendonly",
+			"a=recvonly",
+			"a=inactive",
+			"a=msid:",
+			"a=rtcp-mux",
+			"a=rtcp-rsize",
+			"a=rtpmap:",
+			"a=rtcp-fb:",
+			"a=fmtp:",
+			"a=ssrc-group:FID ",
+			"a=ssrc:",
+			"a=candidate:",
+			"a=end-of-candidates",
+			"a=sctp-port:5000",
+			"a=max-message-size:",
+			"a=extmap:1 urn:ietf:params:rtp-hdrext:ssrc-audio-level",
+			"a=extmap:2 http://www.webrtc.org/experiments/rtp-hdrext/abs-send-time",
+			"a=extmap:3 http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01",
+			"a=extmap:4 urn:ietf:params:rtp-hdrext:sdes:mid",
+			"a=rtpmap:111 opus/48000/2",
+			"a=rtcp-fb:111 transport-cc",
+			"a=fmtp:111 minptime=10;useinbandfec=1",
+			"a=rtpmap:63 red/48000/2",
+			"a=fmtp:63 111/111",
+			"a=rtpmap:9 G722/8000",
+			"a=rtpmap:0 PCMU/8000",
+			"a=rtpmap:8 PCMA/8000",
+			"a=rtpmap:13 CN/8000",
+			"a=rtpmap:110 telephone-event/48000",
+			"a=rtpmap:126 telephone-event/8000",
+			"a=rtpmap:96 VP8/90000",
+			"a=rtpmap:97 rtx/90000",
+			"a=fmtp:97 apt=96",
+			"a=rtcp-fb:96 goog-remb",
+			"a=rtcp-fb:96 transport-cc",
+			"a=rtcp-fb:96 ccm fir",
+			"a=rtcp-fb:96 nack",
+			"a=rtcp-fb:96 nack pli",
+			"a=rtpmap:102 H264/90000",
+			"a=fmtp:102 level-asymmetry-allowed=1;packetization-mode=1;profile-level-id=42001f",
+			"a=rtpmap:98 VP9/90000",
+			"a=fmtp:98 profile-id=0",
+			"a=rtpmap:45 AV1/90000");
+
+	// Longest entries first, so the first match is the longest prefix
+	private static final List<Integer> BY_LENGTH;
+
+	static {
+		if (ENTRIES.size() > 255) {
+			throw new ExceptionInInitializerError("SDP dictionary indexes must fit in one byte");
+		}
+		List<Integer> indexes = new ArrayList<>();
+		for (int i = 0; i < ENTRIES.size(); i++) {
+			indexes.add(i);
+		}
+		indexes.sort(Comparator.comparingInt((Integer i) -> ENTRIES.get(i).length()).reversed());
+		BY_LENGTH = List.copyOf(indexes);
+	}
+
+	private SdpDictionary() {
+	}
+
+	/**
+	 * @return The 1-based index of the longest entry the line starts with, or 0 if none.
+	 */
+	static int indexOf(String line) {
+		for (int index : BY_LENGTH) {
+			if (line.startsWith(ENTRIES.get(index))) {
+				return index + 1;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * @param index A 1-based index as written by {@link #indexOf(String)}, or 0.
+	 * @return The entry, or the empty string for 0.
+	 * @throws IllegalArgumentException if the index is outside the dictionary.
+	 */
+	static String entry(int index) {
+		if (index == 0) {
+			return "";
+		}
+		if (index > ENTRIES.size()) {
+			throw new IllegalArgumentException("Unknown SDP dictionary index " + index);
+		}
+		return ENTRIES.get(index - 1);
+	}
+}
@@ -0,0 +1,73 @@
+package com.thughari.randomchat.handler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Inbound work queue for a single WebSocket session.
+ *
+ * Tasks run one at a time, in submission order, on at most one executor thread.
+ * The thread that moves the pending count from zero to one starts a drain; the
+ * drain keeps running until the count is back at zero, so a burst of ICE
+ * candidates is handled by one virtual thread instead of one per frame.
+ */
+public class SessionMailbox {
+
+	private static final Logger logger = LoggerFactory.getLogger(SessionMailbox.class);
+
+	// A field updater instead of an AtomicInteger keeps one object less per connection
+	private static final AtomicIntegerFieldUpdater<SessionMailbox> PENDING =
+			AtomicIntegerFieldUpdater.newUpdater(SessionMailbox.class, "pending");
+
+	private final String sessionId;
+	private final Executor executor;
+	private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+	private volatile int pending;
+
+	public SessionMailbox(String sessionId, Executor executor) {
+		this.sessionId = sessionId;
+		this.executor = executor;
+	}
+
+	/**
+	 * Queues a task behind any work already pending for this session.
+	 *
+	 * @throws RejectedExecutionException if a drain had to be started and the executor refused it.
+	 */
+	public void submit(Runnable task) {
+		tasks.add(task);
+		if (PENDING.getAndIncrement(this) == 0) {
+			try {
+				executor.execute(this::drain);
+			} catch (RejectedExecutionException e) {
+				tasks.clear();
+				pending = 0;
+				throw e;
+			}
+		}
+	}
+
+	private void drain() {
+		do {
+			Runnable task = tasks.poll();
+			try {
+				task.run();
+			} catch (RuntimeException e) {
+				logger.error("Unhandled error processing message for session {}", sessionId, e);
+			}
+		} while (PENDING.decrementAndGet(this) > 0);
+	}
+
+	/**
+	 * @return The number of tasks queued or running for this session.
+	 */
+	public int size() {
+		return pending;
+	}
+}
@@ -0,0 +1,186 @@
+package com.thughari.randomchat.handler;
+
+import com.thughari.randomchat.cluster.PeerAddress;
+import com.thughari.randomchat.component.Participant;
+import com.thughari.randomchat.journal.EventJournal;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Everything the handler keeps for one connection, in a single object. It links
+ * directly to the partner's state, so relaying a frame needs no lookups by session id.
+ */
+final class SessionState extends Participant {
+
+	/**
+	 * A frame relayed to this user while the connection was dropped and held for resumption.
+	 */
+	record ParkedFrame(WebSocketMessage<?> message, String messageType) {
+	}
+
+	/** Session attribute holding the connection's state, so frame callbacks need no lookup. */
+	static final String ATTRIBUTE = SessionState.class.getName();
+
+	static final byte[] RELAYED_TYPES = { BinarySignaling.OFFER, BinarySignaling.ANSWER, BinarySignaling.ICE,
+			BinarySignaling.MEDIA_STATUS };
+
+	final WebSocketSession session;
+	/** Whether the session negotiated the {@link BinarySignaling} subprotocol instead of JSON. */
+	final boolean binary;
+	final SessionMailbox mailbox;
+	final OutboundBuffer outboundBuffer;
+	/** {@code null} unless ICE batching is enabled. */
+	final IceBatcher iceBatcher;
+	final long connectedAtNanos = System.nanoTime();
+	/** How the event journal refers to this session. */
+	final long journalKey;
+
+	// Partner on another cluster node, if any
+	private PeerAddress remotePeer;
+	// When the pending ready_for_peer arrived; 0 when not looking for a partner
+	private long readySinceNanos;
+	// Only touched from this session's mailbox, which runs one task at a time
+	// Frames relayed by type, 16 bits each in the order of RELAYED_TYPES; one long keeps
+	// idle sessions small
+	long relayedFrames;
+	int missedPongs;
+	// Taken out of the waiting pool after a missed pong; re-queued when a pong arrives
+	boolean parkedUntilPong;
+	// Per-class rate limit state, allocated by MessageRateLimiter on the first frame. Touched
+	// from the inbound frame callbacks, which the container runs one at a time per session
+	long[] messageArrivalTimes;
+	int throttledMessages;
+
+	// Next liveness check, cancelled when the session closes
+	volatile TimingWheel.Timeout livenessCheck;
+	// Whether this user relayed an offer or answer since being paired
+	volatile boolean sentDescription;
+	// When this user last relayed an offer or answer
+	volatile long describedAtNanos;
+	// Taken out of the registry (closed, parked or resumed elsewhere); frames are ignored
+	volatile boolean released;
+	// Told to reconnect by a drain; the drain sweep closes the session at reconnectCloseAtNanos
+	volatile boolean reconnecting;
+	long reconnectCloseAtNanos;
+	// Frames for the partner while this dropped connection awaits resumption; null when not parked
+	private List<ParkedFrame> parkedFrames;
+
+	SessionState(WebSocketSession session, boolean binary, SessionMailbox mailbox, OutboundBuffer outboundBuffer,
+			IceBatcher iceBatcher) {
+		super(session.getId());
+		this.session = session;
+		this.binary = binary;
+		this.mailbox = mailbox;
+		this.outboundBuffer = outboundBuffer;
+		this.iceBatcher = iceBatcher;
+		this.journalKey = EventJournal.keyOf(session.getId());
+	}
+
+	void countRelayed(String messageType) {
+		int shift = switch (messageType) {
+		case "offer" -> 0;
+		case "answer" -> 16;
+		case "ice" -> 32;
+		default -> 48;
+		};
+		// Stops at 65535 rather than overflowing into the next count
+		if ((relayedFrames >>> shift & 0xffff) != 0xffff) {
+			relayedFrames += 1L << shift;
+		}
+	}
+
+	/**
+	 * @return Frames relayed of the type at {@code index} in {@link #RELAYED_TYPES}.
+	 */
+	int relayedCount(int index) {
+		return (int) (relayedFrames >>> (index * 16) & 0xffff);
+	}
+
+	/**
+	 * @return The state of a connection still in use, or {@code null} if there is none or it
+	 *         has been released.
+	 */
+	static SessionState of(WebSocketSession session) {
+		SessionState state = (SessionState) session.getAttributes().get(ATTRIBUTE);
+		return state != null && !state.released ? state : null;
+	}
+
+	boolean isOpen() {
+		return session.isOpen();
+	}
+
+	SessionState getLocalPeer() {
+		return (SessionState) getPeer();
+	}
+
+	synchronized PeerAddress getRemotePeer() {
+		return remotePeer;
+	}
+
+	synchronized void setRemotePeer(PeerAddress peer) {
+		remotePeer = peer;
+	}
+
+	synchronized PeerAddress takeRemotePeer() {
+		PeerAddress peer = remotePeer;
+		remotePeer = null;
+		return peer;
+	}
+
+	synchronized boolean clearRemotePeer(PeerAddress expected) {
+		if (!expected.equals(remotePeer)) {
+			return false;
+		}
+		remotePeer = null;
+		return true;
+	}
+
+	synchronized void park() {
+		parkedFrames = new ArrayList<>();
+	}
+
+	/**
+	 * @return {@code false} if the session is not parked, or already holds
+	 *         {@code maxFrames} frames.
+	 */
+	synchronized boolean bufferWhileParked(ParkedFrame frame, int maxFrames) {
+		if (parkedFrames == null || parkedFrames.size() >= maxFrames) {
+			return false;
+		}
+		parkedFrames.add(frame);
+		return true;
+	}
+
+	/**
+	 * Ends parking. Callers that deliver the frames hold this object's lock until they
+	 * are queued, so a frame relayed meanwhile cannot overtake them.
+	 *
+	 * @return The frames buffered while parked; empty if the session was not parked.
+	 */
+	synchronized List<ParkedFrame> unpark() {
+		List<ParkedFrame> frames = parkedFrames;
+		parkedFrames = null;
+		return frames != null ? frames : List.of();
+	}
+
+	synchronized void markReady() {
+		if (readySinceNanos == 0) {
+			readySinceNanos = System.nanoTime();
+		}
+	}
+
+	/**
+	 * @return Nanoseconds since the pending ready_for_peer, or -1 if there was none.
+	 */
+	synchronized long takeWaitedNanos() {
+		if (readySinceNanos == 0) {
+			return -1;
+		}
+		long waited = System.nanoTime() - readySinceNanos;
+		readySinceNanos = 0;
+		return waited;
+	}
+}
@@ -1,45 +1,225 @@
 package com.thughari.randomchat.handler;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thughari.randomchat.cluster.ClusterBroker;
+import com.thughari.randomchat.cluster.ClusterListener;
+import com.thughari.randomchat.cluster.PeerAddress;
+import com.thughari.randomchat.component.Matchmaker;
+import com.thughari.randomchat.component.Participant;
+import com.thughari.randomchat.component.SignalingMetrics;
+import com.thughari.randomchat.handler.OutboundBuffer.FrameKind;
+import com.thughari.randomchat.handler.OutboundBuffer.OverflowPolicy;
+import com.thughari.randomchat.journal.EventJournal;
+import com.thughari.randomchat.journal.JournalEvent;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.PongMessage;
 import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.SubProtocolCapable;
 import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.Map;
-import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
 
 @Component
-public class SignalingHandler extends TextWebSocketHandler {
+public class SignalingHandler extends AbstractWebSocketHandler implements SubProtocolCapable {
 	
 	private static final Logger logger = LoggerFactory.getLogger(SignalingHandler.class);
-	private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
-	private final Queue<String> waitingUsers = new ConcurrentLinkedQueue<>();
-	private final Map<String, String> peerMap = new ConcurrentHashMap<>();
-	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private static final ControlFrame INITIATE_OFFER = ControlFrame.of("{\"type\": \"initiateOffer\"}");
+	private static final ControlFrame WAIT_FOR_OFFER = ControlFrame.of("{\"type\": \"waitForOffer\"}");
+	private static final ControlFrame PARTNER_LEFT = ControlFrame.of("{\"type\": \"leave\", \"reason\": \"Your partner disconnected\"}");
+	private static final ControlFrame PARTNER_UNRESPONSIVE = ControlFrame.of("{\"type\": \"leave\", \"reason\": \"Your partner did not respond\"}");
+	private static final ControlFrame RESUMED = ControlFrame.of("{\"type\": \"resumed\"}");
+	private static final ControlFrame RESUME_FAILED = ControlFrame.of("{\"type\": \"leave\", \"reason\": \"Your call could not be resumed\"}");
+	private static final PingMessage PING = new PingMessage();
+	private static final long DRAIN_SWEEP_MILLIS = 250;
+	private static final long DRAIN_PROGRESS_LOG_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+	/**
+	 * A server-generated frame, encoded once for each protocol.
+	 */
+	private record ControlFrame(TextMessage text, byte[] binary) {
+
+		static ControlFrame of(String json) {
+			try {
+				return new ControlFrame(new TextMessage(json), BinarySignaling.fromJson(json));
+			} catch (IOException e) {
+				throw new ExceptionInInitializerError(e);
+			}
+		}
+
+		WebSocketMessage<?> encodedFor(SessionState target) {
+			// A fresh buffer per send: the container consumes the one it writes
+			return target.binary ? new BinaryMessage(binary) : text;
+		}
+	}
+
+	// Per-connection state lives on the session as an attribute (SessionState.of), so frame
+	// callbacks do no lookup; this registry serves lookups by id (cluster broker, resume,
+	// liveness) and iteration (drain, stats)
+	private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+	// Paired sessions whose connection dropped, by id, until resumed or expired
+	private final Map<String, SessionState> parkedSessions = new ConcurrentHashMap<>();
+	private final ResumeTokens resumeTokens = new ResumeTokens();
+
+	@Autowired
+	private Matchmaker matchmaker;
+
+	@Autowired(required = false)
+	private ClusterBroker clusterBroker;
+
+	@Autowired
+	private SignalingMetrics signalingMetrics;
+
+	@Autowired
+	private MessageRateLimiter messageRateLimiter;
+
+	@Autowired
+	private EventJournal eventJournal;
+
+	@Value("${app.signaling.outbound.max-messages}")
+	private int outboundMaxMessages;
+
+	@Value("${app.signaling.outbound.max-bytes}")
+	private int outboundMaxBytes;
+
+	@Value("${app.signaling.outbound.overflow-policy}")
+	private OverflowPolicy outboundOverflowPolicy;
+
+	@Value("${app.signaling.ice-batch.enabled}")
+	private boolean iceBatchEnabled;
+
+	@Value("${app.signaling.ice-batch.window-ms}")
+	private long iceBatchWindowMillis;
+
+	@Value("${app.signaling.ice-batch.max-candidates}")
+	private int iceBatchMaxCandidates;
+
+	@Value("${app.signaling.liveness.ping-interval-ms}")
+	private long pingIntervalMillis;
+
+	@Value("${app.signaling.liveness.max-missed-pongs}")
+	private int maxMissedPongs;
+
+	@Value("${app.signaling.pairing-watchdog.timeout-ms}")
+	private long pairingTimeoutMillis;
+
+	@Value("${app.signaling.timer.tick-ms}")
+	private long timerTickMillis;
+
+	@Value("${app.signaling.drain.reconnect-spread-ms}")
+	private long drainReconnectSpreadMillis;
+
+	@Value("${app.signaling.drain.settle-ms}")
+	private long drainSettleMillis;
+
+	@Value("${app.signaling.drain.reconnect-grace-ms}")
+	private long drainReconnectGraceMillis;
+
+	@Value("${app.signaling.drain.timeout-ms}")
+	private long drainTimeoutMillis;
+
+	@Value("${app.signaling.resume.enabled}")
+	private boolean resumeEnabled;
+
+	@Value("${app.signaling.resume.grace-ms}")
+	private long resumeGraceMillis;
+
+	@Value("${app.signaling.resume.max-parked}")
+	private int maxParkedSessions;
+
+	@Value("${app.signaling.resume.max-buffered-frames}")
+	private int maxParkedFrames;
 
 	@Autowired
 	@Qualifier("virtualThreadTaskExecutor")
 	private ExecutorService virtualThreadExecutor;
 
+	@Autowired
+	@Qualifier("signalingScheduler")
+	private ScheduledExecutorService signalingScheduler;
+
 	private volatile boolean isShuttingDown = false;
 
+	// Shared by every connection rather than allocated per session
+	private OutboundBuffer.Limits outboundLimits;
+	private IceBatcher.Settings iceBatchSettings;
+
+	// Liveness pings and pairing watchdogs; ticked on the signaling scheduler
+	private TimingWheel timingWheel;
+
+	// Drain for a rolling deploy: no new pairings, sessions told to reconnect elsewhere
+	private volatile boolean draining;
+	private volatile long drainStartedNanos;
+	private final CompletableFuture<Void> drained = new CompletableFuture<>();
+	private final AtomicInteger reconnectsSent = new AtomicInteger();
+	// Only touched by the drain sweep
+	private long lastDrainLogNanos;
+	// Time source for drain decisions; tests replace it
+	private LongSupplier clock = System::nanoTime;
+
+	@PostConstruct
+	public void createSessionSettings() {
+		outboundLimits = new OutboundBuffer.Limits(outboundMaxMessages, outboundMaxBytes, outboundOverflowPolicy);
+		iceBatchSettings = new IceBatcher.Settings(iceBatchWindowMillis, iceBatchMaxCandidates);
+	}
+
+	@PostConstruct
+	public void startTimers() {
+		// Size the wheel so one rotation spans a ping interval: a liveness timer is then
+		// visited once, when it is due, instead of once per rotation
+		int wheelSize = (int) Math.max(64, Math.min(1 << 16, pingIntervalMillis / timerTickMillis));
+		timingWheel = new TimingWheel(timerTickMillis, wheelSize);
+		signalingScheduler.scheduleAtFixedRate(timingWheel::tick, timerTickMillis, timerTickMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@PostConstruct
+	public void joinCluster() {
+		if (clusterBroker != null) {
+			clusterBroker.register(new ClusterEvents());
+		}
+	}
+
+	@PostConstruct
+	public void registerGauges() {
+		signalingMetrics.gauge("signaling.connections", "Open WebSocket sessions", this::getActiveConnections);
+		signalingMetrics.gauge("signaling.waiting.users", "Users waiting for a partner on this node", matchmaker::getWaitingCount);
+		signalingMetrics.gauge("signaling.active.pairs", "Pairs with at least one user on this node", this::getActivePairs);
+		signalingMetrics.gauge("signaling.inbound.backlog", "Inbound frames queued in session mailboxes", this::getInboundBacklog);
+		signalingMetrics.gauge("signaling.timers.pending", "Liveness and pairing watchdog timers", () -> timingWheel.size());
+		signalingMetrics.gauge("signaling.draining", "1 while this node drains for a shutdown", () -> draining ? 1 : 0);
+		signalingMetrics.gauge("signaling.resume.parked.sessions", "Dropped connections held for resumption", parkedSessions::size);
+	}
+
 	@PreDestroy
 	public void shutdown() {
 		isShuttingDown = true;
+		if (clusterBroker != null) {
+			clusterBroker.unregister();
+		}
 		virtualThreadExecutor.shutdown();
 		try {
 			if (!virtualThreadExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
@@ -53,41 +233,172 @@ public class SignalingHandler extends TextWebSocketHandler {
 
 	@Override
 	public void afterConnectionEstablished(WebSocketSession session) {
-		executeIfNotShutdown(() -> {
-			sessions.put(session.getId(), session);
-		});
+		try {
+			registerSession(session);
+		} finally {
+			// Registered sessions count as active connections; the handshake's slot is no longer needed
+			if (session.getAttributes().remove(AdmissionController.Reservation.ATTRIBUTE) instanceof AdmissionController.Reservation reservation) {
+				reservation.release();
+			}
+		}
+	}
+
+	private void registerSession(WebSocketSession session) {
+		if (isShuttingDown) return;
+
+		OutboundBuffer outboundBuffer = new OutboundBuffer(session, virtualThreadExecutor, outboundLimits, signalingMetrics);
+		boolean binary = BinarySignaling.SUBPROTOCOL.equals(session.getAcceptedProtocol());
+		IceBatcher iceBatcher = null;
+		// Binary frames are already compact; batching only applies to JSON sessions
+		if (iceBatchEnabled && !binary) {
+			iceBatcher = new IceBatcher(outboundBuffer, signalingScheduler, iceBatchSettings, signalingMetrics);
+		}
+		SessionMailbox mailbox = new SessionMailbox(session.getId(), virtualThreadExecutor);
+		SessionState state = new SessionState(session, binary, mailbox, outboundBuffer, iceBatcher);
+		sessions.put(session.getId(), state);
+		session.getAttributes().put(SessionState.ATTRIBUTE, state);
+		eventJournal.record(JournalEvent.CONNECTED, state.journalKey, 0, binary ? 1 : 0, 0);
+		scheduleLivenessCheck(state);
+		if (resumeEnabled) {
+			sendSessionToken(state);
+		}
+	}
+
+	@Override
+	public List<String> getSubProtocols() {
+		return List.of(BinarySignaling.SUBPROTOCOL);
 	}
 
 	@Override
 	protected void handleTextMessage(WebSocketSession session, TextMessage message) {
-		executeIfNotShutdown(() -> {
+		SessionState state = SessionState.of(session);
+		if (state == null || isShuttingDown) return;
+
+		String messageType;
+		try {
+			messageType = MessageTypeExtractor.extractType(message.getPayload());
+		} catch (IOException e) {
+			logger.error("Error parsing message from session {}", session.getId(), e);
+			return;
+		}
+		if (isThrottled(state, messageType)) return;
+		submitToMailbox(state.mailbox, () -> {
 			try {
-				Map<String, Object> messageData = objectMapper.readValue(message.getPayload(), new TypeReference<>() {});
-				String messageType = (String) messageData.get("type");
-				String sessionId = session.getId();
+				handleSignal(state, message, messageType);
+			} catch (IOException e) {
+				logger.error("Error handling message from session {}", session.getId(), e);
+			}
+		});
+	}
 
-				switch (messageType) {
-				case "ready_for_peer" -> {
-					tryToPairUser(sessionId);
-				}
-				case "leave" -> {
-					handlePeerDisconnection(sessionId);
-				}
-				case "offer", "answer", "ice", "media_status" -> {
-					String peerId = peerMap.get(sessionId);
-					if (peerId != null) {
-						WebSocketSession peerSession = sessions.get(peerId);
-						if (peerSession != null && peerSession.isOpen()) {
-							sendMessage(peerSession, message.getPayload());
-						} else {
-							handlePeerDisconnection(sessionId);
-						}
-					}
-				}
-				default -> logger.warn("Unknown message type '{}' from session {}", messageType, sessionId);
-				}
+	@Override
+	protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+		SessionState state = SessionState.of(session);
+		if (state == null || isShuttingDown) return;
+		if (!state.binary) {
+			closeQuietly(session, CloseStatus.NOT_ACCEPTABLE.withReason("Binary frames need the " + BinarySignaling.SUBPROTOCOL + " subprotocol"));
+			return;
+		}
+
+		// The container reuses the payload buffer once this method returns
+		BinaryMessage frame = new BinaryMessage(copyOf(message.getPayload()));
+		String messageType = BinarySignaling.typeOf(frame.getPayload().array());
+		if (isThrottled(state, messageType)) return;
+		submitToMailbox(state.mailbox, () -> {
+			try {
+				handleSignal(state, frame, messageType);
 			} catch (IOException e) {
-				logger.error("Error parsing message from session {}", session.getId(), e);
+				logger.error("Error decoding binary frame from session {}", session.getId(), e);
+			}
+		});
+	}
+
+	/**
+	 * Checks the session's rate limits as a frame arrives, before it is queued, so a flood
+	 * of frames costs neither mailbox memory nor executor work. Throttled frames do not
+	 * count as signs of life either.
+	 */
+	private boolean isThrottled(SessionState state, String messageType) {
+		MessageRateLimiter.MessageClass messageClass = messageType != null ? MessageRateLimiter.MessageClass.of(messageType) : null;
+		if (messageClass == null || messageRateLimiter.tryAcquire(state, messageClass, System.nanoTime())) {
+			return false;
+		}
+		onThrottled(state, messageClass);
+		return true;
+	}
+
+	/**
+	 * Handles one signaling message, text or binary, on the session's mailbox. Frames over
+	 * the rate limits never get here.
+	 */
+	private void handleSignal(SessionState state, WebSocketMessage<?> message, String messageType) throws IOException {
+		// Any frame from the client that passed the rate limits proves the connection is alive
+		state.missedPongs = 0;
+
+		if (messageType == null) {
+			logger.warn("Message without a type from session {}", state.getId());
+			return;
+		}
+
+		switch (messageType) {
+		case "ready_for_peer" -> {
+			tryToPairUser(state);
+		}
+		case "leave" -> {
+			eventJournal.record(JournalEvent.LEFT, state.journalKey, partnerKeyOf(state), 0, 0);
+			handlePeerDisconnection(state);
+		}
+		case "next" -> {
+			skipToNextPartner(state);
+		}
+		case "resume" -> {
+			resumeSession(state, MessageTypeExtractor.extractTextField(jsonPayloadOf(message), "token"));
+		}
+		case "offer", "answer", "ice", "media_status" -> {
+			state.countRelayed(messageType);
+			if ("offer".equals(messageType) || "answer".equals(messageType)) {
+				state.describedAtNanos = clock.getAsLong();
+				state.sentDescription = true;
+			}
+			SessionState peer = state.getLocalPeer();
+			if (peer != null) {
+				relayToLocalPeer(state, peer, message, messageType);
+			} else {
+				PeerAddress remotePeer = state.getRemotePeer();
+				// Cluster nodes exchange the JSON form
+				if (remotePeer != null
+						&& !clusterBroker.forward(state.getId(), remotePeer, messageType, jsonPayloadOf(message))) {
+					handlePeerDisconnection(state);
+				}
+			}
+		}
+		default -> logger.warn("Unknown message type '{}' from session {}", messageType, state.getId());
+		}
+	}
+
+	/**
+	 * Drops a frame over the session's rate limit. A session that keeps hitting its limits
+	 * is looping or hostile, so it is eventually closed.
+	 */
+	private void onThrottled(SessionState state, MessageRateLimiter.MessageClass messageClass) {
+		signalingMetrics.messageThrottled(messageClass.getTag());
+		if (++state.throttledMessages == messageRateLimiter.getMaxThrottled()) {
+			logger.warn("Session {} keeps exceeding its message rate limits, closing it.", state.getId());
+			signalingMetrics.throttleClosed();
+			closeQuietly(state.session, CloseStatus.POLICY_VIOLATION);
+		}
+	}
+
+	@Override
+	protected void handlePongMessage(WebSocketSession session, PongMessage message) {
+		SessionState state = SessionState.of(session);
+		if (state == null || isShuttingDown) return;
+
+		submitToMailbox(state.mailbox, () -> {
+			state.missedPongs = 0;
+			if (state.parkedUntilPong) {
+				state.parkedUntilPong = false;
+				tryToPairUser(state);
 			}
 		});
 	}
@@ -96,96 +407,716 @@ public class SignalingHandler extends TextWebSocketHandler {
 	public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
 		if (isShuttingDown) return;
 
-		String sessionId = session.getId();
-		sessions.remove(sessionId);
-		waitingUsers.remove(sessionId);
-		handlePeerDisconnection(sessionId);
+		SessionState state = SessionState.of(session);
+		if (state == null) return;
+		submitToMailbox(state.mailbox, () -> recordClosed(state, status));
+		if (!(isResumable(state, status) && parkSession(state))) {
+			releaseSession(state);
+		}
 	}
 
-	private void tryToPairUser(String newUserId) {
-		if (peerMap.containsKey(newUserId)) {
-			return;
+	/**
+	 * Journals the end of a connection, with the frames it relayed.
+	 */
+	private void recordClosed(SessionState state, CloseStatus status) {
+		for (int i = 0; i < SessionState.RELAYED_TYPES.length; i++) {
+			int count = state.relayedCount(i);
+			if (count > 0) {
+				eventJournal.record(JournalEvent.RELAYED, state.journalKey, 0, SessionState.RELAYED_TYPES[i], count);
+			}
 		}
+		long openMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - state.connectedAtNanos);
+		eventJournal.record(JournalEvent.CLOSED, state.journalKey, 0, status.getCode(),
+				(int) Math.min(openMillis, Integer.MAX_VALUE));
+	}
 
-		while (true) {
-			String waitingUserId = waitingUsers.poll();
+	/**
+	 * Drops everything held for the session and tells its partner. Safe to call more than
+	 * once: the liveness check releases a dead session before closing it.
+	 */
+	private void releaseSession(SessionState state) {
+		if (!sessions.remove(state.getId(), state)) return;
 
-			if (waitingUserId == null) {
-				if (!waitingUsers.contains(newUserId)) {
-					waitingUsers.add(newUserId);
-				}
-				break;
-			}
+		stopConnection(state);
+		SessionState peer = (SessionState) matchmaker.remove(state);
+		// Both halves of a pair reconnecting for a drain keep their call; telling the one
+		// still here that the partner left would end it
+		if (!(state.reconnecting && peer != null && peer.reconnecting)) {
+			notifyPeerOfDisconnection(peer);
+		}
+		if (clusterBroker != null) {
+			clusterBroker.withdrawWaiting(state.getId());
+			notifyRemotePeerOfDisconnection(state);
+		}
+	}
+
+	/**
+	 * Stops the timers and output of a session that has been taken out of the registry.
+	 */
+	private void stopConnection(SessionState state) {
+		state.released = true;
+		TimingWheel.Timeout livenessCheck = state.livenessCheck;
+		if (livenessCheck != null) {
+			livenessCheck.cancel();
+		}
+		if (state.iceBatcher != null) {
+			state.iceBatcher.discard();
+		}
+		state.outboundBuffer.close();
+	}
+
+	/**
+	 * @return Whether a closed session should keep its pairing for a while: it was paired
+	 *         on this node, and the connection dropped rather than being closed on purpose
+	 *         by the browser or this server.
+	 */
+	private boolean isResumable(SessionState state, CloseStatus status) {
+		if (!resumeEnabled || draining || state.reconnecting || state.getLocalPeer() == null) {
+			return false;
+		}
+		int code = status.getCode();
+		return code != CloseStatus.NORMAL.getCode() && code != CloseStatus.GOING_AWAY.getCode()
+				&& code != CloseStatus.POLICY_VIOLATION.getCode() && code != CloseStatus.NOT_ACCEPTABLE.getCode()
+				&& code != CloseStatus.SERVICE_RESTARTED.getCode();
+	}
+
+	/**
+	 * Holds a dropped session's pairing for the resume grace period. Its partner is not
+	 * told; frames relayed to it meanwhile are buffered for the new connection.
+	 *
+	 * @return {@code false} if too many sessions are parked already.
+	 */
+	private boolean parkSession(SessionState state) {
+		if (parkedSessions.size() >= maxParkedSessions || !sessions.remove(state.getId(), state)) {
+			return false;
+		}
+		stopConnection(state);
+		state.park();
+		parkedSessions.put(state.getId(), state);
+		signalingMetrics.resumption("parked");
+		timingWheel.schedule(() -> submitToMailbox(state.mailbox, () -> expireParkedSession(state)), resumeGraceMillis);
+		return true;
+	}
+
+	/**
+	 * Gives up on a parked session: its partner is told it left, as if it had been
+	 * released when the connection dropped.
+	 */
+	private void expireParkedSession(SessionState state) {
+		if (!parkedSessions.remove(state.getId(), state)) {
+			return;
+		}
+		state.unpark();
+		signalingMetrics.resumption("expired");
+		notifyPeerOfDisconnection(matchmaker.remove(state));
+	}
 
-			WebSocketSession waitingUserSession = sessions.get(waitingUserId);
-			if (waitingUserSession == null || !waitingUserSession.isOpen()) {
-				continue;
+	/**
+	 * Handles "resume" on a new connection: moves the pairing of the session the token
+	 * was issued to onto this one, then delivers the frames buffered since the drop.
+	 */
+	private void resumeSession(SessionState state, String token) {
+		if (state.getPeer() != null || state.getRemotePeer() != null) {
+			logger.warn("Session {} asked to resume while paired, ignoring it.", state.getId());
+			return;
+		}
+		String formerId = token != null ? resumeTokens.verify(token) : null;
+		SessionState former = formerId != null ? claimFormerSession(formerId, state) : null;
+		SessionState peer = former != null ? (SessionState) matchmaker.rebind(former, state) : null;
+		if (peer == null) {
+			if (former != null) {
+				// Partnerless by now; a former session that was still open may be waiting
+				former.unpark();
+				matchmaker.remove(former);
+				if (clusterBroker != null) {
+					clusterBroker.withdrawWaiting(former.getId());
+					notifyRemotePeerOfDisconnection(former);
+				}
 			}
+			signalingMetrics.resumption("failed");
+			// The client answers leave with ready_for_peer, like any ended call
+			sendControl(state, RESUME_FAILED);
+			return;
+		}
 
-			if (waitingUserId.equals(newUserId)) {
-				if (!waitingUsers.contains(newUserId)) {
-					waitingUsers.add(newUserId);
+		withdrawFromWaitingPool(state);
+		state.sentDescription = former.sentDescription;
+		state.describedAtNanos = former.describedAtNanos;
+		signalingMetrics.resumption("resumed");
+		logger.info("Session {} resumed as {}.", former.getId(), state.getId());
+		sendControl(state, RESUMED);
+		synchronized (former) {
+			for (SessionState.ParkedFrame frame : former.unpark()) {
+				try {
+					relayMessage(state, frame.message(), frame.messageType());
+				} catch (IOException e) {
+					logger.error("Error relaying buffered frame to session {}", state.getId(), e);
 				}
-				break;
 			}
+		}
+	}
+
+	/**
+	 * Takes the session a resume token was issued to out of the parked sessions or, if
+	 * this server has not noticed its connection drop yet, out of the open ones.
+	 */
+	private SessionState claimFormerSession(String formerId, SessionState resumer) {
+		SessionState former = parkedSessions.remove(formerId);
+		if (former != null) {
+			return former;
+		}
+		former = sessions.get(formerId);
+		if (former == null || former == resumer || !sessions.remove(formerId, former)) {
+			return null;
+		}
+		stopConnection(former);
+		closeQuietly(former.session, CloseStatus.NORMAL.withReason("Resumed on a new connection"));
+		return former;
+	}
 
-			WebSocketSession newUserSession = sessions.get(newUserId);
-			if (newUserSession == null || !newUserSession.isOpen()) {
-				logger.warn("New user {} disconnected before pairing.", newUserId);
-				waitingUsers.add(waitingUserId);
-				break;
+	private void sendSessionToken(SessionState state) {
+		String json = "{\"type\": \"session\", \"token\": \"" + resumeTokens.issue(state.getId()) + "\"}";
+		try {
+			sendMessage(state, state.binary ? new BinaryMessage(BinarySignaling.fromJson(json)) : new TextMessage(json),
+					FrameKind.CONTROL);
+		} catch (IOException e) {
+			logger.error("Error encoding session frame for session {}", state.getId(), e);
+		}
+	}
+
+	private void tryToPairUser(SessionState newUser) {
+		if (!newUser.isOpen()) {
+			logger.warn("New user {} disconnected before pairing.", newUser.getId());
+			return;
+		}
+		if (newUser.getRemotePeer() != null || newUser.getPeer() != null) {
+			return;
+		}
+		if (draining) {
+			// A pair formed now would be cut off; the drain sweep sends the user elsewhere
+			return;
+		}
+		newUser.markReady();
+		eventJournal.record(JournalEvent.ENQUEUED, newUser.journalKey, 0, 0, 0);
+
+		if (!pairLocally(newUser)) {
+			pairAcrossCluster(newUser);
+		}
+	}
+
+	/**
+	 * Handles "next": leaves the current partner and finds a new one in a single
+	 * matchmaker step, re-queueing the former partner as well. Unlike leave followed by
+	 * ready_for_peer, no other pairing can happen in between, and the two are not matched
+	 * straight back together.
+	 */
+	private void skipToNextPartner(SessionState user) {
+		if (!user.isOpen()) {
+			return;
+		}
+		eventJournal.record(JournalEvent.SKIPPED, user.journalKey, partnerKeyOf(user), 0, 0);
+		SessionState formerPeer = user.getLocalPeer();
+		if (formerPeer == null || draining) {
+			// Waiting, or paired across the cluster where there is no single lock to do this under
+			handlePeerDisconnection(user);
+			tryToPairUser(user);
+			return;
+		}
+
+		user.markReady();
+		formerPeer.markReady();
+		Matchmaker.Rematch rematch = matchmaker.next(user, candidate -> ((SessionState) candidate).isOpen());
+
+		SessionState skipped = (SessionState) rematch.formerPeer();
+		if (skipped != null) {
+			signalingMetrics.partnerSkipped();
+		}
+		if (skipped != null && skipped.isOpen()) {
+			// Resets the former partner's call; their ready_for_peer in reply is a no-op
+			sendControl(skipped, PARTNER_LEFT);
+			startPairOrQueue(skipped, (SessionState) rematch.formerPeerPartner());
+		}
+		startPairOrQueue(user, (SessionState) rematch.partner());
+	}
+
+	private void startPairOrQueue(SessionState user, SessionState partner) {
+		if (partner != null) {
+			startPair(partner, user);
+		} else {
+			pairAcrossCluster(user);
+		}
+	}
+
+	/**
+	 * Called with a user left waiting on this node: tries to claim a waiting user on
+	 * another node, or advertises this one.
+	 */
+	private void pairAcrossCluster(SessionState newUser) {
+		if (clusterBroker == null) {
+			return;
+		}
+
+		// Nobody waiting on this node: take the user out of the local pool while claiming
+		// a remote partner, so a local joiner cannot pair with them at the same time.
+		if (!matchmaker.takeWaiting(newUser)) {
+			return;
+		}
+		PeerAddress remoteUser = clusterBroker.claimWaiting(newUser.getId());
+		if (remoteUser != null) {
+			newUser.setRemotePeer(remoteUser);
+			signalingMetrics.paired(true);
+			recordWaitedForPair(newUser, EventJournal.keyOf(remoteUser.userId()), true);
+			sendControl(newUser, WAIT_FOR_OFFER);
+			return;
+		}
+		if (!pairLocally(newUser) && matchmaker.isWaiting(newUser)) {
+			clusterBroker.publishWaiting(newUser.getId());
+		}
+	}
+
+	/**
+	 * @return {@code true} if the user was paired with a waiting user on this node.
+	 */
+	private boolean pairLocally(SessionState newUser) {
+		SessionState waitingUser = (SessionState) matchmaker.pairOrEnqueue(newUser,
+				candidate -> ((SessionState) candidate).isOpen());
+		if (waitingUser == null) {
+			return false;
+		}
+		startPair(waitingUser, newUser);
+		return true;
+	}
+
+	/**
+	 * Tells a new local pair to start: the user who waited makes the offer.
+	 */
+	private void startPair(SessionState waitingUser, SessionState newUser) {
+		if (clusterBroker != null) {
+			clusterBroker.withdrawWaiting(waitingUser.getId());
+		}
+		signalingMetrics.paired(false);
+		recordWaitedForPair(waitingUser, newUser.journalKey, false);
+		recordWaitedForPair(newUser, waitingUser.journalKey, false);
+
+		waitingUser.sentDescription = false;
+		newUser.sentDescription = false;
+		sendControl(waitingUser, INITIATE_OFFER);
+		sendControl(newUser, WAIT_FOR_OFFER);
+		watchPairing(waitingUser, newUser);
+	}
+
+	/**
+	 * Re-queues the user still responding if the pair has not exchanged an offer and an
+	 * answer within the pairing timeout. Without an offer the offerer is presumed gone;
+	 * with an offer but no answer, the answerer is.
+	 */
+	private void watchPairing(SessionState offerer, SessionState answerer) {
+		timingWheel.schedule(() -> {
+			if (offerer.getPeer() == answerer && !(offerer.sentDescription && answerer.sentDescription)) {
+				SessionState survivor = offerer.sentDescription ? offerer : answerer;
+				SessionState unresponsive = survivor == offerer ? answerer : offerer;
+				submitToMailbox(survivor.mailbox, () -> requeueAfterStalledPairing(survivor, unresponsive));
 			}
+		}, pairingTimeoutMillis);
+	}
 
-			peerMap.put(waitingUserId, newUserId);
-			peerMap.put(newUserId, waitingUserId);
+	private void requeueAfterStalledPairing(SessionState survivor, SessionState unresponsive) {
+		if (survivor.getPeer() != unresponsive || (survivor.sentDescription && unresponsive.sentDescription)) {
+			return;
+		}
+		logger.info("Pairing of {} and {} stalled, re-queueing {}.", survivor.getId(), unresponsive.getId(), survivor.getId());
+		signalingMetrics.pairingTimedOut();
+		matchmaker.unpair(survivor);
+		if (unresponsive.isOpen()) {
+			// Lets a slow but live client start over as well
+			sendControl(unresponsive, PARTNER_LEFT);
+		}
+		sendControl(survivor, PARTNER_UNRESPONSIVE);
+		tryToPairUser(survivor);
+	}
+
+	private void scheduleLivenessCheck(SessionState state) {
+		state.livenessCheck = timingWheel.schedule(
+				() -> submitToMailbox(state.mailbox, () -> checkLiveness(state)), pingIntervalMillis);
+	}
 
-			sendMessage(waitingUserSession, "{\"type\": \"initiateOffer\"}");
-			sendMessage(newUserSession, "{\"type\": \"waitForOffer\"}");
-			break;
+	/**
+	 * Pings the session once per interval. After one unanswered ping the user is taken out
+	 * of the waiting pool so nobody gets paired with them; after {@code maxMissedPongs} the
+	 * session is released and closed.
+	 */
+	private void checkLiveness(SessionState state) {
+		if (sessions.get(state.getId()) != state) {
+			return;
+		}
+		if (state.missedPongs >= maxMissedPongs || !state.isOpen()) {
+			closeUnresponsiveSession(state);
+			return;
+		}
+		if (state.missedPongs > 0 && !state.parkedUntilPong && withdrawFromWaitingPool(state)) {
+			state.parkedUntilPong = true;
+			signalingMetrics.livenessParked();
 		}
+		state.missedPongs++;
+		sendMessage(state, PING, FrameKind.CONTROL);
+		scheduleLivenessCheck(state);
+	}
+
+	private boolean withdrawFromWaitingPool(SessionState state) {
+		if (!matchmaker.takeWaiting(state)) {
+			return false;
+		}
+		if (clusterBroker != null) {
+			clusterBroker.withdrawWaiting(state.getId());
+		}
+		return true;
+	}
+
+	private void closeUnresponsiveSession(SessionState state) {
+		logger.info("Session {} missed {} pongs, closing it.", state.getId(), state.missedPongs);
+		signalingMetrics.livenessClosed();
+		// Release first: closing a dead connection can take until the TCP timeout. The
+		// session is then gone when the container reports the close, so journal it here
+		releaseSession(state);
+		recordClosed(state, CloseStatus.SESSION_NOT_RELIABLE);
+		try {
+			state.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+		} catch (IOException e) {
+			logger.warn("Error closing unresponsive session {}: {}", state.getId(), e.getMessage());
+		}
+	}
+
+	private void recordWaitedForPair(SessionState user, long partnerKey, boolean cluster) {
+		long waitedNanos = user.takeWaitedNanos();
+		if (waitedNanos >= 0) {
+			signalingMetrics.waitedForPair(waitedNanos);
+		}
+		eventJournal.record(JournalEvent.PAIRED, user.journalKey, partnerKey, cluster ? 1 : 0,
+				waitedNanos >= 0 ? (int) Math.min(TimeUnit.NANOSECONDS.toMillis(waitedNanos), Integer.MAX_VALUE) : -1);
+	}
+
+	/**
+	 * @return The journal key of the user's partner, on this node or another, or 0.
+	 */
+	private static long partnerKeyOf(SessionState user) {
+		SessionState localPeer = user.getLocalPeer();
+		if (localPeer != null) {
+			return localPeer.journalKey;
+		}
+		PeerAddress remotePeer = user.getRemotePeer();
+		return remotePeer != null ? EventJournal.keyOf(remotePeer.userId()) : 0;
+	}
+
+	private void handlePeerDisconnection(SessionState disconnectedUser) {
+		notifyPeerOfDisconnection(matchmaker.unpair(disconnectedUser));
+		if (clusterBroker != null) {
+			notifyRemotePeerOfDisconnection(disconnectedUser);
+		}
+	}
+
+	private void notifyRemotePeerOfDisconnection(SessionState disconnectedUser) {
+		PeerAddress remotePeer = disconnectedUser.takeRemotePeer();
+		if (remotePeer != null) {
+			clusterBroker.notifyPeerLeft(disconnectedUser.getId(), remotePeer);
+		}
+	}
+
+	private void notifyPeerOfDisconnection(Participant peer) {
+		if (peer == null) {
+			return;
+		}
+		SessionState remainingPeer = (SessionState) peer;
+		if (remainingPeer.isOpen()) {
+			sendControl(remainingPeer, PARTNER_LEFT);
+		}
+	}
+
+	private static FrameKind frameKindOf(String messageType) {
+		return switch (messageType) {
+		case "ice" -> FrameKind.ICE;
+		case "offer", "answer" -> FrameKind.DESCRIPTION;
+		default -> FrameKind.CONTROL;
+		};
 	}
 
-	private void handlePeerDisconnection(String disconnectedSessionId) {
-		String peerId = peerMap.remove(disconnectedSessionId);
-		if (peerId != null) {
-			peerMap.remove(peerId);
+	/**
+	 * Relays a frame to a partner on this node. A partner whose connection dropped gets it
+	 * buffered until it resumes; one that left, or whose buffer is full, is let go.
+	 */
+	private void relayToLocalPeer(SessionState sender, SessionState peer, WebSocketMessage<?> message,
+			String messageType) throws IOException {
+		if (peer.isOpen()) {
+			relayMessage(peer, message, messageType);
+			return;
+		}
+		if (peer.bufferWhileParked(new SessionState.ParkedFrame(message, messageType), maxParkedFrames)) {
+			return;
+		}
+		if (parkedSessions.get(peer.getId()) == peer) {
+			logger.info("Too many frames for parked session {}, giving up on resuming it.", peer.getId());
+			expireParkedSession(peer);
+			return;
+		}
+		SessionState resumed = sender.getLocalPeer();
+		if (resumed != null && resumed != peer && resumed.isOpen()) {
+			// The partner resumed on a new connection after this frame was addressed
+			relayMessage(resumed, message, messageType);
+			return;
+		}
+		handlePeerDisconnection(sender);
+	}
 
-			WebSocketSession remainingPeerSession = sessions.get(peerId);
-			if (remainingPeerSession != null && remainingPeerSession.isOpen()) {
-				sendMessage(remainingPeerSession, "{\"type\": \"leave\", \"reason\": \"Your partner disconnected\"}");
+	private void relayMessage(SessionState peer, WebSocketMessage<?> message, String messageType) throws IOException {
+		signalingMetrics.relayed(messageType, message.getPayloadLength());
+		if ("ice".equals(messageType) && peer.iceBatcher != null) {
+			String candidate = message instanceof BinaryMessage binary
+					? BinarySignaling.candidateJson(binary.getPayload().array())
+					: MessageTypeExtractor.extractRawField(((TextMessage) message).getPayload(), "candidate");
+			if (candidate != null) {
+				peer.iceBatcher.add(candidate);
+				return;
 			}
 		}
+		sendMessage(peer, encodeFor(peer, message), frameKindOf(messageType));
+	}
+
+	/**
+	 * Bridges between the JSON and binary protocols when the two users of a pair speak
+	 * different ones; otherwise returns the message untouched.
+	 */
+	private static WebSocketMessage<?> encodeFor(SessionState target, WebSocketMessage<?> message) throws IOException {
+		if (target.binary && message instanceof TextMessage text) {
+			return new BinaryMessage(BinarySignaling.fromJson(text.getPayload()));
+		}
+		if (!target.binary && message instanceof BinaryMessage binary) {
+			return new TextMessage(BinarySignaling.toJson(binary.getPayload().array()));
+		}
+		return message;
+	}
+
+	private static String jsonPayloadOf(WebSocketMessage<?> message) throws IOException {
+		if (message instanceof BinaryMessage binary) {
+			return BinarySignaling.toJson(binary.getPayload().array());
+		}
+		return ((TextMessage) message).getPayload();
+	}
+
+	private static byte[] copyOf(ByteBuffer payload) {
+		byte[] bytes = new byte[payload.remaining()];
+		payload.duplicate().get(bytes);
+		return bytes;
+	}
+
+	private void sendControl(SessionState target, ControlFrame frame) {
+		sendMessage(target, frame.encodedFor(target), FrameKind.CONTROL);
 	}
 
-	private void sendMessage(WebSocketSession session, String messagePayload) {
-		if (session == null || !session.isOpen()) {
-			logger.warn("Attempted to send message to closed or null session.");
+	private void sendMessage(SessionState target, WebSocketMessage<?> message, FrameKind kind) {
+		if (!target.isOpen()) {
+			logger.warn("Attempted to send message to closed session {}.", target.getId());
 			return;
 		}
-		executeIfNotShutdown(() -> {
+		if (target.iceBatcher != null) {
+			// Candidates relayed before this frame must reach the peer before it
+			target.iceBatcher.flush();
+		}
+		target.outboundBuffer.enqueue(message, kind);
+	}
+
+	private static void closeQuietly(WebSocketSession session, CloseStatus status) {
+		try {
+			session.close(status);
+		} catch (IOException e) {
+			logger.warn("Error closing session {}: {}", session.getId(), e.getMessage());
+		}
+	}
+
+	private void submitToMailbox(SessionMailbox mailbox, Runnable task) {
+		try {
+			mailbox.submit(task);
+		} catch (RejectedExecutionException e) {
+			logger.warn("Task rejected, executor is shutting down.", e);
+		}
+	}
+
+	/**
+	 * Receives pairing and relay events for this node's users from other cluster nodes.
+	 */
+	private class ClusterEvents implements ClusterListener {
+
+		@Override
+		public boolean onClaimed(String localUserId, PeerAddress claimedBy) {
+			SessionState user = sessions.get(localUserId);
+			if (draining || user == null || !user.isOpen() || !matchmaker.takeWaiting(user)) {
+				return false;
+			}
+			user.setRemotePeer(claimedBy);
+			recordWaitedForPair(user, EventJournal.keyOf(claimedBy.userId()), true);
+			sendControl(user, INITIATE_OFFER);
+			return true;
+		}
+
+		@Override
+		public void onFrame(String localUserId, PeerAddress from, String messageType, String payload) {
+			SessionState user = sessions.get(localUserId);
+			if (user == null || !user.isOpen() || !from.equals(user.getRemotePeer())) {
+				return;
+			}
 			try {
-				synchronized (session) {
-					session.sendMessage(new TextMessage(messagePayload));
-				}
+				relayMessage(user, new TextMessage(payload), messageType);
 			} catch (IOException e) {
-				logger.error("IOException sending message to session {}: {}", session.getId(), e.getMessage());
-			} catch (IllegalStateException e) {
-				logger.warn("IllegalStateException sending to session {}. It might be closing.", session.getId());
+				logger.error("Error relaying cluster frame to session {}", localUserId, e);
 			}
-		});
+		}
+
+		@Override
+		public void onPeerLeft(String localUserId, PeerAddress peer) {
+			SessionState user = sessions.get(localUserId);
+			if (user != null && user.clearRemotePeer(peer) && user.isOpen()) {
+				sendControl(user, PARTNER_LEFT);
+			}
+		}
 	}
 
-	private void executeIfNotShutdown(Runnable task) {
-		if (!isShuttingDown) {
-			try {
-				virtualThreadExecutor.execute(task);
-			} catch (RejectedExecutionException e) {
-				logger.warn("Task rejected, executor is shutting down.", e);
+	/**
+	 * Starts draining this node: new pairings stop, and every session is told to reconnect
+	 * after a random delay within the reconnect spread, so the replacement node sees a
+	 * ramp instead of a herd. Waiting and idle users are told straight away; pairs once
+	 * their offer and answer have settled, or when the drain times out. A session that
+	 * has not gone a grace period after its delay is closed.
+	 *
+	 * @return {@code false} if a drain was already started.
+	 */
+	public synchronized boolean startDrain() {
+		if (draining) {
+			return false;
+		}
+		drainStartedNanos = clock.getAsLong();
+		lastDrainLogNanos = drainStartedNanos;
+		draining = true;
+		logger.info("Draining {} sessions ({} waiting, {} pairs).", sessions.size(), matchmaker.getWaitingCount(),
+				getActivePairs());
+		sweepDrain();
+		return true;
+	}
+
+	/**
+	 * Completes once a started drain has closed every session.
+	 */
+	public CompletionStage<Void> whenDrained() {
+		return drained.minimalCompletionStage();
+	}
+
+	public boolean isDraining() {
+		return draining;
+	}
+
+	public DrainStatus getDrainStatus() {
+		long elapsedNanos = draining ? clock.getAsLong() - drainStartedNanos : 0;
+		return new DrainStatus(draining, drained.isDone(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+				sessions.size(), matchmaker.getWaitingCount(), getActivePairs(), reconnectsSent.get());
+	}
+
+	/**
+	 * One pass of the drain, repeated on the timing wheel until every session is gone.
+	 */
+	private void sweepDrain() {
+		long now = clock.getAsLong();
+		long elapsed = now - drainStartedNanos;
+		boolean overdue = elapsed >= TimeUnit.MILLISECONDS.toNanos(drainTimeoutMillis);
+		for (SessionState state : sessions.values()) {
+			if (!state.reconnecting) {
+				if (overdue || isReadyToReconnect(state, now)) {
+					long delayMillis = drainReconnectSpreadMillis > 0
+							? ThreadLocalRandom.current().nextLong(drainReconnectSpreadMillis)
+							: 0;
+					state.reconnectCloseAtNanos = now + TimeUnit.MILLISECONDS.toNanos(delayMillis + drainReconnectGraceMillis);
+					state.reconnecting = true;
+					submitToMailbox(state.mailbox, () -> sendReconnect(state, delayMillis));
+				}
+			} else if (now - state.reconnectCloseAtNanos >= 0 && state.isOpen()) {
+				closeQuietly(state.session, CloseStatus.SERVICE_RESTARTED);
 			}
 		}
+
+		long deadlineNanos = TimeUnit.MILLISECONDS.toNanos(
+				drainTimeoutMillis + drainReconnectSpreadMillis + 2 * drainReconnectGraceMillis);
+		if (elapsed >= deadlineNanos && !sessions.isEmpty()) {
+			// Closed sessions whose close was never confirmed by the container
+			logger.warn("Drain deadline passed with {} sessions left; releasing them.", sessions.size());
+			sessions.values().forEach(this::releaseSession);
+		}
+		if (sessions.isEmpty()) {
+			logger.info("Drain finished after {} ms; {} sessions were told to reconnect.",
+					TimeUnit.NANOSECONDS.toMillis(elapsed), reconnectsSent.get());
+			drained.complete(null);
+			return;
+		}
+		if (now - lastDrainLogNanos >= DRAIN_PROGRESS_LOG_NANOS) {
+			lastDrainLogNanos = now;
+			logger.info("Draining: {} sessions left ({} waiting, {} pairs), {} told to reconnect.", sessions.size(),
+					matchmaker.getWaitingCount(), getActivePairs(), reconnectsSent.get());
+		}
+		timingWheel.schedule(this::sweepDrain, DRAIN_SWEEP_MILLIS);
+	}
+
+	/**
+	 * @return Whether the user can be sent away without cutting off signaling in progress:
+	 *         not paired, or paired and both sides' offer/answer settled for a while.
+	 */
+	private boolean isReadyToReconnect(SessionState state, long now) {
+		long settleNanos = TimeUnit.MILLISECONDS.toNanos(drainSettleMillis);
+		SessionState peer = state.getLocalPeer();
+		if (peer != null) {
+			return state.sentDescription && peer.sentDescription
+					&& now - Math.max(state.describedAtNanos, peer.describedAtNanos) >= settleNanos;
+		}
+		if (state.getRemotePeer() != null) {
+			return state.sentDescription && now - state.describedAtNanos >= settleNanos;
+		}
+		return true;
+	}
+
+	private void sendReconnect(SessionState state, long delayMillis) {
+		if (!state.isOpen()) {
+			return;
+		}
+		withdrawFromWaitingPool(state);
+		String json = "{\"type\": \"reconnect\", \"delayMs\": " + delayMillis + "}";
+		try {
+			sendMessage(state, state.binary ? new BinaryMessage(BinarySignaling.fromJson(json)) : new TextMessage(json),
+					FrameKind.CONTROL);
+			reconnectsSent.incrementAndGet();
+		} catch (IOException e) {
+			logger.error("Error encoding reconnect frame for session {}", state.getId(), e);
+		}
 	}
 
 	public int getActiveConnections() {
 		return sessions.size();
 	}
+
+	/**
+	 * @return Pairs with a user on this node; a pair spanning two nodes counts on both.
+	 */
+	public int getActivePairs() {
+		int remotePairs = 0;
+		for (SessionState state : sessions.values()) {
+			if (state.getRemotePeer() != null) {
+				remotePairs++;
+			}
+		}
+		return matchmaker.getPairedCount() / 2 + remotePairs;
+	}
+
+	/**
+	 * @return The number of inbound messages queued or being processed, across all sessions.
+	 */
+	public int getInboundBacklog() {
+		int backlog = 0;
+		for (SessionState state : sessions.values()) {
+			backlog += state.mailbox.size();
+		}
+		return backlog;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,197 @@
+package com.thughari.randomchat.handler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Hashed timing wheel for the many long, coarse timers signaling needs: one liveness
+ * ping per session and one watchdog per fresh pairing.
+ *
+ * Timeouts hash into {@code wheelSize} buckets by their deadline tick. Each
+ * {@link #tick()} only visits the bucket for the current tick, so the cost of a tick
+ * depends on how many timers share that bucket rather than on the total number of
+ * timers. Scheduling and cancelling from any thread only enqueue; the buckets
+ * themselves are touched by the single thread that calls {@link #tick()}.
+ * Expired tasks run on that thread and must hand work off instead of blocking.
+ */
+public class TimingWheel {
+
+	private static final Logger logger = LoggerFactory.getLogger(TimingWheel.class);
+
+	/**
+	 * Handle for a scheduled task.
+	 */
+	public static final class Timeout {
+
+		private static final int PENDING = 0;
+		private static final int CANCELLED = 1;
+		private static final int EXPIRED = 2;
+
+		private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+				AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+		private final TimingWheel wheel;
+		private final Runnable task;
+		private final long deadlineTick;
+		private volatile int state = PENDING;
+
+		// Bucket links, only touched by the ticking thread
+		private Timeout prev;
+		private Timeout next;
+		private int bucket = -1;
+
+		private Timeout(TimingWheel wheel, Runnable task, long deadlineTick) {
+			this.wheel = wheel;
+			this.task = task;
+			this.deadlineTick = deadlineTick;
+		}
+
+		/**
+		 * @return {@code true} if the task had not run yet and now never will.
+		 */
+		public boolean cancel() {
+			if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+				return false;
+			}
+			wheel.cancelled.add(this);
+			return true;
+		}
+
+		public boolean isCancelled() {
+			return state == CANCELLED;
+		}
+	}
+
+	private final long tickMillis;
+	private final int mask;
+	private final Timeout[] buckets;
+	private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+	private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger pendingCount = new AtomicInteger();
+
+	// Written only by the ticking thread
+	private volatile long currentTick;
+
+	/**
+	 * @param tickMillis Timer resolution; {@link #tick()} must be called at this rate.
+	 * @param wheelSize  Number of buckets, rounded up to a power of two.
+	 */
+	public TimingWheel(long tickMillis, int wheelSize) {
+		if (tickMillis <= 0 || wheelSize <= 0) {
+			throw new IllegalArgumentException("tickMillis and wheelSize must be positive");
+		}
+		int size = Integer.highestOneBit(wheelSize);
+		if (size < wheelSize) {
+			size <<= 1;
+		}
+		this.tickMillis = tickMillis;
+		this.mask = size - 1;
+		this.buckets = new Timeout[size];
+	}
+
+	/**
+	 * Runs the task on the ticking thread once at least {@code delayMillis} have passed,
+	 * rounded up to whole ticks.
+	 */
+	public Timeout schedule(Runnable task, long delayMillis) {
+		long ticks = Math.max(1, (delayMillis + tickMillis - 1) / tickMillis);
+		Timeout timeout = new Timeout(this, task, currentTick + ticks);
+		pendingCount.incrementAndGet();
+		scheduled.add(timeout);
+		return timeout;
+	}
+
+	/**
+	 * Advances the wheel by one tick and runs the tasks that are due.
+	 * Must always be called from the same thread.
+	 */
+	public void tick() {
+		long tick = currentTick + 1;
+		currentTick = tick;
+		removeCancelled();
+		transferScheduled(tick);
+
+		int bucket = (int) (tick & mask);
+		Timeout timeout = buckets[bucket];
+		while (timeout != null) {
+			Timeout next = timeout.next;
+			if (timeout.deadlineTick <= tick) {
+				unlink(timeout);
+				if (Timeout.STATE.compareAndSet(timeout, Timeout.PENDING, Timeout.EXPIRED)) {
+					pendingCount.decrementAndGet();
+					run(timeout);
+				}
+			}
+			timeout = next;
+		}
+	}
+
+	/**
+	 * @return Timers scheduled and neither expired nor cancelled.
+	 */
+	public int size() {
+		return pendingCount.get();
+	}
+
+	public long getTickMillis() {
+		return tickMillis;
+	}
+
+	private void transferScheduled(long tick) {
+		Timeout timeout;
+		while ((timeout = scheduled.poll()) != null) {
+			if (timeout.state != Timeout.PENDING) {
+				continue;
+			}
+			// A timer scheduled just before this tick started may already be due
+			link(timeout, (int) (Math.max(timeout.deadlineTick, tick) & mask));
+		}
+	}
+
+	private void removeCancelled() {
+		Timeout timeout;
+		while ((timeout = cancelled.poll()) != null) {
+			pendingCount.decrementAndGet();
+			if (timeout.bucket >= 0) {
+				unlink(timeout);
+			}
+		}
+	}
+
+	private void link(Timeout timeout, int bucket) {
+		Timeout head = buckets[bucket];
+		timeout.bucket = bucket;
+		timeout.next = head;
+		if (head != null) {
+			head.prev = timeout;
+		}
+		buckets[bucket] = timeout;
+	}
+
+	private void unlink(Timeout timeout) {
+		if (timeout.prev != null) {
+			timeout.prev.next = timeout.next;
+		} else {
+			buckets[timeout.bucket] = timeout.next;
+		}
+		if (timeout.next != null) {
+			timeout.next.prev = timeout.prev;
+		}
+		timeout.prev = null;
+		timeout.next = null;
+		timeout.bucket = -1;
+	}
+
+	private static void run(Timeout timeout) {
+		try {
+			timeout.task.run();
+		} catch (RuntimeException e) {
+			logger.error("Timer task failed", e);
+		}
+	}
+}
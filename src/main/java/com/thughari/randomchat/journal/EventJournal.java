@@ -0,0 +1,202 @@
+package com.thughari.randomchat.journal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * A journal of pairing and session lifecycle events, for replaying what happened to a
+ * session after the fact without logging on the hot path.
+ *
+ * Recording puts a fixed-size record into a lock-free ring and returns; it never blocks,
+ * allocates or does I/O, and if the ring is full the event is dropped and counted. A
+ * single writer thread drains the ring every flush interval into rotating memory-mapped
+ * files, which {@link JournalReader} turns back into CSV. Sessions are identified by
+ * {@link #keyOf(String)}, so no session id strings are kept.
+ */
+@Component
+public class EventJournal {
+
+	private static final Logger logger = LoggerFactory.getLogger(EventJournal.class);
+
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	// Cleared if writing fails, so events stop being recorded
+	private volatile boolean enabled;
+	private final EventRing ring;
+	private final AtomicLong written = new AtomicLong();
+	// Wall clock time at startup, advanced by the monotonic clock so recording is cheap
+	private final long baseEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+	private final long baseNanos = System.nanoTime();
+
+	private final Path directory;
+	private final int fileBytes;
+	private final int maxFiles;
+	private final long flushIntervalNanos;
+	// Only touched by the writer thread, and after it stops
+	private JournalFiles files;
+	private Thread writer;
+	private volatile boolean running;
+
+	@Autowired
+	public EventJournal(@Value("${app.journal.enabled}") boolean enabled,
+			@Value("${app.journal.dir}") String directory,
+			@Value("${app.journal.buffer-events}") int bufferEvents,
+			@Value("${app.journal.file-bytes}") int fileBytes,
+			@Value("${app.journal.max-files}") int maxFiles,
+			@Value("${app.journal.flush-interval-ms}") long flushIntervalMillis,
+			MeterRegistry registry) {
+		this.enabled = enabled;
+		this.ring = new EventRing(bufferEvents);
+		this.directory = Path.of(directory);
+		this.fileBytes = fileBytes;
+		this.maxFiles = maxFiles;
+		this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+		FunctionCounter.builder("journal.events.written", written, AtomicLong::get)
+				.description("Events written to the journal files")
+				.register(registry);
+		FunctionCounter.builder("journal.events.dropped", ring, EventRing::getDropped)
+				.description("Events dropped because the journal buffer was full")
+				.register(registry);
+	}
+
+	/**
+	 * A journal kept in memory only, read with {@link #drain(Consumer)}.
+	 *
+	 * @param capacity How many undrained events it holds, a power of two.
+	 */
+	public EventJournal(int capacity) {
+		this.enabled = true;
+		this.ring = new EventRing(capacity);
+		this.directory = null;
+		this.fileBytes = 0;
+		this.maxFiles = 0;
+		this.flushIntervalNanos = 0;
+	}
+
+	@PostConstruct
+	public void start() throws IOException {
+		if (!enabled) {
+			return;
+		}
+		files = new JournalFiles(directory, fileBytes, maxFiles);
+		running = true;
+		writer = Thread.ofPlatform().name("event-journal").daemon().start(this::writeLoop);
+		logger.info("Writing the event journal to {}", directory);
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException, IOException {
+		if (writer == null) {
+			return;
+		}
+		running = false;
+		LockSupport.unpark(writer);
+		writer.join();
+		writer = null;
+		try {
+			if (enabled) {
+				// Events recorded while the writer was stopping
+				writeToFiles();
+			}
+		} finally {
+			files.close();
+		}
+	}
+
+	/**
+	 * Records an event. Never blocks; see {@link JournalEvent} for what each field means.
+	 *
+	 * @param session {@link #keyOf(String)} of the session, or 0.
+	 * @param other   The key of the other party, or 0.
+	 */
+	public void record(JournalEvent event, long session, long other, int code, int value) {
+		if (enabled) {
+			long epochMicros = baseEpochMicros + (System.nanoTime() - baseNanos) / 1_000;
+			ring.offer(epochMicros, event, session, other, code, value);
+		}
+	}
+
+	/**
+	 * Takes the events recorded so far, oldest first. Only for journals kept in memory; a
+	 * journal writing files is drained by its writer thread.
+	 *
+	 * @return How many events were taken.
+	 */
+	public int drain(Consumer<JournalRecord> consumer) {
+		if (writer != null) {
+			throw new IllegalStateException("The journal is drained by its writer thread");
+		}
+		return ring.drain((epochMicros, event, session, other, code, value) -> consumer
+				.accept(new JournalRecord(epochMicros, JournalEvent.ofCode(event), session, other, code, value)));
+	}
+
+	public long getWritten() {
+		return written.get();
+	}
+
+	public long getDropped() {
+		return ring.getDropped();
+	}
+
+	/**
+	 * A 64-bit FNV-1a hash of a session id, which is how the journal refers to sessions.
+	 * Log lines can be matched to journal records by hashing the id they print.
+	 */
+	public static long keyOf(String sessionId) {
+		long hash = FNV_OFFSET_BASIS;
+		for (byte b : sessionId.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b & 0xff;
+			hash *= FNV_PRIME;
+		}
+		return hash;
+	}
+
+	private void writeLoop() {
+		while (running) {
+			try {
+				writeToFiles();
+			} catch (IOException e) {
+				logger.error("Error writing the event journal, no longer recording", e);
+				enabled = false;
+				return;
+			}
+			LockSupport.parkNanos(flushIntervalNanos);
+		}
+	}
+
+	private void writeToFiles() throws IOException {
+		int[] count = new int[1];
+		IOException[] failure = new IOException[1];
+		ring.drain((epochMicros, event, session, other, code, value) -> {
+			if (failure[0] == null) {
+				try {
+					files.write(epochMicros, event, session, other, code, value);
+					count[0]++;
+				} catch (IOException e) {
+					failure[0] = e;
+				}
+			}
+		});
+		written.addAndGet(count[0]);
+		if (failure[0] != null) {
+			throw failure[0];
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package com.thughari.randomchat.journal;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size ring of journal records for many producers and one consumer, without
+ * locks. A producer claims a slot with one compare-and-set and never waits: if the ring is
+ * full the record is dropped and counted. Each slot has a sequence number telling whose
+ * turn it is, so the consumer sees a record only once it is completely written (Vyukov's
+ * bounded queue).
+ */
+final class EventRing {
+
+	// time, session, other, and event, code and value packed into one long
+	private static final int LONGS_PER_RECORD = 4;
+
+	private final int mask;
+	private final long[] slots;
+	private final AtomicLongArray sequences;
+	private final AtomicLong tail = new AtomicLong();
+	private final LongAdder dropped = new LongAdder();
+	// Only touched by the consumer
+	private long head;
+
+	EventRing(int capacity) {
+		if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("Capacity must be a power of two, got " + capacity);
+		}
+		mask = capacity - 1;
+		slots = new long[capacity * LONGS_PER_RECORD];
+		sequences = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			sequences.set(i, i);
+		}
+	}
+
+	/**
+	 * @return {@code false} if the ring was full and the record was dropped.
+	 */
+	boolean offer(long epochMicros, JournalEvent event, long session, long other, int code, int value) {
+		long position = tail.get();
+		int index;
+		while (true) {
+			index = (int) (position & mask);
+			long difference = sequences.getAcquire(index) - position;
+			if (difference == 0) {
+				if (tail.weakCompareAndSetVolatile(position, position + 1)) {
+					break;
+				}
+				position = tail.get();
+			} else if (difference < 0) {
+				// The consumer has not freed this slot since the last lap
+				dropped.increment();
+				return false;
+			} else {
+				// Another producer took it
+				position = tail.get();
+			}
+		}
+		int offset = index * LONGS_PER_RECORD;
+		slots[offset] = epochMicros;
+		slots[offset + 1] = session;
+		slots[offset + 2] = other;
+		slots[offset + 3] = (long) event.code << 48 | (long) (code & 0xffff) << 32 | (value & 0xffffffffL);
+		sequences.setRelease(index, position + 1);
+		return true;
+	}
+
+	/**
+	 * Hands the records written so far to the sink, oldest first, and frees their slots.
+	 * Only one thread may drain.
+	 *
+	 * @return How many records were drained.
+	 */
+	int drain(RecordSink sink) {
+		int count = 0;
+		while (true) {
+			int index = (int) (head & mask);
+			if (sequences.getAcquire(index) != head + 1) {
+				return count;
+			}
+			int offset = index * LONGS_PER_RECORD;
+			long packed = slots[offset + 3];
+			sink.accept(slots[offset], (int) (packed >>> 48), slots[offset + 1], slots[offset + 2],
+					(short) (packed >>> 32), (int) packed);
+			sequences.setRelease(index, head + mask + 1);
+			head++;
+			count++;
+		}
+	}
+
+	long getDropped() {
+		return dropped.sum();
+	}
+
+	@FunctionalInterface
+	interface RecordSink {
+
+		void accept(long epochMicros, int event, long session, long other, int code, int value);
+	}
+}
@@ -0,0 +1,73 @@
+package com.thughari.randomchat.journal;
+
+/**
+ * What a journal record describes. Each record carries a session, an optional other
+ * party, and an event-specific code and value, listed here per event.
+ */
+public enum JournalEvent {
+
+	/** A WebSocket session opened. Code: 1 for the binary protocol, 0 for JSON. */
+	CONNECTED(1),
+	/** The session asked for a partner. */
+	ENQUEUED(2),
+	/**
+	 * The session was paired with other. Code: 1 if other is on another cluster node. Value:
+	 * milliseconds waited, or -1 if unknown.
+	 */
+	PAIRED(3),
+	/** The session skipped to its next partner, leaving other. */
+	SKIPPED(4),
+	/** The session left its call with other. */
+	LEFT(5),
+	/**
+	 * Frames of one type the session relayed over its lifetime. Code: the binary signaling
+	 * type of the frames. Value: the count.
+	 */
+	RELAYED(6),
+	/** The connection closed. Code: the close status. Value: milliseconds it was open. */
+	CLOSED(7),
+	/**
+	 * ICE servers came from a provider other than the first. Code: the index of that
+	 * provider in app.turn.providers.
+	 */
+	ICE_PROVIDER_FALLBACK(8),
+	/** No ICE server provider answered; clients got the public STUN server only. */
+	STUN_FALLBACK(9);
+
+	private static final JournalEvent[] BY_CODE = new JournalEvent[values().length + 1];
+
+	static {
+		for (JournalEvent event : values()) {
+			BY_CODE[event.code] = event;
+		}
+	}
+
+	// 0 marks the unwritten tail of a journal file
+	final int code;
+
+	JournalEvent(int code) {
+		this.code = code;
+	}
+
+	static JournalEvent ofCode(int code) {
+		return code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+	}
+
+	/**
+	 * @return The record's code in readable form, for export.
+	 */
+	String describeCode(int code) {
+		return switch (this) {
+		case CONNECTED -> code == 1 ? "binary" : "json";
+		case PAIRED -> code == 1 ? "cluster" : "local";
+		case RELAYED -> switch (code) {
+			case 16 -> "offer";
+			case 17 -> "answer";
+			case 18 -> "ice";
+			case 20 -> "media_status";
+			default -> Integer.toString(code);
+		};
+		default -> Integer.toString(code);
+		};
+	}
+}
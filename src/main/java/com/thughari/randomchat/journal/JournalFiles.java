@@ -0,0 +1,117 @@
+package com.thughari.randomchat.journal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Writes journal records to memory-mapped files of a fixed size, starting a new file when
+ * one is full and deleting the oldest beyond {@code maxFiles}.
+ *
+ * File layout: a 16-byte header (magic, format version, record size, creation time in
+ * epoch milliseconds), then 32-byte records: time in epoch microseconds, session, other,
+ * event (short), code (short), value (int). The unwritten tail of a file is zeros, which
+ * reads as event 0. Only the journal's writer thread uses an instance.
+ */
+final class JournalFiles implements AutoCloseable {
+
+	static final int MAGIC = 0x52434a31; // "RCJ1"
+	static final short VERSION = 1;
+	static final int HEADER_BYTES = 16;
+	static final int RECORD_BYTES = 32;
+	static final String PREFIX = "events-";
+	static final String SUFFIX = ".journal";
+
+	// Shared so that journals in one process never pick the same name
+	private static final AtomicInteger filesOpened = new AtomicInteger();
+
+	private final Path directory;
+	private final int fileBytes;
+	private final int maxFiles;
+
+	private FileChannel channel;
+	private MappedByteBuffer buffer;
+
+	JournalFiles(Path directory, int fileBytes, int maxFiles) throws IOException {
+		if (fileBytes < HEADER_BYTES + RECORD_BYTES) {
+			throw new IllegalArgumentException("A journal file must hold at least one record");
+		}
+		this.directory = directory;
+		this.fileBytes = fileBytes;
+		this.maxFiles = maxFiles;
+		Files.createDirectories(directory);
+	}
+
+	void write(long epochMicros, int event, long session, long other, int code, int value) throws IOException {
+		if (buffer == null || buffer.remaining() < RECORD_BYTES) {
+			rotate();
+		}
+		buffer.putLong(epochMicros).putLong(session).putLong(other).putShort((short) event).putShort((short) code)
+				.putInt(value);
+	}
+
+	/**
+	 * Writes the mapped pages to disk.
+	 */
+	void force() {
+		if (buffer != null) {
+			buffer.force();
+		}
+	}
+
+	private void rotate() throws IOException {
+		close();
+		long now = System.currentTimeMillis();
+		while (channel == null) {
+			// Names sort by creation: time first, then the order within this process
+			Path file = directory.resolve(String.format("%s%013d-%04d%s", PREFIX, now,
+					filesOpened.getAndIncrement() % 10_000, SUFFIX));
+			try {
+				channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+						StandardOpenOption.WRITE);
+			} catch (FileAlreadyExistsException e) {
+				// Another process writing to the same directory
+			}
+		}
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileBytes);
+		buffer.putInt(MAGIC).putShort(VERSION).putShort((short) RECORD_BYTES).putLong(now);
+		deleteOldFiles();
+	}
+
+	private void deleteOldFiles() throws IOException {
+		List<Path> files = list(directory);
+		for (int i = 0; i < files.size() - maxFiles; i++) {
+			Files.deleteIfExists(files.get(i));
+		}
+	}
+
+	/**
+	 * @return The journal files in a directory, oldest first.
+	 */
+	static List<Path> list(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(file -> {
+				String name = file.getFileName().toString();
+				return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+			}).sorted().toList();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (channel != null) {
+			force();
+			// The mapping stays valid until collected; the channel is not needed for it
+			channel.close();
+			channel = null;
+			buffer = null;
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package com.thughari.randomchat.journal;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads journal files back, and exports them as CSV from the command line:
+ * <pre>
+ * java -cp randomchat.jar -Dloader.main=com.thughari.randomchat.journal.JournalReader \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher /tmp/randomchat-journal &gt; events.csv
+ * </pre>
+ * Arguments are journal files or directories of them; directories are read oldest file
+ * first. Columns: time, event, session, other, code, value (see {@link JournalEvent}).
+ */
+public final class JournalReader {
+
+	private JournalReader() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			System.err.println("Usage: JournalReader <journal file or directory>...");
+			System.exit(2);
+		}
+		Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+		out.write(JournalRecord.CSV_HEADER);
+		out.write('\n');
+		for (Path file : expand(args)) {
+			read(file, record -> {
+				try {
+					out.write(record.toCsv());
+					out.write('\n');
+				} catch (IOException e) {
+					throw new IllegalStateException(e);
+				}
+			});
+		}
+		out.flush();
+	}
+
+	private static List<Path> expand(String[] args) throws IOException {
+		List<Path> files = new ArrayList<>();
+		for (String arg : args) {
+			Path path = Path.of(arg);
+			files.addAll(Files.isDirectory(path) ? JournalFiles.list(path) : List.of(path));
+		}
+		return files;
+	}
+
+	/**
+	 * Hands every record in a journal file to the consumer, in the order written. A file
+	 * still being written can be read; records not yet written are not seen.
+	 */
+	public static void read(Path file, Consumer<JournalRecord> consumer) throws IOException {
+		try (FileChannel channel = FileChannel.open(file)) {
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < JournalFiles.HEADER_BYTES || buffer.getInt() != JournalFiles.MAGIC) {
+				throw new IOException(file + " is not an event journal");
+			}
+			short version = buffer.getShort();
+			short recordBytes = buffer.getShort();
+			if (version != JournalFiles.VERSION || recordBytes != JournalFiles.RECORD_BYTES) {
+				throw new IOException(file + " has unsupported format version " + version);
+			}
+			buffer.getLong();
+			while (buffer.remaining() >= JournalFiles.RECORD_BYTES) {
+				long epochMicros = buffer.getLong();
+				long session = buffer.getLong();
+				long other = buffer.getLong();
+				JournalEvent event = JournalEvent.ofCode(buffer.getShort());
+				int code = buffer.getShort();
+				int value = buffer.getInt();
+				if (event == null) {
+					return;
+				}
+				consumer.accept(new JournalRecord(epochMicros, event, session, other, code, value));
+			}
+		}
+	}
+}
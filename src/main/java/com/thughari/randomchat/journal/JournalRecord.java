@@ -0,0 +1,29 @@
+package com.thughari.randomchat.journal;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * One journal entry as read back from a file.
+ *
+ * @param epochMicros When it happened, in microseconds since the epoch.
+ * @param session     {@link EventJournal#keyOf(String)} of the session, or 0.
+ * @param other       The key of the other party, or 0.
+ */
+public record JournalRecord(long epochMicros, JournalEvent event, long session, long other, int code, int value) {
+
+	static final String CSV_HEADER = "time,event,session,other,code,value";
+
+	public Instant time() {
+		return Instant.EPOCH.plus(epochMicros, ChronoUnit.MICROS);
+	}
+
+	String toCsv() {
+		return time() + "," + event + "," + hex(session) + "," + hex(other) + "," + event.describeCode(code) + ","
+				+ value;
+	}
+
+	private static String hex(long key) {
+		return key == 0 ? "" : String.format("%016x", key);
+	}
+}
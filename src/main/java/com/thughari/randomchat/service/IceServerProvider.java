@@ -0,0 +1,26 @@
+package com.thughari.randomchat.service;
+
+import java.util.Map;
+
+/**
+ * A source of TURN servers for {@link TwilioTurnService}. Providers are tried in the
+ * order given by {@code app.turn.providers} until one returns a configuration.
+ */
+public interface IceServerProvider {
+
+    // Google STUN server, included in every configuration
+    Map<String, String> PUBLIC_STUN_SERVER = Map.of("urls", "stun:stun.l.google.com:19302");
+
+    /**
+     * @return The name used in {@code app.turn.providers}.
+     */
+    String getName();
+
+    /**
+     * Must not block on the network except while nothing has been cached yet.
+     *
+     * @return ICE servers including at least one TURN server, or {@code null} if this
+     *         provider cannot supply any right now and the next one should be tried.
+     */
+    IceServersSnapshot getIceServers();
+}
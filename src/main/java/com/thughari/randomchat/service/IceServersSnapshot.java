@@ -0,0 +1,43 @@
+package com.thughari.randomchat.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.util.DigestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One cached ICE server configuration, serialized once when it is fetched so that
+ * serving it is a plain byte copy.
+ *
+ * @param servers         The ICE servers handed to clients.
+ * @param json            {@code servers} as UTF-8 JSON, ready to write to a response.
+ * @param etag            Quoted strong ETag derived from {@code json}.
+ * @param expiresAtMillis When the TURN credentials in {@code servers} stop working.
+ */
+public record IceServersSnapshot(List<Map<String, String>> servers, byte[] json, String etag, long expiresAtMillis) {
+
+    static IceServersSnapshot of(ObjectMapper objectMapper, List<Map<String, String>> servers, long expiresAtMillis) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(servers);
+        } catch (JsonProcessingException e) {
+            // Lists of string maps always serialize
+            throw new IllegalStateException(e);
+        }
+        String etag = "\"" + DigestUtils.md5DigestAsHex(json) + "\"";
+        return new IceServersSnapshot(List.copyOf(servers), json, etag, expiresAtMillis);
+    }
+
+    IceServersSnapshot withExpiry(long millis) {
+        return new IceServersSnapshot(servers, json, etag, millis);
+    }
+
+    /**
+     * @return Seconds until the credentials expire, never negative.
+     */
+    public long remainingLifetimeSeconds(long nowMillis) {
+        return Math.max(0, (expiresAtMillis - nowMillis) / 1000);
+    }
+}
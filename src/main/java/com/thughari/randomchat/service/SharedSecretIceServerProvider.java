@@ -0,0 +1,109 @@
+package com.thughari.randomchat.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mints short-lived TURN credentials locally for a TURN server sharing a secret with
+ * this app (coturn {@code use-auth-secret} / {@code static-auth-secret}, the "TURN REST
+ * API" scheme): the username is {@code <expiry unix seconds>:<random id>} and the
+ * password is {@code base64(HMAC-SHA1(secret, username))}. Every request gets its own
+ * credentials and no network call is made.
+ */
+@Component
+public class SharedSecretIceServerProvider implements IceServerProvider {
+
+    private static final String HMAC_SHA1 = "HmacSHA1";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SecureRandom random = new SecureRandom();
+    private final List<String> turnUrls;
+    private final long ttlSeconds;
+    private final Clock clock;
+    private final SecretKeySpec key;
+    private final Mac macPrototype;
+
+    @Autowired
+    public SharedSecretIceServerProvider(
+            @Value("${app.turn.shared-secret.secret}") String secret,
+            @Value("${app.turn.shared-secret.urls}") List<String> turnUrls,
+            @Value("${app.turn.shared-secret.ttl-seconds}") long ttlSeconds) {
+        this(secret, turnUrls, ttlSeconds, Clock.systemUTC());
+    }
+
+    SharedSecretIceServerProvider(String secret, List<String> turnUrls, long ttlSeconds, Clock clock) {
+        this.turnUrls = turnUrls.stream().map(String::trim).filter(url -> !url.isEmpty()).toList();
+        this.ttlSeconds = ttlSeconds;
+        this.clock = clock;
+        this.key = secret == null || secret.isBlank() ? null : new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_SHA1);
+        this.macPrototype = key == null ? null : newMac();
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_SHA1);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA1 is not available", e);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "shared-secret";
+    }
+
+    /**
+     * @return Fresh credentials, or {@code null} if no secret or TURN URL is configured.
+     */
+    @Override
+    public IceServersSnapshot getIceServers() {
+        if (macPrototype == null || turnUrls.isEmpty()) {
+            return null;
+        }
+        long expiresAtSeconds = TimeUnit.MILLISECONDS.toSeconds(clock.millis()) + ttlSeconds;
+        byte[] id = new byte[8];
+        random.nextBytes(id);
+        String username = expiresAtSeconds + ":" + HexFormat.of().formatHex(id);
+
+        String credential = credentialFor(username);
+        List<Map<String, String>> servers = new ArrayList<>(turnUrls.size() + 1);
+        servers.add(PUBLIC_STUN_SERVER);
+        // One entry per URL: a comma-joined "urls" string is not a valid URL
+        for (String url : turnUrls) {
+            servers.add(Map.of("urls", url, "username", username, "credential", credential));
+        }
+        return IceServersSnapshot.of(objectMapper, servers, TimeUnit.SECONDS.toMillis(expiresAtSeconds));
+    }
+
+    /**
+     * @return The password coturn expects for {@code username}.
+     */
+    String credentialFor(String username) {
+        Mac mac;
+        try {
+            // Mac is not thread-safe; cloning the initialized prototype skips key setup
+            mac = (Mac) macPrototype.clone();
+        } catch (CloneNotSupportedException e) {
+            mac = newMac();
+        }
+        return Base64.getEncoder().encodeToString(mac.doFinal(username.getBytes(StandardCharsets.UTF_8)));
+    }
+}
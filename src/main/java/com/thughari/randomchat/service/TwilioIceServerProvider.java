@@ -0,0 +1,203 @@
+package com.thughari.randomchat.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thughari.randomchat.component.TurnConfigMetrics;
+import com.thughari.randomchat.component.TwilioHttpClient;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Twilio Network Traversal Service credentials, served from a stale-while-revalidate cache.
+ *
+ * The cached value is refreshed in the background once a fraction of Twilio's
+ * credential {@code ttl} has passed, and concurrent refreshes collapse into one
+ * in-flight request. Callers never wait for Twilio once a value has been cached;
+ * only the very first request after startup waits (bounded) for the first fetch.
+ * Failed refreshes keep the last good value while it is valid and are retried with
+ * exponential backoff. Each cached value is serialized to JSON once, when it is fetched.
+ */
+@Component
+public class TwilioIceServerProvider implements IceServerProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(TwilioIceServerProvider.class);
+
+    // Used when Twilio's response carries no ttl (its documented default is one day)
+    private static final long DEFAULT_TTL_SECONDS = 24 * 60 * 60;
+
+    /**
+     * @param lastGood        The most recent successful fetch, or {@code null} if there is none.
+     * @param refreshAtMillis When the next (background) fetch should start.
+     */
+    private record CacheState(IceServersSnapshot lastGood, long refreshAtMillis) {
+    }
+
+    private final TwilioHttpClient twilioHttpClient;
+    private final TurnConfigMetrics turnConfigMetrics;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final double refreshAheadRatio;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long coldStartWaitMillis;
+
+    private final AtomicReference<CacheState> cacheState = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<CacheState>> inFlightRefresh = new AtomicReference<>();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    // Constructor injection
+    public TwilioIceServerProvider(TwilioHttpClient twilioHttpClient, TurnConfigMetrics turnConfigMetrics,
+            @Value("${app.turn.refresh-ahead-ratio}") double refreshAheadRatio,
+            @Value("${app.turn.retry.initial-backoff-ms}") long initialBackoffMillis,
+            @Value("${app.turn.retry.max-backoff-ms}") long maxBackoffMillis,
+            @Value("${app.turn.cold-start-wait-ms}") long coldStartWaitMillis) {
+        this.twilioHttpClient = twilioHttpClient;
+        this.turnConfigMetrics = turnConfigMetrics;
+        this.refreshAheadRatio = refreshAheadRatio;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.coldStartWaitMillis = coldStartWaitMillis;
+    }
+
+    @Override
+    public String getName() {
+        return "twilio";
+    }
+
+    @Override
+    public IceServersSnapshot getIceServers() {
+        CacheState state = cacheState.get();
+        if (state == null) {
+            turnConfigMetrics.cacheMiss();
+            state = awaitFirstFetch();
+        } else {
+            turnConfigMetrics.cacheHit();
+            if (System.currentTimeMillis() >= state.refreshAtMillis()) {
+                refresh();
+            }
+        }
+
+        IceServersSnapshot lastGood = state != null ? state.lastGood() : null;
+        if (lastGood == null || System.currentTimeMillis() >= lastGood.expiresAtMillis()) {
+            return null;
+        }
+        return lastGood;
+    }
+
+    private CacheState awaitFirstFetch() {
+        try {
+            return refresh().get(coldStartWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("No ICE servers cached yet and Twilio did not answer within {} ms.", coldStartWaitMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("Unexpected error waiting for the first Twilio fetch", e.getCause());
+        }
+        return null;
+    }
+
+    /**
+     * Starts a refresh unless one is already running.
+     *
+     * @return The in-flight refresh; it never completes exceptionally.
+     */
+    private CompletableFuture<CacheState> refresh() {
+        CompletableFuture<CacheState> refresh = new CompletableFuture<>();
+        CompletableFuture<CacheState> existing = inFlightRefresh.compareAndExchange(null, refresh);
+        if (existing != null) {
+            return existing;
+        }
+
+        logger.info("Fetching new Twilio ICE servers from API.");
+        twilioHttpClient.fetchTwilioTokens().subscribe(
+                responseBody -> completeRefresh(refresh, parseResponse(responseBody)),
+                error -> completeRefresh(refresh, fallBack(error)));
+        return refresh;
+    }
+
+    private void completeRefresh(CompletableFuture<CacheState> refresh, CacheState result) {
+        cacheState.set(result);
+        inFlightRefresh.set(null);
+        refresh.complete(result);
+    }
+
+    private CacheState parseResponse(String responseBody) {
+        List<Map<String, String>> iceServersToReturn = new ArrayList<>();
+        iceServersToReturn.add(PUBLIC_STUN_SERVER);
+
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(responseBody);
+        } catch (IOException e) {
+            return fallBack(e);
+        }
+        JsonNode twilioIceServersNode = root.path("ice_servers");
+
+        if (twilioIceServersNode.isArray()) {
+            for (JsonNode serverNode : twilioIceServersNode) {
+                Map<String, String> serverConfig = new HashMap<>();
+                // Parse URLs
+                if (serverNode.has("urls")) {
+                    if (serverNode.get("urls").isArray()) {
+                        List<String> urlsList = new ArrayList<>();
+                        for (JsonNode urlItem : serverNode.get("urls")) {
+                            urlsList.add(urlItem.asText());
+                        }
+                        serverConfig.put("urls", String.join(",", urlsList));
+                    } else {
+                        serverConfig.put("urls", serverNode.get("urls").asText());
+                    }
+                } else if (serverNode.has("url")) {
+                    serverConfig.put("urls", serverNode.get("url").asText());
+                }
+
+                if (serverConfig.containsKey("urls") && !serverConfig.get("urls").equals(PUBLIC_STUN_SERVER.get("urls"))) {
+                    if (serverNode.has("username")) {
+                        serverConfig.put("username", serverNode.get("username").asText());
+                    }
+                    if (serverNode.has("credential")) {
+                        serverConfig.put("credential", serverNode.get("credential").asText());
+                    }
+                    iceServersToReturn.add(Map.copyOf(serverConfig));
+                }
+            }
+        }
+
+        // Twilio sends ttl as a string, e.g. "86400"
+        long ttlMillis = TimeUnit.SECONDS.toMillis(root.path("ttl").asLong(DEFAULT_TTL_SECONDS));
+        long now = System.currentTimeMillis();
+        consecutiveFailures.set(0);
+        logger.info("Successfully fetched Twilio ICE servers and combined with Google STUN. Total: {} servers.", iceServersToReturn.size());
+        return new CacheState(IceServersSnapshot.of(objectMapper, iceServersToReturn, now + ttlMillis),
+                now + (long) (ttlMillis * refreshAheadRatio));
+    }
+
+    /**
+     * Keeps the last good value (the caller decides whether it is still usable) and
+     * schedules the next attempt with exponential backoff.
+     */
+    private CacheState fallBack(Throwable error) {
+        int failures = consecutiveFailures.incrementAndGet();
+        long backoffMillis = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(failures - 1, 20));
+        logger.warn("Twilio refresh failed ({}), retrying in {} ms.", error.getMessage(), backoffMillis);
+
+        CacheState previous = cacheState.get();
+        return new CacheState(previous != null ? previous.lastGood() : null, System.currentTimeMillis() + backoffMillis);
+    }
+}
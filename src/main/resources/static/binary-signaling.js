@@ -0,0 +1,296 @@
+// Encoder/decoder for the "randomchat.v2.bin" WebSocket subprotocol.
+// Mirrors BinarySignaling.java: one type byte, then the type's fields with no names.
+// Strings are varint(utf8 length + 1) + bytes (0 = absent); SDP lines are split on
+// CRLF and sent as a dictionary index plus the rest of the line.
+const BinarySignaling = (() => {
+  const SUBPROTOCOL = "randomchat.v2.bin";
+
+  const TYPES = {
+    ready_for_peer: 1,
+    leave: 2,
+    initiateOffer: 3,
+    waitForOffer: 4,
+    next: 5,
+    reconnect: 6,
+    session: 7,
+    resume: 8,
+    resumed: 9,
+    offer: 16,
+    answer: 17,
+    ice: 18,
+    ice_batch: 19,
+    media_status: 20,
+  };
+  const NAMES = Object.fromEntries(
+    Object.entries(TYPES).map(([name, code]) => [code, name])
+  );
+
+  // Must match SdpDictionary.ENTRIES exactly, in the same order
+  // BEGIN SDP DICTIONARY
+  const SDP_DICTIONARY = [
+    "v=0",
+    "o=- ",
+    "o=mozilla...THIS_IS_SDPARTA-",
+    "s=-",
+    "t=0 0",
+    "a=group:BUNDLE ",
+    "a=extmap-allow-mixed",
+    "a=msid-semantic: WMS",
+    "a=msid-semantic:WMS ",
+    "m=audio 9 UDP/TLS/RTP/SAVPF ",
+    "m=video 9 UDP/TLS/RTP/SAVPF ",
+    "m=application 9 UDP/DTLS/SCTP webrtc-datachannel",
+    "c=IN IP4 0.0.0.0",
+    "a=rtcp:9 IN IP4 0.0.0.0",
+    "a=ice-ufrag:",
+    "a=ice-pwd:",
+    "a=ice-options:trickle",
+    "a=fingerprint:sha-256 ",
+    "a=setup:actpass",
+    "a=setup:active",
+    "a=setup:passive",
+    "a=mid:",
+    "a=extmap:",
+    "a=sendrecv",
+    "a=sendonly",
+    "a=recvonly",
+    "a=inactive",
+    "a=msid:",
+    "a=rtcp-mux",
+    "a=rtcp-rsize",
+    "a=rtpmap:",
+    "a=rtcp-fb:",
+    "a=fmtp:",
+    "a=ssrc-group:FID ",
+    "a=ssrc:",
+    "a=candidate:",
+    "a=end-of-candidates",
+    "a=sctp-port:5000",
+    "a=max-message-size:",
+    "a=extmap:1 urn:ietf:params:rtp-hdrext:ssrc-audio-level",
+    "a=extmap:2 http://www.webrtc.org/experiments/rtp-hdrext/abs-send-time",
+    "a=extmap:3 http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01",
+    "a=extmap:4 urn:ietf:params:rtp-hdrext:sdes:mid",
+    "a=rtpmap:111 opus/48000/2",
+    "a=rtcp-fb:111 transport-cc",
+    "a=fmtp:111 minptime=10;useinbandfec=1",
+    "a=rtpmap:63 red/48000/2",
+    "a=fmtp:63 111/111",
+    "a=rtpmap:9 G722/8000",
+    "a=rtpmap:0 PCMU/8000",
+    "a=rtpmap:8 PCMA/8000",
+    "a=rtpmap:13 CN/8000",
+    "a=rtpmap:110 telephone-event/48000",
+    "a=rtpmap:126 telephone-event/8000",
+    "a=rtpmap:96 VP8/90000",
+    "a=rtpmap:97 rtx/90000",
+    "a=fmtp:97 apt=96",
+    "a=rtcp-fb:96 goog-remb",
+    "a=rtcp-fb:96 transport-cc",
+    "a=rtcp-fb:96 ccm fir",
+    "a=rtcp-fb:96 nack",
+    "a=rtcp-fb:96 nack pli",
+    "a=rtpmap:102 H264/90000",
+    "a=fmtp:102 level-asymmetry-allowed=1;packetization-mode=1;profile-level-id=42001f",
+    "a=rtpmap:98 VP9/90000",
+    "a=fmtp:98 profile-id=0",
+    "a=rtpmap:45 AV1/90000",
+  ];
+  // END SDP DICTIONARY
+
+  // Longest entries first, so the first match is the longest prefix
+  const BY_LENGTH = SDP_DICTIONARY.map((entry, index) => index).sort(
+    (a, b) => SDP_DICTIONARY[b].length - SDP_DICTIONARY[a].length
+  );
+
+  const encoder = new TextEncoder();
+  const decoder = new TextDecoder();
+
+  class Writer {
+    constructor() {
+      this.bytes = new Uint8Array(256);
+      this.length = 0;
+    }
+    ensure(extra) {
+      if (this.length + extra <= this.bytes.length) return;
+      const grown = new Uint8Array(Math.max(this.bytes.length * 2, this.length + extra));
+      grown.set(this.bytes.subarray(0, this.length));
+      this.bytes = grown;
+    }
+    byte(value) {
+      this.ensure(1);
+      this.bytes[this.length++] = value;
+    }
+    varint(value) {
+      while (value > 0x7f) {
+        this.byte((value & 0x7f) | 0x80);
+        value >>>= 7;
+      }
+      this.byte(value);
+    }
+    string(value) {
+      if (value === null || value === undefined) {
+        this.varint(0);
+        return;
+      }
+      const utf8 = encoder.encode(String(value));
+      this.varint(utf8.length + 1);
+      this.ensure(utf8.length);
+      this.bytes.set(utf8, this.length);
+      this.length += utf8.length;
+    }
+    sdp(sdp) {
+      const lines = (sdp || "").split("\r\n");
+      this.varint(lines.length);
+      for (const line of lines) {
+        const index = BY_LENGTH.find((i) => line.startsWith(SDP_DICTIONARY[i]));
+        if (index === undefined) {
+          this.byte(0);
+          this.string(line);
+        } else {
+          this.byte(index + 1);
+          this.string(line.substring(SDP_DICTIONARY[index].length));
+        }
+      }
+    }
+    candidate(candidate) {
+      candidate = candidate || {};
+      this.string(candidate.candidate);
+      this.string(candidate.sdpMid);
+      const lineIndex = candidate.sdpMLineIndex;
+      this.varint(lineIndex === null || lineIndex === undefined ? 0 : lineIndex + 1);
+      this.string(candidate.usernameFragment);
+    }
+    finish() {
+      return this.bytes.slice(0, this.length).buffer;
+    }
+  }
+
+  class Reader {
+    constructor(buffer) {
+      this.bytes = new Uint8Array(buffer);
+      this.position = 1;
+    }
+    byte() {
+      if (this.position >= this.bytes.length) throw new Error("Truncated binary signaling frame");
+      return this.bytes[this.position++];
+    }
+    varint() {
+      let value = 0;
+      for (let shift = 0; shift < 32; shift += 7) {
+        const b = this.byte();
+        value |= (b & 0x7f) << shift;
+        if ((b & 0x80) === 0) return value >>> 0;
+      }
+      throw new Error("Malformed varint in binary signaling frame");
+    }
+    string() {
+      const length = this.varint() - 1;
+      if (length < 0) return null;
+      if (length > this.bytes.length - this.position) throw new Error("Truncated binary signaling frame");
+      const value = decoder.decode(this.bytes.subarray(this.position, this.position + length));
+      this.position += length;
+      return value;
+    }
+    sdp() {
+      const count = this.varint();
+      const lines = [];
+      for (let i = 0; i < count; i++) {
+        const index = this.byte();
+        if (index > SDP_DICTIONARY.length) throw new Error("Unknown SDP dictionary index " + index);
+        const prefix = index === 0 ? "" : SDP_DICTIONARY[index - 1];
+        lines.push(prefix + (this.string() || ""));
+      }
+      return lines.join("\r\n");
+    }
+    candidate() {
+      const candidate = this.string();
+      const sdpMid = this.string();
+      const lineIndex = this.varint();
+      const usernameFragment = this.string();
+      return {
+        candidate,
+        sdpMid,
+        sdpMLineIndex: lineIndex === 0 ? null : lineIndex - 1,
+        usernameFragment,
+      };
+    }
+  }
+
+  // Signaling message object -> ArrayBuffer
+  function encode(message) {
+    const code = TYPES[message.type];
+    if (code === undefined) throw new Error("No binary form for message type " + message.type);
+    const out = new Writer();
+    out.byte(code);
+    switch (message.type) {
+      case "leave":
+        out.string(message.reason);
+        break;
+      case "reconnect":
+        out.varint(message.delayMs || 0);
+        break;
+      case "session":
+      case "resume":
+        out.string(message.token);
+        break;
+      case "offer":
+      case "answer":
+        out.sdp(message[message.type] && message[message.type].sdp);
+        break;
+      case "ice":
+        out.candidate(message.candidate && message.candidate.toJSON ? message.candidate.toJSON() : message.candidate);
+        break;
+      case "ice_batch":
+        out.varint((message.candidates || []).length);
+        for (const candidate of message.candidates || []) out.candidate(candidate);
+        break;
+      case "media_status":
+        out.string(message.kind);
+        out.byte(message.enabled ? 1 : 0);
+        break;
+    }
+    return out.finish();
+  }
+
+  // ArrayBuffer -> the same object the JSON protocol would have produced
+  function decode(buffer) {
+    const bytes = new Uint8Array(buffer);
+    const type = NAMES[bytes[0]];
+    if (type === undefined) throw new Error("Unknown binary signaling frame " + bytes[0]);
+    const in_ = new Reader(buffer);
+    const message = { type };
+    switch (type) {
+      case "leave":
+        message.reason = in_.string();
+        break;
+      case "reconnect":
+        message.delayMs = in_.varint();
+        break;
+      case "session":
+      case "resume":
+        message.token = in_.string();
+        break;
+      case "offer":
+      case "answer":
+        message[type] = { type, sdp: in_.sdp() };
+        break;
+      case "ice":
+        message.candidate = in_.candidate();
+        break;
+      case "ice_batch": {
+        const count = in_.varint();
+        message.candidates = [];
+        for (let i = 0; i < count; i++) message.candidates.push(in_.candidate());
+        break;
+      }
+      case "media_status":
+        message.kind = in_.string();
+        message.enabled = in_.byte() !== 0;
+        break;
+    }
+    return message;
+  }
+
+  return { SUBPROTOCOL, encode, decode };
+})();
@@ -29,6 +29,15 @@ let peerConnection, localStream, controlsTimeout;
 let remoteIceCandidatesQueue = [];
 const instanceId = Math.random().toString(36).substring(7);
 let cachedTurnConfig = null;
+let reconnectTimer = null;
+// Set when signaling reconnected mid-call: the new server does not know our partner, so
+// the call can only end on the media path
+let callOutlivedSignaling = false;
+// Issued by the server on connect; presented after a dropped connection to get the same
+// partner back instead of ending the call
+let sessionToken = null;
+let resuming = false;
+const RESUME_DELAY_MS = 500;
 
 // --- Notification Logic ---
 function showNotification(message) {
@@ -84,20 +93,74 @@ const wsHost =
   window.location.hostname === "127.0.0.1"
     ? "localhost:8080"
     : window.location.host;
-const ws = new WebSocket(`${wsProtocol}//${wsHost}/ws`);
-ws.onopen = () => {
-  console.log(`[${instanceId}] WebSocket connected.`);
-  // --- AUTO-CONNECT ---
-  ws.send(JSON.stringify({ type: "ready_for_peer" }));
-};
-ws.onclose = () => {
-  updateStatus("Disconnected. Please refresh.");
-  resetConnection();
-};
-ws.onerror = () => updateStatus("Connection error. Check console.");
-
-ws.onmessage = async (message) => {
-  const data = JSON.parse(message.data);
+// Offer the compact binary subprotocol; the server falls back to JSON for clients that
+// do not ask for it, and bridges between the two within a pair
+let ws;
+
+function connectSignaling(resumeToken = null) {
+  const socket = new WebSocket(`${wsProtocol}//${wsHost}/ws`, [BinarySignaling.SUBPROTOCOL]);
+  socket.binaryType = "arraybuffer";
+  socket.onopen = () => {
+    console.log(`[${instanceId}] WebSocket connected.`);
+    if (resumeToken) {
+      sendSignal({ type: "resume", token: resumeToken });
+    } else if (!peerConnection) {
+      // --- AUTO-CONNECT --- (unless a call carried over from the previous connection)
+      sendSignal({ type: "ready_for_peer" });
+    }
+  };
+  socket.onclose = () => {
+    if (socket !== ws) return;
+    if (peerConnection && sessionToken && !resuming) {
+      // Most drops mid-call are brief; the server holds our partner for a few seconds
+      resuming = true;
+      const token = sessionToken;
+      setTimeout(() => connectSignaling(token), RESUME_DELAY_MS);
+      return;
+    }
+    resuming = false;
+    updateStatus("Disconnected. Please refresh.");
+    resetConnection();
+  };
+  socket.onerror = () => {
+    if (socket === ws) updateStatus("Connection error. Check console.");
+  };
+  socket.onmessage = handleSignal;
+  ws = socket;
+}
+
+// The server is draining for a deploy and picked a random delay, so that clients come
+// back spread out. A call in progress keeps its media; only signaling moves.
+function scheduleReconnect(delayMs) {
+  if (reconnectTimer) return;
+  reconnectTimer = setTimeout(() => {
+    reconnectTimer = null;
+    const previous = ws;
+    if (peerConnection) {
+      callOutlivedSignaling = true;
+    } else {
+      updateStatus("Reconnecting...");
+    }
+    connectSignaling();
+    previous.close(1000, "reconnecting");
+  }, delayMs);
+}
+
+function sendSignal(message) {
+  // Candidates gathered while signaling reconnects are lost; the partner's are buffered
+  if (ws.readyState !== WebSocket.OPEN) return;
+  if (ws.protocol === BinarySignaling.SUBPROTOCOL) {
+    ws.send(BinarySignaling.encode(message));
+  } else {
+    ws.send(JSON.stringify(message));
+  }
+}
+
+async function handleSignal(message) {
+  const data =
+    typeof message.data === "string"
+      ? JSON.parse(message.data)
+      : BinarySignaling.decode(message.data);
   switch (data.type) {
     case "initiateOffer":
       updateStatus("Partner found! Calling...", false);
@@ -106,7 +169,7 @@ ws.onmessage = async (message) => {
       await ensureLocalMediaAndTracks();
       const offer = await createOfferWithIceRestart();
       await peerConnection.setLocalDescription(offer);
-      ws.send(JSON.stringify({ type: "offer", offer: offer }));
+      sendSignal({ type: "offer", offer: offer });
       break;
     case "waitForOffer":
       updateStatus("Partner found! Waiting for their call...", false);
@@ -130,7 +193,7 @@ ws.onmessage = async (message) => {
       if (peerConnection.signalingState === "have-remote-offer" || peerConnection.signalingState === "have-local-pranswer") {
         const answer = await peerConnection.createAnswer();
         await peerConnection.setLocalDescription(answer);
-        ws.send(JSON.stringify({ type: "answer", answer: answer }));
+        sendSignal({ type: "answer", answer: answer });
       } else {
         console.warn("Skipping createAnswer: signalingState is", peerConnection.signalingState);
       }
@@ -142,29 +205,36 @@ ws.onmessage = async (message) => {
       await processQueuedIceCandidates();
       break;
     case "ice":
-      if (data.candidate) {
-        try {
-          if (peerConnection?.remoteDescription) {
-            await peerConnection.addIceCandidate(
-              new RTCIceCandidate(data.candidate)
-            );
-          } else {
-            remoteIceCandidatesQueue.push(data.candidate);
-          }
-        } catch (e) {
-          console.error(`Error adding ICE candidate:`, e);
-        }
+      await handleRemoteIceCandidate(data.candidate);
+      break;
+    case "ice_batch":
+      // Server-coalesced trickle ICE: same handling as "ice", in order
+      for (const candidate of data.candidates || []) {
+        await handleRemoteIceCandidate(candidate);
       }
       break;
     case "media_status":
       updateRemoteMediaStatus(data.kind, data.enabled);
       break;
+    case "session":
+      sessionToken = data.token;
+      break;
+    case "resumed":
+      resuming = false;
+      console.log(`[${instanceId}] Signaling resumed.`);
+      break;
     case "leave":
+      resuming = false;
       showNotification("Partner disconnected. Finding new one...");
       resetConnection();
       break;
+    case "reconnect":
+      scheduleReconnect(data.delayMs);
+      break;
   }
-};
+}
+
+connectSignaling();
 
 // --- WebRTC Core Functions ---
 async function ensurePeerConnection() {
@@ -189,7 +259,7 @@ async function ensurePeerConnection() {
 function configurePeerConnectionEventListeners() {
   peerConnection.onicecandidate = (e) => {
     if (e.candidate) {
-      ws.send(JSON.stringify({ type: "ice", candidate: e.candidate }));
+      sendSignal({ type: "ice", candidate: e.candidate });
     }
   };
 
@@ -210,13 +280,19 @@ function configurePeerConnectionEventListeners() {
         peerConnection.restartIce();
         break;
       case "failed":
+        if (callOutlivedSignaling) {
+          // Nobody to renegotiate with through the new connection
+          showNotification("Partner disconnected. Finding new one...");
+          resetConnection();
+          break;
+        }
         // Wait a bit before trying one last time
         setTimeout(() => {
           if (peerConnection.iceConnectionState === "failed") {
             createOfferWithIceRestart()
               .then(offer => {
                 peerConnection.setLocalDescription(offer);
-                ws.send(JSON.stringify({ type: "offer", offer: offer }));
+                sendSignal({ type: "offer", offer: offer });
             })
               .catch(() => {
                 showNotification("Connection failed. Finding new partner...");
@@ -274,6 +350,19 @@ async function ensureLocalMediaAndTracks() {
   }
 }
 
+async function handleRemoteIceCandidate(candidate) {
+  if (!candidate) return;
+  try {
+    if (peerConnection?.remoteDescription) {
+      await peerConnection.addIceCandidate(new RTCIceCandidate(candidate));
+    } else {
+      remoteIceCandidatesQueue.push(candidate);
+    }
+  } catch (e) {
+    console.error(`Error adding ICE candidate:`, e);
+  }
+}
+
 async function processQueuedIceCandidates() {
   // console.log(`Processing ${remoteIceCandidatesQueue.length} queued candidates`);
   const candidates = [...remoteIceCandidatesQueue];
@@ -295,7 +384,8 @@ async function processQueuedIceCandidates() {
   }
 }
 
-function resetConnection() {
+function resetConnection(requeue = true) {
+  callOutlivedSignaling = false;
   if (peerConnection) {
     peerConnection.close();
     peerConnection = null;
@@ -306,8 +396,8 @@ function resetConnection() {
   updateStatus("Searching for a new partner...");
   showControls();
   // --- AUTO-CONNECT ---
-  if (ws.readyState === WebSocket.OPEN) {
-    ws.send(JSON.stringify({ type: "ready_for_peer" }));
+  if (requeue && ws.readyState === WebSocket.OPEN) {
+    sendSignal({ type: "ready_for_peer" });
   }
 }
 
@@ -327,9 +417,7 @@ async function startMedia() {
 
 function sendMediaStatus(kind, enabled) {
   if (ws.readyState === WebSocket.OPEN) {
-    ws.send(
-      JSON.stringify({ type: "media_status", kind: kind, enabled: enabled })
-    );
+    sendSignal({ type: "media_status", kind: kind, enabled: enabled });
   }
 }
 
@@ -423,10 +511,11 @@ confirmDisconnectCancelBtn.addEventListener("click", () => {
   confirmDisconnectModal.classList.add("hidden");
 });
 confirmDisconnectOkBtn.addEventListener("click", () => {
+  // "next" leaves and re-queues both of us in one step, without re-matching us together
+  resetConnection(false);
   if (ws.readyState === WebSocket.OPEN) {
-    ws.send(JSON.stringify({ type: "leave" }));
+    sendSignal({ type: "next" });
   }
-  resetConnection();
   confirmDisconnectModal.classList.add("hidden");
 });
 
@@ -0,0 +1,83 @@
+package com.thughari.randomchat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability(tracing = false)
+class PrometheusEndpointTests {
+
+	private static final HttpClient httpClient = HttpClient.newHttpClient();
+
+	@LocalServerPort
+	private int port;
+
+	@Test
+	void exposesMatchmakingAndRelayMeters() throws Exception {
+		BlockingQueue<String> aliceInbox = new LinkedBlockingQueue<>();
+		BlockingQueue<String> bobInbox = new LinkedBlockingQueue<>();
+		WebSocket alice = connect(aliceInbox);
+		WebSocket bob = connect(bobInbox);
+		assertTrue(aliceInbox.poll(5, TimeUnit.SECONDS).contains("\"session\""));
+		assertTrue(bobInbox.poll(5, TimeUnit.SECONDS).contains("\"session\""));
+
+		alice.sendText("{\"type\":\"ready_for_peer\"}", true).join();
+		Thread.sleep(100);
+		bob.sendText("{\"type\":\"ready_for_peer\"}", true).join();
+		assertTrue(aliceInbox.poll(5, TimeUnit.SECONDS).contains("initiateOffer"));
+		assertTrue(bobInbox.poll(5, TimeUnit.SECONDS).contains("waitForOffer"));
+
+		alice.sendText("{\"type\":\"offer\",\"offer\":{\"type\":\"offer\",\"sdp\":\"v=0\"}}", true).join();
+		assertTrue(bobInbox.poll(5, TimeUnit.SECONDS).contains("offer"));
+
+		HttpResponse<String> response = httpClient.send(
+				HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/actuator/prometheus")).build(),
+				HttpResponse.BodyHandlers.ofString());
+		assertEquals(200, response.statusCode());
+		String scrape = response.body();
+		assertTrue(scrape.contains("signaling_pair_latency_seconds_bucket"), "pair latency histogram");
+		assertTrue(scrape.contains("signaling_active_pairs"), "active pairs gauge");
+		assertTrue(scrape.contains("signaling_waiting_users"), "waiting users gauge");
+		assertTrue(scrape.lines().anyMatch(line -> line.startsWith("signaling_relay_frames_total")
+				&& line.contains("type=\"offer\"") && line.endsWith(" 1.0")), "offer relay counter");
+		assertTrue(scrape.contains("turn_config_cache_total"), "TURN config cache counter");
+
+		alice.sendClose(WebSocket.NORMAL_CLOSURE, "").join();
+		bob.sendClose(WebSocket.NORMAL_CLOSURE, "").join();
+	}
+
+	private WebSocket connect(BlockingQueue<String> inbox) {
+		return httpClient.newWebSocketBuilder()
+				.buildAsync(URI.create("ws://localhost:" + port + "/ws"), new WebSocket.Listener() {
+					private final StringBuilder partial = new StringBuilder();
+
+					@Override
+					public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+						partial.append(data);
+						if (last) {
+							inbox.add(partial.toString());
+							partial.setLength(0);
+						}
+						webSocket.request(1);
+						return null;
+					}
+				})
+				.join();
+	}
+}
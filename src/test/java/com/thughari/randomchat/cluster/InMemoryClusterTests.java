@@ -0,0 +1,154 @@
+package com.thughari.randomchat.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thughari.randomchat.RandomChatApplication;
+
+/**
+ * Runs two application contexts in one JVM joined by the in-memory broker.
+ */
+class InMemoryClusterTests {
+
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+	private static final HttpClient httpClient = HttpClient.newHttpClient();
+
+	private static ConfigurableApplicationContext nodeA;
+	private static ConfigurableApplicationContext nodeB;
+
+	@BeforeAll
+	static void startCluster() {
+		nodeA = startNode("node-a");
+		nodeB = startNode("node-b");
+	}
+
+	@AfterAll
+	static void stopCluster() {
+		nodeA.close();
+		nodeB.close();
+	}
+
+	private static ConfigurableApplicationContext startNode(String nodeId) {
+		return new SpringApplicationBuilder(RandomChatApplication.class)
+				.run("--server.port=0",
+						"--spring.jmx.enabled=false",
+						"--spring.devtools.restart.enabled=false",
+						"--app.cluster.broker=in-memory",
+						"--app.cluster.name=cluster-test",
+						"--app.cluster.node-id=" + nodeId);
+	}
+
+	@Test
+	void pairsAndRelaysAcrossNodes() throws Exception {
+		Client alice = Client.connect(nodeA);
+		Client bob = Client.connect(nodeB);
+
+		alice.send("{\"type\":\"ready_for_peer\"}");
+		Thread.sleep(200);
+		bob.send("{\"type\":\"ready_for_peer\"}");
+
+		assertEquals("initiateOffer", alice.nextType());
+		assertEquals("waitForOffer", bob.nextType());
+
+		String offer = "{\"type\":\"offer\",\"offer\":{\"type\":\"offer\",\"sdp\":\"v=0\"}}";
+		alice.send(offer);
+		assertEquals(offer, bob.next());
+
+		String answer = "{\"type\":\"answer\",\"answer\":{\"type\":\"answer\",\"sdp\":\"v=0\"}}";
+		bob.send(answer);
+		assertEquals(answer, alice.next());
+
+		bob.send("{\"type\":\"leave\"}");
+		assertEquals("leave", alice.nextType());
+
+		alice.close();
+		bob.close();
+	}
+
+	@Test
+	void sameNodePairsNeverTouchTheBroker() throws Exception {
+		InMemoryClusterBroker broker = (InMemoryClusterBroker) nodeA.getBean(ClusterBroker.class);
+		long forwardedBefore = broker.getForwardedFrames();
+
+		Client carol = Client.connect(nodeA);
+		Client dave = Client.connect(nodeA);
+
+		carol.send("{\"type\":\"ready_for_peer\"}");
+		Thread.sleep(200);
+		dave.send("{\"type\":\"ready_for_peer\"}");
+
+		assertEquals("initiateOffer", carol.nextType());
+		assertEquals("waitForOffer", dave.nextType());
+
+		carol.send("{\"type\":\"ice\",\"candidate\":{\"candidate\":\"c1\"}}");
+		assertEquals("ice", dave.nextType());
+		assertEquals(forwardedBefore, broker.getForwardedFrames());
+
+		carol.close();
+		dave.close();
+	}
+
+	private static final class Client implements WebSocket.Listener {
+
+		private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+		private final StringBuilder partial = new StringBuilder();
+		private WebSocket webSocket;
+
+		static Client connect(ConfigurableApplicationContext node) throws Exception {
+			String port = node.getEnvironment().getProperty("local.server.port");
+			Client client = new Client();
+			client.webSocket = httpClient.newWebSocketBuilder()
+					.buildAsync(URI.create("ws://localhost:" + port + "/ws"), client)
+					.join();
+			// Every connection starts with its resume token
+			assertEquals("session", client.nextType());
+			return client;
+		}
+
+		void send(String text) {
+			webSocket.sendText(text, true).join();
+		}
+
+		String next() throws InterruptedException {
+			String message = received.poll(5, TimeUnit.SECONDS);
+			assertNotNull(message, "timed out waiting for a message");
+			return message;
+		}
+
+		String nextType() throws Exception {
+			JsonNode message = objectMapper.readTree(next());
+			return message.get("type").asText();
+		}
+
+		void close() {
+			webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "").join();
+		}
+
+		@Override
+		public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+			partial.append(data);
+			if (last) {
+				received.add(partial.toString());
+				partial.setLength(0);
+			}
+			webSocket.request(1);
+			return null;
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package com.thughari.randomchat.component;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTests {
+
+	private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+	private final CircuitBreaker breaker = new CircuitBreaker("test", 3, 1_000, now::get);
+
+	@Test
+	void opensOnlyAfterConsecutiveFailures() {
+		breaker.onFailure();
+		breaker.onFailure();
+		breaker.onSuccess();
+		breaker.onFailure();
+		breaker.onFailure();
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+		breaker.onFailure();
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		assertFalse(breaker.tryAcquire());
+	}
+
+	@Test
+	void letsOneTrialThroughAfterTheOpenPeriod() {
+		open();
+		now.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+		assertFalse(breaker.tryAcquire());
+
+		now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+		assertTrue(breaker.tryAcquire());
+		assertFalse(breaker.tryAcquire(), "only one trial at a time");
+
+		breaker.onSuccess();
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+		assertTrue(breaker.tryAcquire());
+	}
+
+	@Test
+	void reopensWhenTheTrialFails() {
+		open();
+		now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1_000));
+		assertTrue(breaker.tryAcquire());
+
+		breaker.onFailure();
+
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		assertFalse(breaker.tryAcquire());
+		now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1_000));
+		assertTrue(breaker.tryAcquire());
+	}
+
+	private void open() {
+		for (int i = 0; i < 3; i++) {
+			breaker.onFailure();
+		}
+	}
+}
@@ -0,0 +1,345 @@
+package com.thughari.randomchat.component;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Test;
+
+class MatchmakerTests {
+
+	private static final int THREADS = 16;
+	private static final int USERS_PER_THREAD = 2_000;
+
+	@Test
+	void unavailableWaitingUserIsReplacedByJoiner() {
+		Matchmaker matchmaker = new Matchmaker();
+		Participant a = new Participant("a");
+		Participant b = new Participant("b");
+		Participant c = new Participant("c");
+		Participant d = new Participant("d");
+
+		assertNull(matchmaker.pairOrEnqueue(a, user -> true));
+		assertNull(matchmaker.pairOrEnqueue(b, user -> false));
+		assertTrue(matchmaker.isWaiting(b));
+		assertFalse(matchmaker.isWaiting(a));
+
+		assertNull(matchmaker.pairOrEnqueue(c, user -> false));
+		assertSame(c, matchmaker.pairOrEnqueue(d, user -> true));
+		assertSame(d, c.getPeer());
+		assertSame(c, d.getPeer());
+		assertEquals(0, matchmaker.getWaitingCount());
+		assertEquals(2, matchmaker.getPairedCount());
+	}
+
+	@Test
+	void repeatedReadyDoesNotDuplicateOrSelfPair() {
+		Matchmaker matchmaker = new Matchmaker();
+		Participant a = new Participant("a");
+
+		assertNull(matchmaker.pairOrEnqueue(a, user -> true));
+		assertNull(matchmaker.pairOrEnqueue(a, user -> true));
+		assertEquals(1, matchmaker.getWaitingCount());
+		assertNull(a.getPeer());
+	}
+
+	@Test
+	void removeCancelsWaitingAndBreaksPair() {
+		Matchmaker matchmaker = new Matchmaker();
+		Participant a = new Participant("a");
+		Participant b = new Participant("b");
+		Participant c = new Participant("c");
+
+		matchmaker.pairOrEnqueue(a, user -> true);
+		assertNull(matchmaker.remove(a));
+		assertEquals(0, matchmaker.getWaitingCount());
+
+		matchmaker.pairOrEnqueue(b, user -> true);
+		matchmaker.pairOrEnqueue(c, user -> true);
+		assertSame(b, matchmaker.remove(c));
+		assertNull(b.getPeer());
+		assertEquals(0, matchmaker.getPairedCount());
+	}
+
+	@Test
+	void nextPairsBothSidesWithWaitingUsers() {
+		Matchmaker matchmaker = new Matchmaker();
+		Participant a = new Participant("a");
+		Participant b = new Participant("b");
+		Participant c = new Participant("c");
+		Participant d = new Participant("d");
+		matchmaker.pairOrEnqueue(a, user -> true);
+		matchmaker.pairOrEnqueue(b, user -> true);
+		matchmaker.pairOrEnqueue(c, user -> true);
+		matchmaker.pairOrEnqueue(d, user -> true);
+		matchmaker.next(c, user -> true);
+
+		Matchmaker.Rematch rematch = matchmaker.next(a, user -> true);
+
+		assertSame(b, rematch.formerPeer());
+		assertSame(c, rematch.partner());
+		assertSame(d, rematch.formerPeerPartner());
+		assertSame(c, a.getPeer());
+		assertSame(d, b.getPeer());
+		assertEquals(0, matchmaker.getWaitingCount());
+		assertEquals(4, matchmaker.getPairedCount());
+	}
+
+	@Test
+	void nextDoesNotRematchTheSkippedPartner() {
+		Matchmaker matchmaker = new Matchmaker();
+		Participant a = new Participant("a");
+		Participant b = new Participant("b");
+		Participant c = new Participant("c");
+		matchmaker.pairOrEnqueue(a, user -> true);
+		matchmaker.pairOrEnqueue(b, user -> true);
+
+		Matchmaker.Rematch rematch = matchmaker.next(a, user -> true);
+
+		assertSame(b, rematch.formerPeer());
+		assertNull(rematch.partner());
+		assertNull(rematch.formerPeerPartner());
+		assertTrue(matchmaker.isWaiting(a));
+		assertTrue(matchmaker.isWaiting(b));
+		assertEquals(0, matchmaker.getPairedCount());
+
+		// A newcomer gets the longest waiting user
+		assertSame(a, matchmaker.pairOrEnqueue(c, user -> true));
+		assertTrue(matchmaker.isWaiting(b));
+	}
+
+	@Test
+	void nextLeavesUnavailableFormerPartnerOutOfThePool() {
+		Matchmaker matchmaker = new Matchmaker();
+		Participant a = new Participant("a");
+		Participant b = new Participant("b");
+		matchmaker.pairOrEnqueue(a, user -> true);
+		matchmaker.pairOrEnqueue(b, user -> true);
+
+		matchmaker.next(a, user -> user != b);
+
+		assertFalse(matchmaker.isWaiting(b));
+		assertNull(b.getPeer());
+		assertEquals(1, matchmaker.getWaitingCount());
+	}
+
+	@Test
+	void recentPartnersFallBackToEachOtherWhenNobodyElseWaits() {
+		Matchmaker matchmaker = new Matchmaker();
+		Participant a = new Participant("a");
+		Participant first = new Participant("first");
+		matchmaker.pairOrEnqueue(first, user -> true);
+		matchmaker.pairOrEnqueue(a, user -> true);
+		matchmaker.unpair(a);
+		for (int i = 0; i < Participant.RECENT_PARTNERS; i++) {
+			Participant other = new Participant("other" + i);
+			matchmaker.pairOrEnqueue(other, user -> true);
+			matchmaker.pairOrEnqueue(a, user -> true);
+			matchmaker.remove(other);
+		}
+		assertFalse(a.pairedRecentlyWith(first), "a's window has moved on");
+		assertTrue(first.pairedRecentlyWith(a));
+
+		assertNull(matchmaker.pairOrEnqueue(first, user -> true));
+		assertSame(first, matchmaker.pairOrEnqueue(a, user -> true));
+		assertSame(a, first.getPeer());
+		assertEquals(0, matchmaker.getWaitingCount());
+	}
+
+	@Test
+	void eitherSideRememberingThePartnerDefersRematch() {
+		Participant a = new Participant("a");
+		Participant b = new Participant("b");
+		Matchmaker matchmaker = waitingApart(a, b);
+		Participant remembersA = new Participant("remembersA");
+		remembersA.rememberPartner(a);
+		assertSame(b, matchmaker.pairOrEnqueue(remembersA, user -> true));
+
+		a = new Participant("a");
+		b = new Participant("b");
+		matchmaker = waitingApart(a, b);
+		Participant rememberedByA = new Participant("rememberedByA");
+		a.rememberPartner(rememberedByA);
+		assertSame(b, matchmaker.pairOrEnqueue(rememberedByA, user -> true));
+		assertTrue(matchmaker.isWaiting(a));
+	}
+
+	@Test
+	void fallsBackToTheLongestWaitingRecentPartner() {
+		Participant a = new Participant("a");
+		Participant b = new Participant("b");
+		Matchmaker matchmaker = waitingApart(a, b);
+		Participant partnerOfBoth = new Participant("partnerOfBoth");
+		partnerOfBoth.rememberPartner(a);
+		partnerOfBoth.rememberPartner(b);
+
+		assertSame(a, matchmaker.pairOrEnqueue(partnerOfBoth, user -> true));
+		assertTrue(matchmaker.isWaiting(b));
+	}
+
+	// Both end up waiting, and apart: b is kept from a when a skips with next
+	private static Matchmaker waitingApart(Participant a, Participant b) {
+		Matchmaker matchmaker = new Matchmaker();
+		matchmaker.pairOrEnqueue(a, user -> true);
+		matchmaker.pairOrEnqueue(b, user -> true);
+		matchmaker.next(a, user -> true);
+		return matchmaker;
+	}
+
+	@Test
+	void rebindMovesThePairingToTheReplacement() {
+		Matchmaker matchmaker = new Matchmaker();
+		Participant a = new Participant("a");
+		Participant b = new Participant("b");
+		Participant resumed = new Participant("resumed");
+		matchmaker.pairOrEnqueue(a, user -> true);
+		matchmaker.pairOrEnqueue(b, user -> true);
+
+		assertSame(b, matchmaker.rebind(a, resumed));
+
+		assertNull(a.getPeer());
+		assertSame(resumed, b.getPeer());
+		assertSame(b, resumed.getPeer());
+		assertTrue(resumed.pairedRecentlyWith(b));
+		assertEquals(2, matchmaker.getPairedCount());
+		assertNull(matchmaker.rebind(a, new Participant("late")), "a no longer holds the pairing");
+
+		assertSame(resumed, matchmaker.unpair(b));
+		assertEquals(0, matchmaker.getPairedCount());
+	}
+
+	@Test
+	void concurrentUnpairFromBothSidesLeavesNoHalfPair() throws Exception {
+		Matchmaker matchmaker = new Matchmaker();
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		for (int i = 0; i < 2_000; i++) {
+			Participant a = new Participant("a" + i);
+			Participant b = new Participant("b" + i);
+			matchmaker.pairOrEnqueue(a, user -> true);
+			matchmaker.pairOrEnqueue(b, user -> true);
+
+			CountDownLatch start = new CountDownLatch(1);
+			Future<?> left = executor.submit(() -> {
+				start.await();
+				return matchmaker.unpair(a);
+			});
+			Future<?> right = executor.submit(() -> {
+				start.await();
+				return matchmaker.unpair(b);
+			});
+			start.countDown();
+			left.get();
+			right.get();
+
+			assertNull(a.getPeer());
+			assertNull(b.getPeer());
+		}
+		executor.shutdown();
+		assertEquals(0, matchmaker.getPairedCount());
+	}
+
+	@Test
+	void concurrentJoinersAreNeverLostOrDoublePaired() throws Exception {
+		Matchmaker matchmaker = new Matchmaker();
+		Map<Participant, Participant> pairsFromJoiner = new ConcurrentHashMap<>();
+		CountDownLatch start = new CountDownLatch(1);
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			int thread = t;
+			futures.add(executor.submit(() -> {
+				start.await();
+				for (int i = 0; i < USERS_PER_THREAD; i++) {
+					Participant user = new Participant(thread + "-" + i);
+					Participant partner = matchmaker.pairOrEnqueue(user, candidate -> true);
+					if (partner != null) {
+						assertNull(pairsFromJoiner.put(user, partner), "joiner paired twice: " + user.getId());
+					}
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+
+		int totalUsers = THREADS * USERS_PER_THREAD;
+		Set<Participant> seen = ConcurrentHashMap.newKeySet();
+		pairsFromJoiner.forEach((joiner, partner) -> {
+			assertTrue(seen.add(joiner), "user in two pairs: " + joiner.getId());
+			assertTrue(seen.add(partner), "user in two pairs: " + partner.getId());
+			assertSame(partner, joiner.getPeer());
+			assertSame(joiner, partner.getPeer());
+		});
+
+		assertEquals(totalUsers, seen.size() + matchmaker.getWaitingCount());
+		assertEquals(totalUsers % 2, matchmaker.getWaitingCount());
+		assertEquals(seen.size(), matchmaker.getPairedCount());
+	}
+
+	@Test
+	void concurrentJoinersAndLeaversKeepPoolConsistent() throws Exception {
+		Matchmaker matchmaker = new Matchmaker();
+		Set<Participant> departed = ConcurrentHashMap.newKeySet();
+		Participant[][] users = new Participant[THREADS][USERS_PER_THREAD];
+		CountDownLatch start = new CountDownLatch(1);
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			int thread = t;
+			futures.add(executor.submit(() -> {
+				start.await();
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for (int i = 0; i < USERS_PER_THREAD; i++) {
+					Participant user = new Participant(thread + "-" + i);
+					users[thread][i] = user;
+					matchmaker.pairOrEnqueue(user, candidate -> !departed.contains(candidate));
+					if (random.nextInt(3) == 0) {
+						departed.add(user);
+						matchmaker.remove(user);
+					}
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+
+		for (Participant user : departed) {
+			assertFalse(matchmaker.isWaiting(user), "departed user still waiting: " + user.getId());
+			assertNull(user.getPeer(), "departed user still paired: " + user.getId());
+		}
+		int paired = 0;
+		for (Participant[] threadUsers : users) {
+			for (Participant user : threadUsers) {
+				Participant peer = user.getPeer();
+				if (peer != null) {
+					paired++;
+					assertSame(user, peer.getPeer(), "asymmetric pair for " + user.getId());
+					assertFalse(matchmaker.isWaiting(user), "paired user still waiting: " + user.getId());
+				}
+			}
+		}
+		assertEquals(paired, matchmaker.getPairedCount());
+	}
+}
@@ -0,0 +1,177 @@
+package com.thughari.randomchat.component;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.thughari.randomchat.config.HttpClientConfig;
+import com.thughari.randomchat.exceptions.TwilioClientException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.Exceptions;
+
+/**
+ * The Twilio client against a local stub of the Tokens API.
+ */
+class TwilioHttpClientTests {
+
+	private static final String TOKENS_PATH = "/2010-04-01/Accounts/AC123/Tokens.json";
+	private static final String TOKENS = "{\"ttl\":\"86400\",\"ice_servers\":[]}";
+	private static final long RESPONSE_TIMEOUT_MILLIS = 300;
+	private static final long CIRCUIT_OPEN_MILLIS = 200;
+
+	private enum Mode {
+		OK, ERROR, HANG
+	}
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final AtomicInteger requests = new AtomicInteger();
+	private final List<String> authorizations = new CopyOnWriteArrayList<>();
+	private final List<String> paths = new CopyOnWriteArrayList<>();
+	private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+	private final CountDownLatch release = new CountDownLatch(1);
+	private volatile Mode mode = Mode.OK;
+	private HttpServer server;
+	private TwilioHttpClient twilio;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+		server.createContext("/", this::handle);
+		server.start();
+
+		twilio = new TwilioHttpClient();
+		ReflectionTestUtils.setField(twilio, "twilioAccountSid", "AC123");
+		ReflectionTestUtils.setField(twilio, "twilioAuthToken", "secret");
+		ReflectionTestUtils.setField(twilio, "twilioBaseUrl", "http://127.0.0.1:" + server.getAddress().getPort());
+		ReflectionTestUtils.setField(twilio, "fetchTimeoutMillis", 2_000L);
+		ReflectionTestUtils.setField(twilio, "circuitFailureThreshold", 2);
+		ReflectionTestUtils.setField(twilio, "circuitOpenMillis", CIRCUIT_OPEN_MILLIS);
+		ReflectionTestUtils.setField(twilio, "turnConfigMetrics", new TurnConfigMetrics(registry));
+		ReflectionTestUtils.setField(twilio, "outboundWebClient",
+				new HttpClientConfig().outboundWebClient(1_000, RESPONSE_TIMEOUT_MILLIS, 4, 60_000));
+		twilio.prepareRequests();
+	}
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		server.stop(0);
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		requests.incrementAndGet();
+		authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+		paths.add(exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath());
+		clientPorts.add(exchange.getRemoteAddress().getPort());
+		exchange.getRequestBody().readAllBytes();
+		switch (mode) {
+		case OK -> respond(exchange, 201, TOKENS);
+		case ERROR -> respond(exchange, 500, "{\"message\":\"down\"}");
+		case HANG -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			exchange.close();
+		}
+		}
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	@Test
+	void postsWithBasicAuthAndReusesThePooledConnection() throws InterruptedException {
+		assertEquals(TOKENS, fetch());
+		// The connection goes back to the pool just after the body is delivered
+		Thread.sleep(100);
+		assertEquals(TOKENS, fetch());
+
+		String expected = "Basic " + Base64.getEncoder()
+				.encodeToString("AC123:secret".getBytes(StandardCharsets.UTF_8));
+		assertEquals(List.of(expected, expected), authorizations);
+		assertEquals(List.of("POST " + TOKENS_PATH, "POST " + TOKENS_PATH), paths);
+		assertEquals(1, clientPorts.size(), "both calls should use one kept-alive connection");
+	}
+
+	@Test
+	void failsOnErrorStatus() {
+		mode = Mode.ERROR;
+
+		TwilioClientException e = failure();
+
+		assertTrue(e.getMessage().contains("500"), e.getMessage());
+		assertEquals(1, registry.get("twilio.fetch.latency").tag("outcome", "error").timer().count());
+	}
+
+	@Test
+	void boundsAHungResponse() {
+		mode = Mode.HANG;
+		long start = System.nanoTime();
+
+		TwilioClientException e = failure();
+
+		long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+		assertEquals("Twilio API call timed out", e.getMessage());
+		assertTrue(elapsedMillis < 1_500, "took " + elapsedMillis + " ms");
+	}
+
+	@Test
+	void stopsCallingTwilioWhileTheCircuitIsOpenThenRecovers() throws InterruptedException {
+		mode = Mode.ERROR;
+		failure();
+		failure();
+		assertEquals(CircuitBreaker.State.OPEN, twilio.getCircuitState());
+
+		TwilioClientException e = failure();
+		assertTrue(e.getMessage().contains("circuit is open"), e.getMessage());
+		assertEquals(2, requests.get());
+		assertEquals(1.0, registry.get("twilio.circuit.rejections").counter().count());
+
+		mode = Mode.OK;
+		Thread.sleep(CIRCUIT_OPEN_MILLIS + 50);
+		assertEquals(TOKENS, fetch());
+		assertEquals(CircuitBreaker.State.CLOSED, twilio.getCircuitState());
+		assertEquals(3, requests.get());
+	}
+
+	private String fetch() {
+		return twilio.fetchTwilioTokens().block(Duration.ofSeconds(5));
+	}
+
+	private TwilioClientException failure() {
+		Throwable e = assertThrows(RuntimeException.class, this::fetch);
+		return assertInstanceOf(TwilioClientException.class, Exceptions.unwrap(e));
+	}
+}
@@ -0,0 +1,34 @@
+package com.thughari.randomchat.config;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import com.thughari.randomchat.handler.DrainStatus;
+
+class NativeHintsTests {
+
+	private final RuntimeHints hints = new RuntimeHints();
+
+	@Test
+	void registersTheDrainStatusForJsonBinding() throws NoSuchMethodException {
+		new NativeHints().registerHints(hints, getClass().getClassLoader());
+
+		assertTrue(RuntimeHintsPredicates.reflection().onType(DrainStatus.class).test(hints));
+		assertTrue(RuntimeHintsPredicates.reflection().onMethod(DrainStatus.class.getMethod("connections")).test(hints));
+	}
+
+	@Test
+	void registersTheMacImplementations() {
+		new NativeHints().registerHints(hints, getClass().getClassLoader());
+
+		for (String mac : NativeHints.MACS) {
+			assertTrue(RuntimeHintsPredicates.reflection().onType(TypeReference.of(mac))
+					.withMemberCategory(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS).test(hints), mac);
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package com.thughari.randomchat.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.condition.EnabledInNativeImage;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Checks that what {@link NativeHints} registers works in the native image. Run with
+ * {@code ./mvnw -PnativeTest test}; skipped on the JVM, where nothing needs hints.
+ */
+@EnabledInNativeImage
+class NativeImageSmokeTests {
+
+	// RFC 2202 and RFC 4231 test case 2
+	@ParameterizedTest
+	@CsvSource({
+			"HmacSHA1, effcdf6ae5eb2fa2d27416d5f184df9c259a7c79",
+			"HmacSHA256, 5bdcc146bf60754e6a042426089575c75a003f089d2739839dec58b964ec3843" })
+	void macsAreAvailable(String algorithm, String expectedHex) throws Exception {
+		Mac mac = Mac.getInstance(algorithm);
+		mac.init(new SecretKeySpec("Jefe".getBytes(StandardCharsets.UTF_8), algorithm));
+
+		byte[] digest = mac.doFinal("what do ya want for nothing?".getBytes(StandardCharsets.UTF_8));
+
+		assertEquals(expectedHex, HexFormat.of().formatHex(digest));
+	}
+}
@@ -0,0 +1,183 @@
+package com.thughari.randomchat.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thughari.randomchat.RandomChatApplication;
+import com.thughari.randomchat.handler.BinarySignaling;
+import com.thughari.randomchat.handler.SignalingHandler;
+
+/**
+ * Signaling over the reactive runtime, with real WebSocket clients.
+ */
+class ReactiveSignalingServerTests {
+
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+	private static final HttpClient httpClient = HttpClient.newHttpClient();
+
+	private static ConfigurableApplicationContext context;
+	private static URI url;
+
+	@BeforeAll
+	static void start() {
+		context = new SpringApplicationBuilder(RandomChatApplication.class)
+				.run("--server.port=0",
+						"--spring.jmx.enabled=false",
+						"--spring.devtools.restart.enabled=false",
+						"--app.signaling.runtime=reactive",
+						"--app.signaling.reactive.port=0");
+		url = URI.create("ws://localhost:" + context.getBean(ReactiveSignalingServer.class).getPort() + "/ws");
+	}
+
+	@AfterAll
+	static void stop() {
+		context.close();
+	}
+
+	@Test
+	void pairsAndRelaysLikeTheServletRuntime() throws Exception {
+		Client alice = Client.connect(url);
+		Client bob = Client.connect(url);
+
+		alice.send("{\"type\":\"ready_for_peer\"}");
+		Thread.sleep(200);
+		bob.send("{\"type\":\"ready_for_peer\"}");
+
+		assertEquals("initiateOffer", alice.nextType());
+		assertEquals("waitForOffer", bob.nextType());
+
+		String offer = "{\"type\":\"offer\",\"offer\":{\"type\":\"offer\",\"sdp\":\"v=0\"}}";
+		alice.send(offer);
+		assertEquals(offer, bob.next());
+
+		String answer = "{\"type\":\"answer\",\"answer\":{\"type\":\"answer\",\"sdp\":\"v=0\"}}";
+		bob.send(answer);
+		assertEquals(answer, alice.next());
+
+		bob.close();
+		assertEquals("leave", alice.nextType());
+		alice.close();
+	}
+
+	@Test
+	void negotiatesTheBinarySubprotocol() throws Exception {
+		Client client = new Client();
+		WebSocket webSocket = httpClient.newWebSocketBuilder()
+				.subprotocols(BinarySignaling.SUBPROTOCOL)
+				.buildAsync(url, client)
+				.join();
+
+		assertEquals(BinarySignaling.SUBPROTOCOL, webSocket.getSubprotocol());
+		// The resume token comes as a binary frame
+		assertEquals("session", objectMapper.readTree(client.next()).get("type").asText());
+		webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "").join();
+	}
+
+	@Test
+	void releasesSessionsWhenClientsLeave() throws Exception {
+		// Sessions of earlier tests may still be closing
+		awaitConnections(0);
+		Client carol = Client.connect(url);
+		awaitConnections(1);
+
+		carol.close();
+
+		awaitConnections(0);
+	}
+
+	private static void awaitConnections(int expected) throws InterruptedException {
+		SignalingHandler signalingHandler = context.getBean(SignalingHandler.class);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (signalingHandler.getActiveConnections() != expected && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(expected, signalingHandler.getActiveConnections());
+	}
+
+	@Test
+	void leavesTheServletServerWithoutWs() {
+		String port = context.getEnvironment().getProperty("local.server.port");
+
+		assertThrows(CompletionException.class, () -> httpClient.newWebSocketBuilder()
+				.buildAsync(URI.create("ws://localhost:" + port + "/ws"), new WebSocket.Listener() {
+				}).join());
+	}
+
+	private static final class Client implements WebSocket.Listener {
+
+		private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+		private final StringBuilder partial = new StringBuilder();
+		private WebSocket webSocket;
+
+		static Client connect(URI url) throws Exception {
+			Client client = new Client();
+			client.webSocket = httpClient.newWebSocketBuilder().buildAsync(url, client).join();
+			// Every connection starts with its resume token
+			assertEquals("session", client.nextType());
+			return client;
+		}
+
+		void send(String text) {
+			webSocket.sendText(text, true).join();
+		}
+
+		String next() throws InterruptedException {
+			String message = received.poll(5, TimeUnit.SECONDS);
+			assertNotNull(message, "timed out waiting for a message");
+			return message;
+		}
+
+		String nextType() throws Exception {
+			JsonNode message = objectMapper.readTree(next());
+			return message.get("type").asText();
+		}
+
+		void close() {
+			webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "").join();
+		}
+
+		@Override
+		public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+			partial.append(data);
+			if (last) {
+				received.add(partial.toString());
+				partial.setLength(0);
+			}
+			webSocket.request(1);
+			return null;
+		}
+
+		@Override
+		public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+			// Single-frame messages only; decoded to JSON for the assertions
+			byte[] frame = new byte[data.remaining()];
+			data.get(frame);
+			try {
+				received.add(BinarySignaling.toJson(frame));
+			} catch (Exception e) {
+				received.add("{\"type\":\"undecodable\"}");
+			}
+			webSocket.request(1);
+			return null;
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package com.thughari.randomchat.config;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+/**
+ * Static assets as a browser gets them: rewritten pages, hashed and precompressed assets.
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+class WebConfigTests {
+
+	private static final HttpClient httpClient = HttpClient.newHttpClient();
+	private static final Pattern HASHED_SCRIPT = Pattern.compile("src=\"(script-[0-9a-f]{32}\\.js)\"");
+
+	@LocalServerPort
+	private int port;
+
+	@Test
+	void rewritesPageLinksToHashedAssets() throws Exception {
+		HttpResponse<String> page = get("/app.html", null, HttpResponse.BodyHandlers.ofString());
+
+		assertEquals(200, page.statusCode());
+		assertEquals("no-cache", page.headers().firstValue("Cache-Control").orElseThrow());
+		assertTrue(HASHED_SCRIPT.matcher(page.body()).find(), "script link not hashed");
+		assertTrue(page.body().matches("(?s).*href=\"style-[0-9a-f]{32}\\.css\".*"), "stylesheet link not hashed");
+		assertTrue(page.body().matches("(?s).*href=\"assets/spider-[0-9a-f]{32}\\.png\".*"), "icon link not hashed");
+		assertTrue(page.body().contains("href=\"https://fonts.googleapis.com\""), "absolute links are left alone");
+	}
+
+	@Test
+	void servesHashedAssetsPrecompressedAndImmutable() throws Exception {
+		Matcher script = HASHED_SCRIPT.matcher(get("/app.html", null, HttpResponse.BodyHandlers.ofString()).body());
+		assertTrue(script.find());
+		byte[] original = get("/script.js", null, HttpResponse.BodyHandlers.ofByteArray()).body();
+
+		HttpResponse<byte[]> hashed = get("/" + script.group(1), "gzip, deflate, br", HttpResponse.BodyHandlers.ofByteArray());
+
+		assertEquals(200, hashed.statusCode());
+		assertTrue(hashed.headers().firstValue("Cache-Control").orElseThrow().contains("immutable"));
+		assertEquals("gzip", hashed.headers().firstValue("Content-Encoding").orElseThrow());
+		assertTrue(hashed.headers().allValues("Vary").stream().anyMatch(vary -> vary.contains("Accept-Encoding")));
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(hashed.body()))) {
+			assertArrayEquals(original, in.readAllBytes());
+		}
+	}
+
+	@Test
+	void revalidatesUnhashedAssetsAndServesThemPlainWithoutAcceptEncoding() throws Exception {
+		HttpResponse<byte[]> plain = get("/script.js", null, HttpResponse.BodyHandlers.ofByteArray());
+
+		assertEquals(200, plain.statusCode());
+		assertEquals("no-cache", plain.headers().firstValue("Cache-Control").orElseThrow());
+		assertFalse(plain.headers().firstValue("Content-Encoding").isPresent());
+		assertEquals(404, get("/script-00000000000000000000000000000000.js", null,
+				HttpResponse.BodyHandlers.discarding()).statusCode());
+	}
+
+	private <T> HttpResponse<T> get(String path, String acceptEncoding, HttpResponse.BodyHandler<T> bodyHandler)
+			throws IOException, InterruptedException {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path));
+		if (acceptEncoding != null) {
+			request.header("Accept-Encoding", acceptEncoding);
+		}
+		return httpClient.send(request.build(), bodyHandler);
+	}
+}
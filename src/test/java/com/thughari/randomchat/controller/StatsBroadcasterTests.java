@@ -0,0 +1,180 @@
+package com.thughari.randomchat.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.thughari.randomchat.controller.StatsBroadcaster.Snapshot;
+import com.thughari.randomchat.handler.SignalingHandlers;
+
+class StatsBroadcasterTests {
+
+	private static final StatsBroadcaster.Settings SETTINGS = new StatsBroadcaster.Settings(1_000, 10_000, 60_000, 2);
+
+	private final AtomicReference<Snapshot> counts = new AtomicReference<>(new Snapshot(3, 1, 1));
+	private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+	/**
+	 * Records what the broadcaster writes instead of writing to a response.
+	 */
+	private static class RecordingEmitter extends SseEmitter {
+
+		final List<Object> writes = new ArrayList<>();
+
+		@Override
+		public synchronized void send(Set<DataWithMediaType> items) throws IOException {
+			for (DataWithMediaType item : items) {
+				writes.add(item.getData());
+			}
+		}
+
+		List<String> events() {
+			return writes.stream().map(data -> new String((byte[]) data, StandardCharsets.UTF_8)).toList();
+		}
+	}
+
+	/**
+	 * Runs tasks only when the test says so, like a busy executor.
+	 */
+	private static class ManualExecutorService extends AbstractExecutorService {
+
+		final Queue<Runnable> tasks = new ArrayDeque<>();
+
+		@Override
+		public void execute(Runnable command) {
+			tasks.add(command);
+		}
+
+		void runAll() {
+			Runnable task;
+			while ((task = tasks.poll()) != null) {
+				task.run();
+			}
+		}
+
+		@Override
+		public void shutdown() {
+		}
+
+		@Override
+		public List<Runnable> shutdownNow() {
+			return List.of();
+		}
+
+		@Override
+		public boolean isShutdown() {
+			return false;
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return false;
+		}
+
+		@Override
+		public boolean awaitTermination(long timeout, TimeUnit unit) {
+			return true;
+		}
+	}
+
+	private StatsBroadcaster newBroadcaster(ExecutorService executor) {
+		return new StatsBroadcaster(counts::get, executor, SETTINGS, now::get);
+	}
+
+	@Test
+	void startsWithTheCurrentCountsAndSendsOnlyChanges() {
+		StatsBroadcaster broadcaster = newBroadcaster(new SignalingHandlers.DirectExecutorService());
+		broadcaster.publish();
+		RecordingEmitter emitter = new RecordingEmitter();
+		broadcaster.subscribe(emitter);
+
+		broadcaster.publish();
+		counts.set(new Snapshot(4, 0, 2));
+		broadcaster.publish();
+		broadcaster.publish();
+
+		assertEquals(List.of(
+				"event: stats\ndata: {\"online\":3,\"waiting\":1,\"pairs\":1}\n\n",
+				"event: stats\ndata: {\"online\":4,\"waiting\":0,\"pairs\":2}\n\n"), emitter.events());
+	}
+
+	@Test
+	void encodesEachSnapshotOnceForAllSubscribers() {
+		StatsBroadcaster broadcaster = newBroadcaster(new SignalingHandlers.DirectExecutorService());
+		RecordingEmitter first = new RecordingEmitter();
+		RecordingEmitter second = new RecordingEmitter();
+		broadcaster.subscribe(first);
+		broadcaster.subscribe(second);
+
+		broadcaster.publish();
+
+		assertEquals(1, first.writes.size());
+		assertSame(first.writes.get(0), second.writes.get(0));
+	}
+
+	@Test
+	void slowSubscriberGetsOnlyTheLatestSnapshot() {
+		ManualExecutorService executor = new ManualExecutorService();
+		StatsBroadcaster broadcaster = newBroadcaster(executor);
+		RecordingEmitter emitter = new RecordingEmitter();
+		broadcaster.subscribe(emitter);
+
+		for (int online = 1; online <= 5; online++) {
+			counts.set(new Snapshot(online, 0, 0));
+			broadcaster.publish();
+		}
+		assertEquals(1, executor.tasks.size());
+		executor.runAll();
+
+		assertEquals(List.of("event: stats\ndata: {\"online\":5,\"waiting\":0,\"pairs\":0}\n\n"), emitter.events());
+	}
+
+	@Test
+	void sendsHeartbeatsWhileIdleAndDropsDeadSubscribers() {
+		StatsBroadcaster broadcaster = newBroadcaster(new SignalingHandlers.DirectExecutorService());
+		broadcaster.publish();
+		RecordingEmitter emitter = new RecordingEmitter();
+		broadcaster.subscribe(emitter);
+		broadcaster.subscribe(new SseEmitter() {
+			@Override
+			public synchronized void send(Set<DataWithMediaType> items) throws IOException {
+				throw new IOException("Broken pipe");
+			}
+		});
+		assertEquals(1, broadcaster.getSubscriberCount());
+
+		now.addAndGet(TimeUnit.MILLISECONDS.toNanos(SETTINGS.heartbeatMillis() - 1));
+		broadcaster.publish();
+		now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+		broadcaster.publish();
+
+		assertEquals(List.of(":\n\n"), emitter.events().subList(1, emitter.events().size()));
+	}
+
+	@Test
+	void refusesSubscribersOverTheLimit() {
+		StatsBroadcaster broadcaster = newBroadcaster(new SignalingHandlers.DirectExecutorService());
+
+		assertNotNull(broadcaster.subscribe());
+		assertNotNull(broadcaster.subscribe());
+		assertNull(broadcaster.subscribe());
+	}
+}
@@ -0,0 +1,45 @@
+package com.thughari.randomchat.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.thughari.randomchat.controller.StatsBroadcaster.Snapshot;
+import com.thughari.randomchat.handler.SignalingHandlers;
+
+class StatsControllerTests {
+
+	private StatsBroadcaster broadcaster;
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		broadcaster = new StatsBroadcaster(() -> new Snapshot(0, 0, 0), new SignalingHandlers.DirectExecutorService(),
+				new StatsBroadcaster.Settings(1_000, 10_000, 60_000, 1), () -> TimeUnit.HOURS.toNanos(1));
+		StatsController controller = new StatsController();
+		ReflectionTestUtils.setField(controller, "statsBroadcaster", broadcaster);
+		mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+	}
+
+	@Test
+	void refusesStreamsBeyondTheSubscriberLimit() throws Exception {
+		MvcResult first = mockMvc.perform(get("/api/stats/stream")).andReturn();
+		assertTrue(first.getRequest().isAsyncStarted());
+		assertEquals(1, broadcaster.getSubscriberCount());
+
+		MvcResult second = mockMvc.perform(get("/api/stats/stream")).andReturn();
+
+		assertEquals(503, second.getResponse().getStatus());
+		assertEquals("30", second.getResponse().getHeader("Retry-After"));
+		assertEquals(1, broadcaster.getSubscriberCount());
+	}
+}
@@ -0,0 +1,88 @@
+package com.thughari.randomchat.controller;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thughari.randomchat.component.TurnConfigMetrics;
+import com.thughari.randomchat.component.TwilioHttpClient;
+import com.thughari.randomchat.journal.EventJournal;
+import com.thughari.randomchat.service.TwilioIceServerProvider;
+import com.thughari.randomchat.service.TwilioTurnService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class TurnConfigControllerTests {
+
+	private static final String TOKENS_RESPONSE = """
+			{"ttl":"3600","ice_servers":[
+			{"urls":"turn:global.turn.twilio.com:3478?transport=udp","username":"u","credential":"c"}]}
+			""";
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private TwilioTurnService turnService;
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		TwilioHttpClient twilio = new TwilioHttpClient() {
+			@Override
+			public Mono<String> fetchTwilioTokens() {
+				return Mono.just(TOKENS_RESPONSE);
+			}
+		};
+		TurnConfigMetrics metrics = new TurnConfigMetrics(new SimpleMeterRegistry());
+		turnService = new TwilioTurnService(List.of(new TwilioIceServerProvider(twilio, metrics, 0.8, 1_000, 10_000, 5_000)),
+				metrics, new EventJournal(1024), List.of("twilio"));
+		mockMvc = MockMvcBuilders.standaloneSetup(new TurnConfigController(turnService)).build();
+	}
+
+	@Test
+	void writesPreSerializedConfigWithValidators() throws Exception {
+		MockHttpServletResponse response = mockMvc.perform(get("/api/turn-config")).andReturn().getResponse();
+
+		assertEquals(200, response.getStatus());
+		assertArrayEquals(turnService.getIceServersSnapshot().json(), response.getContentAsByteArray());
+		JsonNode body = objectMapper.readTree(response.getContentAsByteArray());
+		assertEquals(2, body.size());
+		assertEquals("u", body.get(1).get("username").asText());
+
+		String etag = response.getHeader(HttpHeaders.ETAG);
+		assertTrue(etag.startsWith("\"") && etag.endsWith("\""), etag);
+		Matcher maxAge = Pattern.compile("max-age=(\\d+)").matcher(response.getHeader(HttpHeaders.CACHE_CONTROL));
+		assertTrue(maxAge.find());
+		long seconds = Long.parseLong(maxAge.group(1));
+		assertTrue(seconds > 3590 && seconds <= 3600, "max-age " + seconds);
+		assertTrue(response.getHeader(HttpHeaders.CACHE_CONTROL).contains("private"));
+	}
+
+	@Test
+	void answersMatchingIfNoneMatchWithNotModified() throws Exception {
+		String etag = mockMvc.perform(get("/api/turn-config")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		MockHttpServletResponse notModified = mockMvc.perform(get("/api/turn-config")
+				.header(HttpHeaders.IF_NONE_MATCH, "\"other\", W/" + etag)).andReturn().getResponse();
+		assertEquals(304, notModified.getStatus());
+		assertEquals(0, notModified.getContentAsByteArray().length);
+		assertEquals(etag, notModified.getHeader(HttpHeaders.ETAG));
+
+		MockHttpServletResponse stale = mockMvc.perform(get("/api/turn-config")
+				.header(HttpHeaders.IF_NONE_MATCH, "\"stale\"")).andReturn().getResponse();
+		assertEquals(200, stale.getStatus());
+	}
+}
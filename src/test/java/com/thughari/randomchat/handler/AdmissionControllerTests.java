@@ -0,0 +1,180 @@
+package com.thughari.randomchat.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.thughari.randomchat.component.SignalingMetrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AdmissionControllerTests {
+
+	private static final AdmissionController.Settings SETTINGS =
+			new AdmissionController.Settings(100, 10, 5, 1_000, 10_000, 5);
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final AtomicBoolean draining = new AtomicBoolean();
+	private final AtomicInteger connections = new AtomicInteger();
+	private final AtomicInteger inbound = new AtomicInteger();
+	private final AtomicLong outbound = new AtomicLong();
+	private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+	private AdmissionController admission;
+
+	@BeforeEach
+	void setUp() {
+		admission = new AdmissionController(draining::get, connections::get, inbound::get, outbound::get,
+				new SignalingMetrics(registry), SETTINGS, now::get);
+	}
+
+	@Test
+	void refusesHandshakesAtTheConnectionCap() {
+		connections.set(100);
+
+		AdmissionController.Decision decision = admission.admitHandshake();
+
+		assertEquals(AdmissionController.Rejection.CONNECTION_LIMIT, decision.rejection());
+		assertEquals(503, decision.rejection().getStatus().value());
+		assertEquals(5, decision.retryAfterSeconds());
+		assertEquals(1.0, rejections("connection_limit"));
+	}
+
+	@Test
+	void concurrentHandshakesDoNotOvershootTheConnectionCap() throws Exception {
+		connections.set(98);
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<AdmissionController.Decision>> decisions = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				decisions.add(executor.submit(() -> {
+					start.await();
+					return admission.admitHandshake();
+				}));
+			}
+			start.countDown();
+
+			int admitted = 0;
+			for (Future<AdmissionController.Decision> decision : decisions) {
+				if (decision.get(5, TimeUnit.SECONDS).isAdmitted()) admitted++;
+			}
+			assertEquals(2, admitted);
+			assertEquals(6.0, rejections("connection_limit"));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void releasedReservationFreesItsSlot() {
+		connections.set(99);
+		AdmissionController.Decision first = admission.admitHandshake();
+		assertTrue(first.isAdmitted());
+		assertFalse(admission.admitHandshake().isAdmitted());
+
+		// Releasing twice, as a failed upgrade and its backstop may, frees the slot only once
+		first.reservation().release();
+		first.reservation().release();
+
+		assertTrue(admission.admitHandshake().isAdmitted());
+		assertFalse(admission.admitHandshake().isAdmitted());
+	}
+
+	@Test
+	void establishedSessionHandsItsSlotBackToTheActiveCount() {
+		SignalingHandler handler = SignalingHandlers.newSignalingHandler(new SignalingHandlers.DirectExecutorService());
+		connections.set(99);
+		AdmissionController.Decision decision = admission.admitHandshake();
+		StubWebSocketSession session = new StubWebSocketSession("s1");
+		session.getAttributes().put(AdmissionController.Reservation.ATTRIBUTE, decision.reservation());
+
+		handler.afterConnectionEstablished(session);
+
+		assertFalse(session.getAttributes().containsKey(AdmissionController.Reservation.ATTRIBUTE));
+		assertEquals(1, handler.getActiveConnections());
+		assertTrue(admission.admitHandshake().isAdmitted());
+	}
+
+	@Test
+	void admitsABurstThenLimitsToTheSteadyRate() {
+		for (int i = 0; i < 5; i++) {
+			assertTrue(admission.admitHandshake().isAdmitted(), "handshake " + i);
+		}
+
+		AdmissionController.Decision decision = admission.admitHandshake();
+		assertEquals(AdmissionController.Rejection.HANDSHAKE_RATE, decision.rejection());
+		assertEquals(429, decision.rejection().getStatus().value());
+		assertEquals(1, decision.retryAfterSeconds());
+
+		now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+		assertTrue(admission.admitHandshake().isAdmitted());
+		assertFalse(admission.admitHandshake().isAdmitted());
+
+		now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+		for (int i = 0; i < 5; i++) {
+			assertTrue(admission.admitHandshake().isAdmitted(), "handshake " + i + " after a quiet period");
+		}
+		assertEquals(2.0, rejections("handshake_rate"));
+	}
+
+	@Test
+	void shedsNewHandshakesWhileOverloadedWithJitteredRetry() {
+		inbound.set(1_001);
+		admission.checkOverload();
+		assertTrue(admission.isOverloaded());
+
+		for (int i = 0; i < 50; i++) {
+			AdmissionController.Decision decision = admission.admitHandshake();
+			assertEquals(AdmissionController.Rejection.OVERLOADED, decision.rejection());
+			assertTrue(decision.retryAfterSeconds() >= 5 && decision.retryAfterSeconds() <= 10,
+					"retry after " + decision.retryAfterSeconds());
+		}
+		assertEquals(50.0, rejections("overloaded"));
+	}
+
+	@Test
+	void refusesHandshakesWhileDraining() {
+		draining.set(true);
+
+		AdmissionController.Decision decision = admission.admitHandshake();
+
+		assertEquals(AdmissionController.Rejection.DRAINING, decision.rejection());
+		assertEquals(503, decision.rejection().getStatus().value());
+		assertTrue(decision.retryAfterSeconds() >= 5 && decision.retryAfterSeconds() <= 10);
+		assertEquals(1.0, rejections("draining"));
+	}
+
+	@Test
+	void clearsOverloadOnlyBelowHalfTheLimit() {
+		outbound.set(10_001);
+		admission.checkOverload();
+		assertTrue(admission.isOverloaded());
+
+		outbound.set(6_000);
+		admission.checkOverload();
+		assertTrue(admission.isOverloaded(), "still above half the outbound limit");
+
+		outbound.set(5_000);
+		admission.checkOverload();
+		assertFalse(admission.isOverloaded());
+		assertTrue(admission.admitHandshake().isAdmitted());
+	}
+
+	private double rejections(String reason) {
+		return registry.get("signaling.admission.rejections").tag("reason", reason).counter().count();
+	}
+}
@@ -0,0 +1,109 @@
+package com.thughari.randomchat.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class BinarySignalingTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private void assertRoundTrips(String json) throws IOException {
+		byte[] frame = BinarySignaling.fromJson(json);
+		assertEquals(objectMapper.readTree(json), objectMapper.readTree(BinarySignaling.toJson(frame)));
+	}
+
+	@Test
+	void roundTripsEveryMessageType() throws IOException {
+		assertRoundTrips(SignalingPayloads.OFFER);
+		assertRoundTrips(SignalingPayloads.ANSWER);
+		assertRoundTrips(SignalingPayloads.ICE);
+		assertRoundTrips(SignalingPayloads.MEDIA_STATUS);
+		assertRoundTrips("{\"type\":\"ready_for_peer\"}");
+		assertRoundTrips("{\"type\":\"initiateOffer\"}");
+		assertRoundTrips("{\"type\":\"waitForOffer\"}");
+		assertRoundTrips("{\"type\":\"leave\",\"reason\":\"Your partner disconnected\"}");
+		assertRoundTrips("{\"type\":\"leave\",\"reason\":null}");
+		assertRoundTrips("{\"type\":\"next\"}");
+		assertRoundTrips("{\"type\":\"reconnect\",\"delayMs\":12345}");
+		assertRoundTrips("{\"type\":\"session\",\"token\":\"a1b2.c3d4\"}");
+		assertRoundTrips("{\"type\":\"resume\",\"token\":\"a1b2.c3d4\"}");
+		assertRoundTrips("{\"type\":\"resumed\"}");
+		assertRoundTrips("{\"type\":\"ice_batch\",\"candidates\":["
+				+ "{\"candidate\":\"candidate:1 1 udp 2122260223 192.168.1.23 51234 typ host\",\"sdpMid\":\"0\",\"sdpMLineIndex\":0,\"usernameFragment\":null},"
+				+ "{\"candidate\":\"\",\"sdpMid\":null,\"sdpMLineIndex\":null,\"usernameFragment\":\"Xk7p\"}]}");
+	}
+
+	@Test
+	void keepsSdpByteForByte() throws IOException {
+		String sdp = "v=0\r\no=- 1 2 IN IP4 127.0.0.1\r\nx-custom=é ü\r\n\r\na=rtcp-mux";
+		String json = objectMapper.writeValueAsString(
+				Map.of("type", "offer", "offer", Map.of("type", "offer", "sdp", sdp)));
+
+		String decoded = BinarySignaling.toJson(BinarySignaling.fromJson(json));
+
+		assertEquals(sdp, objectMapper.readTree(decoded).path("offer").path("sdp").asText());
+	}
+
+	@Test
+	void shrinksDescriptionsAndCandidates() throws IOException {
+		int offer = BinarySignaling.fromJson(SignalingPayloads.OFFER).length;
+		int ice = BinarySignaling.fromJson(SignalingPayloads.ICE).length;
+
+		assertTrue(offer < SignalingPayloads.OFFER.length() / 2,
+				"offer: " + offer + " bytes vs " + SignalingPayloads.OFFER.length() + " as JSON");
+		assertTrue(ice < SignalingPayloads.ICE.length() * 3 / 4,
+				"ice: " + ice + " bytes vs " + SignalingPayloads.ICE.length() + " as JSON");
+	}
+
+	@Test
+	void rejectsMalformedFrames() throws IOException {
+		byte[] offer = BinarySignaling.fromJson(SignalingPayloads.OFFER);
+
+		assertThrows(IOException.class, () -> BinarySignaling.toJson(Arrays.copyOf(offer, offer.length / 2)));
+		assertThrows(IOException.class, () -> BinarySignaling.toJson(new byte[] { 99 }));
+		assertThrows(IOException.class, () -> BinarySignaling.toJson(new byte[] { BinarySignaling.OFFER, 1, (byte) 250, 1 }));
+		assertThrows(IOException.class, () -> BinarySignaling.fromJson("{\"type\":\"something_else\"}"));
+	}
+
+	@Test
+	void liftsCandidateJsonForIceBatching() throws IOException {
+		byte[] ice = BinarySignaling.fromJson(SignalingPayloads.ICE);
+
+		String candidate = BinarySignaling.candidateJson(ice);
+
+		assertEquals(objectMapper.readTree(SignalingPayloads.ICE).get("candidate"), objectMapper.readTree(candidate));
+	}
+
+	@Test
+	void browserCodecUsesTheSameSdpDictionary() throws IOException {
+		String script;
+		try (InputStream in = new ClassPathResource("static/binary-signaling.js").getInputStream()) {
+			script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+		String block = script.substring(script.indexOf("BEGIN SDP DICTIONARY"), script.indexOf("END SDP DICTIONARY"));
+
+		List<String> entries = new ArrayList<>();
+		Matcher matcher = Pattern.compile("\"((?:[^\"\\\\]|\\\\.)*)\"").matcher(block);
+		while (matcher.find()) {
+			entries.add(matcher.group(1));
+		}
+
+		assertEquals(SdpDictionary.ENTRIES, entries);
+	}
+}
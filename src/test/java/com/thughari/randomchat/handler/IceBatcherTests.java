@@ -0,0 +1,108 @@
+package com.thughari.randomchat.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thughari.randomchat.component.SignalingMetrics;
+import com.thughari.randomchat.handler.OutboundBuffer.FrameKind;
+import com.thughari.randomchat.handler.OutboundBuffer.Limits;
+import com.thughari.randomchat.handler.OutboundBuffer.OverflowPolicy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IceBatcherTests {
+
+	private static final String CANDIDATE = "{\"candidate\":\"candidate:1 1 udp 2122260223 192.168.1.23 51234 typ host\",\"sdpMid\":\"0\",\"sdpMLineIndex\":0}";
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private ScheduledExecutorService scheduler;
+	private StubWebSocketSession session;
+	private OutboundBuffer outboundBuffer;
+	private SignalingMetrics metrics;
+
+	@BeforeEach
+	void setUp() {
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+		session = new StubWebSocketSession("s1");
+		metrics = new SignalingMetrics(new SimpleMeterRegistry());
+		outboundBuffer = new OutboundBuffer(session, Runnable::run, new Limits(64, 65536, OverflowPolicy.DROP_ICE), metrics);
+	}
+
+	@AfterEach
+	void tearDown() {
+		scheduler.shutdownNow();
+	}
+
+	@Test
+	void flushesImmediatelyAtCountLimit() throws Exception {
+		IceBatcher batcher = new IceBatcher(outboundBuffer, scheduler, new IceBatcher.Settings(10_000, 5), metrics);
+
+		for (int i = 0; i < 10; i++) {
+			batcher.add(CANDIDATE);
+		}
+
+		List<JsonNode> frames = sentFrames();
+		assertEquals(2, frames.size(), "10 candidates should collapse into 2 frames");
+		for (JsonNode frame : frames) {
+			assertEquals("ice_batch", frame.get("type").asText());
+			assertEquals(5, frame.get("candidates").size());
+			assertEquals("0", frame.get("candidates").get(0).get("sdpMid").asText());
+		}
+	}
+
+	@Test
+	void flushesWithinWindow() throws Exception {
+		IceBatcher batcher = new IceBatcher(outboundBuffer, scheduler, new IceBatcher.Settings(20, 50), metrics);
+
+		long start = System.nanoTime();
+		batcher.add(CANDIDATE);
+		batcher.add(CANDIDATE);
+		batcher.add(CANDIDATE);
+
+		while (session.getSentMessages().isEmpty() && System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2)) {
+			Thread.sleep(1);
+		}
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		List<JsonNode> frames = sentFrames();
+		assertEquals(1, frames.size());
+		assertEquals(3, frames.get(0).get("candidates").size());
+		assertTrue(elapsedMillis < 500, "first candidate waited " + elapsedMillis + " ms");
+	}
+
+	@Test
+	void explicitFlushKeepsCandidatesAheadOfLaterFrames() throws Exception {
+		IceBatcher batcher = new IceBatcher(outboundBuffer, scheduler, new IceBatcher.Settings(10_000, 50), metrics);
+
+		batcher.add(CANDIDATE);
+		batcher.flush();
+		outboundBuffer.enqueue(new TextMessage("{\"type\":\"offer\"}"), FrameKind.DESCRIPTION);
+		batcher.flush();
+
+		List<JsonNode> frames = sentFrames();
+		assertEquals(2, frames.size());
+		assertEquals("ice_batch", frames.get(0).get("type").asText());
+		assertEquals("offer", frames.get(1).get("type").asText());
+	}
+
+	private List<JsonNode> sentFrames() throws Exception {
+		List<JsonNode> frames = new ArrayList<>();
+		for (var message : session.getSentMessages()) {
+			frames.add(objectMapper.readTree(((TextMessage) message).getPayload()));
+		}
+		return frames;
+	}
+}
@@ -0,0 +1,122 @@
+package com.thughari.randomchat.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+
+import com.thughari.randomchat.component.SignalingMetrics;
+import com.thughari.randomchat.handler.MessageRateLimiter.MessageClass;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MessageRateLimiterTests {
+
+	private static final long START = TimeUnit.HOURS.toNanos(1);
+
+	private final MessageRateLimiter limiter = new MessageRateLimiter(2, 10, 5, 20, 50, 200, 5, 20, 5);
+
+	private static SessionState newState() {
+		return new SessionState(new StubWebSocketSession("s"), false, null, null, null);
+	}
+
+	@Test
+	void allowsABurstThenTheSteadyRate() {
+		SessionState state = newState();
+		for (int i = 0; i < 10; i++) {
+			assertTrue(limiter.tryAcquire(state, MessageClass.PAIRING, START), "frame " + i);
+		}
+		assertFalse(limiter.tryAcquire(state, MessageClass.PAIRING, START));
+
+		long halfSecond = TimeUnit.MILLISECONDS.toNanos(500);
+		assertTrue(limiter.tryAcquire(state, MessageClass.PAIRING, START + halfSecond));
+		assertFalse(limiter.tryAcquire(state, MessageClass.PAIRING, START + halfSecond));
+	}
+
+	@Test
+	void limitsEachClassSeparately() {
+		SessionState state = newState();
+		while (limiter.tryAcquire(state, MessageClass.PAIRING, START)) {
+		}
+
+		assertTrue(limiter.tryAcquire(state, MessageClass.ICE, START));
+		assertTrue(limiter.tryAcquire(state, MessageClass.DESCRIPTION, START));
+	}
+
+	@Test
+	void allocatesStateOnlyOnFirstFrame() {
+		SessionState state = newState();
+		assertNull(state.messageArrivalTimes);
+
+		limiter.tryAcquire(state, MessageClass.ICE, START);
+
+		assertEquals(MessageClass.values().length, state.messageArrivalTimes.length);
+	}
+
+	@Test
+	void classifiesClientMessageTypes() {
+		assertEquals(MessageClass.PAIRING, MessageClass.of("ready_for_peer"));
+		assertEquals(MessageClass.PAIRING, MessageClass.of("leave"));
+		assertEquals(MessageClass.DESCRIPTION, MessageClass.of("answer"));
+		assertEquals(MessageClass.MEDIA_STATUS, MessageClass.of("media_status"));
+		assertNull(MessageClass.of("something_else"));
+	}
+
+	@Test
+	void handlerDropsFloodAndClosesPersistentOffender() throws Exception {
+		SignalingHandler handler = SignalingHandlers.newSignalingHandler(new SignalingHandlers.DirectExecutorService());
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		ReflectionTestUtils.setField(handler, "signalingMetrics", new SignalingMetrics(registry));
+		ReflectionTestUtils.setField(handler, "messageRateLimiter", SignalingHandlers.newMessageRateLimiter(1, 3, 5));
+		StubWebSocketSession flooder = new StubWebSocketSession("flooder");
+		handler.afterConnectionEstablished(flooder);
+
+		for (int i = 0; i < 7; i++) {
+			handler.handleMessage(flooder, new TextMessage("{\"type\":\"ready_for_peer\"}"));
+		}
+		assertTrue(flooder.isOpen());
+
+		handler.handleMessage(flooder, new TextMessage("{\"type\":\"ready_for_peer\"}"));
+
+		assertEquals(CloseStatus.POLICY_VIOLATION, flooder.getCloseStatus());
+		assertEquals(5.0, registry.get("signaling.messages.throttled").tag("class", "pairing").counter().count());
+		assertEquals(1.0, registry.get("signaling.messages.throttle.closes").counter().count());
+	}
+
+	@Test
+	void throttledFramesAreDroppedBeforeReachingTheMailbox() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		CountDownLatch release = new CountDownLatch(1);
+		// Keeps the mailbox from draining, so everything let through stays queued
+		executor.execute(() -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		SignalingHandler handler = SignalingHandlers.newSignalingHandler(executor);
+		ReflectionTestUtils.setField(handler, "messageRateLimiter", SignalingHandlers.newMessageRateLimiter(1, 3, 1_000));
+		StubWebSocketSession flooder = new StubWebSocketSession("flooder");
+		handler.afterConnectionEstablished(flooder);
+
+		for (int i = 0; i < 100; i++) {
+			handler.handleMessage(flooder, new TextMessage("{\"type\":\"ready_for_peer\"}"));
+		}
+
+		assertEquals(3, handler.getInboundBacklog());
+		release.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+	}
+}
@@ -0,0 +1,92 @@
+package com.thughari.randomchat.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class MessageTypeExtractorTests {
+
+	private static final int ITERATIONS = 20_000;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void readsTypeOfRelayedMessages() throws IOException {
+		assertEquals("offer", MessageTypeExtractor.extractType(SignalingPayloads.OFFER));
+		assertEquals("ice", MessageTypeExtractor.extractType(SignalingPayloads.ICE));
+		assertEquals("ready_for_peer", MessageTypeExtractor.extractType("{\"type\": \"ready_for_peer\"}"));
+	}
+
+	@Test
+	void findsTypeAfterOtherFieldsAndIgnoresNestedTypes() throws IOException {
+		String answer = "{\"answer\":{\"type\":\"answer\",\"sdp\":\"v=0\"},\"extra\":[1,{\"type\":\"x\"}],\"type\":\"answer\"}";
+		assertEquals("answer", MessageTypeExtractor.extractType(answer));
+	}
+
+	@Test
+	void returnsNullWhenTypeIsMissingOrNotAString() throws IOException {
+		assertNull(MessageTypeExtractor.extractType("{\"kind\":\"audio\"}"));
+		assertNull(MessageTypeExtractor.extractType("{\"type\":42}"));
+	}
+
+	@Test
+	void rejectsNonObjectPayloads() {
+		assertThrows(IOException.class, () -> MessageTypeExtractor.extractType("[\"offer\"]"));
+		assertThrows(IOException.class, () -> MessageTypeExtractor.extractType("not json"));
+	}
+
+	@Test
+	void extractsRawFieldVerbatim() throws IOException {
+		String candidate = MessageTypeExtractor.extractRawField(SignalingPayloads.ICE, "candidate");
+		assertTrue(candidate.startsWith("{\"candidate\":\"candidate:842163049"));
+		assertTrue(candidate.endsWith("\"usernameFragment\":\"Xk7p\"}"));
+		assertEquals(SignalingPayloads.ICE, "{\"type\":\"ice\",\"candidate\":" + candidate + "}");
+
+		assertNull(MessageTypeExtractor.extractRawField(SignalingPayloads.ICE, "missing"));
+		assertNull(MessageTypeExtractor.extractRawField(SignalingPayloads.ICE, "type"));
+	}
+
+	// Direction only: the figures depend on the JIT and TLABs; MessageTypeBenchmark measures them
+	@Test
+	void allocatesLessThanFullDeserialization() throws IOException {
+		for (String payload : new String[] { SignalingPayloads.OFFER, SignalingPayloads.ICE }) {
+			long mapBytes = bytesPerCall(() -> {
+				Map<String, Object> data = objectMapper.readValue(payload, new TypeReference<>() {});
+				return (String) data.get("type");
+			});
+			long peekBytes = bytesPerCall(() -> MessageTypeExtractor.extractType(payload));
+
+			assertTrue(peekBytes < mapBytes,
+					"expected type peeking to allocate less than full parsing: " + peekBytes + " vs " + mapBytes + " B/op");
+		}
+	}
+
+	private static long bytesPerCall(TypeReader reader) throws IOException {
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().threadId();
+
+		for (int i = 0; i < ITERATIONS; i++) {
+			reader.read();
+		}
+		long before = threadBean.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < ITERATIONS; i++) {
+			reader.read();
+		}
+		return (threadBean.getThreadAllocatedBytes(threadId) - before) / ITERATIONS;
+	}
+
+	@FunctionalInterface
+	private interface TypeReader {
+		String read() throws IOException;
+	}
+}
@@ -0,0 +1,194 @@
+package com.thughari.randomchat.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import com.thughari.randomchat.component.SignalingMetrics;
+import com.thughari.randomchat.handler.OutboundBuffer.FrameKind;
+import com.thughari.randomchat.handler.OutboundBuffer.Limits;
+import com.thughari.randomchat.handler.OutboundBuffer.OverflowPolicy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OutboundBufferTests {
+
+	private final Queue<Runnable> tasks = new ArrayDeque<>();
+	private final Executor manualExecutor = tasks::add;
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private SignalingMetrics metrics;
+	private StubWebSocketSession session;
+
+	@BeforeEach
+	void setUp() {
+		metrics = new SignalingMetrics(registry);
+		session = new StubWebSocketSession("s1");
+	}
+
+	@Test
+	void singleWriterSendsFramesInOrder() {
+		OutboundBuffer buffer = new OutboundBuffer(session, manualExecutor, new Limits(16, 1024, OverflowPolicy.DROP_ICE), metrics);
+
+		buffer.enqueue(new TextMessage("1"), FrameKind.DESCRIPTION);
+		buffer.enqueue(new TextMessage("2"), FrameKind.ICE);
+		buffer.enqueue(new TextMessage("3"), FrameKind.ICE);
+		assertEquals(1, tasks.size(), "only one writer should be started");
+		assertEquals(3, metrics.getOutboundQueuedMessages());
+
+		runTasks();
+		assertEquals(List.of("1", "2", "3"), sentPayloads());
+		assertEquals(0, metrics.getOutboundQueuedMessages());
+		assertEquals(0, metrics.getOutboundQueuedBytes());
+	}
+
+	@Test
+	void dropsIceCandidatesSupersededByANewerDescriptionWhenFull() {
+		OutboundBuffer buffer = new OutboundBuffer(session, manualExecutor, new Limits(3, 1024, OverflowPolicy.DROP_ICE), metrics);
+
+		buffer.enqueue(new TextMessage("old-ice"), FrameKind.ICE);
+		buffer.enqueue(new TextMessage("restart-offer"), FrameKind.DESCRIPTION);
+		buffer.enqueue(new TextMessage("ice-1"), FrameKind.ICE);
+		assertTrue(buffer.enqueue(new TextMessage("ice-2"), FrameKind.ICE));
+
+		runTasks();
+		assertEquals(List.of("restart-offer", "ice-1", "ice-2"), sentPayloads());
+		assertEquals(1.0, registry.get("signaling.outbound.dropped").counter().count());
+		assertNull(session.getCloseStatus());
+	}
+
+	@Test
+	void anIncomingDescriptionSupersedesQueuedIceCandidates() {
+		OutboundBuffer buffer = new OutboundBuffer(session, manualExecutor, new Limits(100, 10, OverflowPolicy.DROP_ICE), metrics);
+
+		buffer.enqueue(new TextMessage("aaaa"), FrameKind.ICE);
+		buffer.enqueue(new TextMessage("bbbb"), FrameKind.ICE);
+		assertTrue(buffer.enqueue(new TextMessage("offr"), FrameKind.DESCRIPTION));
+
+		assertEquals(8, buffer.getQueuedBytes());
+		runTasks();
+		assertEquals(List.of("bbbb", "offr"), sentPayloads());
+	}
+
+	@Test
+	void neverDropsCurrentIceCandidates() {
+		OutboundBuffer buffer = new OutboundBuffer(session, manualExecutor, new Limits(3, 1024, OverflowPolicy.DROP_ICE), metrics);
+
+		buffer.enqueue(new TextMessage("offer"), FrameKind.DESCRIPTION);
+		buffer.enqueue(new TextMessage("ice-1"), FrameKind.ICE);
+		buffer.enqueue(new TextMessage("ice-2"), FrameKind.ICE);
+		assertFalse(buffer.enqueue(new TextMessage("ice-3"), FrameKind.ICE));
+
+		runTasks();
+		assertEquals(OutboundBuffer.SLOW_CONSUMER, session.getCloseStatus());
+		assertEquals(0.0, registry.get("signaling.outbound.dropped").counter().count());
+	}
+
+	@Test
+	void closesSlowConsumerWhenNothingCanBeDropped() {
+		OutboundBuffer buffer = new OutboundBuffer(session, manualExecutor, new Limits(2, 1024, OverflowPolicy.DROP_ICE), metrics);
+
+		buffer.enqueue(new TextMessage("offer"), FrameKind.DESCRIPTION);
+		buffer.enqueue(new TextMessage("media"), FrameKind.CONTROL);
+		assertFalse(buffer.enqueue(new TextMessage("answer"), FrameKind.DESCRIPTION));
+		assertFalse(buffer.enqueue(new TextMessage("late"), FrameKind.CONTROL));
+
+		runTasks();
+		assertEquals(OutboundBuffer.SLOW_CONSUMER, session.getCloseStatus());
+		assertTrue(session.getSentMessages().isEmpty());
+		assertEquals(0, metrics.getOutboundQueuedMessages());
+		assertEquals(1.0, registry.get("signaling.outbound.overflow.closes").counter().count());
+	}
+
+	@Test
+	void closePolicyNeverDropsFrames() {
+		OutboundBuffer buffer = new OutboundBuffer(session, manualExecutor, new Limits(1, 1024, OverflowPolicy.CLOSE), metrics);
+
+		buffer.enqueue(new TextMessage("ice-1"), FrameKind.ICE);
+		assertFalse(buffer.enqueue(new TextMessage("ice-2"), FrameKind.ICE));
+
+		runTasks();
+		assertEquals(OutboundBuffer.SLOW_CONSUMER, session.getCloseStatus());
+		assertEquals(0.0, registry.get("signaling.outbound.dropped").counter().count());
+	}
+
+	/**
+	 * A session whose transport takes only as many frames as the test grants.
+	 */
+	private static class FlowControlledStub extends StubWebSocketSession implements FlowControlledSession {
+
+		private int demand;
+		private Runnable listener;
+
+		FlowControlledStub(String id) {
+			super(id);
+		}
+
+		void request(int frames) {
+			demand += frames;
+			listener.run();
+		}
+
+		@Override
+		public boolean hasDemand() {
+			return demand > 0;
+		}
+
+		@Override
+		public void onDemand(Runnable listener) {
+			this.listener = listener;
+		}
+
+		@Override
+		public void sendMessage(WebSocketMessage<?> message) {
+			demand--;
+			super.sendMessage(message);
+		}
+	}
+
+	@Test
+	void sendsOnlyWhatAFlowControlledTransportAsksFor() {
+		FlowControlledStub flowControlled = new FlowControlledStub("s2");
+		session = flowControlled;
+		OutboundBuffer buffer = new OutboundBuffer(session, manualExecutor, new Limits(3, 1024, OverflowPolicy.CLOSE), metrics);
+
+		buffer.enqueue(new TextMessage("1"), FrameKind.DESCRIPTION);
+		buffer.enqueue(new TextMessage("2"), FrameKind.ICE);
+		runTasks();
+		assertTrue(session.getSentMessages().isEmpty());
+		assertEquals(2, buffer.size());
+
+		flowControlled.request(1);
+		runTasks();
+		assertEquals(List.of("1"), sentPayloads());
+		assertEquals(1, buffer.size());
+
+		// Frames the transport has not asked for still count against the limits
+		buffer.enqueue(new TextMessage("3"), FrameKind.ICE);
+		buffer.enqueue(new TextMessage("4"), FrameKind.ICE);
+		assertFalse(buffer.enqueue(new TextMessage("5"), FrameKind.ICE));
+		runTasks();
+		assertEquals(OutboundBuffer.SLOW_CONSUMER, session.getCloseStatus());
+	}
+
+	private void runTasks() {
+		Runnable task;
+		while ((task = tasks.poll()) != null) {
+			task.run();
+		}
+	}
+
+	private List<String> sentPayloads() {
+		return session.getSentMessages().stream().map(message -> ((TextMessage) message).getPayload()).toList();
+	}
+}
@@ -0,0 +1,64 @@
+package com.thughari.randomchat.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+
+/**
+ * Retained heap per idle connection, measured across 10k simulated sessions.
+ */
+class SessionFootprintTests {
+
+	private static final int CONNECTIONS = 10_000;
+
+	// About 290 bytes of session state, 80 for its pending liveness timer and 120 for the
+	// session attribute that holds the state (the attribute map allocates its table lazily)
+	private static final long MAX_BYTES_PER_CONNECTION = 560;
+
+	private static long usedHeapAfterGc() throws InterruptedException {
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		long used = Long.MAX_VALUE;
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			Thread.sleep(20);
+			used = Math.min(used, memory.getHeapMemoryUsage().getUsed());
+		}
+		return used;
+	}
+
+	@Test
+	void idleConnectionsStayCompact() throws Exception {
+		ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+		SignalingHandler handler = SignalingHandlers.newSignalingHandler(executor);
+		StubWebSocketSession[] sessions = new StubWebSocketSession[CONNECTIONS];
+		for (int i = 0; i < CONNECTIONS; i++) {
+			sessions[i] = new StubWebSocketSession("s" + i);
+		}
+
+		long before = usedHeapAfterGc();
+		for (StubWebSocketSession session : sessions) {
+			handler.afterConnectionEstablished(session);
+		}
+		// Moves the liveness timers from the intake queue into their buckets
+		SignalingHandlers.timingWheelOf(handler).tick();
+		long after = usedHeapAfterGc();
+
+		long bytesPerConnection = (after - before) / CONNECTIONS;
+		assertEquals(CONNECTIONS, handler.getActiveConnections());
+		assertTrue(bytesPerConnection < MAX_BYTES_PER_CONNECTION, "retained heap per idle connection: " + bytesPerConnection + " bytes");
+
+		for (StubWebSocketSession session : sessions) {
+			handler.handleMessage(session, new TextMessage("{\"type\":\"leave\"}"));
+			handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+		}
+		executor.shutdown();
+	}
+}
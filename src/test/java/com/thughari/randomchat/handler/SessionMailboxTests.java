@@ -0,0 +1,82 @@
+package com.thughari.randomchat.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class SessionMailboxTests {
+
+	@Test
+	void runsTasksSeriallyInSubmissionOrder() throws InterruptedException {
+		ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+		AtomicInteger drainsStarted = new AtomicInteger();
+		SessionMailbox mailbox = new SessionMailbox("s1", task -> {
+			drainsStarted.incrementAndGet();
+			executor.execute(task);
+		});
+
+		int count = 10_000;
+		List<Integer> processed = new ArrayList<>();
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		CountDownLatch done = new CountDownLatch(count);
+
+		for (int i = 0; i < count; i++) {
+			int sequence = i;
+			mailbox.submit(() -> {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				processed.add(sequence);
+				running.decrementAndGet();
+				done.countDown();
+			});
+		}
+
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+		assertEquals(1, maxRunning.get());
+		assertEquals(count, processed.size());
+		for (int i = 0; i < count; i++) {
+			assertEquals(i, processed.get(i));
+		}
+		assertTrue(drainsStarted.get() < count, "expected drains to batch queued frames");
+		assertEquals(0, mailbox.size());
+	}
+
+	@Test
+	void keepsDrainingAfterTaskFailure() throws InterruptedException {
+		ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+		SessionMailbox mailbox = new SessionMailbox("s1", executor);
+		CountDownLatch done = new CountDownLatch(1);
+
+		mailbox.submit(() -> {
+			throw new IllegalStateException("boom");
+		});
+		mailbox.submit(done::countDown);
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		executor.shutdown();
+	}
+
+	@Test
+	void resetsWhenExecutorRejects() {
+		SessionMailbox mailbox = new SessionMailbox("s1", task -> {
+			throw new RejectedExecutionException("shut down");
+		});
+
+		assertThrows(RejectedExecutionException.class, () -> mailbox.submit(() -> {}));
+		assertEquals(0, mailbox.size());
+	}
+}
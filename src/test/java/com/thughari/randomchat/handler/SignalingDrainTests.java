@@ -0,0 +1,186 @@
+package com.thughari.randomchat.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thughari.randomchat.component.Matchmaker;
+
+/**
+ * Draining a node, with the drain clock and the timing wheel advanced by hand. The drain
+ * settings are those of {@link SignalingHandlers}.
+ */
+class SignalingDrainTests {
+
+	private static final int TICKS_PER_SWEEP = 3;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+	private SignalingHandler handler;
+	private Matchmaker matchmaker;
+	private TimingWheel timingWheel;
+
+	@BeforeEach
+	void setUp() {
+		handler = SignalingHandlers.newSignalingHandler(new SignalingHandlers.DirectExecutorService());
+		ReflectionTestUtils.setField(handler, "clock", (LongSupplier) now::get);
+		matchmaker = (Matchmaker) ReflectionTestUtils.getField(handler, "matchmaker");
+		timingWheel = SignalingHandlers.timingWheelOf(handler);
+	}
+
+	@Test
+	void tellsWaitingAndIdleUsersToReconnectWithinTheSpread() throws Exception {
+		StubWebSocketSession alice = connect("alice");
+		StubWebSocketSession bob = connect("bob");
+		send(alice, "{\"type\":\"ready_for_peer\"}");
+
+		assertTrue(handler.startDrain());
+		assertFalse(handler.startDrain());
+
+		for (StubWebSocketSession session : List.of(alice, bob)) {
+			JsonNode reconnect = last(session);
+			assertEquals("reconnect", reconnect.get("type").asText());
+			long delay = reconnect.get("delayMs").asLong();
+			assertTrue(delay >= 0 && delay < SignalingHandlers.DRAIN_RECONNECT_SPREAD_MILLIS, "delay " + delay);
+		}
+		assertEquals(0, matchmaker.getWaitingCount());
+		assertEquals(2, handler.getDrainStatus().reconnectsSent());
+	}
+
+	@Test
+	void stopsPairingWhileDraining() throws Exception {
+		StubWebSocketSession alice = connect("alice");
+		handler.startDrain();
+		StubWebSocketSession carol = connect("carol");
+
+		send(alice, "{\"type\":\"ready_for_peer\"}");
+		send(carol, "{\"type\":\"ready_for_peer\"}");
+		sweep(0);
+
+		assertNull(sessionState(alice).getPeer());
+		assertEquals(List.of("reconnect"), types(alice));
+		assertEquals(List.of("reconnect"), types(carol));
+	}
+
+	@Test
+	void letsPairsFinishSignalingBeforeSendingThemAway() throws Exception {
+		StubWebSocketSession alice = connect("alice");
+		StubWebSocketSession bob = connect("bob");
+		send(alice, "{\"type\":\"ready_for_peer\"}");
+		send(bob, "{\"type\":\"ready_for_peer\"}");
+
+		handler.startDrain();
+		send(alice, SignalingPayloads.OFFER);
+		sweep(SignalingHandlers.DRAIN_SETTLE_MILLIS);
+		send(bob, SignalingPayloads.ANSWER);
+		sweep(SignalingHandlers.DRAIN_SETTLE_MILLIS / 2);
+		assertEquals(List.of("initiateOffer", "answer"), types(alice));
+		assertEquals(List.of("waitForOffer", "offer"), types(bob));
+
+		sweep(SignalingHandlers.DRAIN_SETTLE_MILLIS / 2);
+		assertEquals("reconnect", last(alice).get("type").asText());
+		assertEquals("reconnect", last(bob).get("type").asText());
+
+		// The first to reconnect must not end the other's call
+		handler.afterConnectionClosed(alice, CloseStatus.NORMAL);
+		assertEquals("reconnect", last(bob).get("type").asText());
+	}
+
+	@Test
+	void sendsStalledPairsAwayAtTheTimeoutAndClosesStragglers() throws Exception {
+		StubWebSocketSession alice = connect("alice");
+		StubWebSocketSession bob = connect("bob");
+		send(alice, "{\"type\":\"ready_for_peer\"}");
+		send(bob, "{\"type\":\"ready_for_peer\"}");
+
+		handler.startDrain();
+		sweep(SignalingHandlers.DRAIN_TIMEOUT_MILLIS - 1);
+		assertEquals("initiateOffer", last(alice).get("type").asText());
+
+		sweep(1);
+		assertEquals("reconnect", last(alice).get("type").asText());
+		assertEquals("reconnect", last(bob).get("type").asText());
+
+		sweep(SignalingHandlers.DRAIN_RECONNECT_SPREAD_MILLIS + SignalingHandlers.DRAIN_RECONNECT_GRACE_MILLIS);
+		assertEquals(CloseStatus.SERVICE_RESTARTED, alice.getCloseStatus());
+		assertEquals(CloseStatus.SERVICE_RESTARTED, bob.getCloseStatus());
+		assertFalse(handler.getDrainStatus().drained());
+
+		handler.afterConnectionClosed(alice, CloseStatus.SERVICE_RESTARTED);
+		handler.afterConnectionClosed(bob, CloseStatus.SERVICE_RESTARTED);
+		sweep(0);
+		DrainStatus status = handler.getDrainStatus();
+		assertTrue(status.drained());
+		assertEquals(0, status.connections());
+		assertTrue(handler.whenDrained().toCompletableFuture().isDone());
+	}
+
+	@Test
+	void finishesAtOnceWithNoSessions() {
+		handler.startDrain();
+
+		assertTrue(handler.whenDrained().toCompletableFuture().isDone());
+	}
+
+	/**
+	 * Moves the drain clock forward, then runs the next drain sweep.
+	 */
+	private void sweep(long millis) {
+		now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+		for (int i = 0; i < TICKS_PER_SWEEP; i++) {
+			timingWheel.tick();
+		}
+	}
+
+	private SessionState sessionState(StubWebSocketSession session) {
+		@SuppressWarnings("unchecked")
+		Map<String, SessionState> sessions = (Map<String, SessionState>) ReflectionTestUtils.getField(handler, "sessions");
+		return sessions.get(session.getId());
+	}
+
+	private StubWebSocketSession connect(String id) {
+		StubWebSocketSession session = new StubWebSocketSession(id);
+		handler.afterConnectionEstablished(session);
+		return session;
+	}
+
+	private void send(StubWebSocketSession session, String payload) throws Exception {
+		handler.handleMessage(session, new TextMessage(payload));
+	}
+
+	private List<JsonNode> frames(StubWebSocketSession session) throws Exception {
+		List<JsonNode> frames = new ArrayList<>();
+		for (WebSocketMessage<?> message : session.getSentMessages()) {
+			if (message instanceof TextMessage text) {
+				frames.add(objectMapper.readTree(text.getPayload()));
+			}
+		}
+		return frames;
+	}
+
+	private List<String> types(StubWebSocketSession session) throws Exception {
+		return frames(session).stream().map(frame -> frame.get("type").asText()).toList();
+	}
+
+	private JsonNode last(StubWebSocketSession session) throws Exception {
+		List<JsonNode> frames = frames(session);
+		return frames.get(frames.size() - 1);
+	}
+}
@@ -0,0 +1,125 @@
+package com.thughari.randomchat.handler;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.thughari.randomchat.component.Matchmaker;
+import com.thughari.randomchat.component.SignalingMetrics;
+import com.thughari.randomchat.handler.OutboundBuffer.OverflowPolicy;
+import com.thughari.randomchat.journal.EventJournal;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Builds a {@link SignalingHandler} wired the way Spring wires it, but without a
+ * context, a servlet container or a network.
+ */
+public final class SignalingHandlers {
+
+	public static final long PING_INTERVAL_MILLIS = 1_000;
+	public static final int MAX_MISSED_PONGS = 2;
+	public static final long PAIRING_TIMEOUT_MILLIS = 3_000;
+	public static final long TICK_MILLIS = 100;
+	public static final long DRAIN_RECONNECT_SPREAD_MILLIS = 2_000;
+	public static final long DRAIN_SETTLE_MILLIS = 1_000;
+	public static final long DRAIN_RECONNECT_GRACE_MILLIS = 1_000;
+	public static final long DRAIN_TIMEOUT_MILLIS = 5_000;
+	public static final long RESUME_GRACE_MILLIS = 2_000;
+	public static final int RESUME_MAX_PARKED = 2;
+	public static final int RESUME_MAX_BUFFERED_FRAMES = 4;
+	public static final int JOURNAL_CAPACITY = 1024;
+
+	private SignalingHandlers() {
+	}
+
+	/**
+	 * Runs every task on the calling thread, so mailbox drains and outbound writes finish
+	 * before the call that triggered them returns.
+	 */
+	public static final class DirectExecutorService extends AbstractExecutorService {
+
+		private volatile boolean shutdown;
+
+		@Override
+		public void execute(Runnable command) {
+			command.run();
+		}
+
+		@Override
+		public void shutdown() {
+			shutdown = true;
+		}
+
+		@Override
+		public List<Runnable> shutdownNow() {
+			shutdown = true;
+			return List.of();
+		}
+
+		@Override
+		public boolean isShutdown() {
+			return shutdown;
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return shutdown;
+		}
+
+		@Override
+		public boolean awaitTermination(long timeout, TimeUnit unit) {
+			return true;
+		}
+	}
+
+	/**
+	 * The handler's timers only fire when the test calls {@link TimingWheel#tick()} on
+	 * {@link #timingWheelOf(SignalingHandler)}; {@link #TICK_MILLIS} per tick.
+	 */
+	public static SignalingHandler newSignalingHandler(ExecutorService executor) {
+		SignalingHandler handler = new SignalingHandler();
+		ReflectionTestUtils.setField(handler, "matchmaker", new Matchmaker());
+		ReflectionTestUtils.setField(handler, "signalingMetrics", new SignalingMetrics(new SimpleMeterRegistry()));
+		ReflectionTestUtils.setField(handler, "virtualThreadExecutor", executor);
+		ReflectionTestUtils.setField(handler, "signalingScheduler", Executors.newSingleThreadScheduledExecutor());
+		ReflectionTestUtils.setField(handler, "outboundMaxMessages", 256);
+		ReflectionTestUtils.setField(handler, "outboundMaxBytes", 512 * 1024);
+		ReflectionTestUtils.setField(handler, "outboundOverflowPolicy", OverflowPolicy.DROP_ICE);
+		ReflectionTestUtils.setField(handler, "iceBatchEnabled", false);
+		ReflectionTestUtils.setField(handler, "pingIntervalMillis", PING_INTERVAL_MILLIS);
+		ReflectionTestUtils.setField(handler, "maxMissedPongs", MAX_MISSED_PONGS);
+		ReflectionTestUtils.setField(handler, "pairingTimeoutMillis", PAIRING_TIMEOUT_MILLIS);
+		ReflectionTestUtils.setField(handler, "timingWheel", new TimingWheel(TICK_MILLIS, 64));
+		ReflectionTestUtils.setField(handler, "drainReconnectSpreadMillis", DRAIN_RECONNECT_SPREAD_MILLIS);
+		ReflectionTestUtils.setField(handler, "drainSettleMillis", DRAIN_SETTLE_MILLIS);
+		ReflectionTestUtils.setField(handler, "drainReconnectGraceMillis", DRAIN_RECONNECT_GRACE_MILLIS);
+		ReflectionTestUtils.setField(handler, "drainTimeoutMillis", DRAIN_TIMEOUT_MILLIS);
+		// Off unless a test turns it on: the session frame it sends would precede every other
+		ReflectionTestUtils.setField(handler, "resumeEnabled", false);
+		ReflectionTestUtils.setField(handler, "resumeGraceMillis", RESUME_GRACE_MILLIS);
+		ReflectionTestUtils.setField(handler, "maxParkedSessions", RESUME_MAX_PARKED);
+		ReflectionTestUtils.setField(handler, "maxParkedFrames", RESUME_MAX_BUFFERED_FRAMES);
+		ReflectionTestUtils.setField(handler, "messageRateLimiter", newMessageRateLimiter(1_000_000, 1_000_000, 100));
+		ReflectionTestUtils.setField(handler, "eventJournal", new EventJournal(JOURNAL_CAPACITY));
+		handler.createSessionSettings();
+		return handler;
+	}
+
+	/**
+	 * The same limits for every message class. {@link #newSignalingHandler} uses limits no
+	 * test or benchmark reaches.
+	 */
+	public static MessageRateLimiter newMessageRateLimiter(double ratePerSecond, int burst, int maxThrottled) {
+		return new MessageRateLimiter(ratePerSecond, burst, ratePerSecond, burst, ratePerSecond, burst,
+				ratePerSecond, burst, maxThrottled);
+	}
+
+	public static TimingWheel timingWheelOf(SignalingHandler handler) {
+		return (TimingWheel) ReflectionTestUtils.getField(handler, "timingWheel");
+	}
+}
@@ -0,0 +1,106 @@
+package com.thughari.randomchat.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+
+import com.thughari.randomchat.journal.EventJournal;
+import com.thughari.randomchat.journal.JournalEvent;
+import com.thughari.randomchat.journal.JournalRecord;
+
+/**
+ * The lifecycle events the handler records in the event journal.
+ */
+class SignalingJournalTests {
+
+	private final long alice = EventJournal.keyOf("alice");
+	private final long bob = EventJournal.keyOf("bob");
+	private SignalingHandler handler;
+	private EventJournal eventJournal;
+
+	/**
+	 * A record without its time, for comparing.
+	 */
+	private record Event(JournalEvent event, long session, long other, int code) {
+	}
+
+	@BeforeEach
+	void setUp() {
+		handler = SignalingHandlers.newSignalingHandler(new SignalingHandlers.DirectExecutorService());
+		eventJournal = (EventJournal) ReflectionTestUtils.getField(handler, "eventJournal");
+	}
+
+	@Test
+	void recordsACallFromConnectToClose() throws Exception {
+		StubWebSocketSession aliceSession = connect("alice", BinarySignaling.SUBPROTOCOL);
+		StubWebSocketSession bobSession = connect("bob", null);
+		send(aliceSession, "{\"type\":\"ready_for_peer\"}");
+		send(bobSession, "{\"type\":\"ready_for_peer\"}");
+		List<JournalRecord> pairing = drain();
+
+		assertEquals(List.of(
+				new Event(JournalEvent.CONNECTED, alice, 0, 1),
+				new Event(JournalEvent.CONNECTED, bob, 0, 0),
+				new Event(JournalEvent.ENQUEUED, alice, 0, 0),
+				new Event(JournalEvent.ENQUEUED, bob, 0, 0),
+				new Event(JournalEvent.PAIRED, alice, bob, 0),
+				new Event(JournalEvent.PAIRED, bob, alice, 0)), events(pairing));
+		// Bob did not wait
+		assertEquals(0, pairing.get(5).value());
+
+		send(bobSession, SignalingPayloads.ICE);
+		send(bobSession, SignalingPayloads.ICE);
+		send(bobSession, "{\"type\":\"leave\"}");
+		handler.afterConnectionClosed(bobSession, CloseStatus.NORMAL);
+		List<JournalRecord> ending = drain();
+
+		assertEquals(List.of(
+				new Event(JournalEvent.LEFT, bob, alice, 0),
+				new Event(JournalEvent.RELAYED, bob, 0, 18),
+				new Event(JournalEvent.CLOSED, bob, 0, 1000)), events(ending));
+		assertEquals(2, ending.get(1).value());
+	}
+
+	@Test
+	void recordsTheFormerPartnerOfASkip() throws Exception {
+		StubWebSocketSession aliceSession = connect("alice", null);
+		StubWebSocketSession bobSession = connect("bob", null);
+		send(aliceSession, "{\"type\":\"ready_for_peer\"}");
+		send(bobSession, "{\"type\":\"ready_for_peer\"}");
+		drain();
+
+		send(aliceSession, "{\"type\":\"next\"}");
+
+		List<Event> events = events(drain());
+		assertEquals(new Event(JournalEvent.SKIPPED, alice, bob, 0), events.get(0));
+	}
+
+	private StubWebSocketSession connect(String id, String protocol) {
+		StubWebSocketSession session = new StubWebSocketSession(id, protocol);
+		handler.afterConnectionEstablished(session);
+		return session;
+	}
+
+	private void send(StubWebSocketSession session, String payload) throws Exception {
+		handler.handleMessage(session, new TextMessage(payload));
+	}
+
+	private List<JournalRecord> drain() {
+		List<JournalRecord> records = new ArrayList<>();
+		eventJournal.drain(records::add);
+		return records;
+	}
+
+	private static List<Event> events(List<JournalRecord> records) {
+		return records.stream()
+				.map(record -> new Event(record.event(), record.session(), record.other(), record.code()))
+				.toList();
+	}
+}
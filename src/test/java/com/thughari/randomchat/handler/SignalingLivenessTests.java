@@ -0,0 +1,200 @@
+package com.thughari.randomchat.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.PongMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thughari.randomchat.component.Matchmaker;
+
+/**
+ * Liveness pings and the pairing watchdog, driven by ticking the handler's timing wheel
+ * by hand. One ping interval is 10 ticks and the pairing timeout is 30.
+ */
+class SignalingLivenessTests {
+
+	private static final String OFFER = "{\"type\":\"offer\",\"offer\":{\"type\":\"offer\",\"sdp\":\"v=0\"}}";
+	private static final String ANSWER = "{\"type\":\"answer\",\"answer\":{\"type\":\"answer\",\"sdp\":\"v=0\"}}";
+	private static final int TICKS_PER_PING = (int) (SignalingHandlers.PING_INTERVAL_MILLIS / SignalingHandlers.TICK_MILLIS);
+	private static final int TICKS_PER_PAIRING_TIMEOUT = (int) (SignalingHandlers.PAIRING_TIMEOUT_MILLIS / SignalingHandlers.TICK_MILLIS);
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private SignalingHandler handler;
+	private Matchmaker matchmaker;
+	private TimingWheel timingWheel;
+
+	@BeforeEach
+	void setUp() {
+		handler = SignalingHandlers.newSignalingHandler(new SignalingHandlers.DirectExecutorService());
+		matchmaker = (Matchmaker) ReflectionTestUtils.getField(handler, "matchmaker");
+		timingWheel = SignalingHandlers.timingWheelOf(handler);
+	}
+
+	@Test
+	void pingsEverySessionOncePerInterval() throws Exception {
+		StubWebSocketSession alice = connect("alice");
+
+		advance(TICKS_PER_PING - 1, alice);
+		assertEquals(0, pings(alice));
+		advance(1, alice);
+		assertEquals(1, pings(alice));
+		advance(TICKS_PER_PING * 5, alice);
+		assertEquals(6, pings(alice));
+		assertTrue(alice.isOpen());
+	}
+
+	@Test
+	void missedPongTakesWaitingUserOutOfThePoolUntilTheyAnswer() throws Exception {
+		StubWebSocketSession alice = connect("alice");
+		send(alice, "{\"type\":\"ready_for_peer\"}");
+
+		advance(TICKS_PER_PING * 2);
+		assertEquals(0, matchmaker.getWaitingCount());
+
+		StubWebSocketSession bob = connect("bob");
+		send(bob, "{\"type\":\"ready_for_peer\"}");
+		assertEquals(List.of(), types(bob), "nobody should be paired with a silent user");
+
+		handler.handleMessage(alice, new PongMessage());
+		assertEquals(List.of("initiateOffer"), types(bob));
+		assertEquals(List.of("waitForOffer"), types(alice));
+	}
+
+	@Test
+	void closesSessionAfterMissingPongsAndTellsThePartner() throws Exception {
+		StubWebSocketSession alice = connect("alice");
+		StubWebSocketSession bob = connect("bob");
+		pair(alice, bob);
+		send(alice, OFFER);
+		send(bob, ANSWER);
+
+		advance(TICKS_PER_PING * (SignalingHandlers.MAX_MISSED_PONGS + 1), bob);
+
+		assertEquals(CloseStatus.SESSION_NOT_RELIABLE, alice.getCloseStatus());
+		assertNull(bob.getCloseStatus());
+		assertEquals(1, handler.getActiveConnections());
+		assertEquals("leave", lastType(bob));
+	}
+
+	@Test
+	void requeuesAnswererWhenNoOfferArrives() throws Exception {
+		StubWebSocketSession alice = connect("alice");
+		StubWebSocketSession bob = connect("bob");
+		pair(alice, bob);
+
+		advance(TICKS_PER_PAIRING_TIMEOUT, alice, bob);
+
+		assertEquals("Your partner did not respond", lastReason(bob));
+		assertEquals("Your partner disconnected", lastReason(alice));
+		assertEquals(1, matchmaker.getWaitingCount());
+		assertEquals(0, handler.getActivePairs());
+
+		StubWebSocketSession carol = connect("carol");
+		send(carol, "{\"type\":\"ready_for_peer\"}");
+		assertEquals("initiateOffer", lastType(bob));
+	}
+
+	@Test
+	void requeuesOffererWhenNoAnswerArrives() throws Exception {
+		StubWebSocketSession alice = connect("alice");
+		StubWebSocketSession bob = connect("bob");
+		pair(alice, bob);
+		send(alice, OFFER);
+
+		advance(TICKS_PER_PAIRING_TIMEOUT, alice, bob);
+
+		assertEquals("Your partner did not respond", lastReason(alice));
+		assertEquals("Your partner disconnected", lastReason(bob));
+		assertEquals(1, matchmaker.getWaitingCount());
+	}
+
+	@Test
+	void leavesNegotiatedPairAlone() throws Exception {
+		StubWebSocketSession alice = connect("alice");
+		StubWebSocketSession bob = connect("bob");
+		pair(alice, bob);
+		send(alice, OFFER);
+		send(bob, ANSWER);
+
+		advance(TICKS_PER_PAIRING_TIMEOUT * 2, alice, bob);
+
+		assertEquals(1, handler.getActivePairs());
+		assertEquals("offer", lastType(bob));
+		assertEquals("answer", lastType(alice));
+	}
+
+	private StubWebSocketSession connect(String id) {
+		StubWebSocketSession session = new StubWebSocketSession(id);
+		handler.afterConnectionEstablished(session);
+		return session;
+	}
+
+	private void send(StubWebSocketSession session, String payload) throws Exception {
+		handler.handleMessage(session, new TextMessage(payload));
+	}
+
+	/**
+	 * Pairs the two users; {@code offerer} is asked to send the offer.
+	 */
+	private void pair(StubWebSocketSession offerer, StubWebSocketSession answerer) throws Exception {
+		send(offerer, "{\"type\":\"ready_for_peer\"}");
+		send(answerer, "{\"type\":\"ready_for_peer\"}");
+		assertEquals("initiateOffer", lastType(offerer));
+		assertEquals("waitForOffer", lastType(answerer));
+	}
+
+	/**
+	 * Ticks the wheel; the given sessions answer every ping straight away.
+	 */
+	private void advance(int ticks, StubWebSocketSession... responsive) throws Exception {
+		for (int i = 0; i < ticks; i++) {
+			timingWheel.tick();
+			for (StubWebSocketSession session : responsive) {
+				if (session.isOpen()) {
+					handler.handleMessage(session, new PongMessage());
+				}
+			}
+		}
+	}
+
+	private static long pings(StubWebSocketSession session) {
+		return session.getSentMessages().stream().filter(PingMessage.class::isInstance).count();
+	}
+
+	private List<JsonNode> frames(StubWebSocketSession session) throws Exception {
+		List<JsonNode> frames = new ArrayList<>();
+		for (WebSocketMessage<?> message : session.getSentMessages()) {
+			if (message instanceof TextMessage text) {
+				frames.add(objectMapper.readTree(text.getPayload()));
+			}
+		}
+		return frames;
+	}
+
+	private List<String> types(StubWebSocketSession session) throws Exception {
+		return frames(session).stream().map(frame -> frame.get("type").asText()).toList();
+	}
+
+	private String lastType(StubWebSocketSession session) throws Exception {
+		List<String> types = types(session);
+		return types.get(types.size() - 1);
+	}
+
+	private String lastReason(StubWebSocketSession session) throws Exception {
+		List<JsonNode> frames = frames(session);
+		return frames.get(frames.size() - 1).get("reason").asText();
+	}
+}
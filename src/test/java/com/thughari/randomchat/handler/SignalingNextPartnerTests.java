@@ -0,0 +1,120 @@
+package com.thughari.randomchat.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thughari.randomchat.component.Matchmaker;
+
+/**
+ * The "next" message: leaving a partner and finding a new one in one step.
+ */
+class SignalingNextPartnerTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private SignalingHandler handler;
+	private Matchmaker matchmaker;
+
+	@BeforeEach
+	void setUp() {
+		handler = SignalingHandlers.newSignalingHandler(new SignalingHandlers.DirectExecutorService());
+		matchmaker = (Matchmaker) ReflectionTestUtils.getField(handler, "matchmaker");
+	}
+
+	@Test
+	void nextPairsBothUsersWithWaitingUsers() throws Exception {
+		StubWebSocketSession alice = connect("alice");
+		StubWebSocketSession bob = connect("bob");
+		send(alice, "ready_for_peer");
+		send(bob, "ready_for_peer");
+		StubWebSocketSession carol = connect("carol");
+		StubWebSocketSession dave = connect("dave");
+		send(carol, "ready_for_peer");
+		send(dave, "ready_for_peer");
+		send(carol, "next");
+		assertEquals(2, matchmaker.getWaitingCount());
+
+		send(bob, "next");
+
+		assertEquals(List.of("initiateOffer", "leave", "waitForOffer"), types(alice));
+		assertEquals(List.of("waitForOffer", "waitForOffer"), types(bob));
+		assertEquals("initiateOffer", lastType(carol));
+		assertEquals("initiateOffer", lastType(dave));
+		assertEquals(0, matchmaker.getWaitingCount());
+	}
+
+	@Test
+	void nextDoesNotRematchTheSameTwoUsers() throws Exception {
+		StubWebSocketSession alice = connect("alice");
+		StubWebSocketSession bob = connect("bob");
+		send(alice, "ready_for_peer");
+		send(bob, "ready_for_peer");
+
+		send(alice, "next");
+		// The browser answers "leave" with ready_for_peer; it must not undo the skip
+		send(bob, "ready_for_peer");
+
+		assertEquals(List.of("waitForOffer", "leave"), types(bob));
+		assertEquals(List.of("initiateOffer"), types(alice));
+		assertEquals(2, matchmaker.getWaitingCount());
+
+		// Both stay available to everyone else, longest waiting first
+		StubWebSocketSession carol = connect("carol");
+		send(carol, "ready_for_peer");
+		assertEquals(List.of("initiateOffer", "initiateOffer"), types(alice));
+		assertEquals(List.of("waitForOffer"), types(carol));
+		assertEquals(1, matchmaker.getWaitingCount());
+	}
+
+	@Test
+	void nextIsUnderstoodInBinary() throws Exception {
+		StubWebSocketSession alice = connect("alice");
+		StubWebSocketSession bob = new StubWebSocketSession("bob", BinarySignaling.SUBPROTOCOL);
+		handler.afterConnectionEstablished(bob);
+		send(alice, "ready_for_peer");
+		send(bob, "ready_for_peer");
+
+		send(bob, "next");
+
+		assertEquals("leave", lastType(alice));
+		assertEquals(2, matchmaker.getWaitingCount());
+	}
+
+	private StubWebSocketSession connect(String id) {
+		StubWebSocketSession session = new StubWebSocketSession(id);
+		handler.afterConnectionEstablished(session);
+		return session;
+	}
+
+	private void send(StubWebSocketSession session, String type) throws Exception {
+		if (session.getAcceptedProtocol() != null) {
+			handler.handleMessage(session, new BinaryMessage(BinarySignaling.fromJson("{\"type\":\"" + type + "\"}")));
+		} else {
+			handler.handleMessage(session, new TextMessage("{\"type\":\"" + type + "\"}"));
+		}
+	}
+
+	private List<String> types(StubWebSocketSession session) throws Exception {
+		List<String> types = new ArrayList<>();
+		for (WebSocketMessage<?> message : session.getSentMessages()) {
+			if (message instanceof TextMessage text) {
+				types.add(objectMapper.readTree(text.getPayload()).get("type").asText());
+			}
+		}
+		return types;
+	}
+
+	private String lastType(StubWebSocketSession session) throws Exception {
+		List<String> types = types(session);
+		return types.get(types.size() - 1);
+	}
+}
@@ -0,0 +1,79 @@
+package com.thughari.randomchat.handler;
+
+/**
+ * Realistic signaling frames, as produced by script.js in Chrome, shared by tests and benchmarks.
+ */
+public final class SignalingPayloads {
+
+	public static final String SDP = String.join("\\r\\n",
+			"v=0",
+			"o=- 4611731400430051336 2 IN IP4 127.0.0.1",
+			"s=-",
+			"t=0 0",
+			"a=group:BUNDLE 0 1",
+			"a=extmap-allow-mixed",
+			"a=msid-semantic: WMS 3f2a1c",
+			"m=audio 9 UDP/TLS/RTP/SAVPF 111 63 9 0 8 13 110 126",
+			"c=IN IP4 0.0.0.0",
+			"a=rtcp:9 IN IP4 0.0.0.0",
+			"a=ice-ufrag:Xk7p",
+			"a=ice-pwd:Q2pXc3l0b3BhZ2VzZWNyZXRwdw",
+			"a=ice-options:trickle",
+			"a=fingerprint:sha-256 7B:8B:F0:65:5F:78:E2:51:3B:AC:6F:F3:3F:46:1B:35:DC:B8:5F:64:1A:24:C2:43:F0:A1:58:D0:A1:2C:19:08",
+			"a=setup:actpass",
+			"a=mid:0",
+			"a=extmap:1 urn:ietf:params:rtp-hdrext:ssrc-audio-level",
+			"a=extmap:2 http://www.webrtc.org/experiments/rtp-hdrext/abs-send-time",
+			"a=extmap:3 http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01",
+			"a=sendrecv",
+			"a=msid:3f2a1c 9c1d2e",
+			"a=rtcp-mux",
+			"a=rtpmap:111 opus/48000/2",
+			"a=rtcp-fb:111 transport-cc",
+			"a=fmtp:111 minptime=10;useinbandfec=1",
+			"a=rtpmap:63 red/48000/2",
+			"a=rtpmap:9 G722/8000",
+			"a=rtpmap:0 PCMU/8000",
+			"a=rtpmap:8 PCMA/8000",
+			"a=ssrc:1001 cname:4TOk42mSjXCkVIa6",
+			"m=video 9 UDP/TLS/RTP/SAVPF 96 97 102 103 104 105 106 107",
+			"c=IN IP4 0.0.0.0",
+			"a=rtcp:9 IN IP4 0.0.0.0",
+			"a=ice-ufrag:Xk7p",
+			"a=ice-pwd:Q2pXc3l0b3BhZ2VzZWNyZXRwdw",
+			"a=ice-options:trickle",
+			"a=fingerprint:sha-256 7B:8B:F0:65:5F:78:E2:51:3B:AC:6F:F3:3F:46:1B:35:DC:B8:5F:64:1A:24:C2:43:F0:A1:58:D0:A1:2C:19:08",
+			"a=setup:actpass",
+			"a=mid:1",
+			"a=sendrecv",
+			"a=rtcp-mux",
+			"a=rtcp-rsize",
+			"a=rtpmap:96 VP8/90000",
+			"a=rtcp-fb:96 goog-remb",
+			"a=rtcp-fb:96 transport-cc",
+			"a=rtcp-fb:96 ccm fir",
+			"a=rtcp-fb:96 nack",
+			"a=rtcp-fb:96 nack pli",
+			"a=rtpmap:97 rtx/90000",
+			"a=fmtp:97 apt=96",
+			"a=rtpmap:102 H264/90000",
+			"a=fmtp:102 level-asymmetry-allowed=1;packetization-mode=1;profile-level-id=42001f",
+			"a=ssrc-group:FID 2002 2003",
+			"a=ssrc:2002 cname:4TOk42mSjXCkVIa6",
+			"a=ssrc:2003 cname:4TOk42mSjXCkVIa6",
+			"");
+
+	public static final String OFFER = "{\"type\":\"offer\",\"offer\":{\"type\":\"offer\",\"sdp\":\"" + SDP + "\"}}";
+
+	public static final String ICE = "{\"type\":\"ice\",\"candidate\":{\"candidate\":"
+			+ "\"candidate:842163049 1 udp 1677729535 203.0.113.7 51234 typ srflx raddr 192.168.1.23 rport 51234 "
+			+ "generation 0 ufrag Xk7p network-cost 999\",\"sdpMid\":\"0\",\"sdpMLineIndex\":0,"
+			+ "\"usernameFragment\":\"Xk7p\"}}";
+
+	public static final String ANSWER = OFFER.replace("\"offer\"", "\"answer\"").replace("a=setup:actpass", "a=setup:active");
+
+	public static final String MEDIA_STATUS = "{\"type\":\"media_status\",\"kind\":\"video\",\"enabled\":false}";
+
+	private SignalingPayloads() {
+	}
+}
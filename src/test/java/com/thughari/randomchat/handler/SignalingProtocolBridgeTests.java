@@ -0,0 +1,106 @@
+package com.thughari.randomchat.handler;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Pairs users of the JSON and binary protocols and checks what each side receives.
+ */
+class SignalingProtocolBridgeTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private SignalingHandler handler;
+
+	@BeforeEach
+	void setUp() {
+		handler = SignalingHandlers.newSignalingHandler(new SignalingHandlers.DirectExecutorService());
+	}
+
+	@Test
+	void bridgesBetweenBinaryAndJsonUsers() throws Exception {
+		StubWebSocketSession binaryUser = connect("bin", BinarySignaling.SUBPROTOCOL);
+		StubWebSocketSession jsonUser = connect("json", null);
+
+		sendBinary(binaryUser, "{\"type\":\"ready_for_peer\"}");
+		send(jsonUser, "{\"type\":\"ready_for_peer\"}");
+		assertEquals("initiateOffer", BinarySignaling.typeOf(bytes(last(binaryUser))));
+		assertEquals("{\"type\": \"waitForOffer\"}", ((TextMessage) last(jsonUser)).getPayload());
+
+		sendBinary(binaryUser, SignalingPayloads.OFFER);
+		assertEquals(objectMapper.readTree(SignalingPayloads.OFFER),
+				objectMapper.readTree(((TextMessage) last(jsonUser)).getPayload()));
+
+		send(jsonUser, SignalingPayloads.ANSWER);
+		assertArrayEquals(BinarySignaling.fromJson(SignalingPayloads.ANSWER), bytes(last(binaryUser)));
+
+		send(jsonUser, "{\"type\":\"leave\"}");
+		assertEquals("{\"type\":\"leave\",\"reason\":\"Your partner disconnected\"}",
+				BinarySignaling.toJson(bytes(last(binaryUser))));
+	}
+
+	@Test
+	void forwardsBinaryFramesUntouchedBetweenBinaryUsers() throws Exception {
+		StubWebSocketSession alice = connect("alice", BinarySignaling.SUBPROTOCOL);
+		StubWebSocketSession bob = connect("bob", BinarySignaling.SUBPROTOCOL);
+		sendBinary(alice, "{\"type\":\"ready_for_peer\"}");
+		sendBinary(bob, "{\"type\":\"ready_for_peer\"}");
+
+		byte[] ice = BinarySignaling.fromJson(SignalingPayloads.ICE);
+		handler.handleMessage(alice, new BinaryMessage(ice));
+
+		assertArrayEquals(ice, bytes(last(bob)));
+	}
+
+	@Test
+	void closesJsonSessionThatSendsBinary() throws Exception {
+		StubWebSocketSession jsonUser = connect("json", null);
+
+		sendBinary(jsonUser, "{\"type\":\"ready_for_peer\"}");
+
+		assertEquals(CloseStatus.NOT_ACCEPTABLE.getCode(), jsonUser.getCloseStatus().getCode());
+	}
+
+	@Test
+	void advertisesBinarySubprotocol() {
+		assertEquals(List.of("randomchat.v2.bin"), handler.getSubProtocols());
+	}
+
+	private StubWebSocketSession connect(String id, String protocol) {
+		StubWebSocketSession session = new StubWebSocketSession(id, protocol);
+		handler.afterConnectionEstablished(session);
+		return session;
+	}
+
+	private void send(StubWebSocketSession session, String json) throws Exception {
+		handler.handleMessage(session, new TextMessage(json));
+	}
+
+	private void sendBinary(StubWebSocketSession session, String json) throws Exception {
+		handler.handleMessage(session, new BinaryMessage(BinarySignaling.fromJson(json)));
+	}
+
+	private static WebSocketMessage<?> last(StubWebSocketSession session) {
+		List<WebSocketMessage<?>> sent = session.getSentMessages();
+		return sent.get(sent.size() - 1);
+	}
+
+	private static byte[] bytes(WebSocketMessage<?> message) {
+		ByteBuffer payload = assertInstanceOf(BinaryMessage.class, message).getPayload().duplicate();
+		byte[] bytes = new byte[payload.remaining()];
+		payload.get(bytes);
+		return bytes;
+	}
+}
@@ -0,0 +1,212 @@
+package com.thughari.randomchat.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thughari.randomchat.component.Matchmaker;
+
+/**
+ * Resuming a pairing after the connection drops, with the timing wheel advanced by hand.
+ * The resume settings are those of {@link SignalingHandlers}.
+ */
+class SignalingResumeTests {
+
+	private static final String ICE = "{\"type\":\"ice\",\"candidate\":{\"candidate\":\"candidate:1 1 udp 1 10.0.0.1 9 typ host\",\"sdpMid\":\"0\",\"sdpMLineIndex\":0}}";
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private SignalingHandler handler;
+	private Matchmaker matchmaker;
+	private TimingWheel timingWheel;
+	private StubWebSocketSession alice;
+	private StubWebSocketSession bob;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		handler = SignalingHandlers.newSignalingHandler(new SignalingHandlers.DirectExecutorService());
+		ReflectionTestUtils.setField(handler, "resumeEnabled", true);
+		matchmaker = (Matchmaker) ReflectionTestUtils.getField(handler, "matchmaker");
+		timingWheel = SignalingHandlers.timingWheelOf(handler);
+		alice = connect("alice");
+		bob = connect("bob");
+		send(alice, "{\"type\":\"ready_for_peer\"}");
+		send(bob, "{\"type\":\"ready_for_peer\"}");
+	}
+
+	@Test
+	void resumesThePairingAndDeliversFramesSentMeanwhile() throws Exception {
+		drop(alice);
+		send(bob, SignalingPayloads.OFFER);
+
+		StubWebSocketSession resumed = connect("alice-2");
+		send(resumed, resume(tokenOf(alice)));
+		send(bob, ICE);
+
+		assertEquals(List.of("session", "resumed", "offer", "ice"), types(resumed));
+		assertEquals(List.of("session", "waitForOffer"), types(bob));
+		assertSame(sessionState(resumed), sessionState(bob).getPeer());
+		assertEquals(2, matchmaker.getPairedCount());
+
+		send(resumed, SignalingPayloads.ANSWER);
+		assertEquals("answer", last(bob).get("type").asText());
+	}
+
+	@Test
+	void tellsThePartnerOnceTheGracePeriodEnds() throws Exception {
+		drop(alice);
+		advance(SignalingHandlers.RESUME_GRACE_MILLIS - 2 * SignalingHandlers.TICK_MILLIS);
+		assertEquals("waitForOffer", last(bob).get("type").asText());
+
+		advance(2 * SignalingHandlers.TICK_MILLIS);
+		assertEquals("leave", last(bob).get("type").asText());
+		assertEquals(0, matchmaker.getPairedCount());
+
+		StubWebSocketSession late = connect("alice-2");
+		send(late, resume(tokenOf(alice)));
+		assertEquals("Your call could not be resumed", last(late).get("reason").asText());
+	}
+
+	@Test
+	void rejectsATokenItDidNotIssue() throws Exception {
+		String token = tokenOf(bob);
+		StubWebSocketSession impostor = connect("impostor");
+
+		send(impostor, resume("alice" + token.substring(token.indexOf('.'))));
+		send(impostor, resume("garbage"));
+
+		assertEquals(List.of("session", "leave", "leave"), types(impostor));
+		assertSame(sessionState(alice), sessionState(bob).getPeer());
+	}
+
+	@Test
+	void releasesAtOnceOnADeliberateClose() throws Exception {
+		alice.close(CloseStatus.GOING_AWAY);
+		handler.afterConnectionClosed(alice, CloseStatus.GOING_AWAY);
+
+		assertEquals("leave", last(bob).get("type").asText());
+	}
+
+	@Test
+	void givesUpWhenTooManyFramesAreBuffered() throws Exception {
+		drop(alice);
+		for (int i = 0; i < SignalingHandlers.RESUME_MAX_BUFFERED_FRAMES; i++) {
+			send(bob, ICE);
+		}
+		assertEquals("waitForOffer", last(bob).get("type").asText());
+
+		send(bob, ICE);
+		assertEquals("leave", last(bob).get("type").asText());
+		assertNull(sessionState(bob).getPeer());
+	}
+
+	@Test
+	void takesOverAConnectionTheServerStillThinksIsOpen() throws Exception {
+		StubWebSocketSession resumed = connect("alice-2");
+		send(resumed, resume(tokenOf(alice)));
+
+		assertEquals(CloseStatus.NORMAL.getCode(), alice.getCloseStatus().getCode());
+		assertNull(sessionState(alice));
+		assertSame(sessionState(resumed), sessionState(bob).getPeer());
+
+		// The old connection's close is then a no-op
+		handler.afterConnectionClosed(alice, alice.getCloseStatus());
+		assertEquals(List.of("session", "waitForOffer"), types(bob));
+	}
+
+	@Test
+	void resumesAcrossProtocols() throws Exception {
+		drop(alice);
+		send(bob, SignalingPayloads.OFFER);
+
+		StubWebSocketSession resumed = new StubWebSocketSession("alice-2", BinarySignaling.SUBPROTOCOL);
+		handler.afterConnectionEstablished(resumed);
+		handler.handleMessage(resumed, new BinaryMessage(BinarySignaling.fromJson(resume(tokenOf(alice)))));
+
+		List<String> types = new ArrayList<>();
+		for (WebSocketMessage<?> message : resumed.getSentMessages()) {
+			types.add(BinarySignaling.typeOf(((BinaryMessage) message).getPayload().array()));
+		}
+		assertEquals(List.of("session", "resumed", "offer"), types);
+	}
+
+	@Test
+	void tokensAreBoundToTheSessionAndTheNode() {
+		ResumeTokens tokens = new ResumeTokens();
+		String token = tokens.issue("abc");
+
+		assertEquals("abc", tokens.verify(token));
+		assertNull(tokens.verify("abd" + token.substring(3)));
+		assertNull(new ResumeTokens().verify(token));
+	}
+
+	/**
+	 * Ends the connection the way a network drop does: without a close frame.
+	 */
+	private void drop(StubWebSocketSession session) {
+		session.close(CloseStatus.NO_CLOSE_FRAME);
+		handler.afterConnectionClosed(session, CloseStatus.NO_CLOSE_FRAME);
+	}
+
+	private void advance(long millis) {
+		for (long i = 0; i < millis / SignalingHandlers.TICK_MILLIS; i++) {
+			timingWheel.tick();
+		}
+	}
+
+	private static String resume(String token) {
+		return "{\"type\":\"resume\",\"token\":\"" + token + "\"}";
+	}
+
+	private String tokenOf(StubWebSocketSession session) throws Exception {
+		return frames(session).get(0).get("token").asText();
+	}
+
+	private SessionState sessionState(StubWebSocketSession session) {
+		@SuppressWarnings("unchecked")
+		Map<String, SessionState> sessions = (Map<String, SessionState>) ReflectionTestUtils.getField(handler, "sessions");
+		return sessions.get(session.getId());
+	}
+
+	private StubWebSocketSession connect(String id) {
+		StubWebSocketSession session = new StubWebSocketSession(id);
+		handler.afterConnectionEstablished(session);
+		return session;
+	}
+
+	private void send(StubWebSocketSession session, String payload) throws Exception {
+		handler.handleMessage(session, new TextMessage(payload));
+	}
+
+	private List<JsonNode> frames(StubWebSocketSession session) throws Exception {
+		List<JsonNode> frames = new ArrayList<>();
+		for (WebSocketMessage<?> message : session.getSentMessages()) {
+			if (message instanceof TextMessage text) {
+				frames.add(objectMapper.readTree(text.getPayload()));
+			}
+		}
+		return frames;
+	}
+
+	private List<String> types(StubWebSocketSession session) throws Exception {
+		return frames(session).stream().map(frame -> frame.get("type").asText()).toList();
+	}
+
+	private JsonNode last(StubWebSocketSession session) throws Exception {
+		List<JsonNode> frames = frames(session);
+		return frames.get(frames.size() - 1);
+	}
+}
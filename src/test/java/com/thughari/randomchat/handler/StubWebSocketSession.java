@@ -0,0 +1,131 @@
+package com.thughari.randomchat.handler;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * In-memory {@link WebSocketSession} that records what the server sends to it.
+ */
+public class StubWebSocketSession implements WebSocketSession {
+
+	private final String id;
+	private final String acceptedProtocol;
+	private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+	private final List<WebSocketMessage<?>> sentMessages = new CopyOnWriteArrayList<>();
+	private volatile CloseStatus closeStatus;
+
+	public StubWebSocketSession(String id) {
+		this(id, null);
+	}
+
+	public StubWebSocketSession(String id, String acceptedProtocol) {
+		this.id = id;
+		this.acceptedProtocol = acceptedProtocol;
+	}
+
+	public List<WebSocketMessage<?>> getSentMessages() {
+		return sentMessages;
+	}
+
+	public CloseStatus getCloseStatus() {
+		return closeStatus;
+	}
+
+	@Override
+	public String getId() {
+		return id;
+	}
+
+	@Override
+	public URI getUri() {
+		return URI.create("ws://localhost/ws");
+	}
+
+	@Override
+	public HttpHeaders getHandshakeHeaders() {
+		return new HttpHeaders();
+	}
+
+	@Override
+	public Map<String, Object> getAttributes() {
+		return attributes;
+	}
+
+	@Override
+	public Principal getPrincipal() {
+		return null;
+	}
+
+	@Override
+	public InetSocketAddress getLocalAddress() {
+		return null;
+	}
+
+	@Override
+	public InetSocketAddress getRemoteAddress() {
+		return null;
+	}
+
+	@Override
+	public String getAcceptedProtocol() {
+		return acceptedProtocol;
+	}
+
+	@Override
+	public void setTextMessageSizeLimit(int messageSizeLimit) {
+	}
+
+	@Override
+	public int getTextMessageSizeLimit() {
+		return Integer.MAX_VALUE;
+	}
+
+	@Override
+	public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+	}
+
+	@Override
+	public int getBinaryMessageSizeLimit() {
+		return Integer.MAX_VALUE;
+	}
+
+	@Override
+	public List<WebSocketExtension> getExtensions() {
+		return Collections.emptyList();
+	}
+
+	@Override
+	public void sendMessage(WebSocketMessage<?> message) {
+		if (closeStatus != null) {
+			throw new IllegalStateException("Session " + id + " is closed");
+		}
+		sentMessages.add(message);
+	}
+
+	@Override
+	public boolean isOpen() {
+		return closeStatus == null;
+	}
+
+	@Override
+	public void close() {
+		close(CloseStatus.NORMAL);
+	}
+
+	@Override
+	public void close(CloseStatus status) {
+		closeStatus = status;
+	}
+}
@@ -0,0 +1,102 @@
+package com.thughari.randomchat.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTests {
+
+	private static void tick(TimingWheel wheel, int ticks) {
+		for (int i = 0; i < ticks; i++) {
+			wheel.tick();
+		}
+	}
+
+	@Test
+	void runsTaskOnceDelayHasPassed() {
+		TimingWheel wheel = new TimingWheel(100, 8);
+		AtomicInteger runs = new AtomicInteger();
+
+		wheel.schedule(runs::incrementAndGet, 250);
+
+		tick(wheel, 2);
+		assertEquals(0, runs.get(), "250 ms rounds up to 3 ticks");
+		wheel.tick();
+		assertEquals(1, runs.get());
+		tick(wheel, 20);
+		assertEquals(1, runs.get());
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	void keepsTimersLongerThanOneRotation() {
+		TimingWheel wheel = new TimingWheel(100, 8);
+		AtomicInteger runs = new AtomicInteger();
+
+		wheel.schedule(runs::incrementAndGet, 2_000);
+
+		tick(wheel, 19);
+		assertEquals(0, runs.get(), "the bucket comes round twice before the deadline");
+		wheel.tick();
+		assertEquals(1, runs.get());
+	}
+
+	@Test
+	void cancelledTaskNeverRuns() {
+		TimingWheel wheel = new TimingWheel(100, 8);
+		AtomicInteger runs = new AtomicInteger();
+
+		TimingWheel.Timeout early = wheel.schedule(runs::incrementAndGet, 300);
+		wheel.tick();
+		TimingWheel.Timeout late = wheel.schedule(runs::incrementAndGet, 300);
+
+		assertTrue(early.cancel());
+		assertTrue(late.cancel());
+		assertFalse(late.cancel());
+		tick(wheel, 10);
+
+		assertEquals(0, runs.get());
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	void tasksScheduledWhileExpiringRunOnALaterTick() {
+		TimingWheel wheel = new TimingWheel(100, 8);
+		List<String> runs = new ArrayList<>();
+
+		wheel.schedule(() -> {
+			runs.add("first");
+			wheel.schedule(() -> runs.add("second"), 100);
+		}, 100);
+
+		wheel.tick();
+		assertEquals(List.of("first"), runs);
+		wheel.tick();
+		assertEquals(List.of("first", "second"), runs);
+	}
+
+	@Test
+	void expiresManyTimersSpreadOverTheWheel() {
+		TimingWheel wheel = new TimingWheel(10, 256);
+		AtomicInteger runs = new AtomicInteger();
+		int timers = 100_000;
+
+		for (int i = 0; i < timers; i++) {
+			// Deadlines spread evenly over 1..500 ticks
+			wheel.schedule(runs::incrementAndGet, 10 * (1 + i % 500));
+		}
+		assertEquals(timers, wheel.size());
+
+		tick(wheel, 250);
+		assertEquals(timers / 2, runs.get());
+		tick(wheel, 250);
+		assertEquals(timers, runs.get());
+		assertEquals(0, wheel.size());
+	}
+}
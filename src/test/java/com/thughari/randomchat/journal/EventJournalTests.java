@@ -0,0 +1,186 @@
+package com.thughari.randomchat.journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class EventJournalTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void drainsEventsInTheOrderRecorded() {
+		EventJournal journal = new EventJournal(8);
+		long alice = EventJournal.keyOf("alice");
+		long bob = EventJournal.keyOf("bob");
+
+		journal.record(JournalEvent.CONNECTED, alice, 0, 1, 0);
+		journal.record(JournalEvent.PAIRED, alice, bob, 0, 1_500);
+		journal.record(JournalEvent.CLOSED, alice, 0, 1006, -1);
+
+		List<JournalRecord> records = drain(journal);
+		assertEquals(List.of(JournalEvent.CONNECTED, JournalEvent.PAIRED, JournalEvent.CLOSED),
+				records.stream().map(JournalRecord::event).toList());
+		assertEquals(new JournalRecord(records.get(1).epochMicros(), JournalEvent.PAIRED, alice, bob, 0, 1_500),
+				records.get(1));
+		assertEquals(1006, records.get(2).code());
+		assertEquals(-1, records.get(2).value());
+		assertTrue(records.get(0).epochMicros() <= records.get(2).epochMicros());
+	}
+
+	@Test
+	void dropsAndCountsEventsWhileFull() {
+		EventJournal journal = new EventJournal(4);
+
+		for (int i = 0; i < 6; i++) {
+			journal.record(JournalEvent.ENQUEUED, i + 1, 0, 0, i);
+		}
+
+		assertEquals(List.of(0, 1, 2, 3), drain(journal).stream().map(JournalRecord::value).toList());
+		assertEquals(2, journal.getDropped());
+		journal.record(JournalEvent.ENQUEUED, 7, 0, 0, 6);
+		assertEquals(6, drain(journal).get(0).value());
+	}
+
+	@Test
+	void concurrentProducersLoseNothingButDrops() throws Exception {
+		int producers = 4;
+		int eventsEach = 50_000;
+		EventJournal journal = new EventJournal(1024);
+		ExecutorService executor = Executors.newFixedThreadPool(producers);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			int producer = p;
+			futures.add(executor.submit(() -> {
+				start.await();
+				for (int i = 0; i < eventsEach; i++) {
+					journal.record(JournalEvent.RELAYED, producer, 0, 18, i);
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+
+		int[] lastValue = { -1, -1, -1, -1 };
+		long drained = 0;
+		while (!futures.stream().allMatch(Future::isDone)) {
+			drained += drainChecked(journal, lastValue);
+		}
+		drained += drainChecked(journal, lastValue);
+		executor.shutdown();
+
+		assertEquals((long) producers * eventsEach, drained + journal.getDropped());
+	}
+
+	@Test
+	void writesRotatingFilesThatReadBackAsCsv() throws Exception {
+		// Room for three records per file
+		int fileBytes = JournalFiles.HEADER_BYTES + 3 * JournalFiles.RECORD_BYTES;
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		EventJournal journal = new EventJournal(true, directory.toString(), 64, fileBytes, 2, 10, registry);
+		journal.start();
+		for (int i = 0; i < 8; i++) {
+			journal.record(JournalEvent.RELAYED, EventJournal.keyOf("alice"), 0, 16, i);
+		}
+		journal.stop();
+
+		List<Path> files = JournalFiles.list(directory);
+		assertEquals(2, files.size());
+		List<JournalRecord> records = new ArrayList<>();
+		for (Path file : files) {
+			JournalReader.read(file, records::add);
+		}
+		// The oldest file, holding the first three, was deleted; the newest is not full
+		assertEquals(List.of(3, 4, 5, 6, 7), records.stream().map(JournalRecord::value).toList());
+		assertEquals(8.0, registry.get("journal.events.written").functionCounter().count());
+
+		String csv = exportCsv(directory.toString());
+		String[] lines = csv.split("\n");
+		assertEquals(JournalRecord.CSV_HEADER, lines[0]);
+		assertEquals(6, lines.length);
+		String[] columns = lines[1].split(",");
+		assertEquals("RELAYED", columns[1]);
+		assertEquals(String.format("%016x", EventJournal.keyOf("alice")), columns[2]);
+		assertEquals("", columns[3]);
+		assertEquals("offer", columns[4]);
+		assertEquals("3", columns[5]);
+	}
+
+	@Test
+	void refusesFilesThatAreNotJournals() throws IOException {
+		Path file = Files.writeString(directory.resolve("events-0.journal"), "not a journal at all");
+
+		assertFalse(isReadable(file));
+	}
+
+	@Test
+	void recordsNothingWhenDisabled() throws Exception {
+		EventJournal journal = new EventJournal(false, directory.toString(), 64, 4096, 2, 10, new SimpleMeterRegistry());
+		journal.start();
+
+		journal.record(JournalEvent.CONNECTED, 1, 0, 0, 0);
+
+		assertEquals(0, journal.drain(record -> {
+		}));
+		assertEquals(List.of(), JournalFiles.list(directory));
+	}
+
+	private static List<JournalRecord> drain(EventJournal journal) {
+		List<JournalRecord> records = new ArrayList<>();
+		journal.drain(records::add);
+		return records;
+	}
+
+	/**
+	 * Drains, checking that each producer's events arrive in the order it recorded them.
+	 */
+	private static int drainChecked(EventJournal journal, int[] lastValue) {
+		return journal.drain(record -> {
+			int producer = (int) record.session();
+			assertTrue(record.value() > lastValue[producer], "out of order");
+			lastValue[producer] = record.value();
+		});
+	}
+
+	private static boolean isReadable(Path file) {
+		try {
+			JournalReader.read(file, record -> {
+			});
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	private static String exportCsv(String... args) throws IOException {
+		PrintStream out = System.out;
+		ByteArrayOutputStream captured = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(captured, true, StandardCharsets.UTF_8));
+		try {
+			JournalReader.main(args);
+		} finally {
+			System.setOut(out);
+		}
+		return captured.toString(StandardCharsets.UTF_8);
+	}
+}
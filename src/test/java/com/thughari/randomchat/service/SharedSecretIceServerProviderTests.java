@@ -0,0 +1,85 @@
+package com.thughari.randomchat.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.Test;
+
+class SharedSecretIceServerProviderTests {
+
+	private static final String SECRET = "north-pole-turn-secret";
+	private static final Clock CLOCK = Clock.fixed(Instant.ofEpochSecond(1_700_000_000), ZoneOffset.UTC);
+
+	private final SharedSecretIceServerProvider provider = new SharedSecretIceServerProvider(SECRET,
+			List.of("turn:turn.example.com:3478?transport=udp"), 600, CLOCK);
+
+	private static String hmacSha1Base64(String secret, String message) throws Exception {
+		Mac mac = Mac.getInstance("HmacSHA1");
+		mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA1"));
+		return Base64.getEncoder().encodeToString(mac.doFinal(message.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	void mintsCoturnRestApiCredentials() throws Exception {
+		IceServersSnapshot snapshot = provider.getIceServers();
+
+		assertEquals(2, snapshot.servers().size());
+		assertEquals(IceServerProvider.PUBLIC_STUN_SERVER, snapshot.servers().get(0));
+		Map<String, String> turn = snapshot.servers().get(1);
+		assertEquals("turn:turn.example.com:3478?transport=udp", turn.get("urls"));
+
+		String username = turn.get("username");
+		assertTrue(username.matches("1700000600:[0-9a-f]{16}"), username);
+		assertEquals(hmacSha1Base64(SECRET, username), turn.get("credential"));
+		assertEquals(1_700_000_600_000L, snapshot.expiresAtMillis());
+	}
+
+	@Test
+	void listsEachTurnUrlAsItsOwnServer() {
+		SharedSecretIceServerProvider twoUrls = new SharedSecretIceServerProvider(SECRET,
+				List.of("turn:turn.example.com:3478?transport=udp", " turns:turn.example.com:5349?transport=tcp"), 600, CLOCK);
+
+		List<Map<String, String>> servers = twoUrls.getIceServers().servers();
+
+		assertEquals(3, servers.size());
+		assertEquals("turn:turn.example.com:3478?transport=udp", servers.get(1).get("urls"));
+		assertEquals("turns:turn.example.com:5349?transport=tcp", servers.get(2).get("urls"));
+		assertEquals(servers.get(1).get("username"), servers.get(2).get("username"));
+		assertEquals(servers.get(1).get("credential"), servers.get(2).get("credential"));
+	}
+
+	@Test
+	void everyRequestGetsItsOwnCredentials() {
+		Map<String, String> first = provider.getIceServers().servers().get(1);
+		Map<String, String> second = provider.getIceServers().servers().get(1);
+
+		assertNotEquals(first.get("username"), second.get("username"));
+		assertNotEquals(first.get("credential"), second.get("credential"));
+	}
+
+	@Test
+	void credentialIsBase64HmacSha1() {
+		// RFC 2202 test case 2
+		SharedSecretIceServerProvider rfcProvider = new SharedSecretIceServerProvider("Jefe", List.of("turn:t"), 600, CLOCK);
+		assertEquals("7/zfauXrL6LSdBbV8YTfnCWafHk=", rfcProvider.credentialFor("what do ya want for nothing?"));
+	}
+
+	@Test
+	void unavailableWithoutSecretOrUrls() {
+		assertNull(new SharedSecretIceServerProvider("", List.of("turn:turn.example.com"), 600, CLOCK).getIceServers());
+		assertNull(new SharedSecretIceServerProvider(SECRET, List.of(), 600, CLOCK).getIceServers());
+	}
+}
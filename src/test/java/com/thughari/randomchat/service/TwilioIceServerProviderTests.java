@@ -0,0 +1,146 @@
+package com.thughari.randomchat.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import com.thughari.randomchat.component.TurnConfigMetrics;
+import com.thughari.randomchat.component.TwilioHttpClient;
+import com.thughari.randomchat.exceptions.TwilioClientException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class TwilioIceServerProviderTests {
+
+	private static String tokensResponse(String username, int ttlSeconds) {
+		return """
+				{"ttl":"%d","ice_servers":[
+				{"urls":"stun:global.stun.twilio.com:3478"},
+				{"urls":"turn:global.turn.twilio.com:3478?transport=udp","username":"%s","credential":"c"}]}
+				""".formatted(ttlSeconds, username);
+	}
+
+	private static final class FakeTwilioHttpClient extends TwilioHttpClient {
+
+		private final AtomicInteger fetches = new AtomicInteger();
+		private volatile Supplier<Mono<String>> response;
+
+		@Override
+		public Mono<String> fetchTwilioTokens() {
+			return Mono.defer(() -> {
+				fetches.incrementAndGet();
+				return response.get();
+			});
+		}
+	}
+
+	private final FakeTwilioHttpClient twilio = new FakeTwilioHttpClient();
+
+	private TwilioIceServerProvider newProvider(double refreshAheadRatio, long initialBackoffMillis) {
+		return new TwilioIceServerProvider(twilio, new TurnConfigMetrics(new SimpleMeterRegistry()),
+				refreshAheadRatio, initialBackoffMillis, 10_000, 5_000);
+	}
+
+	private static String turnUsername(IceServersSnapshot snapshot) {
+		return snapshot.servers().stream()
+				.filter(server -> server.get("urls").startsWith("turn:"))
+				.map(server -> server.get("username"))
+				.findFirst()
+				.orElse(null);
+	}
+
+	@Test
+	void concurrentColdStartRequestsShareOneFetch() throws Exception {
+		twilio.response = () -> Mono.just(tokensResponse("u1", 3600)).delayElement(Duration.ofMillis(200));
+		TwilioIceServerProvider provider = newProvider(0.8, 1_000);
+
+		ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<IceServersSnapshot>> results = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			results.add(executor.submit(() -> {
+				start.await();
+				return provider.getIceServers();
+			}));
+		}
+		start.countDown();
+
+		for (Future<IceServersSnapshot> result : results) {
+			assertEquals("u1", turnUsername(result.get(5, TimeUnit.SECONDS)));
+		}
+		executor.shutdown();
+		assertEquals(1, twilio.fetches.get());
+	}
+
+	@Test
+	void servesCachedValueWhileRefreshingAhead() throws Exception {
+		twilio.response = () -> Mono.just(tokensResponse("u1", 1));
+		TwilioIceServerProvider provider = newProvider(0.3, 1_000);
+		assertEquals("u1", turnUsername(provider.getIceServers()));
+
+		Thread.sleep(400);
+		twilio.response = () -> Mono.just(tokensResponse("u2", 1)).delayElement(Duration.ofMillis(300));
+
+		long start = System.nanoTime();
+		assertEquals("u1", turnUsername(provider.getIceServers()));
+		assertEquals("u1", turnUsername(provider.getIceServers()));
+		assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(200), "request waited for the refresh");
+		assertEquals(2, twilio.fetches.get());
+
+		Thread.sleep(500);
+		assertEquals("u2", turnUsername(provider.getIceServers()));
+	}
+
+	@Test
+	void keepsLastGoodValueAndRetriesWithBackoff() throws Exception {
+		twilio.response = () -> Mono.just(tokensResponse("u1", 5));
+		TwilioIceServerProvider provider = newProvider(0.02, 300);
+		provider.getIceServers();
+
+		Thread.sleep(150);
+		twilio.response = () -> Mono.error(new TwilioClientException("Twilio API returned an HTTP error: 503"));
+
+		assertEquals("u1", turnUsername(provider.getIceServers()));
+		assertEquals(2, twilio.fetches.get());
+
+		// Within the backoff window: no new attempt, still the last good credentials
+		assertEquals("u1", turnUsername(provider.getIceServers()));
+		assertEquals(2, twilio.fetches.get());
+
+		Thread.sleep(400);
+		twilio.response = () -> Mono.just(tokensResponse("u2", 5));
+		provider.getIceServers();
+		assertEquals(3, twilio.fetches.get());
+		assertEquals("u2", turnUsername(provider.getIceServers()));
+	}
+
+	@Test
+	void unavailableAfterColdStartFailureUntilRetrySucceeds() throws Exception {
+		twilio.response = () -> Mono.error(new TwilioClientException("Network error connecting to Twilio API"));
+		TwilioIceServerProvider provider = newProvider(0.8, 200);
+
+		assertNull(provider.getIceServers());
+		assertNull(provider.getIceServers());
+		assertEquals(1, twilio.fetches.get());
+
+		twilio.response = () -> Mono.just(tokensResponse("u1", 3600));
+		Thread.sleep(300);
+		provider.getIceServers();
+		assertEquals(2, twilio.fetches.get());
+		assertEquals("u1", turnUsername(provider.getIceServers()));
+	}
+}
@@ -0,0 +1,80 @@
+package com.thughari.randomchat.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thughari.randomchat.component.TurnConfigMetrics;
+import com.thughari.randomchat.journal.EventJournal;
+import com.thughari.randomchat.journal.JournalEvent;
+import com.thughari.randomchat.journal.JournalRecord;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TwilioTurnServiceTests {
+
+	private static final IceServersSnapshot TURN = IceServersSnapshot.of(new ObjectMapper(),
+			List.of(IceServerProvider.PUBLIC_STUN_SERVER, Map.of("urls", "turn:a", "username", "u", "credential", "c")),
+			Long.MAX_VALUE);
+
+	private record StubProvider(String getName, IceServersSnapshot getIceServers) implements IceServerProvider {
+	}
+
+	private final EventJournal eventJournal = new EventJournal(16);
+
+	private TwilioTurnService service(List<String> order, IceServerProvider... providers) {
+		return new TwilioTurnService(List.of(providers), new TurnConfigMetrics(new SimpleMeterRegistry()), eventJournal,
+				order);
+	}
+
+	private List<JournalRecord> journal() {
+		List<JournalRecord> records = new ArrayList<>();
+		eventJournal.drain(records::add);
+		return records;
+	}
+
+	@Test
+	void usesFirstProviderInConfiguredOrder() {
+		IceServersSnapshot other = IceServersSnapshot.of(new ObjectMapper(), List.of(Map.of("urls", "turn:b")), Long.MAX_VALUE);
+		TwilioTurnService service = service(List.of("shared-secret", "twilio"),
+				new StubProvider("twilio", other), new StubProvider("shared-secret", TURN));
+
+		assertSame(TURN, service.getIceServersSnapshot());
+		assertEquals(List.of(), journal());
+	}
+
+	@Test
+	void fallsThroughUnavailableProviders() {
+		TwilioTurnService service = service(List.of("shared-secret", "twilio"),
+				new StubProvider("twilio", TURN), new StubProvider("shared-secret", null));
+
+		assertSame(TURN, service.getIceServersSnapshot());
+		JournalRecord fallback = journal().get(0);
+		assertEquals(JournalEvent.ICE_PROVIDER_FALLBACK, fallback.event());
+		assertEquals(1, fallback.code());
+	}
+
+	@Test
+	void servesShortLivedStunOnlyWhenNoProviderIsAvailable() {
+		TwilioTurnService service = service(List.of("twilio"), new StubProvider("twilio", null));
+
+		IceServersSnapshot snapshot = service.getIceServersSnapshot();
+		assertEquals(List.of(IceServerProvider.PUBLIC_STUN_SERVER), snapshot.servers());
+		long maxAge = snapshot.remainingLifetimeSeconds(System.currentTimeMillis());
+		assertTrue(maxAge > 0 && maxAge <= 30, "max-age " + maxAge);
+		assertEquals(List.of(JournalEvent.STUN_FALLBACK), journal().stream().map(JournalRecord::event).toList());
+	}
+
+	@Test
+	void rejectsUnknownProviderNames() {
+		assertThrows(IllegalStateException.class, () -> service(List.of("coturn"), new StubProvider("twilio", TURN)));
+	}
+}